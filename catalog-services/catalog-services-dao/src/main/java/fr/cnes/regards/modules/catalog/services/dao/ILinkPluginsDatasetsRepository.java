@@ -18,6 +18,8 @@
  */
 package fr.cnes.regards.modules.catalog.services.dao;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
@@ -32,4 +34,8 @@ public interface ILinkPluginsDatasetsRepository extends JpaRepository<LinkPlugin
     @EntityGraph(attributePaths = { "services" })
     LinkPluginsDatasets findOneByDatasetId(String pDatasetId);
 
+    @Override
+    @EntityGraph(attributePaths = { "services" })
+    List<LinkPluginsDatasets> findAll();
+
 }
@@ -49,4 +49,28 @@ public @interface CatalogServicePlugin {
      */
     EntityType[] entityTypes();
 
+    /**
+     * Whether an instance of the annotated type may be applied again once an application is done with it. By default, a
+     * new instance is created for each application.
+     */
+    boolean reusable() default false;
+
+    /**
+     * Whether an instance of the annotated type may be used by concurrent applications, i.e. it has no mutable state.
+     * Thread safe plugins are also reusable.
+     */
+    boolean threadSafe() default false;
+
+    /**
+     * Whether the annotated type may also be applied as an asynchronous job whose result is fetched later. Use it for
+     * long running services.
+     */
+    boolean async() default false;
+
+    /**
+     * Whether the annotated type always gives the same result for the same configuration, parameters, selection and
+     * catalog data. Results of deterministic plugins may be served from a cache.
+     */
+    boolean deterministic() default false;
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.domain.annotations;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.core.annotation.AnnotationUtils;
+
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.urn.EntityType;
+import fr.cnes.regards.framework.utils.plugins.PluginUtilsRuntimeException;
+import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
+
+/**
+ * {@link CatalogServicePlugin} annotation values of a plugin class, read once per class.<br/>
+ * Values are kept as {@link EnumSet} so that scope filtering is a bit mask test.
+ *
+ * @author REGARDS Team
+ */
+public final class CatalogServicePluginMetadata {
+
+    /**
+     * Metadata by plugin class name
+     */
+    private static final ConcurrentMap<String, CatalogServicePluginMetadata> REGISTRY = new ConcurrentHashMap<>();
+
+    private final EnumSet<ServiceScope> applicationModes;
+
+    private final EnumSet<EntityType> entityTypes;
+
+    private final boolean reusable;
+
+    private final boolean threadSafe;
+
+    private final boolean async;
+
+    private final boolean deterministic;
+
+    private CatalogServicePluginMetadata(CatalogServicePlugin annotation) {
+        applicationModes = EnumSet.noneOf(ServiceScope.class);
+        entityTypes = EnumSet.noneOf(EntityType.class);
+        if (annotation != null) {
+            applicationModes.addAll(Arrays.asList(annotation.applicationModes()));
+            entityTypes.addAll(Arrays.asList(annotation.entityTypes()));
+        }
+        threadSafe = (annotation != null) && annotation.threadSafe();
+        reusable = threadSafe || ((annotation != null) && annotation.reusable());
+        async = (annotation != null) && annotation.async();
+        deterministic = (annotation != null) && annotation.deterministic();
+    }
+
+    /**
+     * Read and register metadata of the given plugin class if not already done
+     *
+     * @param pluginClassName plugin class name
+     * @return plugin class metadata
+     * @throws PluginUtilsRuntimeException if plugin class cannot be loaded
+     */
+    public static CatalogServicePluginMetadata register(String pluginClassName) {
+        return REGISTRY.computeIfAbsent(pluginClassName, className -> {
+            try {
+                return new CatalogServicePluginMetadata(AnnotationUtils
+                        .findAnnotation(Class.forName(className), CatalogServicePlugin.class));
+            } catch (ClassNotFoundException e) {
+                // No exception should occurs there. If any occurs it should set the application into maintenance
+                // mode so we can safely rethrow as a runtime. Nothing is registered.
+                throw new PluginUtilsRuntimeException("Could not instanciate plugin", e);
+            }
+        });
+    }
+
+    /**
+     * @return metadata of the plugin of the given configuration, registered on first call
+     * @throws PluginUtilsRuntimeException if plugin class cannot be loaded
+     */
+    public static CatalogServicePluginMetadata of(PluginConfiguration pluginConfiguration) {
+        return register(pluginConfiguration.getPluginClassName());
+    }
+
+    /**
+     * @param serviceScopes scopes as an {@link EnumSet} for a bit mask comparison
+     * @return true if the plugin can be applied on all given scopes
+     */
+    public boolean isApplicableOn(EnumSet<ServiceScope> serviceScopes) {
+        return applicationModes.containsAll(serviceScopes);
+    }
+
+    /**
+     * @return an {@link EnumSet} of the given scopes, null or empty collection gives an empty set
+     */
+    public static EnumSet<ServiceScope> toEnumSet(Collection<ServiceScope> serviceScopes) {
+        EnumSet<ServiceScope> scopes = EnumSet.noneOf(ServiceScope.class);
+        if (serviceScopes != null) {
+            scopes.addAll(serviceScopes);
+        }
+        return scopes;
+    }
+
+    /**
+     * @return the application modes
+     */
+    public Set<ServiceScope> getApplicationModes() {
+        return Collections.unmodifiableSet(applicationModes);
+    }
+
+    /**
+     * @return the entity types
+     */
+    public Set<EntityType> getEntityTypes() {
+        return Collections.unmodifiableSet(entityTypes);
+    }
+
+    /**
+     * @return true if a plugin instance may be applied again once an application is done with it
+     */
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * @return true if a plugin instance may be shared between concurrent applications
+     */
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /**
+     * @return true if plugin may be applied as an asynchronous job
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return true if plugin results may be cached
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+}
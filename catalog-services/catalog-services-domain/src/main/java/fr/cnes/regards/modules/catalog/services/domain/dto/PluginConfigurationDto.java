@@ -19,15 +19,13 @@
 package fr.cnes.regards.modules.catalog.services.domain.dto;
 
 import java.util.Set;
-import java.util.function.Function;
 
 import com.google.common.collect.Sets;
 
 import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
 import fr.cnes.regards.framework.urn.EntityType;
 import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
-import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin;
-import fr.cnes.regards.modules.catalog.services.domain.annotations.GetCatalogServicePluginAnnotation;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePluginMetadata;
 
 /**
  * Adds the given applicationModes and the entityTypes to a {@link PluginConfiguration}
@@ -40,11 +38,6 @@ public class PluginConfigurationDto extends PluginConfiguration {
 
     private final Set<EntityType> entityTypes;
 
-    /**
-     * Finds the application mode of the given plugin configuration
-     */
-    private static final Function<PluginConfiguration, CatalogServicePlugin> GET_CATALOG_SERVICE_PLUGIN_ANNOTATION = new GetCatalogServicePluginAnnotation();
-
     /**
      * For a {@link PluginConfiguration}, return its corresponding DTO, in which we have added fields <code>applicationModes</code>
      * and <code>entityTypes</code>
@@ -59,9 +52,9 @@ public class PluginConfigurationDto extends PluginConfiguration {
         setVersion(pluginConfiguration.getVersion());
         setIconUrl(pluginConfiguration.getIconUrl());
         setBusinessId(pluginConfiguration.getBusinessId());
-        applicationModes = Sets
-                .newHashSet(GET_CATALOG_SERVICE_PLUGIN_ANNOTATION.apply(pluginConfiguration).applicationModes());
-        entityTypes = Sets.newHashSet(GET_CATALOG_SERVICE_PLUGIN_ANNOTATION.apply(pluginConfiguration).entityTypes());
+        CatalogServicePluginMetadata metadata = CatalogServicePluginMetadata.of(pluginConfiguration);
+        applicationModes = Sets.newHashSet(metadata.getApplicationModes());
+        entityTypes = Sets.newHashSet(metadata.getEntityTypes());
     }
 
     /**
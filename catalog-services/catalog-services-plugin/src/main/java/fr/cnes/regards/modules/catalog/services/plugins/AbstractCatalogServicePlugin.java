@@ -26,6 +26,9 @@ import fr.cnes.regards.framework.modules.plugins.annotations.PluginParameter;
  * <li>applyToAllDatasets : Is used by service manager to know if the plugin is associated to all datasets.<br/>
  * See ServiceManager#getServicesAssociatedToAllDatasets() from catalog-services-service
  * </li>
+ * <li>maxDuration, maxEntities, maxResponseSize : Are used by service manager to limit each application of the
+ * configuration. See ServiceBudgetPolicy from catalog-services-service
+ * </li>
  * </ul>
  *
  * @author Sébastien Binda
@@ -38,6 +41,21 @@ public class AbstractCatalogServicePlugin {
      */
     public static final String APPLY_TO_ALL_DATASETS_PARAM = "applyToAllDatasets";
 
+    /**
+     * Plugin parameter name of the maximum duration of an application in seconds
+     */
+    public static final String MAX_DURATION_PARAM = "maxDuration";
+
+    /**
+     * Plugin parameter name of the maximum number of entities fetched by an application
+     */
+    public static final String MAX_ENTITIES_PARAM = "maxEntities";
+
+    /**
+     * Plugin parameter name of the maximum response size of an application in bytes
+     */
+    public static final String MAX_RESPONSE_SIZE_PARAM = "maxResponseSize";
+
     /**
      * Plugin parameter to define if the service is automatically appliable to all datasets of the catalog.
      * NOTE : This parameter is private because it is never used in plugins implementation it is only used by the serviceManager
@@ -48,4 +66,26 @@ public class AbstractCatalogServicePlugin {
             defaultValue = "false", optional = false)
     private Boolean applyToAllDatasets;
 
+    /**
+     * Plugin parameters to limit each application of the service. Missing values fall back to the rs-catalog
+     * defaults, zero means unlimited.
+     * NOTE : These parameters are private because they are only used by the serviceManager
+     */
+    @PluginParameter(name = AbstractCatalogServicePlugin.MAX_DURATION_PARAM, label = "Maximum duration (s)",
+            description = "Maximum duration of each application of this service in seconds. 0 means unlimited. "
+                    + "The service is interrupted once it runs out of time. Defaults to the rs-catalog setting.",
+            optional = true)
+    private Long maxDuration;
+
+    @PluginParameter(name = AbstractCatalogServicePlugin.MAX_ENTITIES_PARAM, label = "Maximum number of entities",
+            description = "Maximum number of entities fetched by each application of this service. 0 means unlimited.",
+            optional = true)
+    private Long maxEntities;
+
+    @PluginParameter(name = AbstractCatalogServicePlugin.MAX_RESPONSE_SIZE_PARAM,
+            label = "Maximum response size (bytes)",
+            description = "Maximum response size of each application of this service in bytes. 0 means unlimited.",
+            optional = true)
+    private Long maxResponseSize;
+
 }
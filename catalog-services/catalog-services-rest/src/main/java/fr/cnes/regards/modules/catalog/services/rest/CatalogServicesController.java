@@ -23,6 +23,7 @@ import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -44,6 +45,8 @@ import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
 import fr.cnes.regards.modules.catalog.services.domain.dto.PluginConfigurationDto;
 import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
 import fr.cnes.regards.modules.catalog.services.service.IServiceManager;
+import fr.cnes.regards.modules.catalog.services.service.job.IServiceJobManager;
+import fr.cnes.regards.modules.catalog.services.service.job.ServiceJob;
 import fr.cnes.regards.modules.dam.domain.entities.Dataset;
 
 /**
@@ -60,6 +63,12 @@ public class CatalogServicesController {
 
     public static final String PATH_SERVICE_NAME = "/{pluginConfigurationBusinessId}/apply";
 
+    public static final String PATH_SERVICE_JOBS = "/{pluginConfigurationBusinessId}/jobs";
+
+    public static final String PATH_JOB = "/jobs/{jobId}";
+
+    public static final String PATH_JOB_RESULT = PATH_JOB + "/result";
+
     public static final String DATASET_IDS_QUERY_PARAM = "datasetIpIds";
 
     public static final String SCOPES_QUERY_PARAM = "applicationModes";
@@ -70,6 +79,12 @@ public class CatalogServicesController {
     @Autowired
     private IServiceManager serviceManager;
 
+    /**
+     * {@link IServiceJobManager} instance
+     */
+    @Autowired
+    private IServiceJobManager serviceJobManager;
+
     /**
      * Retrieve all PluginConfiguration in the system for plugins of type {@link IService} linked to a dataset.
      * The results are augmented with their <code>applicationModes</code> & <code>entityTypes</code> info via a DTO.
@@ -109,4 +124,79 @@ public class CatalogServicesController {
         return serviceManager.apply(pluginConfigurationBusinessId, pServiceParameters, response);
     }
 
+    /**
+     * Submit an asynchronous job applying the given service. Only available for services declared as asynchronous.
+     * <p>Jobs and their results are kept in memory and on the local disk of the instance the job was submitted to, they
+     * are neither persisted nor shared. Following, cancelling or downloading a job therefore requires the requests to
+     * reach the same instance (i.e. sticky sessions), other instances respond 404 as they would for an unknown job.
+     * Jobs are lost when their instance stops.
+     *
+     * @param pluginConfigurationBusinessId
+     *            plugin configuration to run
+     * @return the submitted job, follow it with {@link #PATH_JOB}
+     * @throws ModuleException
+     */
+    @RequestMapping(method = RequestMethod.POST, path = PATH_SERVICE_JOBS)
+    @ResourceAccess(description = "Submit a job applying a given plugin service. Job only exists on the instance it "
+            + "was submitted to.", role = DefaultRole.PUBLIC)
+    public ResponseEntity<ServiceJob> submitServiceJob(
+            @PathVariable("pluginConfigurationBusinessId") final String pluginConfigurationBusinessId,
+            @RequestBody ServicePluginParameters pServiceParameters) throws ModuleException {
+        return new ResponseEntity<>(serviceJobManager.submit(pluginConfigurationBusinessId, pServiceParameters),
+                HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Retrieve status and progress of a job submitted by the current user, only known by the instance the job was
+     * submitted to
+     *
+     * @param jobId
+     *            job identifier
+     * @return the job
+     * @throws ModuleException
+     */
+    @RequestMapping(method = RequestMethod.GET, path = PATH_JOB)
+    @ResourceAccess(description = "Retrieve a plugin service job. Only available on the instance the job was "
+            + "submitted to.", role = DefaultRole.PUBLIC)
+    public ResponseEntity<ServiceJob> retrieveServiceJob(@PathVariable("jobId") final String jobId)
+            throws ModuleException {
+        return new ResponseEntity<>(serviceJobManager.getJob(jobId), HttpStatus.OK);
+    }
+
+    /**
+     * Cancel an unfinished job submitted by the current user, or delete a finished one and its result. Only available
+     * on the instance the job was submitted to.
+     *
+     * @param jobId
+     *            job identifier
+     * @return the job
+     * @throws ModuleException
+     */
+    @RequestMapping(method = RequestMethod.DELETE, path = PATH_JOB)
+    @ResourceAccess(description = "Cancel a plugin service job or delete its result. Only available on the "
+            + "instance the job was submitted to.", role = DefaultRole.PUBLIC)
+    public ResponseEntity<ServiceJob> deleteServiceJob(@PathVariable("jobId") final String jobId)
+            throws ModuleException {
+        return new ResponseEntity<>(serviceJobManager.cancel(jobId), HttpStatus.OK);
+    }
+
+    /**
+     * Download the result of a succeeded job submitted by the current user. The result is spooled on the local disk
+     * of the instance the job was submitted to and can only be downloaded from it.
+     * The spooled result is written synchronously so that no asynchronous request timeout applies, even to large
+     * results, and byte ranges are supported to resume a download.
+     *
+     * @param jobId
+     *            job identifier
+     * @return whatever was returned by the service
+     * @throws ModuleException
+     */
+    @RequestMapping(method = RequestMethod.GET, path = PATH_JOB_RESULT)
+    @ResourceAccess(description = "Download the result of a plugin service job. Only available on the instance the "
+            + "job was submitted to.", role = DefaultRole.PUBLIC)
+    public ResponseEntity<Resource> retrieveServiceJobResult(@PathVariable("jobId") final String jobId)
+            throws ModuleException {
+        return serviceJobManager.getResult(jobId);
+    }
+
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.rest;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import fr.cnes.regards.framework.module.rest.representation.ServerErrorResponse;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceBudgetExceededException;
+import fr.cnes.regards.modules.catalog.services.service.job.ServiceJobRejectedException;
+import fr.cnes.regards.modules.catalog.services.service.job.ServiceJobStatusException;
+
+/**
+ * Advice for specific catalog services exceptions
+ * @author REGARDS Team
+ */
+@RestControllerAdvice(annotations = RestController.class)
+@Order(0)
+public class CatalogServicesControllerAdvice {
+
+    /**
+     * Exception handler returning the code 503 when a service application runs out of time or is cancelled and the
+     * code 422 when it exceeds its entity or response size limits
+     *
+     * @param exception {@link ServiceBudgetExceededException}
+     * @return {@link ResponseEntity}
+     */
+    @ExceptionHandler(ServiceBudgetExceededException.class)
+    public ResponseEntity<ServerErrorResponse> serviceBudgetExceededException(
+            final ServiceBudgetExceededException exception) {
+        HttpStatus status;
+        switch (exception.getViolation()) {
+            case ENTITIES:
+            case BYTES:
+                status = HttpStatus.UNPROCESSABLE_ENTITY;
+                break;
+            case TIMEOUT:
+            case CANCELLED:
+            default:
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+                break;
+        }
+        String message = String.format("%s (budget violation: %s)", exception.getMessage(), exception.getViolation());
+        return ResponseEntity.status(status).body(new ServerErrorResponse(message, exception));
+    }
+
+    /**
+     * Exception handler returning the code 429 or 503 with a Retry-After header when a service job is rejected
+     *
+     * @param exception {@link ServiceJobRejectedException}
+     * @return {@link ResponseEntity}
+     */
+    @ExceptionHandler(ServiceJobRejectedException.class)
+    public ResponseEntity<ServerErrorResponse> serviceJobRejectedException(
+            final ServiceJobRejectedException exception) {
+        return ResponseEntity.status(exception.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfter()))
+                .body(new ServerErrorResponse(exception.getMessage(), exception));
+    }
+
+    /**
+     * Exception handler returning the code 409 when an operation is not allowed in the current status of a service job
+     *
+     * @param exception {@link ServiceJobStatusException}
+     * @return {@link ResponseEntity}
+     */
+    @ExceptionHandler(ServiceJobStatusException.class)
+    public ResponseEntity<ServerErrorResponse> serviceJobStatusException(final ServiceJobStatusException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ServerErrorResponse(exception.getMessage(), exception));
+    }
+}
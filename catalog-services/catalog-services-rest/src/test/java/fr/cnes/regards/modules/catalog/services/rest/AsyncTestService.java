@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.rest;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import fr.cnes.regards.framework.modules.plugins.annotations.Plugin;
+import fr.cnes.regards.framework.modules.plugins.annotations.PluginParameter;
+import fr.cnes.regards.framework.urn.EntityType;
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+
+/**
+ * Service that can run as a job, it lasts the given duration before responding.
+ * @author REGARDS Team
+ */
+@Plugin(id = AsyncTestService.PLUGIN_ID, description = "asynchronous plugin for test", author = "REGARDS Team",
+        contact = "regards@c-s.fr", license = "GPLv3", owner = "CSSI", url = "https://github.com/RegardsOss",
+        version = "1.0.0")
+@CatalogServicePlugin(applicationModes = { ServiceScope.MANY }, entityTypes = { EntityType.DATA }, async = true)
+public class AsyncTestService implements IService {
+
+    public static final String PLUGIN_ID = "asyncTest";
+
+    public static final String DURATION_PARAM = "duration";
+
+    public static final String RESULT = "asynchronous result";
+
+    @PluginParameter(name = DURATION_PARAM, label = "Duration (ms)", defaultValue = "0", optional = true)
+    private Long duration;
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> apply(ServicePluginParameters pParameters,
+            HttpServletResponse pResponse) {
+        long end = System.currentTimeMillis() + (duration == null ? 0 : duration);
+        while (System.currentTimeMillis() < end) {
+            // Stops once the job is cancelled
+            ServiceExecutionBudget.checkCurrent();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Service interrupted", e);
+            }
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        StreamingResponseBody body = out -> out.write(RESULT.getBytes(StandardCharsets.UTF_8));
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.rest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import fr.cnes.regards.modules.catalog.services.helper.ServiceBudgetExceededException;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget.Violation;
+
+/**
+ * Unit test for {@link CatalogServicesControllerAdvice}
+ * @author REGARDS Team
+ */
+public class CatalogServicesControllerAdviceTest {
+
+    private final CatalogServicesControllerAdvice advice = new CatalogServicesControllerAdvice();
+
+    private HttpStatus status(Violation violation) {
+        return advice.serviceBudgetExceededException(new ServiceBudgetExceededException(violation, "exceeded"))
+                .getStatusCode();
+    }
+
+    @Test
+    public void mapBudgetViolations() {
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status(Violation.TIMEOUT));
+        Assert.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status(Violation.CANCELLED));
+        Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, status(Violation.ENTITIES));
+        Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, status(Violation.BYTES));
+    }
+
+}
@@ -26,12 +26,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.hamcrest.Matchers;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -39,17 +41,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
+import com.jayway.jsonpath.JsonPath;
 
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.modules.plugins.annotations.Plugin;
@@ -71,6 +79,8 @@ import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
 import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
 import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
 import fr.cnes.regards.modules.catalog.services.plugins.SampleServicePlugin;
+import fr.cnes.regards.modules.catalog.services.service.index.IServiceIndexCache;
+import fr.cnes.regards.modules.catalog.services.service.job.ServiceJobStatus;
 import fr.cnes.regards.modules.catalog.services.service.link.ILinkPluginsDatasetsService;
 import fr.cnes.regards.modules.search.domain.SearchRequest;
 import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
@@ -79,7 +89,9 @@ import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
  * @author Sylvain Vissiere-Guerinet
  */
 @AutoConfigureMockMvc(printOnlyOnFailure = true)
-@TestPropertySource(locations = "classpath:test.properties")
+@TestPropertySource(locations = "classpath:test.properties",
+        properties = { "regards.catalog.services.job.tenant.pool.size=1",
+                "regards.catalog.services.job.tenant.queue.capacity=1" })
 @ContextConfiguration(classes = { CatalogServicesITConfiguration.class })
 public class CatalogServicesControllerIT extends AbstractRegardsTransactionalIT {
 
@@ -108,6 +120,9 @@ public class CatalogServicesControllerIT extends AbstractRegardsTransactionalIT
     @Autowired
     private IRuntimeTenantResolver tenantResolver;
 
+    @Autowired
+    private IServiceIndexCache serviceIndexCache;
+
     private PluginConfiguration conf;
 
     private PluginConfiguration samplePlgConf;
@@ -177,9 +192,21 @@ public class CatalogServicesControllerIT extends AbstractRegardsTransactionalIT
         linkService
                 .updateLink(DATA_SET_NAME_2,
                             new LinkPluginsDatasets(DATA_SET_NAME_2, Sets.newHashSet(samplePlgConf2, samplePlgConf)));
+        // No AMQP event in tests and data is rolled back after each test
+        serviceIndexCache.invalidate(getDefaultTenant());
         LOG.info("--------------------> Initialization Done <-------------------------------------");
     }
 
+    /**
+     * Service jobs run outside of the test transaction so data created for them is committed, drop it
+     */
+    @After
+    public void cleanCommittedData() {
+        if (!TestTransaction.isActive()) {
+            clearDb();
+        }
+    }
+
     @Test
     public void testRetrieveServicesQuery() {
         RequestBuilderCustomizer requestBuilderCustomizer = customizer().expectStatusOk();
@@ -397,4 +424,115 @@ public class CatalogServicesControllerIT extends AbstractRegardsTransactionalIT
         return headers;
     }
 
+
+    private PluginConfiguration createAsyncConf() throws ModuleException {
+        Set<IPluginParam> parameters = IPluginParam.set(IPluginParam.build(AsyncTestService.DURATION_PARAM, 0L)
+                .dynamic());
+        return pluginService
+                .savePluginConfiguration(new PluginConfiguration("asyncConf", parameters, AsyncTestService.PLUGIN_ID));
+    }
+
+    private ServicePluginParameters jobParameters(long duration) {
+        HashMap<String, String> dynamicParameters = new HashMap<>();
+        dynamicParameters.put(AsyncTestService.DURATION_PARAM, String.valueOf(duration));
+        return new ServicePluginParameters(EntityType.DATA,
+                new SearchRequest(SearchEngineMappings.LEGACY_PLUGIN_ID, null, null, Sets.newHashSet("ENTITY_ID"), null,
+                        null),
+                dynamicParameters);
+    }
+
+    /**
+     * @return identifier of the submitted job
+     */
+    private String submitJob(PluginConfiguration asyncConf, long duration) throws IOException {
+        RequestBuilderCustomizer requestBuilderCustomizer = customizer()
+                .expect(MockMvcResultMatchers.status().isAccepted());
+        requestBuilderCustomizer.addHeaders(getHeadersToApply());
+        ResultActions resultActions = performDefaultPost(CatalogServicesController.PATH_SERVICES
+                + CatalogServicesController.PATH_SERVICE_JOBS, jobParameters(duration), requestBuilderCustomizer,
+                                                         "Service job should be submitted",
+                                                         asyncConf.getBusinessId());
+        return JsonPath.read(resultActions.andReturn().getResponse().getContentAsString(), "$.id");
+    }
+
+    private ServiceJobStatus getJobStatus(String jobId) throws IOException {
+        RequestBuilderCustomizer requestBuilderCustomizer = customizer().expectStatusOk();
+        requestBuilderCustomizer.addHeaders(getHeadersToApply());
+        ResultActions resultActions = performDefaultGet(CatalogServicesController.PATH_SERVICES
+                + CatalogServicesController.PATH_JOB, requestBuilderCustomizer, "Service job should be found", jobId);
+        return ServiceJobStatus
+                .valueOf(JsonPath.read(resultActions.andReturn().getResponse().getContentAsString(), "$.status"));
+    }
+
+    private void cancelJob(String jobId) {
+        RequestBuilderCustomizer requestBuilderCustomizer = customizer().expectStatusOk();
+        requestBuilderCustomizer.addHeaders(getHeadersToApply());
+        performDefaultDelete(CatalogServicesController.PATH_SERVICES + CatalogServicesController.PATH_JOB,
+                             requestBuilderCustomizer, "Service job should be cancelled", jobId);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testServiceJob() throws Exception {
+        PluginConfiguration asyncConf = createAsyncConf();
+        String jobId = submitJob(asyncConf, 0);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        ServiceJobStatus status = getJobStatus(jobId);
+        while (!status.isFinished() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(50);
+            status = getJobStatus(jobId);
+        }
+        Assert.assertEquals(ServiceJobStatus.SUCCEEDED, status);
+
+        RequestBuilderCustomizer requestBuilderCustomizer = customizer().expectStatusOk();
+        requestBuilderCustomizer.expect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN));
+        requestBuilderCustomizer.expect(MockMvcResultMatchers.content().string(AsyncTestService.RESULT));
+        requestBuilderCustomizer.addHeaders(getHeadersToApply());
+        performDefaultGet(CatalogServicesController.PATH_SERVICES + CatalogServicesController.PATH_JOB_RESULT,
+                          requestBuilderCustomizer, "Service job result should be downloaded", jobId);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testCancelServiceJob() throws Exception {
+        PluginConfiguration asyncConf = createAsyncConf();
+        String jobId = submitJob(asyncConf, 60_000);
+
+        // No result until the job succeeds
+        RequestBuilderCustomizer requestBuilderCustomizer = customizer()
+                .expect(MockMvcResultMatchers.status().isConflict());
+        requestBuilderCustomizer.addHeaders(getHeadersToApply());
+        performDefaultGet(CatalogServicesController.PATH_SERVICES + CatalogServicesController.PATH_JOB_RESULT,
+                          requestBuilderCustomizer, "Unfinished service job should have no result", jobId);
+
+        cancelJob(jobId);
+        Assert.assertEquals(ServiceJobStatus.CANCELLED, getJobStatus(jobId));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testRejectServiceJob() throws Exception {
+        PluginConfiguration asyncConf = createAsyncConf();
+        List<String> jobIds = new ArrayList<>();
+        try {
+            // One running job and one pending job at most
+            jobIds.add(submitJob(asyncConf, 60_000));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((getJobStatus(jobIds.get(0)) != ServiceJobStatus.RUNNING)
+                    && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(50);
+            }
+            jobIds.add(submitJob(asyncConf, 60_000));
+            RequestBuilderCustomizer requestBuilderCustomizer = customizer()
+                    .expect(MockMvcResultMatchers.status().is(HttpStatus.TOO_MANY_REQUESTS.value()))
+                    .expect(MockMvcResultMatchers.header().exists(HttpHeaders.RETRY_AFTER));
+            requestBuilderCustomizer.addHeaders(getHeadersToApply());
+            performDefaultPost(CatalogServicesController.PATH_SERVICES + CatalogServicesController.PATH_SERVICE_JOBS,
+                               jobParameters(60_000), requestBuilderCustomizer,
+                               "Service job should be rejected once the queue is full", asyncConf.getBusinessId());
+        } finally {
+            jobIds.forEach(this::cancelJob);
+        }
+    }
 }
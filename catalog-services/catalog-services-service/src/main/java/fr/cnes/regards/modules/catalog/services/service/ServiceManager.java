@@ -18,22 +18,33 @@
  */
 package fr.cnes.regards.modules.catalog.services.service;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.google.common.collect.Iterables;
@@ -45,19 +56,24 @@ import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
 import fr.cnes.regards.framework.modules.plugins.domain.PluginParamDescriptor;
 import fr.cnes.regards.framework.modules.plugins.domain.parameter.IPluginParam;
-import fr.cnes.regards.framework.modules.plugins.domain.parameter.PluginParamType;
 import fr.cnes.regards.framework.modules.plugins.service.IPluginService;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.utils.plugins.PluginParameterUtils;
 import fr.cnes.regards.framework.utils.plugins.exception.NotAvailablePluginConfigurationException;
-import fr.cnes.regards.modules.catalog.services.domain.LinkPluginsDatasets;
 import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
 import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
-import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin;
-import fr.cnes.regards.modules.catalog.services.domain.annotations.GetCatalogServicePluginAnnotation;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePluginMetadata;
 import fr.cnes.regards.modules.catalog.services.domain.dto.PluginConfigurationDto;
 import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
-import fr.cnes.regards.modules.catalog.services.plugins.AbstractCatalogServicePlugin;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+import fr.cnes.regards.modules.catalog.services.service.budget.IServiceBudgetPolicy;
+import fr.cnes.regards.modules.catalog.services.service.index.IServiceIndexCache;
+import fr.cnes.regards.modules.catalog.services.service.index.ServiceIndex;
 import fr.cnes.regards.modules.catalog.services.service.link.ILinkPluginsDatasetsService;
+import fr.cnes.regards.modules.catalog.services.service.plugin.IServicePluginCache;
+import fr.cnes.regards.modules.catalog.services.service.plugin.ServicePluginLease;
+import fr.cnes.regards.modules.catalog.services.service.result.IServiceResultCache;
+import fr.cnes.regards.modules.catalog.services.service.result.ServiceResultCacheKey;
 
 /**
  * Class managing the execution of {@link IService} plugins
@@ -70,18 +86,9 @@ public class ServiceManager implements IServiceManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceManager.class);
 
-    /**
-     * Finds the application mode of the given plugin configuration
-     */
-    private static final Function<PluginConfiguration, CatalogServicePlugin> GET_CATALOG_SERVICE_PLUGIN_ANNOTATION = new GetCatalogServicePluginAnnotation();
+    private static final String INTERCEPTOR_KEY_PREFIX = ServiceManager.class.getName() + ".";
 
-    /**
-     * Builds a predicate telling if the passed {@link PluginConfiguration} is applicable on passed {@link ServiceScope}.
-     * Returns <code>true</code> if passed <code>pServiceScope</code> is <code>null</code>.
-     */
-    private static final Function<List<ServiceScope>, Predicate<PluginConfiguration>> IS_APPLICABLE_ON = serviceScope -> configuration -> (serviceScope == null)
-            || Arrays.asList(GET_CATALOG_SERVICE_PLUGIN_ANNOTATION.apply(configuration).applicationModes())
-                    .containsAll(serviceScope);
+    private static final AtomicLong INTERCEPTOR_COUNT = new AtomicLong();
 
     /**
      * The service managing plugins
@@ -93,6 +100,31 @@ public class ServiceManager implements IServiceManager {
      */
     private final ILinkPluginsDatasetsService linkPluginsDatasetsService;
 
+    /**
+     * Runtime tenant resolver
+     */
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Tenant level index of services
+     */
+    private final IServiceIndexCache serviceIndexCache;
+
+    /**
+     * Reusable plugin instances
+     */
+    private final IServicePluginCache servicePluginCache;
+
+    /**
+     * Results of deterministic services
+     */
+    private final IServiceResultCache serviceResultCache;
+
+    /**
+     * Execution budgets of service configurations
+     */
+    private final IServiceBudgetPolicy serviceBudgetPolicy;
+
     /**
      * Constructor
      *
@@ -100,24 +132,42 @@ public class ServiceManager implements IServiceManager {
      *            the service managing plugins
      * @param linkPluginsDatasetsService
      *            service linking plugins with datasets
+     * @param runtimeTenantResolver
+     *            runtime tenant resolver
+     * @param serviceIndexCache
+     *            tenant level index of services
+     * @param servicePluginCache
+     *            reusable plugin instances
+     * @param serviceResultCache
+     *            results of deterministic services
+     * @param serviceBudgetPolicy
+     *            execution budgets of service configurations
      */
     public ServiceManager(final IPluginService pluginService,
-            final ILinkPluginsDatasetsService linkPluginsDatasetsService) {
+            final ILinkPluginsDatasetsService linkPluginsDatasetsService,
+            final IRuntimeTenantResolver runtimeTenantResolver, final IServiceIndexCache serviceIndexCache,
+            final IServicePluginCache servicePluginCache, final IServiceResultCache serviceResultCache,
+            final IServiceBudgetPolicy serviceBudgetPolicy) {
         this.pluginService = pluginService;
         this.linkPluginsDatasetsService = linkPluginsDatasetsService;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        this.serviceIndexCache = serviceIndexCache;
+        this.servicePluginCache = servicePluginCache;
+        this.serviceResultCache = serviceResultCache;
+        this.serviceBudgetPolicy = serviceBudgetPolicy;
     }
 
     @Override
     public List<PluginConfigurationDto> retrieveServices(List<String> datasetIds, List<ServiceScope> serviceScopes) {
-        Set<PluginConfiguration> allServices = getServicesAssociatedToAllDatasets();
+        ServiceIndex index = serviceIndexCache.get(runtimeTenantResolver.getTenant(), this::buildIndex);
+        Set<PluginConfiguration> allServices = Sets.newHashSet(index.getAllDatasetsServices());
 
         if ((datasetIds != null) && !datasetIds.isEmpty()) {
             Set<PluginConfiguration> datasetsCommonServices = Sets.newHashSet();
             boolean first = true;
             // Get all services associated to each dataset given
             for (String datasetId : datasetIds) {
-                final LinkPluginsDatasets datasetPlugins = linkPluginsDatasetsService.retrieveLink(datasetId);
-                final Set<PluginConfiguration> datasetServices = datasetPlugins.getServices();
+                final Set<PluginConfiguration> datasetServices = index.getDatasetServices(datasetId);
                 if (first) {
                     datasetsCommonServices.addAll(datasetServices);
                     first = false;
@@ -125,15 +175,13 @@ public class ServiceManager implements IServiceManager {
                     datasetsCommonServices.retainAll(datasetServices);
                 }
             }
-            for (PluginConfiguration datasetService : datasetsCommonServices) {
-                if (!allServices.contains(datasetService)) {
-                    allServices.add(datasetService);
-                }
-            }
+            allServices.addAll(datasetsCommonServices);
         }
 
+        // Null or empty scopes match all services
+        EnumSet<ServiceScope> scopes = CatalogServicePluginMetadata.toEnumSet(serviceScopes);
         try (Stream<PluginConfiguration> stream = allServices.stream()) {
-            return stream.filter(IS_APPLICABLE_ON.apply(serviceScopes)).map(PluginConfigurationDto::new)
+            return stream.filter(conf -> index.isApplicableOn(conf, scopes)).map(PluginConfigurationDto::new)
                     .collect(Collectors.toList());
         }
     }
@@ -153,47 +201,192 @@ public class ServiceManager implements IServiceManager {
         // is it a service applyable to this dataset?
         // TODO : Check if the current service is applicable for the given entities (throught the dataset associated)
 
+        if (!conf.isActive()) {
+            throw new ModuleException("Unable to apply disabled service.");
+        }
+
+        CatalogServicePluginMetadata metadata = CatalogServicePluginMetadata.of(conf);
+        ServiceResultCacheKey cacheKey = null;
+        if (metadata.isDeterministic() && serviceResultCache.isEnabled()) {
+            cacheKey = serviceResultCache.key(runtimeTenantResolver.getTenant(), pluginConfigurationBusinessId,
+                                              servicePluginParameters);
+            Optional<ResponseEntity<StreamingResponseBody>> cached = serviceResultCache.get(cacheKey);
+            if (cached.isPresent()) {
+                LOGGER.info("Plugin service {} result served from cache", pluginConfigurationBusinessId);
+                return cached.get();
+            }
+        }
+
+        Map<String, String> dynamicParameters = servicePluginParameters.getDynamicParameters();
+        ServicePluginLease lease;
+        if ((dynamicParameters == null) || dynamicParameters.isEmpty()) {
+            // Without dynamic parameters, the plugin service caches the instance and handles its life cycle
+            lease = new ServicePluginLease(instantiate(conf, dynamicParameters), () -> {
+            });
+        } else {
+            lease = servicePluginCache.lease(runtimeTenantResolver.getTenant(), pluginConfigurationBusinessId,
+                                             dynamicParameters, metadata.isReusable(), metadata.isThreadSafe(),
+                                             () -> instantiate(conf, dynamicParameters));
+        }
+        IService toExecute = lease.getService();
+        LOGGER.info("Applying plugin service {}", toExecute.getClass().getName());
+        ServiceExecutionBudget budget = serviceBudgetPolicy.create(conf);
+        // Cancelled along with the enclosing operation if any, e.g. a service job
+        ServiceExecutionBudget.current().ifPresent(budget::cancelWith);
+        ResponseEntity<StreamingResponseBody> result;
+        ServiceExecutionBudget previousBudget = budget.bind();
+        // Plugin is interrupted once it runs out of time
+        try (ServiceExecutionBudget.Watch watch = budget.watch()) {
+            result = toExecute.apply(servicePluginParameters, response);
+            // Violation may have been swallowed by the plugin
+            budget.check();
+        } catch (RuntimeException e) {
+            lease.close();
+            if (budget.getViolation().isPresent()) {
+                serviceBudgetPolicy.report(conf, budget);
+                // Report the violation itself whatever the plugin did with it
+                budget.check();
+            }
+            throw e;
+        } finally {
+            ServiceExecutionBudget.restore(previousBudget);
+        }
+        if ((result == null) || (result.getBody() == null)) {
+            lease.close();
+        } else {
+            // Budget goes on while the body is written. Response body may also still use the instance, give it back
+            // once the body is written or once the request completes without running it.
+            LeasedResponseBody body = new LeasedResponseBody(result.getBody(), conf, budget, lease);
+            releaseOnCompletion(body);
+            result = new ResponseEntity<>(body, result.getHeaders(), result.getStatusCode());
+        }
+        return cacheKey == null ? result : serviceResultCache.cacheOnWrite(cacheKey, result);
+    }
+
+    /**
+     * Close the given body once the current asynchronous request completes, times out or fails. The body never runs
+     * when the streaming executor rejects it or when the request fails before. Without current request, the body is
+     * closed by its caller.
+     */
+    private static void releaseOnCompletion(LeasedResponseBody body) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            WebAsyncUtils.getAsyncManager(request)
+                    .registerCallableInterceptor(INTERCEPTOR_KEY_PREFIX + INTERCEPTOR_COUNT.incrementAndGet(),
+                                                 new CallableProcessingInterceptor() {
+
+                                                     @Override
+                                                     public <T> void afterCompletion(NativeWebRequest webRequest,
+                                                             Callable<T> task) {
+                                                         body.close();
+                                                     }
+                                                 });
+        }
+    }
+
+    /**
+     * Create a new plugin instance for the given configuration and dynamic parameter values
+     */
+    private IService instantiate(PluginConfiguration conf, Map<String, String> dynamicParameters)
+            throws ModuleException {
         // Build dynamic parameters
+        Map<String, PluginParamDescriptor> descriptors = servicePluginCache.getParamDescriptors(conf);
         Set<IPluginParam> parameters = new HashSet<>();
-        if (servicePluginParameters.getDynamicParameters() != null) {
-            servicePluginParameters.getDynamicParameters().forEach((k, v) -> {
-                Optional<PluginParamDescriptor> param = conf.getMetaData().getParameters().stream()
-                        .filter(p -> p.getName().equals(k)).findFirst();
-                if (param.isPresent()) {
-                    parameters.add(PluginParameterUtils.forType(param.get().getType(), k, v, true));
+        if (dynamicParameters != null) {
+            dynamicParameters.forEach((k, v) -> {
+                PluginParamDescriptor param = descriptors.get(k);
+                if (param != null) {
+                    parameters.add(PluginParameterUtils.forType(param.getType(), k, v, true));
                 } else {
-                    LOGGER.warn("Invalid dynamic parameter  {} for plugin {} of type {}", k,
-                                pluginConfigurationBusinessId, conf.getPluginId());
+                    LOGGER.warn("Invalid dynamic parameter  {} for plugin {} of type {}", k, conf.getBusinessId(),
+                                conf.getPluginId());
                     parameters.add(IPluginParam.build(k, v).dynamic());
                 }
             });
         }
 
-        IService toExecute;
         try {
-            toExecute = pluginService.getPlugin(pluginConfigurationBusinessId,
-                                                Iterables.toArray(parameters, IPluginParam.class));
+            return pluginService.getPlugin(conf.getBusinessId(), Iterables.toArray(parameters, IPluginParam.class));
         } catch (NotAvailablePluginConfigurationException e) {
             throw new ModuleException("Unable to apply disabled service.", e);
         }
-        LOGGER.info("Applying plugin service {}", toExecute.getClass().getName());
-        return toExecute.apply(servicePluginParameters, response);
+    }
 
+    /**
+     * Build the service index of the current tenant from all {@link IService} configurations and all dataset links
+     */
+    private ServiceIndex buildIndex() {
+        return ServiceIndex.build(pluginService.getPluginConfigurationsByType(IService.class),
+                                  linkPluginsDatasetsService.retrieveLinks());
     }
 
-    private Set<PluginConfiguration> getServicesAssociatedToAllDatasets() {
-        Set<PluginConfiguration> allServices = Sets.newHashSet();
-        // 1. Retrieve all services configuration
-        List<PluginConfiguration> confs = pluginService.getPluginConfigurationsByType(IService.class);
+    /**
+     * Response body of an applied service. The body is budgeted and gives the leased plugin instance back once written.
+     * Closing the body before it runs abandons it and gives the instance back at once, closing it while it runs
+     * cancels its budget so that the instance is given back as soon as the plugin stops.
+     */
+    private final class LeasedResponseBody implements StreamingResponseBody, AutoCloseable {
+
+        private static final int PENDING = 0;
+
+        private static final int RUNNING = 1;
+
+        private static final int DONE = 2;
+
+        private final StreamingResponseBody body;
+
+        private final PluginConfiguration conf;
+
+        private final ServiceExecutionBudget budget;
+
+        private final ServicePluginLease lease;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private LeasedResponseBody(StreamingResponseBody body, PluginConfiguration conf,
+                ServiceExecutionBudget budget, ServicePluginLease lease) {
+            this.body = body;
+            this.conf = conf;
+            this.budget = budget;
+            this.lease = lease;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            if (!state.compareAndSet(PENDING, RUNNING)) {
+                throw new IllegalStateException("Service response already written or abandoned");
+            }
+            ServiceExecutionBudget previous = budget.bind();
+            try (ServiceExecutionBudget.Watch watch = budget.watch()) {
+                body.writeTo(budget.account(outputStream));
+                // Violation may have been swallowed by the plugin, the response must not look complete nor be cached
+                if (budget.getViolation().isPresent()) {
+                    budget.check();
+                }
+            } catch (IOException e) {
+                // Report the violation itself rather than the interrupted write if any
+                if (budget.getViolation().isPresent()) {
+                    budget.check();
+                }
+                throw e;
+            } finally {
+                state.set(DONE);
+                ServiceExecutionBudget.restore(previous);
+                serviceBudgetPolicy.report(conf, budget);
+                lease.close();
+            }
+        }
 
-        // 2. Get all plugin conf with the applyToAllDataset parameter set to true.
-        for (PluginConfiguration conf : confs) {
-            IPluginParam param = conf.getParameter(AbstractCatalogServicePlugin.APPLY_TO_ALL_DATASETS_PARAM);
-            if ((param != null) && (param.getType() == PluginParamType.BOOLEAN) && ((Boolean) param.getValue())) {
-                allServices.add(conf);
+        @Override
+        public void close() {
+            if (state.compareAndSet(PENDING, DONE)) {
+                LOGGER.debug("Service {} response abandoned before being written", conf.getBusinessId());
+                lease.close();
+            } else if (state.get() == RUNNING) {
+                budget.cancel();
             }
         }
-        return allServices;
     }
 
 }
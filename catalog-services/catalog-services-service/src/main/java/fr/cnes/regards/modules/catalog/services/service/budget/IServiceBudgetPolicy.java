@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.budget;
+
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+
+/**
+ * Execution budgets of catalog service configurations
+ * @author REGARDS Team
+ */
+public interface IServiceBudgetPolicy {
+
+    /**
+     * Create the budget of a new application of the given configuration
+     */
+    ServiceExecutionBudget create(PluginConfiguration conf);
+
+    /**
+     * Report the violation of the given budget if any
+     */
+    void report(PluginConfiguration conf, ServiceExecutionBudget budget);
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.budget;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.modules.plugins.domain.parameter.IPluginParam;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget.Violation;
+import fr.cnes.regards.modules.catalog.services.plugins.AbstractCatalogServicePlugin;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Default {@link IServiceBudgetPolicy}.<br/>
+ * Limits are read from the configuration parameters defined by {@link AbstractCatalogServicePlugin} and fall back to
+ * the rs-catalog defaults when missing. Defaults bound every application : five minutes, one million entities and
+ * 1 GiB of response, each of them can be lifted by setting its <code>regards.catalog.services.budget.max.*</code>
+ * property or the configuration parameter to 0.<br/>
+ * Violations are counted as <code>catalog.services.budget.violations</code> metrics tagged with the configuration
+ * business identifier and the exceeded limit when a {@link MeterRegistry} is available.
+ * @author REGARDS Team
+ */
+@Service
+public class ServiceBudgetPolicy implements IServiceBudgetPolicy {
+
+    public static final String VIOLATIONS_METRIC = "catalog.services.budget.violations";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceBudgetPolicy.class);
+
+    /**
+     * Default maximum duration in seconds, five minutes unless configured
+     */
+    private final long defaultMaxDuration;
+
+    /**
+     * Default maximum number of entities fetched, one million unless configured
+     */
+    private final long defaultMaxEntities;
+
+    /**
+     * Default maximum response size in bytes, 1 GiB unless configured
+     */
+    private final long defaultMaxResponseSize;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param defaultMaxDuration default maximum duration in seconds, 0 means unlimited
+     * @param defaultMaxEntities default maximum number of entities fetched, 0 means unlimited
+     * @param defaultMaxResponseSize default maximum response size in bytes, 0 means unlimited
+     * @param meterRegistry optional metric registry
+     */
+    public ServiceBudgetPolicy(@Value("${regards.catalog.services.budget.max.duration:300}") long defaultMaxDuration,
+            @Value("${regards.catalog.services.budget.max.entities:1000000}") long defaultMaxEntities,
+            @Value("${regards.catalog.services.budget.max.response.size:1073741824}") long defaultMaxResponseSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.defaultMaxDuration = defaultMaxDuration;
+        this.defaultMaxEntities = defaultMaxEntities;
+        this.defaultMaxResponseSize = defaultMaxResponseSize;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    @Override
+    public ServiceExecutionBudget create(PluginConfiguration conf) {
+        long maxDuration = getLimit(conf, AbstractCatalogServicePlugin.MAX_DURATION_PARAM, defaultMaxDuration);
+        return new ServiceExecutionBudget(TimeUnit.SECONDS.toMillis(maxDuration),
+                getLimit(conf, AbstractCatalogServicePlugin.MAX_ENTITIES_PARAM, defaultMaxEntities),
+                getLimit(conf, AbstractCatalogServicePlugin.MAX_RESPONSE_SIZE_PARAM, defaultMaxResponseSize));
+    }
+
+    private static long getLimit(PluginConfiguration conf, String name, long defaultValue) {
+        IPluginParam param = conf.getParameter(name);
+        if ((param != null) && (param.getValue() instanceof Number)) {
+            return ((Number) param.getValue()).longValue();
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public void report(PluginConfiguration conf, ServiceExecutionBudget budget) {
+        Optional<Violation> violation = budget.getViolation();
+        if (violation.isPresent()) {
+            LOGGER.warn("Service {} exceeded its {} budget after {} ms, {} entities fetched and {} bytes streamed",
+                        conf.getBusinessId(), violation.get(), budget.getElapsed(), budget.getEntities(),
+                        budget.getBytes());
+            if (meterRegistry != null) {
+                meterRegistry.counter(VIOLATIONS_METRIC, "service", conf.getBusinessId(), "violation",
+                                      violation.get().name())
+                        .increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.index;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import fr.cnes.regards.framework.modules.plugins.domain.PluginMetaData;
+import fr.cnes.regards.framework.utils.plugins.PluginUtils;
+import fr.cnes.regards.framework.utils.plugins.PluginUtilsRuntimeException;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePluginMetadata;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+
+/**
+ * Register {@link CatalogServicePluginMetadata} of all available {@link IService} plugins at startup so that no
+ * annotation is read while serving requests
+ * @author REGARDS Team
+ */
+@Component
+public class CatalogServicePluginRegistrar implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogServicePluginRegistrar.class);
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Map<String, PluginMetaData> plugins = PluginUtils.getPlugins();
+        if (plugins == null) {
+            return;
+        }
+        for (PluginMetaData plugin : plugins.values()) {
+            if (plugin.getInterfaceNames().contains(IService.class.getName())) {
+                try {
+                    CatalogServicePluginMetadata.register(plugin.getPluginClassName());
+                } catch (PluginUtilsRuntimeException e) {
+                    // Registered again on first use
+                    LOGGER.warn("Unable to read catalog service metadata of plugin {}", plugin.getPluginId(), e);
+                }
+            }
+        }
+    }
+}
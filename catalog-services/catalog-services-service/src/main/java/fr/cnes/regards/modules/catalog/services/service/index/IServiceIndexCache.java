@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.index;
+
+import java.util.function.Supplier;
+
+/**
+ * Tenant level cache of {@link ServiceIndex}
+ * @author REGARDS Team
+ */
+public interface IServiceIndexCache {
+
+    /**
+     * Get the index of the given tenant, building it if not cached
+     * @param tenant tenant
+     * @param loader index builder, called in the current thread
+     * @return the index
+     */
+    ServiceIndex get(String tenant, Supplier<ServiceIndex> loader);
+
+    /**
+     * Drop the index of the given tenant, next call to {@link #get(String, Supplier)} rebuilds it
+     */
+    void invalidate(String tenant);
+}
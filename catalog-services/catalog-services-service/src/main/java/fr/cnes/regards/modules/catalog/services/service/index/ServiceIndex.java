@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.modules.plugins.domain.parameter.IPluginParam;
+import fr.cnes.regards.framework.modules.plugins.domain.parameter.PluginParamType;
+import fr.cnes.regards.modules.catalog.services.domain.LinkPluginsDatasets;
+import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePluginMetadata;
+import fr.cnes.regards.modules.catalog.services.plugins.AbstractCatalogServicePlugin;
+
+/**
+ * Immutable snapshot of the services configured for a tenant :
+ * <ul>
+ * <li>services linked to each dataset,</li>
+ * <li>services applicable to all datasets,</li>
+ * <li>application modes of each service.</li>
+ * </ul>
+ * Once built, the index is only read so it can be shared between concurrent requests.
+ * @author REGARDS Team
+ */
+public final class ServiceIndex {
+
+    private final Map<String, Set<PluginConfiguration>> datasetServices;
+
+    private final Set<PluginConfiguration> allDatasetsServices;
+
+    /**
+     * Application modes and entity types by plugin class name
+     */
+    private final Map<String, CatalogServicePluginMetadata> pluginMetadata;
+
+    private ServiceIndex(Map<String, Set<PluginConfiguration>> datasetServices,
+            Set<PluginConfiguration> allDatasetsServices, Map<String, CatalogServicePluginMetadata> pluginMetadata) {
+        this.datasetServices = Collections.unmodifiableMap(datasetServices);
+        this.allDatasetsServices = Collections.unmodifiableSet(allDatasetsServices);
+        this.pluginMetadata = Collections.unmodifiableMap(pluginMetadata);
+    }
+
+    /**
+     * Build the index
+     * @param services all {@link fr.cnes.regards.modules.catalog.services.domain.plugins.IService} configurations
+     * @param links all links between datasets and services
+     */
+    public static ServiceIndex build(Collection<PluginConfiguration> services,
+            Collection<LinkPluginsDatasets> links) {
+        Map<String, Set<PluginConfiguration>> datasetServices = new HashMap<>();
+        Set<PluginConfiguration> allDatasetsServices = new HashSet<>();
+        Map<String, CatalogServicePluginMetadata> pluginMetadata = new HashMap<>();
+        for (PluginConfiguration conf : services) {
+            IPluginParam param = conf.getParameter(AbstractCatalogServicePlugin.APPLY_TO_ALL_DATASETS_PARAM);
+            if ((param != null) && (param.getType() == PluginParamType.BOOLEAN) && ((Boolean) param.getValue())) {
+                allDatasetsServices.add(conf);
+                registerMetadata(conf, pluginMetadata);
+            }
+        }
+        for (LinkPluginsDatasets link : links) {
+            Set<PluginConfiguration> linked = new HashSet<>();
+            if (link.getServices() != null) {
+                for (PluginConfiguration conf : link.getServices()) {
+                    linked.add(conf);
+                    registerMetadata(conf, pluginMetadata);
+                }
+            }
+            datasetServices.put(link.getDatasetId(), Collections.unmodifiableSet(linked));
+        }
+        return new ServiceIndex(datasetServices, allDatasetsServices, pluginMetadata);
+    }
+
+    private static void registerMetadata(PluginConfiguration conf,
+            Map<String, CatalogServicePluginMetadata> modes) {
+        modes.computeIfAbsent(conf.getPluginClassName(), CatalogServicePluginMetadata::register);
+    }
+
+    /**
+     * @return services linked to the given dataset, empty if dataset has no link
+     */
+    public Set<PluginConfiguration> getDatasetServices(String datasetId) {
+        return datasetServices.getOrDefault(datasetId, Collections.emptySet());
+    }
+
+    /**
+     * @return services applicable to all datasets
+     */
+    public Set<PluginConfiguration> getAllDatasetsServices() {
+        return allDatasetsServices;
+    }
+
+    /**
+     * @return application modes of the given indexed service
+     */
+    public Set<ServiceScope> getApplicationModes(PluginConfiguration conf) {
+        return getMetadata(conf).getApplicationModes();
+    }
+
+    /**
+     * @param conf indexed service
+     * @param serviceScopes required scopes, see {@link CatalogServicePluginMetadata#toEnumSet(java.util.Collection)}
+     * @return true if the given service can be applied on all required scopes
+     */
+    public boolean isApplicableOn(PluginConfiguration conf, EnumSet<ServiceScope> serviceScopes) {
+        return getMetadata(conf).isApplicableOn(serviceScopes);
+    }
+
+    private CatalogServicePluginMetadata getMetadata(PluginConfiguration conf) {
+        CatalogServicePluginMetadata metadata = pluginMetadata.get(conf.getPluginClassName());
+        // Not indexed service
+        return metadata == null ? CatalogServicePluginMetadata.of(conf) : metadata;
+    }
+}
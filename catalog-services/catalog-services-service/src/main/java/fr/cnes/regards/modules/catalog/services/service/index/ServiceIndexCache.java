@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.index;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keep one {@link ServiceIndex} per tenant.<br/>
+ * Each tenant has a version incremented on invalidation so that an index built from data read before an invalidation
+ * is never cached.
+ * @author REGARDS Team
+ */
+@Component
+public class ServiceIndexCache implements IServiceIndexCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceIndexCache.class);
+
+    private final ConcurrentMap<String, ServiceIndex> indexes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public ServiceIndex get(String tenant, Supplier<ServiceIndex> loader) {
+        ServiceIndex index = indexes.get(tenant);
+        if (index == null) {
+            AtomicLong version = versions.computeIfAbsent(tenant, t -> new AtomicLong());
+            long before = version.get();
+            LOGGER.debug("Building service index for tenant {}", tenant);
+            index = loader.get();
+            synchronized (version) {
+                if (version.get() == before) {
+                    indexes.put(tenant, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public void invalidate(String tenant) {
+        AtomicLong version = versions.computeIfAbsent(tenant, t -> new AtomicLong());
+        synchronized (version) {
+            version.incrementAndGet();
+            indexes.remove(tenant);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.index;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.modules.plugins.domain.event.BroadcastPluginConfEvent;
+import fr.cnes.regards.modules.catalog.services.domain.event.LinkPluginsDatasetsEvent;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+import fr.cnes.regards.modules.catalog.services.service.plugin.IServicePluginCache;
+
+/**
+ * Invalidate the {@link ServiceIndex} of a tenant when its links or its service configurations change. Plugin
+ * instances of the tenant are also dropped when its service configurations change.
+ * @author REGARDS Team
+ */
+@Component
+public class ServiceIndexEventHandler implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ISubscriber subscriber;
+
+    private final IServiceIndexCache serviceIndexCache;
+
+    private final IServicePluginCache servicePluginCache;
+
+    public ServiceIndexEventHandler(ISubscriber subscriber, IServiceIndexCache serviceIndexCache,
+            IServicePluginCache servicePluginCache) {
+        this.subscriber = subscriber;
+        this.serviceIndexCache = serviceIndexCache;
+        this.servicePluginCache = servicePluginCache;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(LinkPluginsDatasetsEvent.class, new LinkPluginsDatasetsEventHandler());
+        subscriber.subscribeTo(BroadcastPluginConfEvent.class, new PluginConfEventHandler());
+    }
+
+    /**
+     * Handle {@link LinkPluginsDatasetsEvent} to rebuild the index of the tenant
+     * @author REGARDS Team
+     */
+    private class LinkPluginsDatasetsEventHandler implements IHandler<LinkPluginsDatasetsEvent> {
+
+        @Override
+        public void handle(TenantWrapper<LinkPluginsDatasetsEvent> wrapper) {
+            serviceIndexCache.invalidate(wrapper.getTenant());
+        }
+    }
+
+    /**
+     * Handle {@link BroadcastPluginConfEvent} on {@link IService} configurations to rebuild the index of the tenant and
+     * drop its plugin instances
+     * @author REGARDS Team
+     */
+    private class PluginConfEventHandler implements IHandler<BroadcastPluginConfEvent> {
+
+        @Override
+        public void handle(TenantWrapper<BroadcastPluginConfEvent> wrapper) {
+            if ((wrapper.getContent() != null) && (wrapper.getContent().getPluginTypes() != null)
+                    && wrapper.getContent().getPluginTypes().contains(IService.class.getName())) {
+                serviceIndexCache.invalidate(wrapper.getTenant());
+                servicePluginCache.invalidate(wrapper.getTenant());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.job;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin;
+
+/**
+ * Apply long running catalog services as asynchronous jobs. Only plugins declaring
+ * {@link CatalogServicePlugin#async()} can be submitted.<br/>
+ * Jobs are not shared between instances : a job can only be followed, cancelled and downloaded on the instance it was
+ * submitted to, other instances do not know it.
+ * @author REGARDS Team
+ */
+public interface IServiceJobManager {
+
+    /**
+     * Submit a job applying the given service
+     * @param pluginConfigurationBusinessId plugin configuration to run
+     * @param servicePluginParameters plugin parameters
+     * @return submitted job
+     * @throws ModuleException if service does not exist or cannot run asynchronously,
+     *             {@link ServiceJobRejectedException} if tenant has too many jobs or if spool directory is full
+     */
+    ServiceJob submit(String pluginConfigurationBusinessId, ServicePluginParameters servicePluginParameters)
+            throws ModuleException;
+
+    /**
+     * @return job of the current user
+     * @throws ModuleException if job does not exist, has expired or belongs to another user
+     */
+    ServiceJob getJob(String jobId) throws ModuleException;
+
+    /**
+     * Retrieve the spooled result of a succeeded job
+     * @throws ModuleException if job does not exist, {@link ServiceJobStatusException} if it has not succeeded
+     */
+    ResponseEntity<Resource> getResult(String jobId) throws ModuleException;
+
+    /**
+     * Cancel an unfinished job or delete a finished job and its result
+     * @return the job
+     * @throws ModuleException if job does not exist
+     */
+    ServiceJob cancel(String jobId) throws ModuleException;
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.job;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Future;
+
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+
+/**
+ * Asynchronous application of a catalog service. Result is spooled to local disk.
+ * @author REGARDS Team
+ */
+public class ServiceJob {
+
+    private final String id;
+
+    private final String pluginConfigurationBusinessId;
+
+    private final transient String tenant;
+
+    /**
+     * Submitting user, only one allowed to follow the job
+     */
+    private final transient String owner;
+
+    private final transient Path resultFile;
+
+    /**
+     * Unlimited budget only used to cancel the job, the service application is cancelled along with it
+     */
+    private final transient ServiceExecutionBudget cancellation = new ServiceExecutionBudget(0, 0, 0);
+
+    /**
+     * Job task, interrupted on cancellation
+     */
+    private transient volatile Future<?> execution;
+
+    private volatile ServiceJobStatus status = ServiceJobStatus.PENDING;
+
+    /**
+     * Number of result bytes spooled so far
+     */
+    private volatile long progress = 0;
+
+    private volatile String message;
+
+    private volatile String contentType;
+
+    private volatile String contentDisposition;
+
+    private final OffsetDateTime creationDate;
+
+    private volatile OffsetDateTime startDate;
+
+    private volatile OffsetDateTime endDate;
+
+    private volatile OffsetDateTime expirationDate;
+
+    public ServiceJob(String id, String pluginConfigurationBusinessId, String tenant, String owner, Path resultFile) {
+        this.id = id;
+        this.pluginConfigurationBusinessId = pluginConfigurationBusinessId;
+        this.tenant = tenant;
+        this.owner = owner;
+        this.resultFile = resultFile;
+        this.creationDate = OffsetDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getPluginConfigurationBusinessId() {
+        return pluginConfigurationBusinessId;
+    }
+
+    String getTenant() {
+        return tenant;
+    }
+
+    String getOwner() {
+        return owner;
+    }
+
+    Path getResultFile() {
+        return resultFile;
+    }
+
+    ServiceExecutionBudget getCancellation() {
+        return cancellation;
+    }
+
+    void setExecution(Future<?> execution) {
+        this.execution = execution;
+    }
+
+    public ServiceJobStatus getStatus() {
+        return status;
+    }
+
+    public long getProgress() {
+        return progress;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getContentDisposition() {
+        return contentDisposition;
+    }
+
+    public OffsetDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    public OffsetDateTime getStartDate() {
+        return startDate;
+    }
+
+    public OffsetDateTime getEndDate() {
+        return endDate;
+    }
+
+    public OffsetDateTime getExpirationDate() {
+        return expirationDate;
+    }
+
+    /**
+     * @return false if job has been cancelled meanwhile
+     */
+    synchronized boolean start() {
+        if (status != ServiceJobStatus.PENDING) {
+            return false;
+        }
+        startDate = OffsetDateTime.now();
+        status = ServiceJobStatus.RUNNING;
+        return true;
+    }
+
+    void progress(long spooledBytes) {
+        progress = spooledBytes;
+    }
+
+    /**
+     * @return false if job has been cancelled meanwhile
+     */
+    synchronized boolean succeed(String resultContentType, String resultContentDisposition, long ttl) {
+        if (status.isFinished()) {
+            return false;
+        }
+        contentType = resultContentType;
+        contentDisposition = resultContentDisposition;
+        end(ServiceJobStatus.SUCCEEDED, ttl);
+        return true;
+    }
+
+    /**
+     * @return false if job has been cancelled meanwhile
+     */
+    synchronized boolean fail(String failure, long ttl) {
+        if (status.isFinished()) {
+            return false;
+        }
+        message = failure;
+        end(ServiceJobStatus.FAILED, ttl);
+        return true;
+    }
+
+    /**
+     * Cancel the service application and interrupt the job task. A pending job does not start, a running one fails
+     * at its next budget check or blocking operation.
+     * @return false if job is already finished
+     */
+    synchronized boolean cancel(long ttl) {
+        if (status.isFinished()) {
+            return false;
+        }
+        end(ServiceJobStatus.CANCELLED, ttl);
+        cancellation.cancel();
+        if (execution != null) {
+            execution.cancel(true);
+        }
+        return true;
+    }
+
+    private void end(ServiceJobStatus endStatus, long ttl) {
+        endDate = OffsetDateTime.now();
+        expirationDate = endDate.plusNanos(ttl * 1_000_000L);
+        status = endStatus;
+    }
+
+    /**
+     * @return true if job is finished and its result expired
+     */
+    boolean isExpired(OffsetDateTime now) {
+        return status.isFinished() && (expirationDate != null) && expirationDate.isBefore(now);
+    }
+}
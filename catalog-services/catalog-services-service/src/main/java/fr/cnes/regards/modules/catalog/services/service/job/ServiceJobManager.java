@@ -0,0 +1,413 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.job;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import fr.cnes.regards.framework.feign.security.FeignSecurityManager;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
+import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.modules.plugins.service.IPluginService;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePluginMetadata;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+import fr.cnes.regards.modules.catalog.services.service.IServiceManager;
+
+/**
+ * In memory {@link IServiceJobManager}. Jobs run on a bounded executor per tenant and their results are spooled into
+ * a local directory, so a job can only be followed on the instance it was submitted to.<br/>
+ * Finished jobs and their results are dropped once their time to live is over. The overall size of spooled results is
+ * bounded : jobs are rejected while the spool directory is full and a job fails if its result does not fit in.
+ * @author REGARDS Team
+ */
+@Service
+public class ServiceJobManager implements IServiceJobManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceJobManager.class);
+
+    /**
+     * Maximum interval between two expiration checks
+     */
+    private static final long MAX_CLEAN_INTERVAL = 60_000L;
+
+    private final IServiceManager serviceManager;
+
+    private final IPluginService pluginService;
+
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    private final Path spoolDirectory;
+
+    private final int tenantPoolSize;
+
+    private final int tenantQueueCapacity;
+
+    private final long ttl;
+
+    /**
+     * Maximum overall size in bytes of spooled results, zero or less means unlimited
+     */
+    private final long maxSpoolSize;
+
+    /**
+     * Delay in seconds clients should wait before retrying a rejected job
+     */
+    private final long retryAfter;
+
+    /**
+     * Overall size in bytes of spooled results
+     */
+    private final AtomicLong spoolSize = new AtomicLong();
+
+    private final ConcurrentMap<String, ServiceJob> jobs = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, ThreadPoolExecutor> tenantExecutors = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService cleaner;
+
+    public ServiceJobManager(IServiceManager serviceManager, IPluginService pluginService,
+            IRuntimeTenantResolver runtimeTenantResolver,
+            @Value("${regards.catalog.services.job.spool.directory:${java.io.tmpdir}/catalog-services-jobs}")
+            String spoolDirectory,
+            @Value("${regards.catalog.services.job.tenant.pool.size:2}") int tenantPoolSize,
+            @Value("${regards.catalog.services.job.tenant.queue.capacity:20}") int tenantQueueCapacity,
+            @Value("${regards.catalog.services.job.result.ttl:3600000}") long ttl,
+            @Value("${regards.catalog.services.job.spool.max.size:10737418240}") long maxSpoolSize,
+            @Value("${regards.catalog.services.job.retry.after:30}") long retryAfter) {
+        this.serviceManager = serviceManager;
+        this.pluginService = pluginService;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.tenantPoolSize = tenantPoolSize;
+        this.tenantQueueCapacity = tenantQueueCapacity;
+        this.ttl = ttl;
+        this.maxSpoolSize = maxSpoolSize;
+        this.retryAfter = retryAfter;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "service-job-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1_000L, Math.min(ttl, MAX_CLEAN_INTERVAL));
+        cleaner.scheduleWithFixedDelay(this::cleanExpiredJobs, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+        tenantExecutors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    @Override
+    public ServiceJob submit(String pluginConfigurationBusinessId, ServicePluginParameters servicePluginParameters)
+            throws ModuleException {
+        PluginConfiguration conf = pluginService.getPluginConfiguration(pluginConfigurationBusinessId);
+        if (!conf.getInterfaceNames().contains(IService.class.getName())
+                || !CatalogServicePluginMetadata.of(conf).isAsync()) {
+            throw new EntityInvalidException(
+                    pluginConfigurationBusinessId + " is not a service plugin configuration that can run as a job");
+        }
+        if ((maxSpoolSize > 0) && (spoolSize.get() >= maxSpoolSize)) {
+            throw new ServiceJobRejectedException("Service job spool directory is full, retry later",
+                    HttpStatus.SERVICE_UNAVAILABLE, retryAfter);
+        }
+        String tenant = runtimeTenantResolver.getTenant();
+        // Capture request thread context
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(authentication);
+        String id = UUID.randomUUID().toString();
+        ServiceJob job = new ServiceJob(id, pluginConfigurationBusinessId, tenant,
+                authentication == null ? null : authentication.getName(), spoolDirectory.resolve(id));
+        jobs.put(id, job);
+        try {
+            job.setExecution(getExecutor(tenant).submit(() -> {
+                runtimeTenantResolver.forceTenant(tenant);
+                SecurityContextHolder.setContext(securityContext);
+                try {
+                    run(job, servicePluginParameters);
+                } finally {
+                    // Do not leak context to next pooled job
+                    FeignSecurityManager.reset();
+                    SecurityContextHolder.clearContext();
+                    runtimeTenantResolver.clearTenant();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Service job {} rejected", id, e);
+            jobs.remove(id);
+            throw new ServiceJobRejectedException("Too many service jobs for the current project, retry later",
+                    HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+        }
+        LOGGER.info("Service job {} submitted for plugin service {}", id, pluginConfigurationBusinessId);
+        return job;
+    }
+
+    @Override
+    public ServiceJob getJob(String jobId) throws ModuleException {
+        ServiceJob job = jobs.get(jobId);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication == null ? null : authentication.getName();
+        if ((job == null) || !Objects.equals(job.getTenant(), runtimeTenantResolver.getTenant())
+                || !Objects.equals(job.getOwner(), user)) {
+            throw new EntityNotFoundException(jobId, ServiceJob.class);
+        }
+        return job;
+    }
+
+    @Override
+    public ResponseEntity<Resource> getResult(String jobId) throws ModuleException {
+        ServiceJob job = getJob(jobId);
+        ServiceJobStatus status = job.getStatus();
+        if (status != ServiceJobStatus.SUCCEEDED) {
+            throw new ServiceJobStatusException(
+                    String.format("Service job %s has no result, its status is %s", jobId, status), status);
+        }
+        Path resultFile = job.getResultFile();
+        if (!Files.exists(resultFile)) {
+            // Expired meanwhile
+            throw new EntityNotFoundException(jobId, ServiceJob.class);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(job.getContentType() == null ? MediaType.APPLICATION_OCTET_STREAM
+                : MediaType.parseMediaType(job.getContentType()));
+        if (job.getContentDisposition() != null) {
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, job.getContentDisposition());
+            headers.setAccessControlExposeHeaders(Collections.singletonList(HttpHeaders.CONTENT_DISPOSITION));
+        }
+        headers.setContentLength(job.getProgress());
+        // File is only opened when the response is written
+        return new ResponseEntity<>(new FileSystemResource(resultFile), headers, HttpStatus.OK);
+    }
+
+    @Override
+    public ServiceJob cancel(String jobId) throws ModuleException {
+        ServiceJob job = getJob(jobId);
+        if (job.cancel(ttl)) {
+            // Release queue slot of a pending job, a running job cleans its result up once interrupted
+            ThreadPoolExecutor executor = tenantExecutors.get(job.getTenant());
+            if (executor != null) {
+                executor.purge();
+            }
+            LOGGER.info("Service job {} cancelled", jobId);
+        } else {
+            jobs.remove(jobId);
+            deleteResult(job);
+            LOGGER.info("Service job {} deleted", jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Apply the service and spool its result
+     */
+    private void run(ServiceJob job, ServicePluginParameters servicePluginParameters) {
+        if (!job.start()) {
+            // Cancelled while pending
+            return;
+        }
+        // Service application is cancelled along with the job
+        ServiceExecutionBudget previousBudget = job.getCancellation().bind();
+        ResponseEntity<StreamingResponseBody> result = null;
+        try {
+            result = serviceManager.apply(job.getPluginConfigurationBusinessId(), servicePluginParameters,
+                                          detachedResponse());
+            if ((result == null) || !result.getStatusCode().is2xxSuccessful()) {
+                job.fail(String.format("Service responded with status %s",
+                                       result == null ? null : result.getStatusCode()), ttl);
+                return;
+            }
+            Files.createDirectories(spoolDirectory);
+            try (OutputStream out = new SpoolOutputStream(Files.newOutputStream(job.getResultFile()), job)) {
+                if (result.getBody() != null) {
+                    result.getBody().writeTo(out);
+                }
+            }
+            MediaType contentType = result.getHeaders().getContentType();
+            if (job.succeed(contentType == null ? null : contentType.toString(),
+                            result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION), ttl)) {
+                LOGGER.info("Service job {} succeeded, {} bytes spooled", job.getId(), job.getProgress());
+            } else {
+                deleteResult(job);
+            }
+        } catch (ModuleException | IOException | RuntimeException e) {
+            deleteResult(job);
+            if (job.fail(e.getMessage(), ttl)) {
+                LOGGER.error(String.format("Service job %s failed", job.getId()), e);
+            } else {
+                LOGGER.debug("Service job {} stopped after cancellation", job.getId(), e);
+            }
+        } finally {
+            ServiceExecutionBudget.restore(previousBudget);
+            closeBody(result);
+        }
+    }
+
+    /**
+     * Give resources held by a service response body back if the body did not run, e.g. for an error response
+     */
+    private static void closeBody(ResponseEntity<StreamingResponseBody> result) {
+        if ((result != null) && (result.getBody() instanceof AutoCloseable)) {
+            try {
+                ((AutoCloseable) result.getBody()).close();
+            } catch (Exception e) { // NOSONAR nothing else to do with a body that cannot be closed
+                LOGGER.warn("Unable to close service response", e);
+            }
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor(String tenant) {
+        return tenantExecutors.computeIfAbsent(tenant, t -> {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(tenantPoolSize, tenantPoolSize, 60L,
+                    TimeUnit.SECONDS, new ArrayBlockingQueue<>(tenantQueueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "service-job-" + t);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    /**
+     * Drop expired jobs and their result
+     */
+    void cleanExpiredJobs() {
+        OffsetDateTime now = OffsetDateTime.now();
+        Iterator<Map.Entry<String, ServiceJob>> it = jobs.entrySet().iterator();
+        while (it.hasNext()) {
+            ServiceJob job = it.next().getValue();
+            if (job.isExpired(now)) {
+                it.remove();
+                deleteResult(job);
+                LOGGER.debug("Service job {} expired", job.getId());
+            }
+        }
+    }
+
+    private void deleteResult(ServiceJob job) {
+        try {
+            if (Files.deleteIfExists(job.getResultFile())) {
+                spoolSize.addAndGet(-job.getProgress());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete result of service job {}", job.getId(), e);
+        }
+    }
+
+    /**
+     * Services write their result in the returned body, the servlet response is only used to set the content type.
+     * @return a response not bound to any HTTP request, all its methods do nothing
+     */
+    private static HttpServletResponse detachedResponse() {
+        return (HttpServletResponse) Proxy
+                .newProxyInstance(ServiceJobManager.class.getClassLoader(),
+                                  new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+                                      Class<?> type = method.getReturnType();
+                                      if (type == boolean.class) {
+                                          return false;
+                                      } else if (type == int.class) {
+                                          return 0;
+                                      } else if (type == long.class) {
+                                          return 0L;
+                                      }
+                                      return null;
+                                  });
+    }
+
+    /**
+     * Output stream reporting number of written bytes as job progress and accounting them in the spool size. Writes
+     * fail once the job is cancelled or the spool directory is full.
+     */
+    private class SpoolOutputStream extends FilterOutputStream {
+
+        private final ServiceJob job;
+
+        private long count = 0;
+
+        public SpoolOutputStream(OutputStream out, ServiceJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (job.getStatus() == ServiceJobStatus.CANCELLED) {
+                throw new InterruptedIOException("Service job cancelled");
+            }
+            if ((maxSpoolSize > 0) && ((spoolSize.get() + len) > maxSpoolSize)) {
+                throw new IOException(String.format("Service job spool directory is full (%d bytes)", maxSpoolSize));
+            }
+            out.write(b, off, len);
+            count += len;
+            // Spool size and job progress must match so that the size is released when the result is deleted
+            spoolSize.addAndGet(len);
+            job.progress(count);
+        }
+    }
+}
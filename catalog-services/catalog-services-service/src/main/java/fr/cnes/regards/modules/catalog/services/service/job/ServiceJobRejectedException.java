@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.job;
+
+import org.springframework.http.HttpStatus;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+
+/**
+ * Service job rejected by {@link IServiceJobManager}.<br/>
+ * {@link HttpStatus#TOO_MANY_REQUESTS} when the project has too many jobs, {@link HttpStatus#SERVICE_UNAVAILABLE}
+ * when the spool directory is full.
+ * @author REGARDS Team
+ */
+@SuppressWarnings("serial")
+public class ServiceJobRejectedException extends ModuleException {
+
+    private final HttpStatus status;
+
+    private final long retryAfter;
+
+    public ServiceJobRejectedException(String message, HttpStatus status, long retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return delay in seconds clients should wait before retrying
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
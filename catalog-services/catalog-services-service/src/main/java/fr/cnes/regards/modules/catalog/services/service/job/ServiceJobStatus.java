@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.job;
+
+/**
+ * Asynchronous service job status
+ * @author REGARDS Team
+ */
+public enum ServiceJobStatus {
+
+    /**
+     * Waiting for a free slot in the tenant executor
+     */
+    PENDING,
+
+    /**
+     * Service is running, result is being spooled
+     */
+    RUNNING,
+
+    /**
+     * Result is available until job expiration
+     */
+    SUCCEEDED,
+
+    /**
+     * See job message
+     */
+    FAILED,
+
+    /**
+     * Cancelled by its owner before its end
+     */
+    CANCELLED;
+
+    /**
+     * @return true if job will not change anymore
+     */
+    public boolean isFinished() {
+        return (this != PENDING) && (this != RUNNING);
+    }
+}
@@ -18,6 +18,8 @@
  */
 package fr.cnes.regards.modules.catalog.services.service.link;
 
+import java.util.List;
+
 import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.modules.catalog.services.domain.LinkPluginsDatasets;
 
@@ -37,6 +39,13 @@ public interface ILinkPluginsDatasetsService {
      */
     LinkPluginsDatasets retrieveLink(String pDatasetId);
 
+    /**
+     * Retrieves all existing {@link LinkPluginsDatasets} with their services. Nothing is created.
+     *
+     * @return all {@link LinkPluginsDatasets}
+     */
+    List<LinkPluginsDatasets> retrieveLinks();
+
     /**
      * Update a {@link LinkPluginsDatasets}
      *
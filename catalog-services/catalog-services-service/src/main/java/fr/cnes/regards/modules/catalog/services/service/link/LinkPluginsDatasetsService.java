@@ -18,6 +18,8 @@
  */
 package fr.cnes.regards.modules.catalog.services.service.link;
 
+import java.util.List;
+
 import javax.annotation.PostConstruct;
 
 import org.springframework.stereotype.Service;
@@ -103,6 +105,11 @@ public class LinkPluginsDatasetsService implements ILinkPluginsDatasetsService {
         return linkPluginsDatasets;
     }
 
+    @Override
+    public List<LinkPluginsDatasets> retrieveLinks() {
+        return linkRepo.findAll();
+    }
+
     @Override
     public LinkPluginsDatasets updateLink(final String pDatasetId, final LinkPluginsDatasets pUpdatedLink)
             throws EntityInvalidException {
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.plugin;
+
+import java.util.Map;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.modules.plugins.domain.PluginParamDescriptor;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+
+/**
+ * Reuse {@link IService} plugin instances between applications.<br/>
+ * Instances are identified by tenant, plugin configuration and dynamic parameter values. Reuse is opt-in (see
+ * {@link fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin}) :
+ * <ul>
+ * <li>by default, a new instance is created for each application and destroyed once the application is done,</li>
+ * <li>a reusable plugin instance is leased to one application at a time and idle instances are kept in a bounded
+ * pool,</li>
+ * <li>a thread safe plugin instance is shared by all applications with the same identity.</li>
+ * </ul>
+ * Instances that are dropped, evicted or invalidated are destroyed (see
+ * {@link fr.cnes.regards.framework.modules.plugins.annotations.PluginDestroy}) once no application uses them
+ * anymore.
+ * @author REGARDS Team
+ */
+public interface IServicePluginCache {
+
+    /**
+     * Plugin instantiation
+     */
+    @FunctionalInterface
+    interface ServiceFactory {
+
+        IService create() throws ModuleException;
+    }
+
+    /**
+     * @return parameter descriptors of the plugin of the given configuration by parameter name
+     */
+    Map<String, PluginParamDescriptor> getParamDescriptors(PluginConfiguration conf);
+
+    /**
+     * Get a plugin instance for the given identity, creating it with the factory if none is available
+     * @param tenant tenant
+     * @param businessId plugin configuration business id
+     * @param dynamicParameters dynamic parameter values
+     * @param reusable true if instance may be applied again once an application is done with it
+     * @param threadSafe true if instance may be used by concurrent applications
+     * @param factory instance factory, called at most once at a time for the same shared identity
+     * @return a lease to close when the instance is no longer used
+     * @throws ModuleException if instance cannot be created
+     */
+    ServicePluginLease lease(String tenant, String businessId, Map<String, String> dynamicParameters, boolean reusable,
+            boolean threadSafe, ServiceFactory factory) throws ModuleException;
+
+    /**
+     * Drop all instances of the given tenant, they are destroyed once no application uses them anymore
+     */
+    void invalidate(String tenant);
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.modules.plugins.domain.PluginParamDescriptor;
+import fr.cnes.regards.framework.utils.plugins.PluginUtils;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+
+/**
+ * Guava backed {@link IServicePluginCache}. Number of cached identities is bounded, least recently used ones are
+ * evicted first.
+ * @author REGARDS Team
+ */
+@Component
+public class ServicePluginCache implements IServicePluginCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServicePluginCache.class);
+
+    /**
+     * Parameter descriptors by plugin id, plugin metadata does not change at runtime
+     */
+    private final ConcurrentMap<String, Map<String, PluginParamDescriptor>> paramDescriptors =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Shared instances of thread safe plugins
+     */
+    private final Cache<InstanceKey, SharedInstance> sharedInstances;
+
+    /**
+     * Idle instances of reusable plugins
+     */
+    private final Cache<InstanceKey, Pool> pools;
+
+    private final int poolSize;
+
+    /**
+     * Plugin instance destruction, calls {@link fr.cnes.regards.framework.modules.plugins.annotations.PluginDestroy}
+     * methods
+     */
+    private final Consumer<IService> destroyer;
+
+    @Autowired
+    public ServicePluginCache(@Value("${regards.catalog.services.plugin.cache.size:500}") long cacheSize,
+            @Value("${regards.catalog.services.plugin.pool.size:4}") int poolSize) {
+        this(cacheSize, poolSize, PluginUtils::doDestroyPlugin);
+    }
+
+    ServicePluginCache(long cacheSize, int poolSize, Consumer<IService> destroyer) {
+        this.sharedInstances = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                .<InstanceKey, SharedInstance> removalListener(notification -> notification.getValue().evict())
+                .build();
+        this.pools = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                .<InstanceKey, Pool> removalListener(notification -> notification.getValue().close()).build();
+        this.poolSize = poolSize;
+        this.destroyer = destroyer;
+    }
+
+    @PreDestroy
+    public void destroyAll() {
+        sharedInstances.invalidateAll();
+        pools.invalidateAll();
+    }
+
+    @Override
+    public Map<String, PluginParamDescriptor> getParamDescriptors(PluginConfiguration conf) {
+        return paramDescriptors.computeIfAbsent(conf.getPluginId(), pluginId -> {
+            Map<String, PluginParamDescriptor> descriptors = new HashMap<>();
+            for (PluginParamDescriptor descriptor : conf.getMetaData().getParameters()) {
+                descriptors.putIfAbsent(descriptor.getName(), descriptor);
+            }
+            return Collections.unmodifiableMap(descriptors);
+        });
+    }
+
+    @Override
+    public ServicePluginLease lease(String tenant, String businessId, Map<String, String> dynamicParameters,
+            boolean reusable, boolean threadSafe, ServiceFactory factory) throws ModuleException {
+        InstanceKey key = new InstanceKey(tenant, businessId, dynamicParameters);
+        if (threadSafe) {
+            return leaseShared(key, factory);
+        }
+        if (reusable) {
+            Pool pool = pools.asMap().computeIfAbsent(key, k -> new Pool());
+            IService idle = pool.poll();
+            IService service = idle == null ? factory.create() : idle;
+            return new ServicePluginLease(service, () -> pool.giveBack(service));
+        }
+        IService service = factory.create();
+        return new ServicePluginLease(service, () -> destroy(service));
+    }
+
+    private ServicePluginLease leaseShared(InstanceKey key, ServiceFactory factory) throws ModuleException {
+        while (true) {
+            SharedInstance instance;
+            try {
+                // Concurrent first calls wait for a single instantiation
+                instance = sharedInstances.get(key, () -> new SharedInstance(factory.create()));
+            } catch (ExecutionException e) {
+                Throwables.throwIfInstanceOf(e.getCause(), ModuleException.class);
+                throw new ModuleException("Cannot instantiate service plugin", e.getCause());
+            } catch (UncheckedExecutionException | ExecutionError e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            }
+            if (instance.acquire()) {
+                return new ServicePluginLease(instance.service, instance::release);
+            }
+            // Evicted meanwhile, it is no longer cached
+        }
+    }
+
+    @Override
+    public void invalidate(String tenant) {
+        sharedInstances.asMap().keySet().removeIf(key -> Objects.equals(key.tenant, tenant));
+        pools.asMap().keySet().removeIf(key -> Objects.equals(key.tenant, tenant));
+    }
+
+    private void destroy(IService service) {
+        try {
+            destroyer.accept(service);
+        } catch (RuntimeException e) { // NOSONAR plugin failure must not prevent other instances destruction
+            LOGGER.warn("Error destroying service plugin instance {}", service.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Thread safe plugin instance, destroyed once evicted and no longer leased
+     */
+    private final class SharedInstance {
+
+        private final IService service;
+
+        private int leases = 0;
+
+        private boolean evicted = false;
+
+        private SharedInstance(IService service) {
+            this.service = service;
+        }
+
+        /**
+         * @return false if instance is evicted and must not be used anymore
+         */
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            leases++;
+            return true;
+        }
+
+        private void release() {
+            boolean unused;
+            synchronized (this) {
+                leases--;
+                unused = evicted && (leases == 0);
+            }
+            if (unused) {
+                destroy(service);
+            }
+        }
+
+        private void evict() {
+            boolean unused;
+            synchronized (this) {
+                evicted = true;
+                unused = leases == 0;
+            }
+            if (unused) {
+                destroy(service);
+            }
+        }
+    }
+
+    /**
+     * Idle instances of a reusable plugin, bounded. Instances given back to a full or closed pool are destroyed.
+     */
+    private final class Pool {
+
+        private final Queue<IService> idle = new ArrayDeque<>();
+
+        private boolean closed = false;
+
+        private synchronized IService poll() {
+            return idle.poll();
+        }
+
+        private void giveBack(IService service) {
+            boolean kept;
+            synchronized (this) {
+                kept = !closed && (idle.size() < poolSize) && idle.offer(service);
+            }
+            if (!kept) {
+                destroy(service);
+            }
+        }
+
+        private void close() {
+            List<IService> dropped;
+            synchronized (this) {
+                closed = true;
+                dropped = new ArrayList<>(idle);
+                idle.clear();
+            }
+            dropped.forEach(ServicePluginCache.this::destroy);
+        }
+    }
+
+    /**
+     * Plugin instance identity
+     */
+    private static final class InstanceKey {
+
+        private final String tenant;
+
+        private final String businessId;
+
+        private final Map<String, String> dynamicParameters;
+
+        private InstanceKey(String tenant, String businessId, Map<String, String> dynamicParameters) {
+            this.tenant = tenant;
+            this.businessId = businessId;
+            this.dynamicParameters = dynamicParameters == null ? Collections.emptyMap()
+                    : new TreeMap<>(dynamicParameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, businessId, dynamicParameters);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj == null) || (getClass() != obj.getClass())) {
+                return false;
+            }
+            InstanceKey other = (InstanceKey) obj;
+            return Objects.equals(tenant, other.tenant) && Objects.equals(businessId, other.businessId)
+                    && dynamicParameters.equals(other.dynamicParameters);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.plugin;
+
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+
+/**
+ * Plugin instance leased by {@link IServicePluginCache}. Closing the lease gives a reusable instance back or destroys
+ * the instance if it cannot be reused.
+ * @author REGARDS Team
+ */
+public class ServicePluginLease implements AutoCloseable {
+
+    private final IService service;
+
+    /**
+     * Action run once when the lease is closed
+     */
+    private final Runnable release;
+
+    private boolean closed = false;
+
+    public ServicePluginLease(IService service, Runnable release) {
+        this.service = service;
+        this.release = release;
+    }
+
+    public IService getService() {
+        return service;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            release.run();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.result;
+
+import java.util.Optional;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+
+/**
+ * Cache of deterministic service results.<br/>
+ * Keys are bound to the tenant data version : all entries of a tenant are rejected as soon as its catalog data, its
+ * access rights or its service configurations change.
+ * @author REGARDS Team
+ */
+public interface IServiceResultCache {
+
+    /**
+     * @return false if cache is disabled by configuration
+     */
+    boolean isEnabled();
+
+    /**
+     * Compute cache key of a service application by the current user with the current tenant data version
+     */
+    ServiceResultCacheKey key(String tenant, String pluginConfigurationBusinessId,
+            ServicePluginParameters servicePluginParameters);
+
+    /**
+     * @return cached result if any
+     */
+    Optional<ResponseEntity<StreamingResponseBody>> get(ServiceResultCacheKey key);
+
+    /**
+     * Wrap the given result so that its body is cached while it is written. Only successful and fully written results
+     * are cached : the given body must fail if its output is incomplete, e.g. once its execution budget is exceeded.
+     * @return wrapped result
+     */
+    ResponseEntity<StreamingResponseBody> cacheOnWrite(ServiceResultCacheKey key,
+            ResponseEntity<StreamingResponseBody> result);
+
+    /**
+     * Increment tenant data version and evict all its entries
+     */
+    void invalidate(String tenant);
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.result;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+
+/**
+ * Local disk implementation of {@link IServiceResultCache}.<br/>
+ * Results are stored as files in a local directory and evicted in least recently used order once the maximum number
+ * of entries or the maximum total size is reached. Results bigger than the maximum entry size are never stored. The
+ * index is kept in memory so the directory is emptied at startup.
+ * @author REGARDS Team
+ */
+@Service
+public class ServiceResultCache implements IServiceResultCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceResultCache.class);
+
+    private static final String RESULT_SUFFIX = ".result";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Cached result
+     */
+    private static final class Entry {
+
+        private final Path file;
+
+        private final long size;
+
+        private final HttpHeaders headers;
+
+        private final HttpStatus status;
+
+        private Entry(Path file, long size, HttpHeaders headers, HttpStatus status) {
+            this.file = file;
+            this.size = size;
+            this.headers = headers;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Write to the response and to a temporary file until the maximum entry size is reached
+     */
+    private final class CachingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        private OutputStream cacheOut;
+
+        private long size = 0;
+
+        private CachingOutputStream(OutputStream out, Path tempFile) throws IOException {
+            this.out = out;
+            this.cacheOut = Files.newOutputStream(tempFile);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (reserve(1)) {
+                try {
+                    cacheOut.write(b);
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (reserve(len)) {
+                try {
+                    cacheOut.write(b, off, len);
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Response output stream is handled by the servlet container, only the cache file is closed
+         */
+        @Override
+        public void close() {
+            abandon();
+        }
+
+        private boolean reserve(long length) {
+            if (cacheOut == null) {
+                return false;
+            }
+            size += length;
+            if (size > maxEntrySize) {
+                LOGGER.debug("Service result bigger than {} bytes is not cached", maxEntrySize);
+                abandon();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Cache failures must not break the response
+         */
+        private void fail(IOException e) {
+            LOGGER.warn("Unable to cache service result", e);
+            abandon();
+        }
+
+        /**
+         * Stop caching, closing the cache file
+         * @return true if cache file is complete
+         */
+        private boolean abandon() {
+            if (cacheOut == null) {
+                return false;
+            }
+            try {
+                cacheOut.close();
+                return true;
+            } catch (IOException e) {
+                LOGGER.warn("Unable to cache service result", e);
+                return false;
+            } finally {
+                cacheOut = null;
+            }
+        }
+    }
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    private final long maxEntrySize;
+
+    private final int maxEntries;
+
+    private final boolean enabled;
+
+    /**
+     * Data version by tenant
+     */
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Entries in access order, guarded by this
+     */
+    private final LinkedHashMap<ServiceResultCacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Total size of entries, guarded by this
+     */
+    private long totalSize = 0;
+
+    public ServiceResultCache(
+            @Value("${regards.catalog.services.result.cache.directory:${java.io.tmpdir}/catalog-services-results}")
+            String directory,
+            @Value("${regards.catalog.services.result.cache.max.size:1073741824}") long maxSize,
+            @Value("${regards.catalog.services.result.cache.max.entry.size:104857600}") long maxEntrySize,
+            @Value("${regards.catalog.services.result.cache.max.entries:1000}") int maxEntries) {
+        this.directory = Paths.get(directory);
+        this.maxSize = maxSize;
+        this.maxEntrySize = Math.min(maxEntrySize, maxSize);
+        this.maxEntries = maxEntries;
+        this.enabled = (maxSize > 0) && (maxEntrySize > 0) && (maxEntries > 0);
+        if (enabled) {
+            clean();
+        }
+    }
+
+    /**
+     * Remove files left by a previous run
+     */
+    private void clean() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + RESULT_SUFFIX + ","
+                + TEMP_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Unable to clean service result cache directory %s", directory), e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public ServiceResultCacheKey key(String tenant, String pluginConfigurationBusinessId,
+            ServicePluginParameters servicePluginParameters) {
+        return new ServiceResultCacheKey(tenant, getVersion(tenant).get(), currentUser(),
+                pluginConfigurationBusinessId, servicePluginParameters);
+    }
+
+    /**
+     * @return user name and roles as results depend on access rights
+     */
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        TreeSet<String> authorities = new TreeSet<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            authorities.add(authority.getAuthority());
+        }
+        return authentication.getName() + authorities;
+    }
+
+    private AtomicLong getVersion(String tenant) {
+        return versions.computeIfAbsent(tenant, t -> new AtomicLong());
+    }
+
+    @Override
+    public synchronized Optional<ResponseEntity<StreamingResponseBody>> get(ServiceResultCacheKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (!Files.isReadable(entry.file)) {
+            LOGGER.warn("Unable to read cached service result {}", entry.file);
+            remove(key);
+            return Optional.empty();
+        }
+        LOGGER.debug("Service result found in cache for {}", key);
+        // File is only opened once the body is written, so that a discarded body does not leak it
+        StreamingResponseBody body = outputStream -> {
+            try (InputStream cached = open(key, entry)) {
+                StreamUtils.copy(cached, outputStream);
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(entry.headers);
+        return Optional.of(new ResponseEntity<>(body, headers, entry.status));
+    }
+
+    /**
+     * Open entry file under lock so that eviction cannot delete it meanwhile
+     * @throws IOException if entry has been evicted since it was retrieved
+     */
+    private synchronized InputStream open(ServiceResultCacheKey key, Entry entry) throws IOException {
+        if (!entries.containsKey(key)) {
+            throw new IOException(String.format("Cached service result %s evicted before being read", entry.file));
+        }
+        return Files.newInputStream(entry.file);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> cacheOnWrite(ServiceResultCacheKey key,
+            ResponseEntity<StreamingResponseBody> result) {
+        if (!enabled || (result == null) || (result.getBody() == null)
+                || !result.getStatusCode().is2xxSuccessful()) {
+            return result;
+        }
+        StreamingResponseBody body = result.getBody();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(result.getHeaders());
+        HttpStatus status = result.getStatusCode();
+        StreamingResponseBody cachingBody = outputStream -> {
+            Path tempFile = null;
+            CachingOutputStream cachingOut;
+            try {
+                Files.createDirectories(directory);
+                tempFile = Files.createTempFile(directory, "service", TEMP_SUFFIX);
+                cachingOut = new CachingOutputStream(outputStream, tempFile);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to cache service result", e);
+                if (tempFile != null) {
+                    Files.deleteIfExists(tempFile);
+                }
+                body.writeTo(outputStream);
+                return;
+            }
+            try {
+                body.writeTo(cachingOut);
+                if (cachingOut.abandon()) {
+                    put(key, tempFile, cachingOut.size, headers, status);
+                }
+            } finally {
+                cachingOut.close();
+                Files.deleteIfExists(tempFile);
+            }
+        };
+        return new ResponseEntity<>(cachingBody, result.getHeaders(), status);
+    }
+
+    /**
+     * Move written result into the cache and evict least recently used entries over the limits
+     */
+    private synchronized void put(ServiceResultCacheKey key, Path tempFile, long size, HttpHeaders headers,
+            HttpStatus status) {
+        if (key.getVersion() != getVersion(key.getTenant()).get()) {
+            // Data changed while computing result
+            return;
+        }
+        Path file = directory.resolve(key.toFileName() + RESULT_SUFFIX);
+        remove(key);
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to cache service result", e);
+            return;
+        }
+        entries.put(key, new Entry(file, size, headers, status));
+        totalSize += size;
+        Iterator<Map.Entry<ServiceResultCacheKey, Entry>> eldests = entries.entrySet().iterator();
+        while (((totalSize > maxSize) || (entries.size() > maxEntries)) && eldests.hasNext()) {
+            Entry eldest = eldests.next().getValue();
+            eldests.remove();
+            delete(eldest);
+        }
+    }
+
+    @Override
+    public void invalidate(String tenant) {
+        getVersion(tenant).incrementAndGet();
+        LOGGER.debug("Rejecting service result cache for tenant {}", tenant);
+        synchronized (this) {
+            Iterator<Map.Entry<ServiceResultCacheKey, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<ServiceResultCacheKey, Entry> entry = it.next();
+                if (tenant.equals(entry.getKey().getTenant())) {
+                    it.remove();
+                    delete(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove an entry, must be called under lock
+     */
+    private void remove(ServiceResultCacheKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            delete(entry);
+        }
+    }
+
+    /**
+     * Delete entry file, must be called under lock
+     */
+    private void delete(Entry entry) {
+        totalSize -= entry.size;
+        try {
+            Files.deleteIfExists(entry.file);
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Unable to delete cached service result %s", entry.file), e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.result;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.modules.plugins.domain.event.BroadcastPluginConfEvent;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.event.AccessGroupAssociationEvent;
+import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.event.AccessGroupDissociationEvent;
+import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.event.AccessGroupPublicEvent;
+import fr.cnes.regards.modules.dam.domain.entities.event.BroadcastEntityEvent;
+
+/**
+ * Increment the data version of a tenant in the {@link IServiceResultCache} when its catalog data, its access groups
+ * or its service configurations change.
+ * @author REGARDS Team
+ */
+@Component
+public class ServiceResultCacheEventHandler implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ISubscriber subscriber;
+
+    private final IServiceResultCache serviceResultCache;
+
+    public ServiceResultCacheEventHandler(ISubscriber subscriber, IServiceResultCache serviceResultCache) {
+        this.subscriber = subscriber;
+        this.serviceResultCache = serviceResultCache;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (serviceResultCache.isEnabled()) {
+            subscriber.subscribeTo(BroadcastEntityEvent.class, new BroadcastEntityEventHandler());
+            subscriber.subscribeTo(AccessGroupAssociationEvent.class, new AccessGroupAssociationEventHandler());
+            subscriber.subscribeTo(AccessGroupDissociationEvent.class, new AccessGroupDissociationEventHandler());
+            subscriber.subscribeTo(AccessGroupPublicEvent.class, new AccessGroupPublicEventHandler());
+            subscriber.subscribeTo(BroadcastPluginConfEvent.class, new PluginConfEventHandler());
+        }
+    }
+
+    /**
+     * Handle {@link BroadcastEntityEvent} as catalog data changed
+     * @author REGARDS Team
+     */
+    private class BroadcastEntityEventHandler implements IHandler<BroadcastEntityEvent> {
+
+        @Override
+        public void handle(TenantWrapper<BroadcastEntityEvent> wrapper) {
+            serviceResultCache.invalidate(wrapper.getTenant());
+        }
+    }
+
+    /**
+     * Handle {@link AccessGroupAssociationEvent} as user access rights changed
+     * @author REGARDS Team
+     */
+    private class AccessGroupAssociationEventHandler implements IHandler<AccessGroupAssociationEvent> {
+
+        @Override
+        public void handle(TenantWrapper<AccessGroupAssociationEvent> wrapper) {
+            serviceResultCache.invalidate(wrapper.getTenant());
+        }
+    }
+
+    /**
+     * Handle {@link AccessGroupDissociationEvent} as user access rights changed
+     * @author REGARDS Team
+     */
+    private class AccessGroupDissociationEventHandler implements IHandler<AccessGroupDissociationEvent> {
+
+        @Override
+        public void handle(TenantWrapper<AccessGroupDissociationEvent> wrapper) {
+            serviceResultCache.invalidate(wrapper.getTenant());
+        }
+    }
+
+    /**
+     * Handle {@link AccessGroupPublicEvent} as access rights of all users changed
+     * @author REGARDS Team
+     */
+    private class AccessGroupPublicEventHandler implements IHandler<AccessGroupPublicEvent> {
+
+        @Override
+        public void handle(TenantWrapper<AccessGroupPublicEvent> wrapper) {
+            serviceResultCache.invalidate(wrapper.getTenant());
+        }
+    }
+
+    /**
+     * Handle {@link BroadcastPluginConfEvent} on {@link IService} configurations as static parameters may have changed
+     * @author REGARDS Team
+     */
+    private class PluginConfEventHandler implements IHandler<BroadcastPluginConfEvent> {
+
+        @Override
+        public void handle(TenantWrapper<BroadcastPluginConfEvent> wrapper) {
+            if ((wrapper.getContent() != null) && (wrapper.getContent().getPluginTypes() != null)
+                    && wrapper.getContent().getPluginTypes().contains(IService.class.getName())) {
+                serviceResultCache.invalidate(wrapper.getTenant());
+            }
+        }
+    }
+}
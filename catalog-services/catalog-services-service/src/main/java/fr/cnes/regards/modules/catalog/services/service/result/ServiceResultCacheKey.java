@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.result;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+import fr.cnes.regards.modules.search.domain.SearchRequest;
+
+/**
+ * Service result cache key.<br/>
+ * Dynamic parameters and selection are reduced to canonical SHA-256 fingerprints : parameter and search parameter
+ * names are sorted as well as entity ids to include or exclude, so that key does not depend on request parameter
+ * order. The key also holds the user (results are computed with its access rights) and the tenant data version at the
+ * time the key is computed.
+ * @author REGARDS Team
+ */
+public final class ServiceResultCacheKey {
+
+    /**
+     * Marker of null values so that null and empty values give different fingerprints
+     */
+    private static final int NULL_MARKER = -1;
+
+    private final String tenant;
+
+    private final long version;
+
+    private final String user;
+
+    private final String pluginConfigurationBusinessId;
+
+    private final String parametersFingerprint;
+
+    private final String selectionFingerprint;
+
+    private final int hashCode;
+
+    public ServiceResultCacheKey(String tenant, long version, String user, String pluginConfigurationBusinessId,
+            ServicePluginParameters servicePluginParameters) {
+        this.tenant = tenant;
+        this.version = version;
+        this.user = user;
+        this.pluginConfigurationBusinessId = pluginConfigurationBusinessId;
+        this.parametersFingerprint = parametersFingerprint(servicePluginParameters.getDynamicParameters());
+        this.selectionFingerprint = selectionFingerprint(servicePluginParameters);
+        // Key is immutable so hash is computed once
+        this.hashCode = Objects.hash(tenant, version, user, pluginConfigurationBusinessId, parametersFingerprint,
+                                     selectionFingerprint);
+    }
+
+    private static String parametersFingerprint(Map<String, String> dynamicParameters) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        if (dynamicParameters == null) {
+            hasher.putInt(NULL_MARKER);
+        } else {
+            hasher.putInt(dynamicParameters.size());
+            new TreeMap<>(dynamicParameters).forEach((name, value) -> {
+                putString(hasher, name);
+                putString(hasher, value);
+            });
+        }
+        return hasher.hash().toString();
+    }
+
+    private static String selectionFingerprint(ServicePluginParameters servicePluginParameters) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, servicePluginParameters.getEntityType() == null ? null
+                : servicePluginParameters.getEntityType().name());
+        SearchRequest searchRequest = servicePluginParameters.getSearchRequest();
+        if (searchRequest == null) {
+            hasher.putInt(NULL_MARKER);
+        } else {
+            putString(hasher, searchRequest.getEngineType());
+            putString(hasher, searchRequest.getDatasetUrn());
+            if (searchRequest.getSearchParameters() == null) {
+                hasher.putInt(NULL_MARKER);
+            } else {
+                hasher.putInt(searchRequest.getSearchParameters().size());
+                // Value order is kept as it may be meaningful (i.e. sort)
+                new TreeMap<>(searchRequest.getSearchParameters()).forEach((name, values) -> {
+                    putString(hasher, name);
+                    putStrings(hasher, values, false);
+                });
+            }
+            putStrings(hasher, searchRequest.getEntityIdsToInclude(), true);
+            putStrings(hasher, searchRequest.getEntityIdsToExclude(), true);
+            putString(hasher, searchRequest.getSearchDateLimit() == null ? null
+                    : searchRequest.getSearchDateLimit().toInstant().toString());
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putStrings(Hasher hasher, Collection<String> values, boolean sort) {
+        if (values == null) {
+            hasher.putInt(NULL_MARKER);
+            return;
+        }
+        List<String> canonical = new ArrayList<>(values);
+        if (sort) {
+            canonical.sort(null);
+        }
+        hasher.putInt(canonical.size());
+        canonical.forEach(value -> putString(hasher, value));
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(NULL_MARKER);
+        } else {
+            // Length prefix so that concatenated values cannot collide
+            hasher.putInt(value.length());
+            hasher.putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return a file name unique to this key
+     */
+    public String toFileName() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, tenant);
+        hasher.putLong(version);
+        putString(hasher, user);
+        putString(hasher, pluginConfigurationBusinessId);
+        putString(hasher, parametersFingerprint);
+        putString(hasher, selectionFingerprint);
+        return hasher.hash().toString();
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPluginConfigurationBusinessId() {
+        return pluginConfigurationBusinessId;
+    }
+
+    public String getParametersFingerprint() {
+        return parametersFingerprint;
+    }
+
+    public String getSelectionFingerprint() {
+        return selectionFingerprint;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if ((o == null) || (getClass() != o.getClass())) {
+            return false;
+        }
+        ServiceResultCacheKey other = (ServiceResultCacheKey) o;
+        return (hashCode == other.hashCode) && (version == other.version) && Objects.equals(tenant, other.tenant)
+                && Objects.equals(user, other.user)
+                && Objects.equals(pluginConfigurationBusinessId, other.pluginConfigurationBusinessId)
+                && Objects.equals(parametersFingerprint, other.parametersFingerprint)
+                && Objects.equals(selectionFingerprint, other.selectionFingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ServiceResultCacheKey { tenant: %s, version: %d, user: %s, service: %s, "
+                + "parameters: %s, selection: %s }", tenant, version, user, pluginConfigurationBusinessId,
+                             parametersFingerprint, selectionFingerprint);
+    }
+}
@@ -18,17 +18,42 @@
  */
 package fr.cnes.regards.modules.catalog.services.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.google.common.collect.Sets;
 
@@ -38,15 +63,30 @@ import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
 import fr.cnes.regards.framework.modules.plugins.domain.PluginMetaData;
 import fr.cnes.regards.framework.modules.plugins.domain.parameter.IPluginParam;
 import fr.cnes.regards.framework.modules.plugins.service.IPluginService;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.urn.EntityType;
 import fr.cnes.regards.framework.utils.plugins.PluginUtils;
 import fr.cnes.regards.framework.utils.plugins.PluginUtilsRuntimeException;
 import fr.cnes.regards.modules.catalog.services.domain.LinkPluginsDatasets;
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
 import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin;
 import fr.cnes.regards.modules.catalog.services.domain.dto.PluginConfigurationDto;
 import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceBudgetExceededException;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget.Violation;
 import fr.cnes.regards.modules.catalog.services.plugins.AbstractCatalogServicePlugin;
+import fr.cnes.regards.modules.catalog.services.service.budget.ServiceBudgetPolicy;
+import fr.cnes.regards.modules.catalog.services.service.index.ServiceIndexCache;
 import fr.cnes.regards.modules.catalog.services.service.link.ILinkPluginsDatasetsService;
+import fr.cnes.regards.modules.catalog.services.service.plugin.IServicePluginCache;
+import fr.cnes.regards.modules.catalog.services.service.plugin.ServicePluginCache;
+import fr.cnes.regards.modules.catalog.services.service.plugin.ServicePluginLease;
+import fr.cnes.regards.modules.catalog.services.service.result.IServiceResultCache;
+import fr.cnes.regards.modules.catalog.services.service.result.ServiceResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit test for {@link ServiceManager}
@@ -69,6 +109,8 @@ public class ServiceManagerTest {
 
     private static final PluginConfiguration EXAMPLE_ONE_MANY_CONF_ALL_DS;
 
+    private static final String RESULT = "service result";
+
     static {
         //This plugin being non-existent, lets create PluginMetadata by hand and put some random values.
         final PluginMetaData fakePluginMeta = new PluginMetaData();
@@ -127,6 +169,69 @@ public class ServiceManagerTest {
      */
     private ILinkPluginsDatasetsService linkPluginsDatasetsService;
 
+    /**
+     * Tenant level index of services
+     */
+    private ServiceIndexCache serviceIndexCache;
+
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Deterministic service counting its applications. Its body swallows write errors as a careless plugin would.
+     */
+    @CatalogServicePlugin(applicationModes = ServiceScope.ONE, entityTypes = EntityType.DATA, deterministic = true)
+    private static class DeterministicService implements IService {
+
+        private final AtomicInteger applications = new AtomicInteger();
+
+        @Override
+        public ResponseEntity<StreamingResponseBody> apply(ServicePluginParameters parameters,
+                HttpServletResponse response) {
+            applications.incrementAndGet();
+            return ResponseEntity.ok(out -> {
+                try {
+                    out.write(RESULT.getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) { // NOSONAR swallowed on purpose
+                }
+            });
+        }
+    }
+
+    /**
+     * Service fetching more entities than its budget allows through the budget bound to the application thread
+     */
+    @CatalogServicePlugin(applicationModes = ServiceScope.MANY, entityTypes = EntityType.DATA)
+    private static class FetchingService implements IService {
+
+        @Override
+        public ResponseEntity<StreamingResponseBody> apply(ServicePluginParameters parameters,
+                HttpServletResponse response) {
+            ServiceExecutionBudget.current().orElseThrow(IllegalStateException::new).addEntities(10);
+            return ResponseEntity.ok(out -> out.write(1));
+        }
+    }
+
+    /**
+     * Service blocked outside any budget check, e.g. on a remote call
+     */
+    @CatalogServicePlugin(applicationModes = ServiceScope.MANY, entityTypes = EntityType.DATA)
+    private static class BlockingService implements IService {
+
+        @Override
+        public ResponseEntity<StreamingResponseBody> apply(ServicePluginParameters parameters,
+                HttpServletResponse response) {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("Remote call interrupted", e);
+            }
+            return ResponseEntity.ok(out -> out.write(1));
+        }
+    }
+
     /**
      * @throws java.lang.Exception
      */
@@ -135,7 +240,73 @@ public class ServiceManagerTest {
         pluginService = Mockito.mock(IPluginService.class);
         Mockito.when(pluginService.getPluginConfigurationsByType(IService.class)).thenReturn(ALL_VALID_PLUGIN_CONFS);
         linkPluginsDatasetsService = Mockito.mock(ILinkPluginsDatasetsService.class);
-        serviceManager = new ServiceManager(pluginService, linkPluginsDatasetsService);
+        runtimeTenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(runtimeTenantResolver.getTenant()).thenReturn("tenant");
+        serviceIndexCache = new ServiceIndexCache();
+        serviceManager = new ServiceManager(pluginService, linkPluginsDatasetsService, runtimeTenantResolver,
+                serviceIndexCache, new ServicePluginCache(10, 2), Mockito.mock(IServiceResultCache.class),
+                newBudgetPolicy(0, null));
+    }
+
+    private static ServiceBudgetPolicy newBudgetPolicy(long maxResponseSize, MeterRegistry meterRegistry) {
+        return newBudgetPolicy(0, maxResponseSize, meterRegistry);
+    }
+
+    private static ServiceBudgetPolicy newBudgetPolicy(long maxEntities, long maxResponseSize,
+            MeterRegistry meterRegistry) {
+        return newBudgetPolicy(0, maxEntities, maxResponseSize, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServiceBudgetPolicy newBudgetPolicy(long maxDuration, long maxEntities, long maxResponseSize,
+            MeterRegistry meterRegistry) {
+        ObjectProvider<MeterRegistry> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(meterRegistry);
+        return new ServiceBudgetPolicy(maxDuration, maxEntities, maxResponseSize, provider);
+    }
+
+    private ServiceManager newServiceManager(ServiceBudgetPolicy budgetPolicy) {
+        return new ServiceManager(pluginService, linkPluginsDatasetsService, runtimeTenantResolver, serviceIndexCache,
+                new ServicePluginCache(10, 2), Mockito.mock(IServiceResultCache.class), budgetPolicy);
+    }
+
+    private static double violations(MeterRegistry meterRegistry, String businessId, Violation violation) {
+        return meterRegistry.counter(ServiceBudgetPolicy.VIOLATIONS_METRIC, "service", businessId, "violation",
+                                     violation.name())
+                .count();
+    }
+
+    /**
+     * Build a service manager caching deterministic service results
+     */
+    private ServiceManager newCachingServiceManager(ServiceBudgetPolicy budgetPolicy) {
+        return new ServiceManager(pluginService, linkPluginsDatasetsService, runtimeTenantResolver, serviceIndexCache,
+                new ServicePluginCache(10, 2),
+                new ServiceResultCache(folder.getRoot().getAbsolutePath(), 1000, 100, 10), budgetPolicy);
+    }
+
+    /**
+     * Register a configuration of the given service and return the service instance
+     */
+    private <T extends IService> T mockService(String businessId, T service) throws Exception {
+        PluginConfiguration conf = Mockito.mock(PluginConfiguration.class);
+        Mockito.when(conf.getBusinessId()).thenReturn(businessId);
+        Mockito.when(conf.getInterfaceNames()).thenReturn(Sets.newHashSet(IService.class.getName()));
+        Mockito.when(conf.getPluginClassName()).thenReturn(service.getClass().getName());
+        Mockito.when(conf.isActive()).thenReturn(true);
+        Mockito.when(pluginService.getPluginConfiguration(businessId)).thenReturn(conf);
+        Mockito.when(pluginService.getPlugin(Mockito.eq(businessId), Mockito.any())).thenReturn(service);
+        return service;
+    }
+
+    private static ServicePluginParameters parameters() {
+        return new ServicePluginParameters(EntityType.DATA, null, new HashMap<>());
+    }
+
+    private static String write(ResponseEntity<StreamingResponseBody> result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
     }
 
     /**
@@ -149,7 +320,7 @@ public class ServiceManagerTest {
         // Prepare test
         final LinkPluginsDatasets linkPluginsDatasets = new LinkPluginsDatasets("test",
                 PLUGIN_CONFIGURATIONS_WRONG_PLUGIN);
-        Mockito.when(linkPluginsDatasetsService.retrieveLink(Mockito.anyString())).thenReturn(linkPluginsDatasets);
+        Mockito.when(linkPluginsDatasetsService.retrieveLinks()).thenReturn(Arrays.asList(linkPluginsDatasets));
 
         // Trigger exception
         serviceManager.retrieveServices(Arrays.asList("test"), Arrays.asList(ServiceScope.ONE));
@@ -164,7 +335,7 @@ public class ServiceManagerTest {
         String datasetId = "aSampleServicePlugin";
         // Prepare test
         final LinkPluginsDatasets linkPluginsDatasets = new LinkPluginsDatasets(datasetId, PLUGIN_CONFIGURATIONS);
-        Mockito.when(linkPluginsDatasetsService.retrieveLink(Mockito.anyString())).thenReturn(linkPluginsDatasets);
+        Mockito.when(linkPluginsDatasetsService.retrieveLinks()).thenReturn(Arrays.asList(linkPluginsDatasets));
 
         // Call tested method
         List<PluginConfigurationDto> pluginConfigurationDtos = serviceManager
@@ -218,4 +389,262 @@ public class ServiceManagerTest {
                           Matchers.hasItem(new PluginConfigurationDto(EXAMPLE_ONE_MANY_CONF_ALL_DS)));
     }
 
+    /**
+     * Services are retrieved from the tenant index, built once and rebuilt after invalidation. Nothing is written.
+     */
+    @Test
+    public final void testRetrieveServicesFromIndex() {
+        String datasetId = "aSampleServicePlugin";
+        final LinkPluginsDatasets linkPluginsDatasets = new LinkPluginsDatasets(datasetId, PLUGIN_CONFIGURATIONS);
+        Mockito.when(linkPluginsDatasetsService.retrieveLinks()).thenReturn(Arrays.asList(linkPluginsDatasets));
+
+        serviceManager.retrieveServices(Arrays.asList(datasetId), Arrays.asList(ServiceScope.ONE));
+        // Unknown dataset only gets services applicable to all datasets
+        List<PluginConfigurationDto> pluginConfigurationDtos = serviceManager
+                .retrieveServices(Arrays.asList("unknown"), null);
+        Assert.assertThat(pluginConfigurationDtos, Matchers.hasSize(1));
+        Mockito.verify(linkPluginsDatasetsService, Mockito.times(1)).retrieveLinks();
+        Mockito.verify(linkPluginsDatasetsService, Mockito.never()).retrieveLink(Mockito.anyString());
+
+        serviceIndexCache.invalidate("tenant");
+        serviceManager.retrieveServices(Arrays.asList(datasetId), Arrays.asList(ServiceScope.ONE));
+        Mockito.verify(linkPluginsDatasetsService, Mockito.times(2)).retrieveLinks();
+    }
+
+    /**
+     * Deterministic service result is stored once written then served from cache without applying the plugin
+     */
+    @Test
+    public void applyDeterministicServiceFromCache() throws Exception {
+        DeterministicService service = mockService("deterministic", new DeterministicService());
+        ServiceManager cachingServiceManager = newCachingServiceManager(newBudgetPolicy(0, null));
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+        ResponseEntity<StreamingResponseBody> result = cachingServiceManager.apply("deterministic", parameters(),
+                                                                                   response);
+        Assert.assertEquals(RESULT, write(result));
+        Assert.assertEquals(1, service.applications.get());
+
+        Assert.assertEquals(RESULT, write(cachingServiceManager.apply("deterministic", parameters(), response)));
+        Assert.assertEquals(RESULT, write(cachingServiceManager.apply("deterministic", parameters(), response)));
+        Assert.assertEquals(1, service.applications.get());
+    }
+
+    /**
+     * Cached result is served without instantiating the plugin
+     */
+    @Test
+    public void applyCachedResult() throws Exception {
+        DeterministicService service = mockService("deterministic", new DeterministicService());
+        IServiceResultCache resultCache = Mockito.mock(IServiceResultCache.class);
+        Mockito.when(resultCache.isEnabled()).thenReturn(true);
+        ResponseEntity<StreamingResponseBody> cached = ResponseEntity.ok(out -> out.write(1));
+        Mockito.when(resultCache.get(Mockito.any())).thenReturn(Optional.of(cached));
+        ServiceManager cachingServiceManager = new ServiceManager(pluginService, linkPluginsDatasetsService,
+                runtimeTenantResolver, serviceIndexCache, new ServicePluginCache(10, 2), resultCache,
+                newBudgetPolicy(0, null));
+
+        Assert.assertSame(cached, cachingServiceManager.apply("deterministic", parameters(),
+                                                              Mockito.mock(HttpServletResponse.class)));
+        Assert.assertEquals(0, service.applications.get());
+        Mockito.verify(pluginService, Mockito.never()).getPlugin(Mockito.anyString(), Mockito.any());
+        Mockito.verify(resultCache, Mockito.never()).cacheOnWrite(Mockito.any(), Mockito.any());
+    }
+
+    /**
+     * Result exceeding its budget is neither complete nor cached, even if the plugin swallowed the violation
+     */
+    @Test
+    public void doNotCacheResultExceedingBudget() throws Exception {
+        DeterministicService service = mockService("deterministic", new DeterministicService());
+        ServiceManager cachingServiceManager = newCachingServiceManager(newBudgetPolicy(4, null));
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+        for (int i = 1; i <= 2; i++) {
+            ResponseEntity<StreamingResponseBody> result = cachingServiceManager.apply("deterministic", parameters(),
+                                                                                       response);
+            try {
+                write(result);
+                Assert.fail("Response exceeding its budget must fail");
+            } catch (ServiceBudgetExceededException e) {
+                // Expected
+            }
+            Assert.assertEquals(i, service.applications.get());
+        }
+    }
+
+    /**
+     * Entities fetched while applying the service are limited by the budget bound to the application thread
+     */
+    @Test
+    public void applyReportsEntitiesViolation() throws Exception {
+        mockService("fetching", new FetchingService());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ServiceManager budgetedServiceManager = newServiceManager(newBudgetPolicy(5, 0, meterRegistry));
+        try {
+            budgetedServiceManager.apply("fetching", parameters(), Mockito.mock(HttpServletResponse.class));
+            Assert.fail("Service exceeding its budget must fail");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.ENTITIES, e.getViolation());
+        }
+        Assert.assertEquals(1, violations(meterRegistry, "fetching", Violation.ENTITIES), 0);
+        Assert.assertFalse(ServiceExecutionBudget.current().isPresent());
+
+        // Unlimited by default
+        Assert.assertNotNull(newServiceManager(newBudgetPolicy(0, 0, meterRegistry))
+                .apply("fetching", parameters(), Mockito.mock(HttpServletResponse.class)));
+    }
+
+    /**
+     * Response size is limited while the body is written, violation is reported once the body is done
+     */
+    @Test
+    public void applyReportsBytesViolation() throws Exception {
+        mockService("deterministic", new DeterministicService());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResponseEntity<StreamingResponseBody> result = newServiceManager(newBudgetPolicy(4, meterRegistry))
+                .apply("deterministic", parameters(), Mockito.mock(HttpServletResponse.class));
+        Assert.assertEquals(0, violations(meterRegistry, "deterministic", Violation.BYTES), 0);
+        try {
+            write(result);
+            Assert.fail("Response exceeding its budget must fail");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.BYTES, e.getViolation());
+        }
+        Assert.assertEquals(1, violations(meterRegistry, "deterministic", Violation.BYTES), 0);
+    }
+
+    /**
+     * Service blocked outside any budget check is interrupted once it runs out of time
+     */
+    @Test(timeout = 30_000)
+    public void applyInterruptsTimedOutService() throws Exception {
+        mockService("blocking", new BlockingService());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ServiceManager budgetedServiceManager = newServiceManager(newBudgetPolicy(1, 0, 0, meterRegistry));
+        try {
+            budgetedServiceManager.apply("blocking", parameters(), Mockito.mock(HttpServletResponse.class));
+            Assert.fail("Service running out of time must fail");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.TIMEOUT, e.getViolation());
+        }
+        Assert.assertEquals(1, violations(meterRegistry, "blocking", Violation.TIMEOUT), 0);
+        // Interruption does not leak to the next task of the thread
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Application is cancelled along with the enclosing operation, e.g. a deleted service job
+     */
+    @Test
+    public void applyCancelledWithEnclosingBudget() throws Exception {
+        mockService("deterministic", new DeterministicService());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ServiceManager budgetedServiceManager = newServiceManager(newBudgetPolicy(0, meterRegistry));
+        ServiceExecutionBudget enclosingBudget = new ServiceExecutionBudget(0, 0, 0);
+        enclosingBudget.cancel();
+        ServiceExecutionBudget previous = enclosingBudget.bind();
+        try {
+            budgetedServiceManager.apply("deterministic", parameters(), Mockito.mock(HttpServletResponse.class));
+            Assert.fail("Cancelled service must fail");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.CANCELLED, e.getViolation());
+        } finally {
+            ServiceExecutionBudget.restore(previous);
+        }
+        Assert.assertEquals(1, violations(meterRegistry, "deterministic", Violation.CANCELLED), 0);
+    }
+
+    /**
+     * Leased instance is given back once the request completes, even if the streaming executor rejects the body
+     */
+    @Test
+    public void releaseLeaseWhenStreamingIsRejected() throws Exception {
+        AtomicInteger released = new AtomicInteger();
+        ServiceManager leasingServiceManager = newLeasingServiceManager(released);
+        MockHttpServletRequest request = bindAsyncRequest();
+        try {
+            AsyncTaskExecutor executor = Mockito.mock(AsyncTaskExecutor.class);
+            Mockito.when(executor.submit(Mockito.any(Runnable.class))).thenThrow(new TaskRejectedException("full"));
+            Mockito.when(executor.submit(Mockito.any(Callable.class))).thenThrow(new TaskRejectedException("full"));
+            WebAsyncUtils.getAsyncManager(request).setTaskExecutor(executor);
+
+            ResponseEntity<StreamingResponseBody> result = leasingServiceManager
+                    .apply("deterministic", dynamicParameters(), Mockito.mock(HttpServletResponse.class));
+            try {
+                WebAsyncUtils.getAsyncManager(request).startCallableProcessing(() -> null);
+                Assert.fail("Streaming should be rejected");
+            } catch (TaskRejectedException e) {
+                // Expected
+            }
+            Assert.assertEquals(0, released.get());
+            ((MockAsyncContext) request.getAsyncContext()).complete();
+            Assert.assertEquals(1, released.get());
+            // Abandoned body cannot use the instance anymore
+            try {
+                write(result);
+                Assert.fail("Abandoned body must not run");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            Assert.assertEquals(1, released.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    /**
+     * Leased instance is given back once the body is written, request completion does not release it twice
+     */
+    @Test
+    public void releaseLeaseOnceWhenStreamingCompletes() throws Exception {
+        AtomicInteger released = new AtomicInteger();
+        ServiceManager leasingServiceManager = newLeasingServiceManager(released);
+        MockHttpServletRequest request = bindAsyncRequest();
+        try {
+            WebAsyncUtils.getAsyncManager(request).setTaskExecutor(new ConcurrentTaskExecutor(Runnable::run));
+
+            ResponseEntity<StreamingResponseBody> result = leasingServiceManager
+                    .apply("deterministic", dynamicParameters(), Mockito.mock(HttpServletResponse.class));
+            WebAsyncUtils.getAsyncManager(request).startCallableProcessing(() -> write(result));
+            Assert.assertEquals(1, released.get());
+            ((MockAsyncContext) request.getAsyncContext()).complete();
+            Assert.assertEquals(1, released.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    /**
+     * Build a service manager leasing service instances whose release is counted
+     */
+    private ServiceManager newLeasingServiceManager(AtomicInteger released) throws Exception {
+        DeterministicService service = mockService("deterministic", new DeterministicService());
+        IServicePluginCache pluginCache = Mockito.mock(IServicePluginCache.class);
+        Mockito.when(pluginCache.lease(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.anyBoolean(),
+                                       Mockito.anyBoolean(), Mockito.any()))
+                .thenAnswer(invocation -> new ServicePluginLease(service, released::incrementAndGet));
+        return new ServiceManager(pluginService, linkPluginsDatasetsService, runtimeTenantResolver, serviceIndexCache,
+                pluginCache, Mockito.mock(IServiceResultCache.class), newBudgetPolicy(0, null));
+    }
+
+    /**
+     * Bind an asynchronous request to the current thread as the dispatcher servlet does
+     */
+    private static MockHttpServletRequest bindAsyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(new StandardServletAsyncWebRequest(request,
+                response));
+        return request;
+    }
+
+    private static ServicePluginParameters dynamicParameters() {
+        Map<String, String> dynamicParameters = new HashMap<>();
+        dynamicParameters.put("param", "value");
+        return new ServicePluginParameters(EntityType.DATA, null, dynamicParameters);
+    }
+
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.job;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
+import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.modules.plugins.domain.PluginConfiguration;
+import fr.cnes.regards.framework.modules.plugins.service.IPluginService;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.urn.EntityType;
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+import fr.cnes.regards.modules.catalog.services.domain.ServiceScope;
+import fr.cnes.regards.modules.catalog.services.domain.annotations.CatalogServicePlugin;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget;
+import fr.cnes.regards.modules.catalog.services.service.IServiceManager;
+
+/**
+ * Unit test for {@link ServiceJobManager}
+ * @author REGARDS Team
+ */
+public class ServiceJobManagerTest {
+
+    private static final String RESULT = "service result";
+
+    @Rule
+    public TemporaryFolder spool = new TemporaryFolder();
+
+    private IServiceManager serviceManager;
+
+    private IPluginService pluginService;
+
+    private ServiceJobManager jobManager;
+
+    @CatalogServicePlugin(applicationModes = ServiceScope.MANY, entityTypes = EntityType.DATA, async = true)
+    private static class AsyncService {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        serviceManager = Mockito.mock(IServiceManager.class);
+        pluginService = Mockito.mock(IPluginService.class);
+        jobManager = newJobManager(0);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("user", null, Collections.emptyList()));
+    }
+
+    @After
+    public void tearDown() {
+        jobManager.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    private ServiceJobManager newJobManager(long maxSpoolSize) {
+        IRuntimeTenantResolver tenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant");
+        return new ServiceJobManager(serviceManager, pluginService, tenantResolver, spool.getRoot().getAbsolutePath(),
+                1, 1, 60_000, maxSpoolSize, 30);
+    }
+
+    private void waitFinished(ServiceJob job) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!jobManager.getJob(job.getId()).getStatus().isFinished() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Mock a service result written by the job
+     */
+    private void mockResult() throws ModuleException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        StreamingResponseBody body = out -> out.write(RESULT.getBytes(StandardCharsets.UTF_8));
+        Mockito.when(serviceManager.apply(Mockito.eq("async"), Mockito.any(), Mockito.any(HttpServletResponse.class)))
+                .thenReturn(new ResponseEntity<>(body, headers, HttpStatus.OK));
+    }
+
+    /**
+     * Mock a service running until its application is cancelled
+     * @param started counted down once the service runs
+     */
+    private void mockEndlessService(CountDownLatch started) throws ModuleException {
+        Mockito.when(serviceManager.apply(Mockito.eq("async"), Mockito.any(), Mockito.any(HttpServletResponse.class)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    while (true) {
+                        ServiceExecutionBudget.checkCurrent();
+                        Thread.sleep(10);
+                    }
+                });
+    }
+
+    private void mockService(String businessId, Class<?> pluginClass) throws ModuleException {
+        PluginConfiguration conf = Mockito.mock(PluginConfiguration.class);
+        Mockito.when(conf.getInterfaceNames()).thenReturn(Sets.newHashSet(IService.class.getName()));
+        Mockito.when(conf.getPluginClassName()).thenReturn(pluginClass.getName());
+        Mockito.when(pluginService.getPluginConfiguration(businessId)).thenReturn(conf);
+    }
+
+    @Test
+    public void runJob() throws Exception {
+        mockService("async", AsyncService.class);
+        mockResult();
+
+        ServiceJob job = jobManager.submit("async", new ServicePluginParameters());
+        waitFinished(job);
+        Assert.assertEquals(ServiceJobStatus.SUCCEEDED, job.getStatus());
+        Assert.assertEquals(RESULT.length(), job.getProgress());
+        Assert.assertNotNull(job.getExpirationDate());
+
+        ResponseEntity<Resource> result = jobManager.getResult(job.getId());
+        Assert.assertEquals(MediaType.TEXT_PLAIN, result.getHeaders().getContentType());
+        try (InputStream in = result.getBody().getInputStream()) {
+            Assert.assertEquals(RESULT, new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8));
+        }
+
+        // Only the submitting user can follow the job
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("other", null, Collections.emptyList()));
+        try {
+            jobManager.getJob(job.getId());
+            Assert.fail("Job should not be visible to another user");
+        } catch (EntityNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test(expected = EntityInvalidException.class)
+    public void rejectSynchronousService() throws ModuleException {
+        mockService("sync", Object.class);
+        jobManager.submit("sync", new ServicePluginParameters());
+    }
+
+    @Test
+    public void cancelRunningJob() throws Exception {
+        mockService("async", AsyncService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        mockEndlessService(started);
+
+        ServiceJob job = jobManager.submit("async", new ServicePluginParameters());
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        try {
+            jobManager.getResult(job.getId());
+            Assert.fail("Running job should have no result");
+        } catch (ServiceJobStatusException e) {
+            Assert.assertEquals(ServiceJobStatus.RUNNING, e.getJobStatus());
+        }
+
+        Assert.assertEquals(ServiceJobStatus.CANCELLED, jobManager.cancel(job.getId()).getStatus());
+        Assert.assertEquals(ServiceJobStatus.CANCELLED, jobManager.getJob(job.getId()).getStatus());
+        // Cancelling a finished job drops it
+        jobManager.cancel(job.getId());
+        try {
+            jobManager.getJob(job.getId());
+            Assert.fail("Deleted job should not be found");
+        } catch (EntityNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception {
+        mockService("async", AsyncService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        mockEndlessService(started);
+
+        ServiceJob running = jobManager.submit("async", new ServicePluginParameters());
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        ServiceJob pending = jobManager.submit("async", new ServicePluginParameters());
+        try {
+            jobManager.submit("async", new ServicePluginParameters());
+            Assert.fail("Job should be rejected once the queue is full");
+        } catch (ServiceJobRejectedException e) {
+            Assert.assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatus());
+            Assert.assertEquals(30, e.getRetryAfter());
+        }
+
+        // Cancelled pending job releases its queue slot
+        Assert.assertEquals(ServiceJobStatus.CANCELLED, jobManager.cancel(pending.getId()).getStatus());
+        jobManager.cancel(jobManager.submit("async", new ServicePluginParameters()).getId());
+        jobManager.cancel(running.getId());
+    }
+
+    @Test
+    public void failWhenSpoolIsFull() throws Exception {
+        jobManager.shutdown();
+        jobManager = newJobManager(RESULT.length() - 1);
+        mockService("async", AsyncService.class);
+        mockResult();
+
+        ServiceJob job = jobManager.submit("async", new ServicePluginParameters());
+        waitFinished(job);
+        Assert.assertEquals(ServiceJobStatus.FAILED, job.getStatus());
+        Assert.assertEquals(0, spool.getRoot().list().length);
+    }
+}
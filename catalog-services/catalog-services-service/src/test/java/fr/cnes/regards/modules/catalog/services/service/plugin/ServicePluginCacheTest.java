@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.modules.catalog.services.domain.plugins.IService;
+
+/**
+ * Unit test for {@link ServicePluginCache}
+ * @author REGARDS Team
+ */
+public class ServicePluginCacheTest {
+
+    private static final String TENANT = "tenant";
+
+    private static final String BUSINESS_ID = "service";
+
+    private final List<IService> destroyed = new ArrayList<>();
+
+    private final ServicePluginCache cache = new ServicePluginCache(10, 1, destroyed::add);
+
+    private static Map<String, String> params(String value) {
+        Map<String, String> params = new HashMap<>();
+        params.put("param", value);
+        return params;
+    }
+
+    @Test
+    public void newInstanceByDefault() throws ModuleException {
+        ServicePluginLease first = cache.lease(TENANT, BUSINESS_ID, params("a"), false, false,
+                                               () -> Mockito.mock(IService.class));
+        ServicePluginLease second = cache.lease(TENANT, BUSINESS_ID, params("a"), false, false,
+                                                () -> Mockito.mock(IService.class));
+        Assert.assertNotSame(first.getService(), second.getService());
+        first.close();
+        first.close();
+        Assert.assertEquals(1, destroyed.size());
+        Assert.assertSame(first.getService(), destroyed.get(0));
+    }
+
+    @Test
+    public void sharedInstances() throws ModuleException {
+        ServicePluginLease firstLease = cache.lease(TENANT, BUSINESS_ID, params("a"), false, true,
+                                                    () -> Mockito.mock(IService.class));
+        IService first = firstLease.getService();
+        // Same dynamic values
+        try (ServicePluginLease lease = cache.lease(TENANT, BUSINESS_ID, params("a"), false, true, () -> {
+            throw new ModuleException("Should not instantiate");
+        })) {
+            Assert.assertSame(first, lease.getService());
+        }
+        // Other dynamic values
+        try (ServicePluginLease lease = cache.lease(TENANT, BUSINESS_ID, params("b"), false, true,
+                                                    () -> Mockito.mock(IService.class))) {
+            Assert.assertNotSame(first, lease.getService());
+        }
+        Assert.assertTrue(destroyed.isEmpty());
+
+        cache.invalidate(TENANT);
+        // Instance still in use is not destroyed yet
+        Assert.assertEquals(1, destroyed.size());
+        Assert.assertFalse(destroyed.contains(first));
+        try (ServicePluginLease lease = cache.lease(TENANT, BUSINESS_ID, params("a"), false, true,
+                                                    () -> Mockito.mock(IService.class))) {
+            Assert.assertNotSame(first, lease.getService());
+        }
+        firstLease.close();
+        Assert.assertTrue(destroyed.contains(first));
+    }
+
+    @Test
+    public void sharedInstanceCreatedOnce() throws Exception {
+        AtomicInteger instantiations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<IService>> services = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                services.add(executor.submit(() -> {
+                    start.await();
+                    try (ServicePluginLease lease = cache.lease(TENANT, BUSINESS_ID, params("a"), false, true, () -> {
+                        instantiations.incrementAndGet();
+                        return Mockito.mock(IService.class);
+                    })) {
+                        return lease.getService();
+                    }
+                }));
+            }
+            start.countDown();
+            IService first = services.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<IService> service : services) {
+                Assert.assertSame(first, service.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, instantiations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void pooledInstances() throws ModuleException {
+        ServicePluginLease first = cache.lease(TENANT, BUSINESS_ID, params("a"), true, false,
+                                               () -> Mockito.mock(IService.class));
+        ServicePluginLease second = cache.lease(TENANT, BUSINESS_ID, params("a"), true, false,
+                                                () -> Mockito.mock(IService.class));
+        // Never leased twice at once
+        Assert.assertNotSame(first.getService(), second.getService());
+        first.close();
+        // Pool is full, instance is destroyed
+        second.close();
+        Assert.assertEquals(1, destroyed.size());
+        Assert.assertSame(second.getService(), destroyed.get(0));
+        try (ServicePluginLease third = cache.lease(TENANT, BUSINESS_ID, params("a"), true, false, () -> {
+            throw new ModuleException("Should not instantiate");
+        })) {
+            Assert.assertSame(first.getService(), third.getService());
+        }
+        // Idle instances are destroyed with their pool
+        cache.invalidate(TENANT);
+        Assert.assertEquals(2, destroyed.size());
+        Assert.assertSame(first.getService(), destroyed.get(1));
+    }
+}
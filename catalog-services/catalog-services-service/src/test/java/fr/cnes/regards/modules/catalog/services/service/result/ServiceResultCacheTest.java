@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.service.result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import fr.cnes.regards.framework.urn.EntityType;
+import fr.cnes.regards.modules.catalog.services.domain.ServicePluginParameters;
+
+/**
+ * Unit test for {@link ServiceResultCache}
+ * @author REGARDS Team
+ */
+public class ServiceResultCacheTest {
+
+    private static final String TENANT = "tenant";
+
+    private static final String BUSINESS_ID = "service";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ServicePluginParameters parameters(String... nameValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            params.put(nameValues[i], nameValues[i + 1]);
+        }
+        return new ServicePluginParameters(EntityType.DATA, null, params);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> result(String content) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return new ResponseEntity<>(out -> out.write(content.getBytes(StandardCharsets.UTF_8)), headers,
+                HttpStatus.OK);
+    }
+
+    private static String write(ResponseEntity<StreamingResponseBody> result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void cacheWrittenResult() throws IOException {
+        ServiceResultCache cache = new ServiceResultCache(folder.getRoot().getAbsolutePath(), 1000, 100, 10);
+        ServiceResultCacheKey key = cache.key(TENANT, BUSINESS_ID, parameters("a", "1", "b", "2"));
+        Assert.assertFalse(cache.get(key).isPresent());
+
+        ResponseEntity<StreamingResponseBody> result = cache.cacheOnWrite(key, result("content"));
+        // Nothing cached until written
+        Assert.assertFalse(cache.get(key).isPresent());
+        Assert.assertEquals("content", write(result));
+
+        // Parameter order does not matter
+        Optional<ResponseEntity<StreamingResponseBody>> cached = cache
+                .get(cache.key(TENANT, BUSINESS_ID, parameters("b", "2", "a", "1")));
+        Assert.assertTrue(cached.isPresent());
+        Assert.assertEquals(MediaType.TEXT_PLAIN, cached.get().getHeaders().getContentType());
+        Assert.assertEquals("content", write(cached.get()));
+        // Other parameter values
+        Assert.assertFalse(cache.get(cache.key(TENANT, BUSINESS_ID, parameters("a", "1", "b", "3"))).isPresent());
+
+        // Data change
+        cache.invalidate(TENANT);
+        Assert.assertFalse(cache.get(key).isPresent());
+        Assert.assertFalse(cache.get(cache.key(TENANT, BUSINESS_ID, parameters("a", "1", "b", "2"))).isPresent());
+    }
+
+    @Test
+    public void evictOverLimits() throws IOException {
+        ServiceResultCache cache = new ServiceResultCache(folder.getRoot().getAbsolutePath(), 10, 6, 10);
+        ServiceResultCacheKey tooBig = cache.key(TENANT, BUSINESS_ID, parameters("a", "0"));
+        Assert.assertEquals("1234567", write(cache.cacheOnWrite(tooBig, result("1234567"))));
+        Assert.assertFalse(cache.get(tooBig).isPresent());
+
+        ServiceResultCacheKey first = cache.key(TENANT, BUSINESS_ID, parameters("a", "1"));
+        ServiceResultCacheKey second = cache.key(TENANT, BUSINESS_ID, parameters("a", "2"));
+        write(cache.cacheOnWrite(first, result("12345")));
+        write(cache.cacheOnWrite(second, result("12345")));
+        Optional<ResponseEntity<StreamingResponseBody>> firstCached = cache.get(first);
+        Assert.assertTrue(firstCached.isPresent());
+        Assert.assertTrue(cache.get(second).isPresent());
+        // Least recently used entry is evicted over maximum size
+        ServiceResultCacheKey third = cache.key(TENANT, BUSINESS_ID, parameters("a", "3"));
+        write(cache.cacheOnWrite(third, result("1")));
+        Assert.assertFalse(cache.get(first).isPresent());
+        // Result retrieved before eviction cannot be read anymore
+        try {
+            write(firstCached.get());
+            Assert.fail("Evicted result must not be readable");
+        } catch (IOException e) {
+            // Expected
+        }
+        Assert.assertTrue(cache.get(second).isPresent());
+        Assert.assertTrue(cache.get(third).isPresent());
+    }
+}
@@ -21,42 +21,56 @@ package fr.cnes.regards.modules.catalog.services.helper;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.xml.namespace.QName;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
 /**
- * Factory to handle CatalogPlugin services streaming response.
+ * Factory to handle CatalogPlugin services streaming response.<br/>
+ * Response bodies rethrow write and serialization errors : as the status is already sent, the servlet container can
+ * only abort the response, which clients detect, whereas a swallowed error would end as a truncated success.
  * @author Sébastien Binda
  */
 public class CatalogPluginResponseFactory {
 
     /**
-     * Class logger
+     * CONTENT_DISPOSITION for streaming response body.
      */
-    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogPluginResponseFactory.class);
+    private static final String INLINE_FILE_CONTENT_DISPOSITION_FORMAT = "attachment; filename=%s";
 
     /**
-     * CONTENT_DISPOSITION for streaming response body.
+     * Root element name of streamed XML responses
      */
-    private static final String INLINE_FILE_CONTENT_DISPOSITION_FORMAT = "attachment; filename=%s";
+    public static final String XML_ROOT = "results";
+
+    /**
+     * Element name of each streamed XML response element
+     */
+    public static final String XML_ITEM = "item";
 
     /**
      * Catalog plugin service response body type allowed
@@ -186,7 +200,8 @@ public class CatalogPluginResponseFactory {
     }
 
     /**
-     * Create a  streaming response by serializing into XML format the given object.
+     * Create a  streaming response by serializing into XML format the given object.<br/>
+     * Object is serialized directly into the response body, a serialization error aborts the response.
      *
      * @param response {@link HttpServletResponse} spring http response
      * @param responseContent {@link Object} to serialize.
@@ -194,25 +209,58 @@ public class CatalogPluginResponseFactory {
      */
     public static ResponseEntity<StreamingResponseBody> createXmlSuccessResponse(HttpServletResponse response,
             Object responseContent) {
-        HttpHeaders headers = new HttpHeaders();
-        XmlMapper xmlMapper = new XmlMapper();
-        List<String> exposedHeaders = new ArrayList<>();
-        exposedHeaders.add(HttpHeaders.CONTENT_DISPOSITION);
-        headers.setAccessControlExposeHeaders(exposedHeaders);
-        try {
-            String xml = xmlMapper.writeValueAsString(responseContent);
-            headers.set(HttpHeaders.CONTENT_DISPOSITION, getContentDisposition("result.xml"));
-            headers.setContentType(MediaType.APPLICATION_XML);
-            response.setContentType(MediaType.APPLICATION_XML_VALUE);
-            return new ResponseEntity<>(toStreamingResponseBody(xml), headers, HttpStatus.OK);
-        } catch (JsonProcessingException e) {
-            LOGGER.error("Error serializing object to xml", e);
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        HttpHeaders headers = createSuccessHeaders(response, MediaType.APPLICATION_XML, "result.xml");
+        XmlMapper xmlMapper = createXmlMapper();
+        return new ResponseEntity<>(outputStream -> {
+            xmlMapper.writeValue(outputStream, responseContent);
+            outputStream.flush();
+        }, headers, HttpStatus.OK);
     }
 
     /**
-     * Create a  streaming response by serializing into JSON format the given object.
+     * Create a streaming response by serializing into XML format each element of the given iterator, so that the
+     * response may be as large as needed. Elements are serialized one by one as {@value #XML_ITEM} children of a
+     * {@value #XML_ROOT} root element. A failure aborts the response, the root element is not closed.
+     *
+     * @param response {@link HttpServletResponse} spring http response
+     * @param responseContent elements to serialize, consumed while writing the response body
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<StreamingResponseBody> createXmlStreamSuccessResponse(HttpServletResponse response,
+            Iterator<?> responseContent) {
+        HttpHeaders headers = createSuccessHeaders(response, MediaType.APPLICATION_XML, "result.xml");
+        XmlMapper xmlMapper = createXmlMapper();
+        return new ResponseEntity<>(outputStream -> {
+            try (ToXmlGenerator generator = xmlMapper.getFactory().createGenerator(outputStream)) {
+                generator.setNextName(new QName(XML_ROOT));
+                generator.writeStartObject();
+                while (responseContent.hasNext()) {
+                    generator.writeFieldName(XML_ITEM);
+                    xmlMapper.writeValue(generator, responseContent.next());
+                }
+                generator.writeEndObject();
+                generator.flush();
+            }
+        }, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Same as {@link #createXmlStreamSuccessResponse(HttpServletResponse, Iterator)}. Stream is closed once the
+     * response body is written.
+     *
+     * @param response {@link HttpServletResponse} spring http response
+     * @param responseContent elements to serialize, consumed while writing the response body
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<StreamingResponseBody> createXmlStreamSuccessResponse(HttpServletResponse response,
+            Stream<?> responseContent) {
+        return closeOnceWritten(createXmlStreamSuccessResponse(response, responseContent.iterator()),
+                                responseContent);
+    }
+
+    /**
+     * Create a  streaming response by serializing into JSON format the given object.<br/>
+     * Object is serialized directly into the response body, a serialization error aborts the response.
      * @param response {@link HttpServletResponse} spring http response
      * @param responseContent {@link Object} to serialize.
      * @param prettyPrint
@@ -220,21 +268,65 @@ public class CatalogPluginResponseFactory {
      */
     public static ResponseEntity<StreamingResponseBody> createJsonSuccessResponse(HttpServletResponse response,
             Object responseContent, boolean prettyPrint) {
-        GsonBuilder builder = new GsonBuilder();
-        HttpHeaders headers = new HttpHeaders();
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, getContentDisposition("result.json"));
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        List<String> exposedHeaders = new ArrayList<>();
-        exposedHeaders.add(HttpHeaders.CONTENT_DISPOSITION);
-        headers.setAccessControlExposeHeaders(exposedHeaders);
-        Gson gson;
-        if (prettyPrint) {
-            gson = builder.setPrettyPrinting().create();
-        } else {
-            gson = builder.create();
-        }
-        return new ResponseEntity<>(toStreamingResponseBody(gson.toJson(responseContent)), headers, HttpStatus.OK);
+        HttpHeaders headers = createSuccessHeaders(response, MediaType.APPLICATION_JSON, "result.json");
+        Gson gson = createGson(prettyPrint);
+        return new ResponseEntity<>(outputStream -> {
+            try {
+                Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                gson.toJson(responseContent, writer);
+                writer.flush();
+            } catch (JsonIOException e) {
+                throw new IOException("Error serializing object to json", e);
+            }
+        }, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Create a streaming response by serializing into a JSON array each element of the given iterator, so that the
+     * response may be as large as needed. Elements are serialized one by one. A failure aborts the response, the
+     * array is not closed.
+     * @param response {@link HttpServletResponse} spring http response
+     * @param responseContent elements to serialize, consumed while writing the response body
+     * @param prettyPrint
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<StreamingResponseBody> createJsonStreamSuccessResponse(HttpServletResponse response,
+            Iterator<?> responseContent, boolean prettyPrint) {
+        HttpHeaders headers = createSuccessHeaders(response, MediaType.APPLICATION_JSON, "result.json");
+        Gson gson = createGson(prettyPrint);
+        return new ResponseEntity<>(outputStream -> {
+            try {
+                JsonWriter jsonWriter = gson
+                        .newJsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                jsonWriter.beginArray();
+                while (responseContent.hasNext()) {
+                    Object element = responseContent.next();
+                    if (element == null) {
+                        jsonWriter.nullValue();
+                    } else {
+                        gson.toJson(element, element.getClass(), jsonWriter);
+                    }
+                }
+                jsonWriter.endArray();
+                jsonWriter.flush();
+            } catch (JsonIOException e) {
+                throw new IOException("Error serializing objects to json", e);
+            }
+        }, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Same as {@link #createJsonStreamSuccessResponse(HttpServletResponse, Iterator, boolean)}. Stream is closed once
+     * the response body is written.
+     * @param response {@link HttpServletResponse} spring http response
+     * @param responseContent elements to serialize, consumed while writing the response body
+     * @param prettyPrint
+     * @return {@link ResponseEntity}
+     */
+    public static ResponseEntity<StreamingResponseBody> createJsonStreamSuccessResponse(HttpServletResponse response,
+            Stream<?> responseContent, boolean prettyPrint) {
+        return closeOnceWritten(createJsonStreamSuccessResponse(response, responseContent.iterator(), prettyPrint),
+                                responseContent);
     }
 
     /**
@@ -244,12 +336,8 @@ public class CatalogPluginResponseFactory {
      */
     public static StreamingResponseBody toStreamingResponseBody(String value) {
         return outputStream -> {
-            try {
-                outputStream.write(value.getBytes());
-                outputStream.flush();
-            } catch (IOException e) {
-                LOGGER.error(e.getMessage(), e);
-            }
+            outputStream.write(value.getBytes());
+            outputStream.flush();
         };
     }
 
@@ -260,13 +348,9 @@ public class CatalogPluginResponseFactory {
      */
     public static StreamingResponseBody toStreamingResponseBody(File file) {
         return outputStream -> {
-            try {
-                Path path = file.toPath();
-                Files.copy(path, outputStream);
-                outputStream.flush();
-            } catch (IOException e) {
-                LOGGER.error(e.getMessage(), e);
-            }
+            Path path = file.toPath();
+            Files.copy(path, outputStream);
+            outputStream.flush();
         };
     }
 
@@ -277,13 +361,49 @@ public class CatalogPluginResponseFactory {
      */
     public static StreamingResponseBody toStreamingResponseBody(InputStream is) {
         return outputStream -> {
-            try {
-                ByteStreams.copy(is, outputStream);
-                outputStream.flush();
-            } catch (IOException e) {
-                LOGGER.error(e.getMessage(), e);
+            ByteStreams.copy(is, outputStream);
+            outputStream.flush();
+        };
+    }
+
+    private static HttpHeaders createSuccessHeaders(HttpServletResponse response, MediaType mimeType,
+            String fileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, getContentDisposition(fileName));
+        headers.setContentType(mimeType);
+        response.setContentType(mimeType.toString());
+        List<String> exposedHeaders = new ArrayList<>();
+        exposedHeaders.add(HttpHeaders.CONTENT_DISPOSITION);
+        headers.setAccessControlExposeHeaders(exposedHeaders);
+        return headers;
+    }
+
+    private static XmlMapper createXmlMapper() {
+        XmlMapper xmlMapper = new XmlMapper();
+        // Response output stream is handled by the servlet container
+        xmlMapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        // A failed response must not look complete
+        xmlMapper.configure(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT, false);
+        return xmlMapper;
+    }
+
+    private static Gson createGson(boolean prettyPrint) {
+        GsonBuilder builder = new GsonBuilder();
+        if (prettyPrint) {
+            builder.setPrettyPrinting();
+        }
+        return builder.create();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> closeOnceWritten(
+            ResponseEntity<StreamingResponseBody> response, Stream<?> content) {
+        StreamingResponseBody body = response.getBody();
+        StreamingResponseBody closingBody = outputStream -> {
+            try (Stream<?> toClose = content) {
+                body.writeTo(outputStream);
             }
         };
+        return new ResponseEntity<>(closingBody, response.getHeaders(), response.getStatusCode());
     }
 
     private static String getContentDisposition(String fileName) {
@@ -19,10 +19,14 @@
 package fr.cnes.regards.modules.catalog.services.helper;
 
 import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.modules.catalog.services.helper.ParallelPageProcessor.PageProcessor;
+import fr.cnes.regards.modules.catalog.services.helper.ParallelPageProcessor.ProgressListener;
 import fr.cnes.regards.modules.dam.domain.entities.DataObject;
 import fr.cnes.regards.modules.search.domain.SearchRequest;
 
@@ -52,4 +56,37 @@ public interface IServiceHelper {
     Page<DataObject> getDataObjects(SearchRequest searchRequest, int pageIndex, int nbEntitiesByPage)
             throws ModuleException;
 
+    /**
+     * Walk through all {@link DataObject}s corresponding to the given search request, whatever their number.<br/>
+     * Pages are fetched ahead of consumption by a background task. Iterator must be closed if not fully consumed.
+     * @param searchRequest {@link SearchRequest}
+     * @throws {@link ModuleException} Invalid request or too many concurrent walks
+     * @return {@link ReadAheadIterator}<{@link DataObject}>
+     */
+    ReadAheadIterator<DataObject> iterateDataObjects(SearchRequest searchRequest) throws ModuleException;
+
+    /**
+     * Same as {@link #iterateDataObjects(SearchRequest)} as a sequential {@link Stream}.<br/>
+     * Stream must be closed, i.e. used in a try-with-resources statement.
+     * @param searchRequest {@link SearchRequest}
+     * @throws {@link ModuleException} Invalid request or too many concurrent walks
+     * @return {@link Stream}<{@link DataObject}>
+     */
+    Stream<DataObject> streamDataObjects(SearchRequest searchRequest) throws ModuleException;
+
+    /**
+     * Process all {@link DataObject}s corresponding to the given search request page by page in parallel.<br/>
+     * Pages are processed with the tenant and the security context of the caller and partial results are combined
+     * with the given reducer in any order.
+     * @param searchRequest {@link SearchRequest}
+     * @param processor computes the partial result of a page
+     * @param identity initial result
+     * @param reducer associative and commutative function combining two results
+     * @param listener progress listener, may be null
+     * @throws {@link ModuleException} Invalid request or processing failure
+     * @return combined result
+     */
+    <R> R processDataObjects(SearchRequest searchRequest, PageProcessor<DataObject, R> processor, R identity,
+            BinaryOperator<R> reducer, ProgressListener listener) throws ModuleException;
+
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BinaryOperator;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import fr.cnes.regards.framework.feign.security.FeignSecurityManager;
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+
+/**
+ * Process all entities of a {@link SearchWalker} in parallel, one page at a time.<br/>
+ * The selection is split into pages by the walker cursor in the calling thread while pages are processed
+ * concurrently by an executor with the tenant and security context of the calling thread. Page results are combined
+ * with a reducer as soon as they are available, so the reducer must be associative and commutative. At most
+ * <code>maxPendingPages</code> pages are kept in memory.<br/>
+ * Processed entities are accounted in the {@link ServiceExecutionBudget} of the calling thread if any.<br/>
+ * A processor instance is meant to be used for a single walk.
+ * @param <E> entity type
+ * @param <R> result type
+ * @author REGARDS Team
+ */
+public class ParallelPageProcessor<E extends AbstractEntity<?>, R> {
+
+    /**
+     * Compute partial result of a page
+     */
+    @FunctionalInterface
+    public interface PageProcessor<E, R> {
+
+        R process(List<E> entities) throws ModuleException;
+    }
+
+    /**
+     * Get notified each time a page is processed. Notifications are serialized.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        void onProgress(long processedPages, long processedEntities);
+    }
+
+    private final IRuntimeTenantResolver tenantResolver;
+
+    private final ExecutorService executor;
+
+    private final int maxPendingPages;
+
+    private final Semaphore pendingPages;
+
+    private R result;
+
+    private long processedPages = 0;
+
+    private long processedEntities = 0;
+
+    private volatile ModuleException failure;
+
+    /**
+     * @param tenantResolver tenant resolver
+     * @param executor executor processing the pages
+     * @param maxPendingPages maximum number of pages waiting or being processed
+     */
+    public ParallelPageProcessor(IRuntimeTenantResolver tenantResolver, ExecutorService executor,
+            int maxPendingPages) {
+        this.tenantResolver = tenantResolver;
+        this.executor = executor;
+        this.maxPendingPages = Math.max(1, maxPendingPages);
+        this.pendingPages = new Semaphore(this.maxPendingPages);
+    }
+
+    /**
+     * Walk and process all entities
+     * @param walker prepared walker
+     * @param processor page processor
+     * @param identity initial result
+     * @param reducer combines two results
+     * @param listener progress listener, may be null
+     * @return combined result
+     * @throws ModuleException if walk or any page processing fails, remaining pages are not processed
+     */
+    public R process(SearchWalker<E> walker, PageProcessor<E, R> processor, R identity, BinaryOperator<R> reducer,
+            ProgressListener listener) throws ModuleException {
+        result = identity;
+        // Capture calling thread context
+        ServiceExecutionBudget budget = ServiceExecutionBudget.current().orElse(null);
+        String tenant = tenantResolver.getTenant();
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        try {
+            walker.walkPages(entities -> {
+                if (failure != null) {
+                    throw new IOException("Page processing failed", failure);
+                }
+                if (budget != null) {
+                    budget.addEntities(entities.size());
+                }
+                try {
+                    pendingPages.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Page processing interrupted");
+                }
+                try {
+                    executor.execute(() -> processPage(entities, processor, reducer, listener, tenant,
+                                                       securityContext, budget));
+                } catch (RejectedExecutionException e) {
+                    pendingPages.release();
+                    throw new IOException("Page processing rejected", e);
+                }
+            });
+        } catch (IOException e) {
+            if (failure == null) {
+                throw new ModuleException("Unable to process all entities", e);
+            }
+        } finally {
+            // Wait for processing pages
+            pendingPages.acquireUninterruptibly(maxPendingPages);
+            pendingPages.release(maxPendingPages);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        synchronized (this) {
+            return result;
+        }
+    }
+
+    private void processPage(List<E> entities, PageProcessor<E, R> processor, BinaryOperator<R> reducer,
+            ProgressListener listener, String tenant, SecurityContext securityContext,
+            ServiceExecutionBudget budget) {
+        tenantResolver.forceTenant(tenant);
+        SecurityContextHolder.setContext(securityContext);
+        ServiceExecutionBudget previousBudget = budget == null ? null : budget.bind();
+        try {
+            if (failure != null) {
+                return;
+            }
+            ServiceExecutionBudget.checkCurrent();
+            R partial = processor.process(entities);
+            synchronized (this) {
+                result = reducer.apply(result, partial);
+                processedPages++;
+                processedEntities += entities.size();
+                if (listener != null) {
+                    listener.onProgress(processedPages, processedEntities);
+                }
+            }
+        } catch (ModuleException e) {
+            failure = e;
+        } catch (ServiceBudgetExceededException e) {
+            failure = new ModuleException(e.getMessage(), e);
+        } catch (RuntimeException e) { // NOSONAR any failure must stop the processing
+            failure = new ModuleException("Unable to process page", e);
+        } finally {
+            // Do not leak context to next pooled task
+            if (budget != null) {
+                ServiceExecutionBudget.restore(previousBudget);
+            }
+            FeignSecurityManager.reset();
+            SecurityContextHolder.clearContext();
+            tenantResolver.clearTenant();
+            pendingPages.release();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
+import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+
+/**
+ * Iterator over all entities of a {@link SearchWalker}.<br/>
+ * Pages are fetched by a background task at most <code>readAhead</code> pages ahead of the consumer. A page is released
+ * as soon as the consumer moves to the next one so memory only depends on page size and read ahead.<br/>
+ * Iterator must be closed to stop the background task if it is not consumed to the end. Otherwise, the background task
+ * only stops once the iterator is garbage collected or once no page has been consumed for the consumer timeout, so
+ * that an abandoned iterator does not hold a walk thread forever. A consumer resuming after the walk gave up gets an
+ * {@link IllegalStateException} once the pages already fetched are consumed.
+ * @param <E> entity type
+ * @author REGARDS Team
+ */
+public class ReadAheadIterator<E extends AbstractEntity<?>> implements Iterator<E>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadAheadIterator.class);
+
+    /**
+     * Walk end marker
+     */
+    private static final Object END = new Object();
+
+    /**
+     * Default maximum time in milliseconds the background task waits for the consumer to take a page
+     */
+    public static final long DEFAULT_CONSUMER_TIMEOUT = 600_000;
+
+    /**
+     * Delay in milliseconds between two checks that the consumer is still there while the read ahead queue is full
+     */
+    private static final long CONSUMER_CHECK_PERIOD = 1_000;
+
+    /**
+     * Fetched pages, {@link #END} or walk failure
+     */
+    private final BlockingQueue<Object> pages;
+
+    private final Future<?> producer;
+
+    /**
+     * {@link System#nanoTime()} of the last page taken by the consumer
+     */
+    private final AtomicLong lastConsumed = new AtomicLong(System.nanoTime());
+
+    /**
+     * Set once the background task gave up without queuing {@link #END} nor its failure
+     */
+    private final AtomicBoolean aborted = new AtomicBoolean();
+
+    /**
+     * Budget accounting consumed entities, may be null
+     */
+    private final ServiceExecutionBudget budget;
+
+    private Iterator<E> current = Collections.emptyIterator();
+
+    private boolean ended = false;
+
+    /**
+     * Start walking
+     * @param walker prepared walker
+     * @param readAhead maximum number of pages fetched ahead of the consumer
+     * @param executor executor running the walk
+     */
+    public ReadAheadIterator(SearchWalker<E> walker, int readAhead, ExecutorService executor) {
+        this(walker, readAhead, executor, null);
+    }
+
+    /**
+     * Start walking within a budget
+     * @param walker prepared walker
+     * @param readAhead maximum number of pages fetched ahead of the consumer
+     * @param executor executor running the walk
+     * @param budget budget accounting entities as they are consumed, may be null
+     */
+    public ReadAheadIterator(SearchWalker<E> walker, int readAhead, ExecutorService executor,
+            ServiceExecutionBudget budget) {
+        this(walker, readAhead, executor, budget, DEFAULT_CONSUMER_TIMEOUT);
+    }
+
+    /**
+     * Start walking within a budget
+     * @param walker prepared walker
+     * @param readAhead maximum number of pages fetched ahead of the consumer
+     * @param executor executor running the walk
+     * @param budget budget accounting entities as they are consumed, may be null
+     * @param consumerTimeout maximum time in milliseconds the walk waits for the consumer to take a page
+     */
+    public ReadAheadIterator(SearchWalker<E> walker, int readAhead, ExecutorService executor,
+            ServiceExecutionBudget budget, long consumerTimeout) {
+        this.budget = budget;
+        this.pages = new ArrayBlockingQueue<>(Math.max(1, readAhead));
+        // Background task must not reference the iterator so that an abandoned iterator can be garbage collected
+        BlockingQueue<Object> queue = pages;
+        AtomicLong consumed = lastConsumed;
+        AtomicBoolean stopped = aborted;
+        Reference<ReadAheadIterator<E>> consumer = new WeakReference<>(this);
+        long timeout = TimeUnit.MILLISECONDS.toNanos(consumerTimeout);
+        this.producer = executor.submit(() -> produce(walker, queue, consumer, consumed, stopped, timeout));
+    }
+
+    private static <E extends AbstractEntity<?>> void produce(SearchWalker<E> walker, BlockingQueue<Object> pages,
+            Reference<?> consumer, AtomicLong lastConsumed, AtomicBoolean aborted, long timeout) {
+        Object last = END;
+        try {
+            walker.walkPages(entities -> offer(pages, entities, consumer, lastConsumed, timeout));
+        } catch (InterruptedIOException e) {
+            aborted.set(true);
+            return;
+        } catch (IOException | SearchException | RuntimeException e) {
+            last = e;
+        }
+        try {
+            offer(pages, last, consumer, lastConsumed, timeout);
+        } catch (InterruptedIOException e) {
+            LOGGER.debug("Walk end not consumed", e);
+            aborted.set(true);
+        }
+    }
+
+    /**
+     * Wait for room in the read ahead queue as long as the consumer is there
+     * @throws InterruptedIOException if the iterator is closed, garbage collected or not consumed for too long
+     */
+    private static void offer(BlockingQueue<Object> pages, Object element, Reference<?> consumer,
+            AtomicLong lastConsumed, long timeout) throws InterruptedIOException {
+        try {
+            while (!pages.offer(element, CONSUMER_CHECK_PERIOD, TimeUnit.MILLISECONDS)) {
+                if (consumer.get() == null) {
+                    LOGGER.warn("Entity iterator abandoned without being closed, stopping walk");
+                    throw new InterruptedIOException("Iterator abandoned");
+                }
+                if ((System.nanoTime() - lastConsumed.get()) > timeout) {
+                    LOGGER.warn("No page consumed for {} ms, stopping walk", TimeUnit.NANOSECONDS.toMillis(timeout));
+                    throw new InterruptedIOException("Consumer timeout");
+                }
+            }
+        } catch (InterruptedException e) {
+            // Iterator closed
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Walk interrupted");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext() && !ended) {
+            Object next;
+            try {
+                next = pages.poll(CONSUMER_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for next page", e);
+            }
+            if (next == null) {
+                // Nothing is queued anymore once the background task gave up
+                if (aborted.get() && pages.isEmpty()) {
+                    ended = true;
+                    throw new IllegalStateException("Walk stopped before all entities were consumed");
+                }
+                continue;
+            }
+            lastConsumed.set(System.nanoTime());
+            if (next == END) {
+                ended = true;
+            } else if (next instanceof Exception) {
+                ended = true;
+                throw new IllegalStateException("Unable to walk through all entities", (Exception) next);
+            } else {
+                List<E> page = (List<E>) next;
+                if (budget != null) {
+                    try {
+                        budget.addEntities(page.size());
+                    } catch (ServiceBudgetExceededException e) {
+                        close();
+                        throw e;
+                    }
+                }
+                // Previous page is released
+                current = page.iterator();
+            }
+        }
+        return current.hasNext();
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        if (!producer.isDone()) {
+            LOGGER.debug("Closing entity iterator before walk end");
+            producer.cancel(true);
+        }
+        ended = true;
+        current = Collections.emptyIterator();
+        pages.clear();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget.Violation;
+
+/**
+ * Thrown when a catalog service application exceeds its {@link ServiceExecutionBudget}.<br/>
+ * Unchecked so that it can be thrown while iterating or streaming entities.
+ * @author REGARDS Team
+ */
+@SuppressWarnings("serial")
+public class ServiceBudgetExceededException extends RuntimeException {
+
+    private final Violation violation;
+
+    public ServiceBudgetExceededException(Violation violation, String message) {
+        super(message);
+        this.violation = violation;
+    }
+
+    public Violation getViolation() {
+        return violation;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution budget of a catalog service application : wall-clock time, number of entities fetched through
+ * {@link IServiceHelper} and number of bytes streamed. A zero or negative limit means unlimited.<br/>
+ * The budget of the running application is bound to the current thread (see {@link #current()}). Limits are checked
+ * cooperatively : {@link IServiceHelper} checks them each time entities are fetched, the response body checks them
+ * each time bytes are written and long running plugins should call {@link #checkCurrent()} regularly. Threads
+ * applying the service also {@link #watch()} the budget : a watchdog cancels the budget at its deadline and interrupts
+ * them, as well as when the budget is cancelled, so that a plugin blocked outside these checks (e.g. on a remote call)
+ * stops as soon as it handles the interruption. Once a limit is exceeded, the budget is cancelled and all later checks
+ * fail.
+ * @author REGARDS Team
+ */
+public final class ServiceExecutionBudget {
+
+    /**
+     * Exceeded limit
+     */
+    public enum Violation {
+        TIMEOUT,
+        CANCELLED,
+        ENTITIES,
+        BYTES;
+    }
+
+    /**
+     * Output stream accounting written bytes
+     */
+    private final class BudgetOutputStream extends FilterOutputStream {
+
+        private BudgetOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            reserve(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            reserve(len);
+            out.write(b, off, len);
+        }
+
+        private void reserve(long length) throws IOException {
+            try {
+                addBytes(length);
+            } catch (ServiceBudgetExceededException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Thread watching a budget, see {@link ServiceExecutionBudget#watch()}
+     */
+    public final class Watch implements AutoCloseable {
+
+        private final Thread thread = Thread.currentThread();
+
+        /**
+         * True once the watchdog interrupted the thread
+         */
+        private boolean interrupted;
+
+        private Watch() {
+        }
+
+        /**
+         * Stop watching the budget. An interruption of the watchdog that was not handled yet is cleared so that it
+         * does not leak to the next task of the thread.
+         */
+        @Override
+        public void close() {
+            synchronized (ServiceExecutionBudget.this) {
+                if (watches.remove(this) && watches.isEmpty() && (deadline != null)) {
+                    deadline.cancel(false);
+                    deadline = null;
+                }
+                if (interrupted && (thread == Thread.currentThread())) {
+                    Thread.interrupted();
+                }
+                interrupted = false;
+            }
+        }
+    }
+
+    private static final ThreadLocal<ServiceExecutionBudget> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Watchdog enforcing the deadline of watched budgets
+     */
+    private static final ScheduledThreadPoolExecutor WATCHDOG = newWatchdog();
+
+    private final long maxDuration;
+
+    private final long maxEntities;
+
+    private final long maxBytes;
+
+    private final long start = System.nanoTime();
+
+    private final AtomicLong entities = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private volatile Violation violation;
+
+    /**
+     * Budget of the enclosing operation if any, this budget is cancelled along with it
+     */
+    private volatile ServiceExecutionBudget enclosing;
+
+    /**
+     * Threads applying the service, guarded by this budget
+     */
+    private final List<Watch> watches = new ArrayList<>();
+
+    /**
+     * Scheduled timeout while threads watch this budget, guarded by this budget
+     */
+    private ScheduledFuture<?> deadline;
+
+    /**
+     * @param maxDuration maximum wall-clock duration in milliseconds
+     * @param maxEntities maximum number of entities fetched
+     * @param maxBytes maximum number of bytes streamed
+     */
+    public ServiceExecutionBudget(long maxDuration, long maxEntities, long maxBytes) {
+        this.maxDuration = maxDuration;
+        this.maxEntities = maxEntities;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return budget bound to the current thread if any
+     */
+    public static Optional<ServiceExecutionBudget> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Check budget bound to the current thread if any
+     * @throws ServiceBudgetExceededException if a limit is exceeded or the application is cancelled
+     */
+    public static void checkCurrent() {
+        ServiceExecutionBudget budget = CURRENT.get();
+        if (budget != null) {
+            budget.check();
+        }
+    }
+
+    /**
+     * Bind this budget to the current thread
+     * @return previously bound budget, to restore with {@link #restore(ServiceExecutionBudget)}
+     */
+    public ServiceExecutionBudget bind() {
+        ServiceExecutionBudget previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    /**
+     * Restore budget previously bound to the current thread
+     * @param previous budget returned by {@link #bind()}, may be null
+     */
+    public static void restore(ServiceExecutionBudget previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Interrupt the current thread when this budget times out or is cancelled, until the returned watch is closed.<br/>
+     * Usage : <code>try (Watch watch = budget.watch()) { ... }</code>
+     * @return watch to close once the current thread stops applying the service
+     */
+    public synchronized Watch watch() {
+        Watch watch = new Watch();
+        watches.add(watch);
+        if ((maxDuration > 0) && (deadline == null) && (violation == null)) {
+            long remaining = Math.max(maxDuration - getElapsed(), 0);
+            deadline = WATCHDOG.schedule(() -> interrupt(Violation.TIMEOUT), remaining, TimeUnit.MILLISECONDS);
+        }
+        if ((violation == Violation.TIMEOUT) || (violation == Violation.CANCELLED)) {
+            // Already timed out or cancelled, next blocking call fails at once
+            interrupt(watch);
+        }
+        return watch;
+    }
+
+    /**
+     * Cancel the application, next check fails. Budgets bound with {@link #cancelWith(ServiceExecutionBudget)} are
+     * cancelled as well, e.g. when a service job is deleted.
+     */
+    public void cancel() {
+        interrupt(Violation.CANCELLED);
+    }
+
+    /**
+     * Cancel this budget along with the given one, e.g. the budget of the asynchronous job applying the service
+     * @param enclosingBudget budget of the enclosing operation, may be null
+     */
+    public void cancelWith(ServiceExecutionBudget enclosingBudget) {
+        this.enclosing = enclosingBudget;
+    }
+
+    /**
+     * @throws ServiceBudgetExceededException if a limit is exceeded or the application is cancelled
+     */
+    public void check() {
+        if ((violation == null) && (maxDuration > 0) && (getElapsed() > maxDuration)) {
+            exceed(Violation.TIMEOUT);
+        }
+        if ((violation == null) && (enclosing != null) && enclosing.getViolation().isPresent()) {
+            exceed(Violation.CANCELLED);
+        }
+        if (violation != null) {
+            throw new ServiceBudgetExceededException(violation, describe(violation));
+        }
+    }
+
+    /**
+     * Account fetched entities
+     * @throws ServiceBudgetExceededException if a limit is exceeded or the application is cancelled
+     */
+    public void addEntities(long count) {
+        if ((maxEntities > 0) && (entities.addAndGet(count) > maxEntities)) {
+            exceed(Violation.ENTITIES);
+        }
+        check();
+    }
+
+    /**
+     * Account streamed bytes
+     * @throws ServiceBudgetExceededException if a limit is exceeded or the application is cancelled
+     */
+    public void addBytes(long count) {
+        if ((maxBytes > 0) && (bytes.addAndGet(count) > maxBytes)) {
+            exceed(Violation.BYTES);
+        }
+        check();
+    }
+
+    /**
+     * @param out output stream to account
+     * @return output stream accounting written bytes, writes fail once a limit is exceeded
+     */
+    public OutputStream account(OutputStream out) {
+        return new BudgetOutputStream(out);
+    }
+
+    private synchronized void exceed(Violation exceeded) {
+        // First violation is kept
+        if (violation == null) {
+            violation = exceeded;
+        }
+    }
+
+    /**
+     * Exceed given limit and interrupt watching threads
+     */
+    private synchronized void interrupt(Violation exceeded) {
+        if (violation == null) {
+            exceed(exceeded);
+            watches.forEach(this::interrupt);
+        }
+    }
+
+    private void interrupt(Watch watch) {
+        watch.interrupted = true;
+        watch.thread.interrupt();
+    }
+
+    private static ScheduledThreadPoolExecutor newWatchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "service-budget-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Deadlines of budgets whose application completes in time do not pile up
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+
+    private String describe(Violation exceeded) {
+        switch (exceeded) {
+            case TIMEOUT:
+                return String.format("Service did not complete within %d ms", maxDuration);
+            case ENTITIES:
+                return String.format("Service fetched more than %d entities", maxEntities);
+            case BYTES:
+                return String.format("Service response is bigger than %d bytes", maxBytes);
+            case CANCELLED:
+            default:
+                return "Service cancelled";
+        }
+    }
+
+    /**
+     * @return first exceeded limit if any
+     */
+    public Optional<Violation> getViolation() {
+        return Optional.ofNullable(violation);
+    }
+
+    /**
+     * @return elapsed time in milliseconds
+     */
+    public long getElapsed() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    public long getEntities() {
+        return entities.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getMaxDuration() {
+        return maxDuration;
+    }
+
+    public long getMaxEntities() {
+        return maxEntities;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
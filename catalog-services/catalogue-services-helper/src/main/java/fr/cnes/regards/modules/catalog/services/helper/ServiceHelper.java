@@ -19,10 +19,24 @@
 package fr.cnes.regards.modules.catalog.services.helper;
 
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -32,12 +46,18 @@ import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransa
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.urn.EntityType;
+import fr.cnes.regards.modules.catalog.services.helper.ParallelPageProcessor.PageProcessor;
+import fr.cnes.regards.modules.catalog.services.helper.ParallelPageProcessor.ProgressListener;
 import fr.cnes.regards.modules.dam.domain.entities.DataObject;
 import fr.cnes.regards.modules.indexer.domain.SimpleSearchKey;
 import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
 import fr.cnes.regards.modules.indexer.service.ISearchService;
 import fr.cnes.regards.modules.indexer.service.Searches;
+import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
 import fr.cnes.regards.modules.search.domain.SearchRequest;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.ICatalogSearchService;
+import fr.cnes.regards.modules.search.service.SearchWalker;
 import fr.cnes.regards.modules.search.service.engine.SearchEngineDispatcher;
 
 /**
@@ -55,22 +75,100 @@ public class ServiceHelper implements IServiceHelper {
      */
     private final ISearchService searchService;
 
+    /**
+     * Service to walk through all entities with access rights
+     */
+    private final ICatalogSearchService catalogSearchService;
+
+    private final IRuntimeTenantResolver tenantResolver;
+
     @Autowired
     private SearchEngineDispatcher dispatcher;
 
+    /**
+     * Number of entities fetched at once while walking
+     */
+    private final int walkPageSize;
+
+    /**
+     * Number of pages fetched ahead of consumption while walking
+     */
+    private final int walkReadAhead;
+
+    /**
+     * Maximum time in milliseconds a walk waits for its consumer before giving up
+     */
+    private final long walkConsumerTimeout;
+
+    /**
+     * Background walk tasks
+     */
+    private final ThreadPoolExecutor walkExecutor;
+
+    /**
+     * Maximum number of pages waiting or being processed by a parallel processing
+     */
+    private final int parallelPendingPages;
+
+    /**
+     * Parallel page processing tasks, shared by all processings
+     */
+    private final ThreadPoolExecutor parallelExecutor;
+
     /**
      * Constructor
      * @param searchService
-     * @param openSearchService
+     * @param catalogSearchService
      * @param tenantResolver
+     * @param walkPageSize
+     * @param walkReadAhead
+     * @param walkMaxConcurrency
+     * @param walkConsumerTimeout
+     * @param parallelThreads
+     * @param parallelPendingPages
      */
-    public ServiceHelper(ISearchService searchService, IRuntimeTenantResolver tenantResolver) {
+    public ServiceHelper(ISearchService searchService, ICatalogSearchService catalogSearchService,
+            IRuntimeTenantResolver tenantResolver,
+            @Value("${regards.catalog.services.helper.walk.page.size:500}") int walkPageSize,
+            @Value("${regards.catalog.services.helper.walk.read.ahead:2}") int walkReadAhead,
+            @Value("${regards.catalog.services.helper.walk.max.concurrency:10}") int walkMaxConcurrency,
+            @Value("${regards.catalog.services.helper.walk.consumer.timeout:600000}") long walkConsumerTimeout,
+            @Value("${regards.catalog.services.helper.parallel.threads:4}") int parallelThreads,
+            @Value("${regards.catalog.services.helper.parallel.pending.pages:8}") int parallelPendingPages) {
         super();
         this.searchService = searchService;
+        this.catalogSearchService = catalogSearchService;
+        this.tenantResolver = tenantResolver;
+        this.parallelPendingPages = parallelPendingPages;
+        this.walkPageSize = walkPageSize;
+        this.walkReadAhead = walkReadAhead;
+        this.walkConsumerTimeout = walkConsumerTimeout;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.walkExecutor = new ThreadPoolExecutor(0, walkMaxConcurrency, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "service-helper-walk-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger parallelThreadCount = new AtomicInteger();
+        this.parallelExecutor = new ThreadPoolExecutor(parallelThreads, parallelThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "service-helper-parallel-" + parallelThreadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        walkExecutor.shutdownNow();
+        parallelExecutor.shutdownNow();
     }
 
     @Override
     public Page<DataObject> getDataObjects(List<String> entityIds, int pageIndex, int nbEntitiesByPage) {
+        ServiceExecutionBudget.checkCurrent();
         SimpleSearchKey<DataObject> searchKey = Searches.onSingleEntity(EntityType.DATA);
         ICriterion[] idCrits = new ICriterion[entityIds.size()];
         int count = 0;
@@ -79,13 +177,75 @@ public class ServiceHelper implements IServiceHelper {
             count++;
         }
         PageRequest pageReq = PageRequest.of(pageIndex, nbEntitiesByPage);
-        return searchService.search(searchKey, pageReq, ICriterion.or(idCrits));
+        return account(searchService.search(searchKey, pageReq, ICriterion.or(idCrits)));
     }
 
     @Override
     public Page<DataObject> getDataObjects(SearchRequest searchRequest, int pageIndex, int nbEntitiesByPage)
             throws ModuleException {
+        ServiceExecutionBudget.checkCurrent();
         SimpleSearchKey<DataObject> searchKey = Searches.onSingleEntity(EntityType.DATA);
+        ICriterion crit = computeCriterion(searchRequest);
+        PageRequest pageReq = PageRequest.of(pageIndex, nbEntitiesByPage, Sort.by("ipId"));
+        return account(searchService.search(searchKey, pageReq, crit));
+    }
+
+    /**
+     * Account fetched entities in the budget of the current service application if any
+     */
+    private static Page<DataObject> account(Page<DataObject> page) {
+        ServiceExecutionBudget.current().ifPresent(budget -> budget.addEntities(page.getNumberOfElements()));
+        return page;
+    }
+
+    @Override
+    public ReadAheadIterator<DataObject> iterateDataObjects(SearchRequest searchRequest) throws ModuleException {
+        ServiceExecutionBudget.checkCurrent();
+        SearchWalker<DataObject> walker = prepareWalk(searchRequest);
+        try {
+            return new ReadAheadIterator<>(walker, walkReadAhead, walkExecutor,
+                    ServiceExecutionBudget.current().orElse(null), walkConsumerTimeout);
+        } catch (RejectedExecutionException e) {
+            throw new ModuleException("Too many concurrent data object walks, retry later", e);
+        }
+    }
+
+    @Override
+    public Stream<DataObject> streamDataObjects(SearchRequest searchRequest) throws ModuleException {
+        ReadAheadIterator<DataObject> iterator = iterateDataObjects(searchRequest);
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(iterator::close);
+    }
+
+    @Override
+    public <R> R processDataObjects(SearchRequest searchRequest, PageProcessor<DataObject, R> processor, R identity,
+            BinaryOperator<R> reducer, ProgressListener listener) throws ModuleException {
+        ServiceExecutionBudget.checkCurrent();
+        SearchWalker<DataObject> walker = prepareWalk(searchRequest);
+        return new ParallelPageProcessor<DataObject, R>(tenantResolver, parallelExecutor, parallelPendingPages)
+                .process(walker, processor, identity, reducer, listener);
+    }
+
+    /**
+     * Prepare data objects walk for the given search request
+     * @throws ModuleException if search parameters cannot be translated
+     */
+    private SearchWalker<DataObject> prepareWalk(SearchRequest searchRequest) throws ModuleException {
+        ICriterion crit = computeCriterion(searchRequest);
+        try {
+            return catalogSearchService.prepareWalk(crit, SearchType.DATAOBJECTS, walkPageSize);
+        } catch (OpenSearchUnknownParameter e) {
+            throw new ModuleException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compute search request criterion
+     * @throws ModuleException if search parameters cannot be translated
+     */
+    private ICriterion computeCriterion(SearchRequest searchRequest) throws ModuleException {
         ICriterion crit = dispatcher.computeComplexCriterion(searchRequest);
         // Check criterion properly translated
         if (searchRequest.hasSearchParameters() && crit.isEmpty()) {
@@ -93,8 +253,7 @@ public class ServiceHelper implements IServiceHelper {
             LOGGER.error(errorMessage);
             throw new ModuleException(errorMessage);
         }
-        PageRequest pageReq = PageRequest.of(pageIndex, nbEntitiesByPage, Sort.by("ipId"));
-        return searchService.search(searchKey, pageReq, crit);
+        return crit;
     }
 
 }
@@ -1,11 +1,15 @@
 package fr.cnes.regards.modules.catalog.services.helper;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -56,6 +60,70 @@ public class CatalogServiceResponseFactoryTest {
         validateTestResponse(result, new File("src/test/resources/result.json"));
     }
 
+    @Test
+    public void testJsonStreamResponse() throws IOException {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        ResponseEntity<StreamingResponseBody> result = CatalogPluginResponseFactory
+                .createJsonStreamSuccessResponse(response, Stream.of(new TestObject("a", 1), new TestObject("b", 2)),
+                                                 false);
+        Assert.assertEquals(MediaType.APPLICATION_JSON_VALUE, result.getHeaders().get(HttpHeaders.CONTENT_TYPE).get(0));
+        Assert.assertEquals("[{\"value\":\"a\",\"intValue\":1},{\"value\":\"b\",\"intValue\":2}]",
+                            writeBody(result));
+    }
+
+    @Test
+    public void testXmlStreamResponse() throws IOException {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        ResponseEntity<StreamingResponseBody> result = CatalogPluginResponseFactory
+                .createXmlStreamSuccessResponse(response,
+                                                Arrays.asList(new TestObject("a", 1), new TestObject("b", 2))
+                                                        .iterator());
+        Assert.assertEquals(MediaType.APPLICATION_XML_VALUE, result.getHeaders().get(HttpHeaders.CONTENT_TYPE).get(0));
+        String xml = writeBody(result);
+        Assert.assertTrue(xml, xml.startsWith("<results>"));
+        Assert.assertTrue(xml, xml.contains("<item><value>a</value><intValue>1</intValue></item>"
+                + "<item><value>b</value><intValue>2</intValue></item>"));
+        Assert.assertTrue(xml, xml.endsWith("</results>"));
+    }
+
+    @Test
+    public void testFailingElementAbortsJsonStream() {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        ResponseEntity<StreamingResponseBody> result = CatalogPluginResponseFactory
+                .createJsonStreamSuccessResponse(response, Stream.of(new TestObject("a", 1), new TestObject("b", 2)),
+                                                 false);
+        assertAborted(result);
+    }
+
+    @Test
+    public void testFailingElementAbortsXmlStream() {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        ResponseEntity<StreamingResponseBody> result = CatalogPluginResponseFactory
+                .createXmlStreamSuccessResponse(response, Stream.of(new TestObject("a", 1), new TestObject("b", 2)));
+        assertAborted(result);
+    }
+
+    /**
+     * Write body within a byte budget smaller than the response, the write error must reach the caller
+     */
+    private static void assertAborted(ResponseEntity<StreamingResponseBody> result) {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(0, 0, 40);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            result.getBody().writeTo(budget.account(out));
+            Assert.fail("Response should be aborted");
+        } catch (IOException e) {
+            Assert.assertEquals(ServiceExecutionBudget.Violation.BYTES, budget.getViolation().get());
+        }
+    }
+
+    private static String writeBody(ResponseEntity<StreamingResponseBody> result) throws IOException {
+        Assert.assertEquals(HttpStatus.OK, result.getStatusCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
     @Test
     public void testImageResponse() throws IOException {
         HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+import fr.cnes.regards.modules.search.service.SearchWalker.PageHandler;
+
+/**
+ * Unit test for {@link ParallelPageProcessor}
+ * @author REGARDS Team
+ */
+public class ParallelPageProcessorTest {
+
+    private static final String TENANT = "tenant";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    private final IRuntimeTenantResolver tenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchWalker<DataObject> mockWalker(List<List<DataObject>> pages) throws Exception {
+        SearchWalker<DataObject> walker = Mockito.mock(SearchWalker.class);
+        Mockito.when(walker.walkPages(Mockito.any())).thenAnswer(invocation -> {
+            PageHandler<DataObject> handler = invocation.getArgument(0);
+            long count = 0;
+            for (List<DataObject> page : pages) {
+                handler.handle(page);
+                count += page.size();
+            }
+            return count;
+        });
+        return walker;
+    }
+
+    private static List<List<DataObject>> pages(int nbPages, int pageSize) {
+        List<List<DataObject>> pages = new ArrayList<>();
+        for (int i = 0; i < nbPages; i++) {
+            List<DataObject> page = new ArrayList<>();
+            for (int j = 0; j < pageSize; j++) {
+                page.add(Mockito.mock(DataObject.class));
+            }
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    @Test
+    public void processAllPages() throws Exception {
+        Mockito.when(tenantResolver.getTenant()).thenReturn(TENANT);
+        SearchWalker<DataObject> walker = mockWalker(pages(10, 3));
+        List<Long> progress = new ArrayList<>();
+
+        Long count = new ParallelPageProcessor<DataObject, Long>(tenantResolver, executor, 2)
+                .process(walker, entities -> (long) entities.size(), 0L, Long::sum,
+                         (processedPages, processedEntities) -> progress.add(processedEntities));
+
+        Assert.assertEquals(Long.valueOf(30), count);
+        Assert.assertEquals(Arrays.asList(3L, 6L, 9L, 12L, 15L, 18L, 21L, 24L, 27L, 30L), progress);
+        // Tenant propagated to each page processing
+        Mockito.verify(tenantResolver, Mockito.times(10)).forceTenant(TENANT);
+    }
+
+    @Test
+    public void failureStopsProcessing() throws Exception {
+        SearchWalker<DataObject> walker = mockWalker(pages(10, 3));
+        try {
+            new ParallelPageProcessor<DataObject, Long>(tenantResolver, executor, 1).process(walker, entities -> {
+                throw new ModuleException("Page failure");
+            }, 0L, Long::sum, null);
+            Assert.fail("Processing failure should be reported");
+        } catch (ModuleException e) {
+            Assert.assertEquals("Page failure", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+import fr.cnes.regards.modules.search.service.SearchWalker.PageHandler;
+
+/**
+ * Unit test for {@link ReadAheadIterator}
+ * @author REGARDS Team
+ */
+public class ReadAheadIteratorTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchWalker<DataObject> mockWalker(List<List<DataObject>> pages, CountDownLatch walkEnd)
+            throws Exception {
+        SearchWalker<DataObject> walker = Mockito.mock(SearchWalker.class);
+        Mockito.when(walker.walkPages(Mockito.any())).thenAnswer(invocation -> {
+            PageHandler<DataObject> handler = invocation.getArgument(0);
+            try {
+                long count = 0;
+                for (List<DataObject> page : pages) {
+                    handler.handle(page);
+                    count += page.size();
+                }
+                return count;
+            } finally {
+                walkEnd.countDown();
+            }
+        });
+        return walker;
+    }
+
+    @Test
+    public void iterateAllPages() throws Exception {
+        DataObject first = Mockito.mock(DataObject.class);
+        DataObject second = Mockito.mock(DataObject.class);
+        DataObject third = Mockito.mock(DataObject.class);
+        CountDownLatch walkEnd = new CountDownLatch(1);
+        SearchWalker<DataObject> walker = mockWalker(Arrays.asList(Arrays.asList(first, second),
+                                                                   Arrays.asList(third)), walkEnd);
+
+        List<DataObject> iterated = new ArrayList<>();
+        try (ReadAheadIterator<DataObject> iterator = new ReadAheadIterator<>(walker, 1, executor)) {
+            iterator.forEachRemaining(iterated::add);
+        }
+        Assert.assertEquals(Arrays.asList(first, second, third), iterated);
+    }
+
+    @Test
+    public void closeStopsWalk() throws Exception {
+        List<List<DataObject>> pages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pages.add(Arrays.asList(Mockito.mock(DataObject.class)));
+        }
+        CountDownLatch walkEnd = new CountDownLatch(1);
+        SearchWalker<DataObject> walker = mockWalker(pages, walkEnd);
+
+        try (ReadAheadIterator<DataObject> iterator = new ReadAheadIterator<>(walker, 2, executor)) {
+            Assert.assertTrue(iterator.hasNext());
+            iterator.next();
+        }
+        // Background walk is blocked on read ahead limit until interrupted by close
+        Assert.assertTrue("Walk should stop once iterator is closed", walkEnd.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void abandonedIteratorStopsWalk() throws Exception {
+        List<List<DataObject>> pages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pages.add(Arrays.asList(Mockito.mock(DataObject.class)));
+        }
+        CountDownLatch walkEnd = new CountDownLatch(1);
+        SearchWalker<DataObject> walker = mockWalker(pages, walkEnd);
+
+        @SuppressWarnings("resource")
+        ReadAheadIterator<DataObject> iterator = new ReadAheadIterator<>(walker, 2, executor, null, 100);
+        Assert.assertTrue(iterator.hasNext());
+        iterator.next();
+        // Iterator is never closed, background walk must give up once consumer timeout is reached
+        Assert.assertTrue("Walk should stop once consumer is gone", walkEnd.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10_000)
+    public void slowConsumerFailsOnceWalkStopped() throws Exception {
+        List<List<DataObject>> pages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pages.add(Arrays.asList(Mockito.mock(DataObject.class)));
+        }
+        CountDownLatch walkEnd = new CountDownLatch(1);
+        SearchWalker<DataObject> walker = mockWalker(pages, walkEnd);
+
+        try (ReadAheadIterator<DataObject> iterator = new ReadAheadIterator<>(walker, 2, executor, null, 100)) {
+            Assert.assertTrue(iterator.hasNext());
+            iterator.next();
+            Assert.assertTrue("Walk should stop once consumer timeout is reached", walkEnd.await(5, TimeUnit.SECONDS));
+            // Consumer resumes : pages fetched before the walk stopped are still iterated, then iteration fails
+            int iterated = 0;
+            try {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    iterated++;
+                }
+                Assert.fail("Iteration should fail once walk stopped");
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(iterated <= 2);
+            }
+        }
+    }
+}
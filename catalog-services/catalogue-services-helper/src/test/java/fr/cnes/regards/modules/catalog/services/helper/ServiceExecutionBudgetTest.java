@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.catalog.services.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fr.cnes.regards.modules.catalog.services.helper.ServiceExecutionBudget.Violation;
+
+/**
+ * Unit test for {@link ServiceExecutionBudget}
+ * @author REGARDS Team
+ */
+public class ServiceExecutionBudgetTest {
+
+    @Test
+    public void unlimited() {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(0, 0, 0);
+        budget.addEntities(1_000_000);
+        budget.addBytes(1_000_000);
+        budget.check();
+        Assert.assertFalse(budget.getViolation().isPresent());
+    }
+
+    @Test
+    public void entitiesExceeded() {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(0, 10, 0);
+        budget.addEntities(10);
+        try {
+            budget.addEntities(1);
+            Assert.fail("Budget should be exceeded");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.ENTITIES, e.getViolation());
+        }
+        // Once exceeded, all checks fail
+        try {
+            budget.check();
+            Assert.fail("Budget should be exceeded");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.ENTITIES, e.getViolation());
+        }
+    }
+
+    @Test
+    public void timeoutAndCancel() throws InterruptedException {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(1, 0, 0);
+        Thread.sleep(10);
+        try {
+            budget.check();
+            Assert.fail("Budget should be exceeded");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.TIMEOUT, e.getViolation());
+        }
+
+        ServiceExecutionBudget cancelled = new ServiceExecutionBudget(0, 0, 0);
+        ServiceExecutionBudget previous = cancelled.bind();
+        try {
+            ServiceExecutionBudget.checkCurrent();
+            cancelled.cancel();
+            ServiceExecutionBudget.checkCurrent();
+            Assert.fail("Budget should be cancelled");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.CANCELLED, e.getViolation());
+        } finally {
+            ServiceExecutionBudget.restore(previous);
+        }
+        Assert.assertFalse(ServiceExecutionBudget.current().isPresent());
+    }
+
+    @Test
+    public void bytesExceeded() throws IOException {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(0, 0, 5);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream out = budget.account(written);
+        out.write(new byte[] { 1, 2, 3, 4, 5 });
+        try {
+            out.write(6);
+            Assert.fail("Budget should be exceeded");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getCause() instanceof ServiceBudgetExceededException);
+        }
+        Assert.assertEquals(5, written.size());
+        Assert.assertEquals(Violation.BYTES, budget.getViolation().get());
+    }
+
+    @Test
+    public void cancelledWithEnclosingBudget() {
+        ServiceExecutionBudget job = new ServiceExecutionBudget(0, 0, 0);
+        ServiceExecutionBudget application = new ServiceExecutionBudget(0, 0, 0);
+        application.cancelWith(job);
+        application.check();
+        job.cancel();
+        try {
+            application.check();
+            Assert.fail("Budget should be cancelled along with the enclosing one");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.CANCELLED, e.getViolation());
+        }
+    }
+
+    /**
+     * Watchdog cancels the budget and interrupts a thread blocked outside any check at the deadline
+     */
+    @Test(timeout = 10_000)
+    public void watchdogInterruptsAtDeadline() {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(100, 0, 0);
+        try (ServiceExecutionBudget.Watch watch = budget.watch()) {
+            Thread.sleep(5_000);
+            Assert.fail("Watching thread should be interrupted");
+        } catch (InterruptedException e) {
+            // Expected
+        }
+        Assert.assertEquals(Violation.TIMEOUT, budget.getViolation().get());
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Cancellation interrupts watching threads, unhandled interruption does not outlive the watch
+     */
+    @Test(timeout = 10_000)
+    public void cancelInterruptsWatchingThread() {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(0, 0, 0);
+        try (ServiceExecutionBudget.Watch watch = budget.watch()) {
+            budget.cancel();
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+        }
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+        Assert.assertEquals(Violation.CANCELLED, budget.getViolation().get());
+    }
+
+    /**
+     * Nothing happens once no thread watches the budget anymore
+     */
+    @Test(timeout = 10_000)
+    public void noInterruptionAfterWatch() throws InterruptedException {
+        ServiceExecutionBudget budget = new ServiceExecutionBudget(100, 0, 0);
+        try (ServiceExecutionBudget.Watch watch = budget.watch()) {
+            budget.check();
+        }
+        Thread.sleep(300);
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+        // Timeout is still reported by next check
+        Assert.assertFalse(budget.getViolation().isPresent());
+        try {
+            budget.check();
+            Assert.fail("Budget should be exceeded");
+        } catch (ServiceBudgetExceededException e) {
+            Assert.assertEquals(Violation.TIMEOUT, e.getViolation());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.domain;
+
+import java.util.List;
+
+/**
+ * POJO describing the selection of data objects whose raw data files are downloaded as a single archive : either a
+ * search request or a list of data object URNs.
+ * @author REGARDS Team
+ */
+public class ArchiveDownloadRequest {
+
+    /**
+     * Search request selecting data objects
+     */
+    private SearchRequest searchRequest;
+
+    /**
+     * Data object URNs
+     */
+    private List<String> urns;
+
+    public SearchRequest getSearchRequest() {
+        return searchRequest;
+    }
+
+    public void setSearchRequest(SearchRequest searchRequest) {
+        this.searchRequest = searchRequest;
+    }
+
+    public List<String> getUrns() {
+        return urns;
+    }
+
+    public void setUrns(List<String> urns) {
+        this.urns = urns;
+    }
+}
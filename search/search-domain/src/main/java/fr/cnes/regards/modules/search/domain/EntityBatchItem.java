@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.domain;
+
+/**
+ * POJO to handle one item of a multi-get entity request. Items are returned in request order.
+ * @param <T> entity representation
+ * @author REGARDS Team
+ */
+public class EntityBatchItem<T> {
+
+    /**
+     * Item status
+     */
+    public enum Status {
+        /**
+         * Entity is available
+         */
+        OK,
+        /**
+         * Requested identifier is not a valid URN
+         */
+        INVALID,
+        /**
+         * Entity does not exist
+         */
+        NOT_FOUND,
+        /**
+         * Current user has no access to the entity
+         */
+        FORBIDDEN;
+    }
+
+    /**
+     * Requested URN
+     */
+    private String urn;
+
+    private Status status;
+
+    /**
+     * Entity, only set if status is {@link Status#OK}
+     */
+    private T entity;
+
+    public EntityBatchItem(String urn, Status status, T entity) {
+        this.urn = urn;
+        this.status = status;
+        this.entity = entity;
+    }
+
+    public static <T> EntityBatchItem<T> ok(String urn, T entity) {
+        return new EntityBatchItem<>(urn, Status.OK, entity);
+    }
+
+    public static <T> EntityBatchItem<T> error(String urn, Status status) {
+        return new EntityBatchItem<>(urn, status, null);
+    }
+
+    public String getUrn() {
+        return urn;
+    }
+
+    public void setUrn(String urn) {
+        this.urn = urn;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public void setEntity(T entity) {
+        this.entity = entity;
+    }
+}
@@ -101,6 +101,16 @@ public class SearchRequest {
         return false;
     }
 
+    /**
+     * @return true if request selects a whole dataset (or the whole catalog) : no search parameter, no date limit and no
+     *         entity inclusion or exclusion
+     */
+    public boolean isUnfiltered() {
+        return !hasSearchParameters() && (searchDateLimit == null)
+                && ((entityIdsToInclude == null) || entityIdsToInclude.isEmpty())
+                && ((entityIdsToExclude == null) || entityIdsToExclude.isEmpty());
+    }
+
     public MultiValueMap<String, String> getSearchParameters() {
         return searchParameters;
     }
@@ -47,6 +47,13 @@ public interface IEntityLinkBuilder {
 
     Link buildPaginationLink(IResourceService resourceService, SearchContext context, LinkRelation rel);
 
+    /**
+     * Build a pagination link for cursor mode
+     * @param cursor cursor token as computed by {@link SearchCursor#encode()}
+     */
+    Link buildCursorLink(IResourceService resourceService, SearchContext context, int pageSize, String cursor,
+            LinkRelation rel);
+
     List<Link> buildPaginationLinks(IResourceService resourceService, PageImpl<?> page, SearchContext context);
 
 }
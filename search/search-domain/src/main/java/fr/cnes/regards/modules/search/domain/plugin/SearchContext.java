@@ -120,6 +120,11 @@ public class SearchContext {
      */
     private Pageable pageable;
 
+    /**
+     * Optional opaque cursor token for deep pagination (replaces page number)
+     */
+    private String cursor;
+
     public SearchType getSearchType() {
         return searchType;
     }
@@ -212,6 +217,34 @@ public class SearchContext {
         this.pageable = pageable;
     }
 
+    public Optional<String> getCursor() {
+        return Optional.ofNullable(cursor);
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * @param ignoredParams query parameters that do not restrict results
+     * @return true if at least one other query parameter than total hits policy is set
+     */
+    public boolean isFiltered(String... ignoredParams) {
+        if (queryParams == null) {
+            return false;
+        }
+        Set<String> ignored = Sets.newHashSet(ignoredParams);
+        ignored.add(SearchEngineMappings.TOTAL_HITS);
+        return queryParams.keySet().stream().anyMatch(param -> !ignored.contains(param));
+    }
+
+    /**
+     * @return requested total hits policy if any. Parameter is kept in query parameters to be propagated to links.
+     */
+    public Optional<String> getTotalHits() {
+        return Optional.ofNullable(queryParams == null ? null : queryParams.getFirst(SearchEngineMappings.TOTAL_HITS));
+    }
+
     public Boolean getBoundCalculation() {
         return boundCalculation;
     }
@@ -234,6 +267,10 @@ public class SearchContext {
             if ((parser != null) && !parser.isEmpty()) {
                 context.setEngineRequestParserType(parser.get(0));
             }
+            List<String> cursor = queryParams.get(SearchEngineMappings.SEARCH_CURSOR);
+            if ((cursor != null) && !cursor.isEmpty()) {
+                context.setCursor(cursor.get(0));
+            }
             // Filter spring pagination parameters if any
             MultiValueMap<String, String> queryParamsPaginationLess = new LinkedMultiValueMap<>();
             queryParamsPaginationLess.putAll(queryParams);
@@ -241,6 +278,7 @@ public class SearchContext {
             queryParamsPaginationLess.remove("token");
             queryParamsPaginationLess.remove("scope");
             queryParamsPaginationLess.remove(SearchEngineMappings.SEARCH_REQUEST_PARSER);
+            queryParamsPaginationLess.remove(SearchEngineMappings.SEARCH_CURSOR);
             context.setQueryParams(queryParamsPaginationLess);
         }
         context.setPageable(pageable);
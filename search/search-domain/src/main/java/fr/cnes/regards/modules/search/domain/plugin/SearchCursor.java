@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.domain.plugin;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Order;
+
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
+import fr.cnes.regards.modules.dam.domain.entities.StaticProperties;
+import fr.cnes.regards.modules.indexer.domain.criterion.ComparisonOperator;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.indexer.domain.criterion.RangeCriterion;
+import fr.cnes.regards.modules.indexer.domain.criterion.ValueComparison;
+
+/**
+ * Opaque cursor for deep pagination on search endpoints.<br/>
+ * Results are walked by creation date then by ipId so that each page is computed from the first index page whatever
+ * the depth (keyset pagination) :
+ * <ul>
+ * <li>the snapshot date freezes the result set when the cursor is opened (entities created later are ignored),</li>
+ * <li>the last creation date and the last ipId are the sort values of the last returned entity, next page starts
+ * right after them.</li>
+ * </ul>
+ * The cursor is exchanged with clients as an URL safe base 64 token, see {@link #encode()} and {@link #parse(String,
+ * int)}.
+ * @author REGARDS Team
+ */
+public final class SearchCursor {
+
+    /**
+     * Token to open a new cursor
+     */
+    public static final String START = "*";
+
+    private static final String SEPARATOR = "|";
+
+    private final OffsetDateTime snapshot;
+
+    private final int size;
+
+    private final OffsetDateTime lastCreationDate;
+
+    private final String lastIpId;
+
+    private SearchCursor(OffsetDateTime snapshot, int size, OffsetDateTime lastCreationDate, String lastIpId) {
+        this.snapshot = snapshot;
+        this.size = size;
+        this.lastCreationDate = lastCreationDate;
+        this.lastIpId = lastIpId;
+    }
+
+    /**
+     * Open a new cursor on current data
+     * @param size page size
+     */
+    public static SearchCursor start(int size) {
+        return new SearchCursor(OffsetDateTime.now(ZoneOffset.UTC), size, null, null);
+    }
+
+    /**
+     * Parse cursor token from client request
+     * @param token {@link #START} or a token previously computed by {@link #encode()}
+     * @param size page size to use when opening a new cursor
+     * @throws IllegalArgumentException if token is not a valid cursor, the message describes the problem
+     */
+    public static SearchCursor parse(String token, int size) {
+        if ((token == null) || token.isEmpty() || START.equals(token)) {
+            return start(size);
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, -1);
+            if ((parts.length != 4) || parts[0].isEmpty() || parts[1].isEmpty()
+                    || (parts[2].isEmpty() != parts[3].isEmpty())) {
+                throw new IllegalArgumentException(invalid(token));
+            }
+            int cursorSize = Integer.parseInt(parts[1]);
+            if (cursorSize <= 0) {
+                throw new IllegalArgumentException(String.format("Invalid cursor %s : page size %d must be positive",
+                                                                 token, cursorSize));
+            }
+            OffsetDateTime lastCreationDate = parts[2].isEmpty() ? null : OffsetDateTime.parse(parts[2]);
+            String lastIpId = parts[3].isEmpty() ? null : parts[3];
+            return new SearchCursor(OffsetDateTime.parse(parts[0]), cursorSize, lastCreationDate, lastIpId);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            // Base 64 decoding errors are IllegalArgumentException too
+            throw new IllegalArgumentException(invalid(token), e);
+        }
+    }
+
+    private static String invalid(String token) {
+        return String.format("Invalid cursor %s : use %s to open a new cursor or the cursor returned with the previous "
+                + "page", token, START);
+    }
+
+    /**
+     * @return URL safe token to send back to clients
+     */
+    public String encode() {
+        String decoded = String.join(SEPARATOR, snapshot.toString(), String.valueOf(size),
+                                     lastCreationDate == null ? "" : lastCreationDate.toString(),
+                                     lastIpId == null ? "" : lastIpId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Restrict the given criterion to the entities remaining after this cursor :
+     * <code>creationDate &gt; last OR (creationDate = last AND ipId &gt; lastIpId)</code>
+     */
+    public ICriterion restrict(ICriterion criterion) {
+        List<ICriterion> criterions = new ArrayList<>();
+        criterions.add(criterion);
+        criterions.add(ICriterion.lt(StaticProperties.CREATION_DATE, snapshot));
+        if (lastCreationDate != null) {
+            RangeCriterion<OffsetDateTime> sameCreationDate = new RangeCriterion<>(StaticProperties.CREATION_DATE);
+            sameCreationDate.addValueComparison(new ValueComparison<>(ComparisonOperator.GREATER_OR_EQUAL,
+                    lastCreationDate));
+            sameCreationDate.addValueComparison(new ValueComparison<>(ComparisonOperator.LESS_OR_EQUAL,
+                    lastCreationDate));
+            criterions.add(ICriterion.or(after(StaticProperties.CREATION_DATE, lastCreationDate),
+                                         ICriterion.and(sameCreationDate, after(StaticProperties.IP_ID, lastIpId))));
+        }
+        return ICriterion.and(criterions.toArray(new ICriterion[criterions.size()]));
+    }
+
+    private static <T extends Comparable<? super T>> ICriterion after(String attribute, T value) {
+        RangeCriterion<T> criterion = new RangeCriterion<>(attribute);
+        criterion.addValueComparison(new ValueComparison<>(ComparisonOperator.GREATER, value));
+        return criterion;
+    }
+
+    /**
+     * @return first page request sorted by creation date then by ipId as tie breaker
+     */
+    public Pageable toPageable() {
+        return PageRequest.of(0, size, Sort.by(Order.asc(StaticProperties.CREATION_DATE),
+                                               Order.asc(StaticProperties.IP_ID)));
+    }
+
+    /**
+     * Compute next cursor from the given page
+     * @param page page computed with this cursor
+     * @return next cursor or empty if the given page is the last one
+     */
+    public Optional<SearchCursor> next(Page<? extends AbstractEntity<?>> page) {
+        if (!page.hasNext() || !page.hasContent()) {
+            return Optional.empty();
+        }
+        AbstractEntity<?> last = page.getContent().get(page.getNumberOfElements() - 1);
+        return Optional.of(next(last.getCreationDate(), last.getIpId().toString()));
+    }
+
+    /**
+     * Compute next cursor from the last entity of a page
+     * @param pageLastCreationDate creation date of the last entity of the page
+     * @param pageLastIpId ipId of the last entity of the page
+     * @return next cursor
+     */
+    public SearchCursor next(OffsetDateTime pageLastCreationDate, String pageLastIpId) {
+        return new SearchCursor(snapshot, size, pageLastCreationDate, pageLastIpId);
+    }
+
+    /**
+     * @return true if the cursor has just been opened
+     */
+    public boolean isFirst() {
+        return lastCreationDate == null;
+    }
+
+    public OffsetDateTime getSnapshot() {
+        return snapshot;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Optional<OffsetDateTime> getLastCreationDate() {
+        return Optional.ofNullable(lastCreationDate);
+    }
+
+    public Optional<String> getLastIpId() {
+        return Optional.ofNullable(lastIpId);
+    }
+}
@@ -83,6 +83,8 @@ public final class SearchEngineMappings {
 
     public static final String GET_ENTITY_MAPPING = ENTITIES_MAPPING + URN_MAPPING;
 
+    public static final String GET_ENTITIES_BATCH_MAPPING = ENTITIES_MAPPING + "/batch";
+
     // Collection mappings
 
     private static final String COLLECTIONS_MAPPING = "/collections";
@@ -128,6 +130,8 @@ public final class SearchEngineMappings {
 
     public static final String GET_DATAOBJECT_MAPPING = DATAOBJECTS_MAPPING + URN_MAPPING;
 
+    public static final String EXPORT_DATAOBJECTS_MAPPING = DATAOBJECTS_MAPPING + "/export";
+
     // Search dataobjects on a single dataset mapping
 
     private static final String DATASET_DATAOBJECTS_MAPPING = "/datasets/{datasetUrn}/dataobjects";
@@ -170,6 +174,35 @@ public final class SearchEngineMappings {
 
     public static final String SEARCH_REQUEST_PARSER = "parser";
 
+    /**
+     * Opaque cursor for deep pagination. Use {@link SearchCursor#START} to open a new cursor.
+     */
+    public static final String SEARCH_CURSOR = "cursor";
+
+    /**
+     * Total hits policy, see {@link TotalHitsPolicy}
+     */
+    public static final String TOTAL_HITS = "totalHits";
+
+    // Media types
+
+    /**
+     * Compact JSON representation : plain page envelope without any HATEOAS link
+     */
+    public static final String APPLICATION_JSON_COMPACT_VALUE = "application/vnd.regards.compact+json";
+
+    public static final MediaType APPLICATION_JSON_COMPACT = MediaType.valueOf(APPLICATION_JSON_COMPACT_VALUE);
+
+    /** Newline delimited JSON, one entity per line */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    /** GeoJSON text sequence (RFC 8142), one feature per record */
+    public static final String APPLICATION_GEO_SEQ_VALUE = "application/geo+seq";
+
+    public static final MediaType APPLICATION_GEO_SEQ = MediaType.valueOf(APPLICATION_GEO_SEQ_VALUE);
+
     private SearchEngineMappings() {
         // Nothing to do
     }
@@ -179,4 +212,19 @@ public final class SearchEngineMappings {
         headers.add(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
         return headers;
     }
+
+    public static HttpHeaders getCompactJsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.ACCEPT, APPLICATION_JSON_COMPACT_VALUE);
+        return headers;
+    }
+
+    /**
+     * Check if given request headers explicitly ask for the compact JSON representation.
+     * Wildcard media types do not match so default behavior is kept for standard clients.
+     */
+    public static boolean isCompactRequested(HttpHeaders headers) {
+        return (headers != null)
+                && headers.getAccept().stream().anyMatch(APPLICATION_JSON_COMPACT::equalsTypeAndSubtype);
+    }
 }
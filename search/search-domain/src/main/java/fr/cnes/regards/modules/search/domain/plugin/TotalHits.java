@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.domain.plugin;
+
+/**
+ * Total hits reported to clients according to a {@link TotalHitsPolicy}
+ * @author REGARDS Team
+ */
+public class TotalHits {
+
+    /**
+     * Relation between reported value and real total
+     */
+    public enum Relation {
+        /**
+         * Value is the exact total
+         */
+        EQUAL,
+        /**
+         * Value is a lower bound of the real total
+         */
+        GREATER_OR_EQUAL,
+        /**
+         * Total is not reported, value is only the number of hits known so far (lower bound)
+         */
+        NONE;
+    }
+
+    private final long value;
+
+    private final Relation relation;
+
+    public TotalHits(long value, Relation relation) {
+        this.value = value;
+        this.relation = relation;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public Relation getRelation() {
+        return relation;
+    }
+
+    /**
+     * @return true if value is the exact total
+     */
+    public boolean isExact() {
+        return relation == Relation.EQUAL;
+    }
+
+    /**
+     * Compute total pages from reported value
+     */
+    public int getTotalPages(int pageSize) {
+        return pageSize == 0 ? 1 : (int) Math.ceil((double) value / (double) pageSize);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TotalHits { value: %d, relation: %s }", value, relation);
+    }
+}
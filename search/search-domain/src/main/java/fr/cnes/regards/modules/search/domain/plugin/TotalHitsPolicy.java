@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.domain.plugin;
+
+import org.springframework.data.domain.Page;
+
+/**
+ * Policy to report total hits of a search request :
+ * <ul>
+ * <li>{@link #EXACT_VALUE} : exact total,</li>
+ * <li>a positive integer N : exact total up to N, lower bound beyond,</li>
+ * <li>{@link #NONE_VALUE} : no total, only what is known from current page (i.e. for infinite scrolling).</li>
+ * </ul>
+ * The policy can be set for each request with {@link SearchEngineMappings#TOTAL_HITS} parameter, overriding engine
+ * configuration default.
+ * @author REGARDS Team
+ */
+public final class TotalHitsPolicy {
+
+    public static final String EXACT_VALUE = "exact";
+
+    public static final String NONE_VALUE = "none";
+
+    public static final TotalHitsPolicy EXACT = new TotalHitsPolicy(Mode.EXACT, Long.MAX_VALUE);
+
+    public static final TotalHitsPolicy NONE = new TotalHitsPolicy(Mode.NONE, 0);
+
+    private enum Mode {
+        EXACT,
+        CAPPED,
+        NONE;
+    }
+
+    private final Mode mode;
+
+    private final long cap;
+
+    private TotalHitsPolicy(Mode mode, long cap) {
+        this.mode = mode;
+        this.cap = cap;
+    }
+
+    public static TotalHitsPolicy capped(long cap) {
+        if (cap <= 0) {
+            throw new IllegalArgumentException("Total hits cap must be positive");
+        }
+        return new TotalHitsPolicy(Mode.CAPPED, cap);
+    }
+
+    /**
+     * Parse policy
+     * @param value {@link #EXACT_VALUE}, {@link #NONE_VALUE} or a positive integer. Null or empty means exact.
+     * @throws IllegalArgumentException if value cannot be parsed
+     */
+    public static TotalHitsPolicy parse(String value) {
+        if ((value == null) || value.trim().isEmpty() || EXACT_VALUE.equalsIgnoreCase(value.trim())) {
+            return EXACT;
+        }
+        if (NONE_VALUE.equalsIgnoreCase(value.trim())) {
+            return NONE;
+        }
+        try {
+            return capped(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid total hits policy %s", value), e);
+        }
+    }
+
+    /**
+     * Resolve policy from request value if any, default configuration value otherwise
+     */
+    public static TotalHitsPolicy resolve(String requestValue, String defaultValue) {
+        if ((requestValue != null) && !requestValue.trim().isEmpty()) {
+            return parse(requestValue);
+        }
+        return parse(defaultValue);
+    }
+
+    /**
+     * Compute total hits to report for the given page.<br/>
+     * When total is not exact, the value is kept greater than the number of already seen hits (plus one if a next page
+     * exists) so that clients can go on paginating.
+     */
+    public TotalHits compute(Page<?> page) {
+        long seen = page.getPageable().isPaged() ? page.getPageable().getOffset() + page.getNumberOfElements()
+                : page.getNumberOfElements();
+        long known = page.hasNext() ? seen + 1 : seen;
+        switch (mode) {
+            case NONE:
+                return new TotalHits(known, TotalHits.Relation.NONE);
+            case CAPPED:
+                if (page.getTotalElements() <= cap) {
+                    return new TotalHits(page.getTotalElements(), TotalHits.Relation.EQUAL);
+                }
+                return new TotalHits(Math.max(cap, known), TotalHits.Relation.GREATER_OR_EQUAL);
+            case EXACT:
+            default:
+                return new TotalHits(page.getTotalElements(), TotalHits.Relation.EQUAL);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.CAPPED ? String.valueOf(cap) : mode.name().toLowerCase();
+    }
+}
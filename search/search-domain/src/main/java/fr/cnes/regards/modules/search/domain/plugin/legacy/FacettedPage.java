@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.domain.plugin.legacy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.hateoas.PagedModel.PageMetadata;
+
+import fr.cnes.regards.modules.indexer.domain.facet.IFacet;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHits;
+
+/**
+ * Compact counterpart of {@link FacettedPagedModel} : a plain page envelope with facets and raw content.<br/>
+ * No HATEOAS link is computed, neither for the page nor for its elements.
+ * @param <T> The type of the content
+ * @author REGARDS Team
+ */
+public class FacettedPage<T> {
+
+    /**
+     * Page content
+     */
+    private final List<T> content = new ArrayList<>();
+
+    /**
+     * Pagination metadata
+     */
+    private final PageMetadata metadata;
+
+    /**
+     * The set of facets
+     */
+    private final Set<IFacet<?>> facets;
+
+    /**
+     * Next cursor token in cursor pagination mode, null otherwise or on last page
+     */
+    private String nextCursor;
+
+    /**
+     * Relation between metadata total elements and real total
+     */
+    private TotalHits.Relation totalHitsRelation = TotalHits.Relation.EQUAL;
+
+    public FacettedPage(Set<IFacet<?>> facets, Iterable<T> content, PageMetadata metadata) {
+        this.facets = facets;
+        this.metadata = metadata;
+        if (content != null) {
+            for (T element : content) {
+                if (element != null) {
+                    this.content.add(element);
+                }
+            }
+        }
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public PageMetadata getMetadata() {
+        return metadata;
+    }
+
+    public Set<IFacet<?>> getFacets() {
+        return facets;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public TotalHits.Relation getTotalHitsRelation() {
+        return totalHitsRelation;
+    }
+
+    public void setTotalHitsRelation(TotalHits.Relation totalHitsRelation) {
+        this.totalHitsRelation = totalHitsRelation;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FacettedPage { content: %s, metadata: %s, facets: %s, nextCursor: %s }", getContent(),
+                             getMetadata(), getFacets(), getNextCursor());
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
 
 import fr.cnes.regards.modules.indexer.domain.facet.IFacet;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHits;
 
 /**
  * Extend the {@link PagedModel} to add a "facets" field.
@@ -41,6 +42,11 @@ public class FacettedPagedModel<T> extends PagedModel<T> {
      */
     private final Set<IFacet<?>> facets;
 
+    /**
+     * Relation between metadata total elements and real total
+     */
+    private TotalHits.Relation totalHitsRelation = TotalHits.Relation.EQUAL;
+
     public FacettedPagedModel(Set<IFacet<?>> facets, Collection<T> content, PageMetadata metadata, Link... links) {
         this(facets, content, metadata, Arrays.asList(links));
     }
@@ -55,6 +61,14 @@ public class FacettedPagedModel<T> extends PagedModel<T> {
         return facets;
     }
 
+    public TotalHits.Relation getTotalHitsRelation() {
+        return totalHitsRelation;
+    }
+
+    public void setTotalHitsRelation(TotalHits.Relation totalHitsRelation) {
+        this.totalHitsRelation = totalHitsRelation;
+    }
+
     @SuppressWarnings("unchecked")
     public static <T extends EntityModel<S>, S> FacettedPagedModel<T> wrap(Iterable<S> content, PageMetadata metadata,
             Set<IFacet<?>> facets) {
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.search.domain.plugin.IEntityLinkBuilder;
+import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+import fr.cnes.regards.modules.search.service.async.ISearchExecutor;
+import fr.cnes.regards.modules.search.service.async.SearchTask;
+import fr.cnes.regards.modules.search.service.engine.ISearchEngineDispatcher;
+
+/**
+ * Run search endpoint work on the search executor when asynchronous mode is enabled, in the calling thread
+ * otherwise.<br/>
+ * In asynchronous mode, the returned response is a {@link DeferredResponseEntity} : the servlet thread is released at
+ * once and the response is written when the search completes (see {@link DeferredResponseEntityHandler}). If the search
+ * does not complete in time, it is interrupted and a 503 response is returned.
+ * @author REGARDS Team
+ */
+@Component
+public class AsyncSearchHandler {
+
+    /**
+     * Request attribute holding the tenant to restore when writing an asynchronous response
+     */
+    public static final String TENANT_ATTRIBUTE = AsyncSearchHandler.class.getName() + ".tenant";
+
+    /**
+     * Request attribute holding the authentication to restore when writing an asynchronous response
+     */
+    public static final String AUTHENTICATION_ATTRIBUTE = AsyncSearchHandler.class.getName() + ".authentication";
+
+    @Autowired
+    private ISearchEngineDispatcher dispatcher;
+
+    @Autowired
+    private ISearchExecutor searchExecutor;
+
+    @Autowired
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Delay in seconds sent to clients whose search timed out
+     */
+    @Value("${regards.catalog.search.admission.retry.after:5}")
+    private long retryAfter;
+
+    /**
+     * Dispatch request to the right search engine, see
+     * {@link ISearchEngineDispatcher#dispatchRequest(SearchContext, IEntityLinkBuilder)}
+     */
+    public <T> ResponseEntity<T> dispatch(SearchContext context, IEntityLinkBuilder linkBuilder)
+            throws ModuleException {
+        if (!searchExecutor.isEnabled()) {
+            return dispatcher.dispatchRequest(context, linkBuilder);
+        }
+        return defer(dispatcher.dispatchRequestAsync(context, linkBuilder));
+    }
+
+    /**
+     * Run any search endpoint work
+     */
+    public <T> ResponseEntity<T> call(SearchTask<ResponseEntity<T>> task) throws ModuleException {
+        if (!searchExecutor.isEnabled()) {
+            return task.call();
+        }
+        return defer(searchExecutor.submit(task));
+    }
+
+    private <T> ResponseEntity<T> defer(CompletableFuture<ResponseEntity<T>> future) {
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(searchExecutor.getTimeout());
+        deferred.onTimeout(() -> {
+            future.cancel(true);
+            deferred.setErrorResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter)).build());
+        });
+        future.whenComplete((response, error) -> {
+            if (error == null) {
+                deferred.setResult(response);
+            } else {
+                deferred.setErrorResult(error);
+            }
+        });
+        // Response is written in another dispatch that has to run in the same context
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        attributes.setAttribute(TENANT_ATTRIBUTE, runtimeTenantResolver.getTenant(), RequestAttributes.SCOPE_REQUEST);
+        attributes.setAttribute(AUTHENTICATION_ATTRIBUTE, SecurityContextHolder.getContext().getAuthentication(),
+                                RequestAttributes.SCOPE_REQUEST);
+        return new DeferredResponseEntity<>(deferred);
+    }
+}
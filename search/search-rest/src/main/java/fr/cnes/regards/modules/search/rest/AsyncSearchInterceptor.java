@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+
+/**
+ * Restore tenant and authentication saved by {@link AsyncSearchHandler} when an asynchronous search response is
+ * written, as security filters are not applied again to this second dispatch.
+ * @author REGARDS Team
+ */
+public class AsyncSearchInterceptor implements HandlerInterceptor {
+
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    public AsyncSearchInterceptor(IRuntimeTenantResolver runtimeTenantResolver) {
+        this.runtimeTenantResolver = runtimeTenantResolver;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isAsyncSearchDispatch(request)) {
+            String tenant = (String) request.getAttribute(AsyncSearchHandler.TENANT_ATTRIBUTE);
+            if (tenant != null) {
+                runtimeTenantResolver.forceTenant(tenant);
+            }
+            Authentication authentication = (Authentication) request
+                    .getAttribute(AsyncSearchHandler.AUTHENTICATION_ATTRIBUTE);
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (isAsyncSearchDispatch(request)) {
+            SecurityContextHolder.clearContext();
+            runtimeTenantResolver.clearTenant();
+        }
+    }
+
+    private static boolean isAsyncSearchDispatch(HttpServletRequest request) {
+        return (request.getDispatcherType() == DispatcherType.ASYNC)
+                && (request.getAttribute(AsyncSearchHandler.TENANT_ATTRIBUTE) != null);
+    }
+}
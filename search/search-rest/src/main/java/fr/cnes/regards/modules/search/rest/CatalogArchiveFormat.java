@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.springframework.http.MediaType;
+
+/**
+ * Archive formats available to download several files at once, see {@link CatalogArchiveWriter}
+ * @author REGARDS Team
+ */
+public enum CatalogArchiveFormat {
+
+    /**
+     * ZIP archive, entry sizes do not have to be known in advance
+     */
+    ZIP(MediaType.valueOf("application/zip"), "zip") {
+
+        @Override
+        public ArchiveOutputStream open(OutputStream outputStream) {
+            ZipArchiveOutputStream archive = new ZipArchiveOutputStream(outputStream);
+            archive.setUseZip64(Zip64Mode.AsNeeded);
+            // Raw data files are mostly already compressed
+            archive.setLevel(Deflater.BEST_SPEED);
+            return archive;
+        }
+
+        @Override
+        public ArchiveEntry createEntry(String name, Long size) {
+            ZipArchiveEntry entry = new ZipArchiveEntry(name);
+            if (size != null) {
+                entry.setSize(size);
+            }
+            return entry;
+        }
+    },
+
+    /**
+     * TAR archive, entry sizes must be known in advance
+     */
+    TAR(MediaType.valueOf("application/x-tar"), "tar") {
+
+        @Override
+        public ArchiveOutputStream open(OutputStream outputStream) {
+            TarArchiveOutputStream archive = new TarArchiveOutputStream(outputStream);
+            archive.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            archive.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            return archive;
+        }
+
+        @Override
+        public ArchiveEntry createEntry(String name, Long size) {
+            TarArchiveEntry entry = new TarArchiveEntry(name);
+            entry.setSize(size);
+            return entry;
+        }
+    };
+
+    private final MediaType mediaType;
+
+    private final String extension;
+
+    CatalogArchiveFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return true if entry size must be known before writing it
+     */
+    public boolean requiresSize() {
+        return this == TAR;
+    }
+
+    /**
+     * Wrap output stream into an archive stream of this format
+     */
+    public abstract ArchiveOutputStream open(OutputStream outputStream);
+
+    /**
+     * Create an archive entry
+     * @param name entry path
+     * @param size entry size, may be null if {@link #requiresSize()} is false
+     */
+    public abstract ArchiveEntry createEntry(String name, Long size);
+
+    /**
+     * @param format format name, case insensitive
+     * @return matching format
+     * @throws IllegalArgumentException if format is unknown
+     */
+    public static CatalogArchiveFormat parse(String format) {
+        return valueOf(format.toUpperCase());
+    }
+}
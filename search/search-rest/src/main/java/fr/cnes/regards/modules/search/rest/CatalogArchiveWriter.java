@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import feign.Response;
+import fr.cnes.regards.framework.feign.ResponseStreamProxy;
+import fr.cnes.regards.framework.feign.security.FeignSecurityManager;
+import fr.cnes.regards.framework.security.role.DefaultRole;
+import fr.cnes.regards.framework.urn.DataType;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.indexer.domain.DataFile;
+import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+import fr.cnes.regards.modules.storage.client.IStorageRestClient;
+
+/**
+ * Write raw data files of walked data objects into a single archive streamed to the client.<br/>
+ * Files are pulled from storage one at a time and copied through a fixed size buffer so memory stays bounded whatever
+ * the selection size and nothing is written to disk. A file that cannot be retrieved does not stop the download : it
+ * is reported in a {@link #MANIFEST} entry written at the end of the archive.
+ * @author REGARDS Team
+ */
+public class CatalogArchiveWriter {
+
+    /**
+     * Name of the entry reporting archive content and failures
+     */
+    public static final String MANIFEST = "MANIFEST.txt";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogArchiveWriter.class);
+
+    private final IStorageRestClient storageRestClient;
+
+    private final CatalogArchiveFormat format;
+
+    private final String user;
+
+    private final int bufferSize;
+
+    private final int maxFiles;
+
+    private final Set<String> entryNames = new HashSet<>();
+
+    private final List<String> failures = new ArrayList<>();
+
+    private int archived = 0;
+
+    private int skipped = 0;
+
+    /**
+     * @param user user on behalf of whom files are downloaded from storage (quotas)
+     * @param bufferSize copy buffer size in bytes
+     * @param maxFiles maximum number of files in the archive
+     */
+    public CatalogArchiveWriter(IStorageRestClient storageRestClient, CatalogArchiveFormat format, String user,
+            int bufferSize, int maxFiles) {
+        this.storageRestClient = storageRestClient;
+        this.format = format;
+        this.user = user;
+        this.bufferSize = bufferSize;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Walk through data objects and write their raw data files
+     * @param walker data objects to walk, raw data files the user has no access to are already filtered
+     * @param outputStream client output stream
+     * @return number of archived files
+     * @throws IOException if client output stream cannot be written
+     */
+    public int write(SearchWalker<DataObject> walker, OutputStream outputStream) throws IOException {
+        ArchiveOutputStream archive = format.open(outputStream);
+        byte[] buffer = new byte[bufferSize];
+        try {
+            walker.walk(dataObject -> {
+                for (DataFile file : dataObject.getFiles().get(DataType.RAWDATA)) {
+                    addFile(archive, dataObject, file, buffer);
+                }
+            });
+        } catch (SearchException e) {
+            LOGGER.error("Archive download interrupted after {} files", archived, e);
+            failures.add(String.format("Selection : %s", e.getMessage()));
+        }
+        writeManifest(archive);
+        archive.finish();
+        outputStream.flush();
+        return archived;
+    }
+
+    private void addFile(ArchiveOutputStream archive, DataObject dataObject, DataFile file, byte[] buffer)
+            throws IOException {
+        String name = entryName(dataObject, file);
+        if (Boolean.TRUE.equals(file.isReference())) {
+            failures.add(String.format("%s : external reference %s not archived", name, file.getUri()));
+            return;
+        }
+        if (archived >= maxFiles) {
+            skipped++;
+            return;
+        }
+        Response response;
+        // Download as user to impact quotas, with upgraded privileges so that the request passes
+        FeignSecurityManager.asUser(user, DefaultRole.PROJECT_ADMIN.name());
+        try {
+            response = storageRestClient.downloadFile(file.getChecksum());
+        } catch (RuntimeException e) { // NOSONAR any storage client failure is reported in manifest
+            LOGGER.warn("Cannot download file {} from storage", file.getChecksum(), e);
+            failures.add(String.format("%s : %s", name, e.getMessage()));
+            return;
+        } finally {
+            FeignSecurityManager.reset();
+        }
+        try (InputStream content = response.body() == null ? null : new ResponseStreamProxy(response)) {
+            if ((response.status() != HttpStatus.OK.value()) || (content == null)) {
+                failures.add(String.format("%s : storage responded with status %d", name, response.status()));
+                return;
+            }
+            Long size = file.getFilesize() != null ? file.getFilesize() : contentLength(response);
+            if (format.requiresSize() && (size == null)) {
+                failures.add(String.format("%s : unknown file size", name));
+                return;
+            }
+            archive.putArchiveEntry(format.createEntry(name, size));
+            long copied = copy(content, archive, buffer, format.requiresSize() ? size : Long.MAX_VALUE);
+            if (format.requiresSize() && (copied < size)) {
+                // Entry size is fixed, complete it
+                pad(archive, buffer, size - copied);
+            }
+            archive.closeArchiveEntry();
+            if ((size != null) && (copied != size)) {
+                failures.add(String.format("%s : %d bytes read instead of %d", name, copied, size));
+            } else {
+                archived++;
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Copy storage content into current archive entry
+     * @return number of copied bytes
+     * @throws IOException if archive cannot be written. Storage read failures only stop the copy.
+     */
+    private long copy(InputStream content, OutputStream archive, byte[] buffer, long maxSize) throws IOException {
+        long copied = 0;
+        while (copied < maxSize) {
+            int read;
+            try {
+                read = content.read(buffer, 0, (int) Math.min(buffer.length, maxSize - copied));
+            } catch (IOException e) {
+                LOGGER.warn("Storage read failure after {} bytes", copied, e);
+                return copied;
+            }
+            if (read == -1) {
+                return copied;
+            }
+            archive.write(buffer, 0, read);
+            copied += read;
+        }
+        return copied;
+    }
+
+    private static void pad(OutputStream archive, byte[] buffer, long length) throws IOException {
+        Arrays.fill(buffer, (byte) 0);
+        long remaining = length;
+        while (remaining > 0) {
+            int written = (int) Math.min(buffer.length, remaining);
+            archive.write(buffer, 0, written);
+            remaining -= written;
+        }
+    }
+
+    private static Long contentLength(Response response) {
+        Collection<String> values = response.headers().get(HttpHeaders.CONTENT_LENGTH);
+        if ((values == null) || values.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(values.iterator().next());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Entries are grouped by data object, names are made unique
+     */
+    private String entryName(DataObject dataObject, DataFile file) {
+        String directory = sanitize(dataObject.getProviderId() != null ? dataObject.getProviderId()
+                : dataObject.getIpId().toString());
+        String filename = sanitize(file.getFilename() != null ? file.getFilename() : file.getChecksum());
+        String name = directory + "/" + filename;
+        if (!entryNames.add(name)) {
+            name = directory + "/" + file.getChecksum() + "_" + filename;
+            entryNames.add(name);
+        }
+        return name;
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private void writeManifest(ArchiveOutputStream archive) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        manifest.append(String.format("Archived files : %d%n", archived));
+        if (skipped > 0) {
+            manifest.append(String.format("Files not archived, archive limited to %d files : %d%n", maxFiles,
+                                          skipped));
+        }
+        manifest.append(String.format("Failures : %d%n", failures.size()));
+        failures.forEach(failure -> manifest.append(failure).append(System.lineSeparator()));
+        byte[] content = manifest.toString().getBytes(StandardCharsets.UTF_8);
+        archive.putArchiveEntry(format.createEntry(MANIFEST, (long) content.length));
+        archive.write(content);
+        archive.closeArchiveEntry();
+    }
+}
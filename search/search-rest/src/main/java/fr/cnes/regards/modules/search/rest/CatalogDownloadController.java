@@ -19,23 +19,32 @@
 package fr.cnes.regards.modules.search.rest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import feign.Response;
 import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
@@ -45,7 +54,18 @@ import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.dam.domain.entities.StaticProperties;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.domain.ArchiveDownloadRequest;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 import fr.cnes.regards.modules.search.service.ICatalogSearchService;
+import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+import fr.cnes.regards.modules.search.service.admission.AdmissionPermit;
+import fr.cnes.regards.modules.search.service.admission.IAdmissionControl;
+import fr.cnes.regards.modules.search.service.admission.SearchEndpointClass;
+import fr.cnes.regards.modules.search.service.engine.ISearchEngineDispatcher;
 import fr.cnes.regards.modules.storage.client.IStorageRestClient;
 
 /**
@@ -63,6 +83,18 @@ public class CatalogDownloadController {
 
     public static final String DOWNLOAD_AIP_FILE = "/{aip_id}/files/{checksum}";
 
+    public static final String DOWNLOAD_ARCHIVE = "/archive";
+
+    /**
+     * Archive format request parameter, see {@link CatalogArchiveFormat}
+     */
+    public static final String ARCHIVE_FORMAT_PARAM = "format";
+
+    /**
+     * Maximum number of URNs in an archive download request
+     */
+    public static final int MAX_ARCHIVE_URNS = 1_000;
+
     /**
      * AIP ID path parameter
      */
@@ -73,6 +105,13 @@ public class CatalogDownloadController {
      */
     public static final String CHECKSUM_PATH_PARAM = "checksum";
 
+    /**
+     * Storage response headers relayed to the client (lower case)
+     */
+    private static final Set<String> RELAYED_HEADERS = new HashSet<>(Arrays
+            .asList("content-type", "content-length", "content-range", "content-disposition", "accept-ranges", "etag",
+                    "last-modified"));
+
     @Autowired
     private IStorageRestClient storageRestClient;
 
@@ -85,51 +124,170 @@ public class CatalogDownloadController {
     @Autowired
     private IAuthenticationResolver authResolver;
 
+    @Autowired
+    private StreamingSupport streamingSupport;
+
+    @Autowired
+    private IAdmissionControl admissionControl;
+
+    /**
+     * Engine request dispatcher
+     */
+    @Autowired
+    private ISearchEngineDispatcher dispatcher;
+
+    /**
+     * Size in bytes of the buffer used to copy storage content to the client
+     */
+    @Value("${regards.catalog.download.buffer.size:65536}")
+    private int transferBufferSize;
+
+    /**
+     * Number of data objects retrieved at once when building an archive
+     */
+    @Value("${regards.catalog.download.archive.page.size:100}")
+    private int archivePageSize;
+
+    /**
+     * Maximum number of files in an archive
+     */
+    @Value("${regards.catalog.download.archive.max.files:10000}")
+    private int archiveMaxFiles;
+
     /**
-     * Download a file that user has right to
+     * Download a file that user has right to.<br/>
+     * Range requests are forwarded to storage and partial responses are relayed so large downloads can be resumed.
+     * File content is streamed to the client through a fixed size buffer : storage is read at client pace and released
+     * as soon as the client aborts or once the request completes if the response is never written. Streaming runs with
+     * the streaming timeout on a bounded pool, see {@link StreamingWebMvcConfigurer} and {@link StreamingSupport}.
      * @param aipId aip id where is the file
      * @param checksum checksum on the file
+     * @param range optional Range header
+     * @param ifRange optional If-Range header
      * @return the file to download
      * @throws ModuleException
      * @throws IOException
      */
     @RequestMapping(path = DOWNLOAD_AIP_FILE, method = RequestMethod.GET, produces = MediaType.ALL_VALUE)
     @ResourceAccess(description = "download one file from a given AIP by checksum.", role = DefaultRole.PUBLIC)
-    public ResponseEntity<InputStreamResource> downloadFile(@PathVariable(AIP_ID_PATH_PARAM) String aipId,
-            @PathVariable(CHECKSUM_PATH_PARAM) String checksum) throws ModuleException, IOException {
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable(AIP_ID_PATH_PARAM) String aipId,
+            @PathVariable(CHECKSUM_PATH_PARAM) String checksum,
+            @RequestHeader(name = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(name = HttpHeaders.IF_RANGE, required = false) String ifRange)
+            throws ModuleException, IOException {
         UniformResourceName urn = UniformResourceName.fromString(aipId);
         if (this.searchService.hasAccess(urn)) {
             // To download through storage client we must be authenticate as user in order to
             // impact the download quotas, but we upgrade the privileges so that the request passes.
             FeignSecurityManager.asUser(authResolver.getUser(), DefaultRole.PROJECT_ADMIN.name());
-            Response response = null;
+            StorageRangeForwarder.forward(range, ifRange);
             try {
-                response = storageRestClient.downloadFile(checksum);
-                InputStreamResource isr = null;
-                if (response.status() == HttpStatus.OK.value()) {
-                    isr = new InputStreamResource(new ResponseStreamProxy(response));
-                } else {
+                Response response = storageRestClient.downloadFile(checksum);
+                if ((response.status() != HttpStatus.OK.value())
+                        && (response.status() != HttpStatus.PARTIAL_CONTENT.value())) {
                     LOGGER.error("Error downloading file {} from storage", checksum);
-                    // if body is not null, forward the error content too
-                    if (response.body() != null) {
-                        isr = new InputStreamResource(new ResponseStreamProxy(response));
-                    }
                 }
                 HttpHeaders headers = new HttpHeaders();
                 for (Entry<String, Collection<String>> h : response.headers().entrySet()) {
-                    h.getValue().forEach(v -> headers.add(h.getKey(), v));
+                    if (RELAYED_HEADERS.contains(h.getKey().toLowerCase())) {
+                        h.getValue().forEach(v -> headers.add(h.getKey(), v));
+                    }
+                }
+                HttpStatus status = HttpStatus.valueOf(response.status());
+                if (response.body() == null) {
+                    response.close();
+                    return new ResponseEntity<>(headers, status);
                 }
-                return new ResponseEntity<>(isr, headers, HttpStatus.valueOf(response.status()));
+                // if status is not OK, forward the error content too
+                ResponseStreamProxy content = new ResponseStreamProxy(streamingSupport.closeOnCompletion(response));
+                streamingSupport.extendTimeout();
+                return new ResponseEntity<>(outputStream -> transfer(content, outputStream, checksum), headers,
+                        status);
             } catch (HttpClientErrorException | HttpServerErrorException e) {
                 LOGGER.error(String.format("Error downloading file through storage microservice. Cause : %s",
                                            e.getMessage()),
                              e);
-                return new ResponseEntity<InputStreamResource>(HttpStatus.INTERNAL_SERVER_ERROR);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             } finally {
+                StorageRangeForwarder.reset();
                 FeignSecurityManager.reset();
             }
         }
-        return new ResponseEntity<InputStreamResource>(HttpStatus.FORBIDDEN);
+        return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+
+    }
+
+    /**
+     * Download all raw data files the user has right to from a selection of data objects as a single archive.<br/>
+     * The archive is streamed while files are pulled one at a time from storage, with the streaming timeout on a
+     * bounded pool (see {@link StreamingWebMvcConfigurer} and {@link StreamingSupport}). Files that cannot be
+     * retrieved are reported in the {@link CatalogArchiveWriter#MANIFEST} entry.<br/>
+     * Archives are subject to expensive request admission control, as exports : the permit is released once the
+     * archive is written or once the request completes if the response is never written.
+     * @param request selection, either a search request or data object URNs
+     * @param format archive format, zip (default) or tar
+     * @return the archive to download
+     * @throws ModuleException if selection is not valid
+     */
+    @RequestMapping(path = DOWNLOAD_ARCHIVE, method = RequestMethod.POST,
+            produces = { "application/zip", "application/x-tar" })
+    @ResourceAccess(description = "download raw data files of a selection of data objects as a single archive",
+            role = DefaultRole.PUBLIC)
+    public ResponseEntity<StreamingResponseBody> downloadArchive(@RequestBody ArchiveDownloadRequest request,
+            @RequestParam(name = ARCHIVE_FORMAT_PARAM, defaultValue = "zip") String format) throws ModuleException {
+        CatalogArchiveFormat archiveFormat;
+        try {
+            archiveFormat = CatalogArchiveFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new SearchException(String.format("Unknown archive format %s", format));
+        }
+        ICriterion criterion;
+        if (request.getSearchRequest() != null) {
+            criterion = dispatcher.computeComplexCriterion(request.getSearchRequest());
+        } else if ((request.getUrns() != null) && !request.getUrns().isEmpty()) {
+            if (request.getUrns().size() > MAX_ARCHIVE_URNS) {
+                throw new SearchException(String.format("Too many data objects requested at once : %d (max %d)",
+                                                        request.getUrns().size(), MAX_ARCHIVE_URNS));
+            }
+            criterion = ICriterion.or(request.getUrns().stream().map(urn -> ICriterion.eq(StaticProperties.IP_ID, urn))
+                    .toArray(ICriterion[]::new));
+        } else {
+            throw new SearchException("Either a search request or data object URNs must be specified");
+        }
+        SearchWalker<DataObject> walker = searchService.prepareWalk(criterion, SearchType.DATAOBJECTS,
+                                                                    archivePageSize);
+        CatalogArchiveWriter writer = new CatalogArchiveWriter(storageRestClient, archiveFormat, authResolver.getUser(),
+                transferBufferSize, archiveMaxFiles);
+        AdmissionPermit permit = streamingSupport
+                .closeOnCompletion(admissionControl.acquire(SearchEndpointClass.EXPENSIVE));
+        streamingSupport.extendTimeout();
+        return ResponseEntity.ok().contentType(archiveFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        String.format("attachment; filename=\"files.%s\"", archiveFormat.getExtension()))
+                .body(outputStream -> {
+                    try {
+                        writer.write(walker, outputStream);
+                    } finally {
+                        permit.close();
+                    }
+                });
+    }
 
+    /**
+     * Copy storage content to client. Writes block until the client reads so a slow client slows down storage reads.
+     * Storage response is closed whatever happens, including client abort.
+     */
+    private void transfer(InputStream content, OutputStream outputStream, String checksum) throws IOException {
+        try (InputStream in = content) {
+            byte[] buffer = new byte[transferBufferSize];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            LOGGER.debug("Download of file {} interrupted : {}", checksum, e.getMessage());
+            throw e;
+        }
     }
 }
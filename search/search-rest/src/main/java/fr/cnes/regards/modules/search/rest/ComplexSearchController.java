@@ -42,6 +42,7 @@ import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.urn.DataType;
+import fr.cnes.regards.framework.urn.UniformResourceName;
 import fr.cnes.regards.modules.dam.domain.entities.feature.EntityFeature;
 import fr.cnes.regards.modules.indexer.dao.FacetPage;
 import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
@@ -54,6 +55,10 @@ import fr.cnes.regards.modules.search.domain.SearchRequest;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 import fr.cnes.regards.modules.search.service.IBusinessSearchService;
 import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.admission.AdmissionPermit;
+import fr.cnes.regards.modules.search.service.admission.IAdmissionControl;
+import fr.cnes.regards.modules.search.service.admission.SearchEndpointClass;
+import fr.cnes.regards.modules.search.service.async.SearchTask;
 import fr.cnes.regards.modules.search.service.engine.ISearchEngineDispatcher;
 
 /**
@@ -96,6 +101,15 @@ public class ComplexSearchController implements IResourceController<EntityFeatur
     @Autowired
     private IAttributeHelper attributeHelper;
 
+    /**
+     * Run endpoint work in the request thread or asynchronously according to configuration
+     */
+    @Autowired
+    private AsyncSearchHandler asyncSearch;
+
+    @Autowired
+    private IAdmissionControl admissionControl;
+
     /**
      * Compute a DocFileSummary for current user, for specified request context, for asked file types (see
      * {@link DataType})
@@ -106,11 +120,6 @@ public class ComplexSearchController implements IResourceController<EntityFeatur
             role = DefaultRole.REGISTERED_USER)
     public ResponseEntity<DocFilesSummary> computeDatasetsSummary(
             @RequestBody ComplexSearchRequest complexSearchRequest) throws ModuleException {
-        List<ICriterion> searchCriterions = Lists.newArrayList();
-        for (SearchRequest request : complexSearchRequest.getRequests()) {
-            searchCriterions.add(dispatcher.computeComplexCriterion(request));
-        }
-
         List<DataType> dataTypes = complexSearchRequest.getDataTypes();
         if ((dataTypes == null) || dataTypes.isEmpty()) {
             dataTypes = Lists.newArrayList();
@@ -118,10 +127,28 @@ public class ComplexSearchController implements IResourceController<EntityFeatur
                 dataTypes.add(type);
             }
         }
+        List<DataType> summaryDataTypes = dataTypes;
+        return callExpensive(() -> computeDatasetsSummary(complexSearchRequest.getRequests(), summaryDataTypes));
+    }
+
+    private ResponseEntity<DocFilesSummary> computeDatasetsSummary(List<SearchRequest> requests,
+            List<DataType> dataTypes) throws ModuleException {
+        // Whole dataset selection summaries are materialized
+        if ((requests.size() == 1) && requests.get(0).isUnfiltered()) {
+            String datasetUrn = requests.get(0).getDatasetUrn();
+            DocFilesSummary summary = searchService
+                    .computeDatasetsSummary(datasetUrn == null ? null : UniformResourceName.fromString(datasetUrn),
+                                            null, dataTypes);
+            return new ResponseEntity<>(summary, HttpStatus.OK);
+        }
+
+        List<ICriterion> searchCriterions = Lists.newArrayList();
+        for (SearchRequest request : requests) {
+            searchCriterions.add(dispatcher.computeComplexCriterion(request));
+        }
         DocFilesSummary summary = searchService.computeDatasetsSummary(ICriterion.or(searchCriterions),
                                                                        SearchType.DATAOBJECTS, null, dataTypes);
         return new ResponseEntity<>(summary, HttpStatus.OK);
-
     }
 
     /**
@@ -134,14 +161,16 @@ public class ComplexSearchController implements IResourceController<EntityFeatur
     public ResponseEntity<PagedModel<EntityModel<EntityFeature>>> searchDataObjects(
             @RequestBody ComplexSearchRequest complexSearchRequest, PagedResourcesAssembler<EntityFeature> assembler)
             throws ModuleException {
-        List<ICriterion> searchCriterions = Lists.newArrayList();
-        for (SearchRequest request : complexSearchRequest.getRequests()) {
-            searchCriterions.add(dispatcher.computeComplexCriterion(request));
-        }
-        FacetPage<EntityFeature> facetPage = searchService
-                .search(ICriterion.or(searchCriterions), SearchType.DATAOBJECTS, null,
-                        PageRequest.of(complexSearchRequest.getPage(), complexSearchRequest.getSize()));
-        return new ResponseEntity<>(toPagedResources(facetPage, assembler), HttpStatus.OK);
+        return callExpensive(() -> {
+            List<ICriterion> searchCriterions = Lists.newArrayList();
+            for (SearchRequest request : complexSearchRequest.getRequests()) {
+                searchCriterions.add(dispatcher.computeComplexCriterion(request));
+            }
+            FacetPage<EntityFeature> facetPage = searchService
+                    .search(ICriterion.or(searchCriterions), SearchType.DATAOBJECTS, null,
+                            PageRequest.of(complexSearchRequest.getPage(), complexSearchRequest.getSize()));
+            return new ResponseEntity<>(toPagedResources(facetPage, assembler), HttpStatus.OK);
+        });
     }
 
     @RequestMapping(method = RequestMethod.POST, value = ComplexSearchController.SEARCH_DATAOBJECTS_ATTRIBUTES)
@@ -149,10 +178,24 @@ public class ComplexSearchController implements IResourceController<EntityFeatur
             role = DefaultRole.PUBLIC)
     public ResponseEntity<Set<AttributeModel>> searchDataobjectsAttributes(@RequestBody SearchRequest searchRequest,
             @RequestHeader HttpHeaders headers) throws SearchException, ModuleException {
-        List<String> modelNames = searchService
-                .retrieveEnumeratedPropertyValues(dispatcher.computeComplexCriterion(searchRequest),
-                                                  SearchType.DATAOBJECTS, AttributeHelper.MODEL_ATTRIBUTE, 100, null);
-        return ResponseEntity.ok(attributeHelper.getAllCommonAttributes(modelNames));
+        return callExpensive(() -> {
+            List<String> modelNames = searchService
+                    .retrieveEnumeratedPropertyValues(dispatcher.computeComplexCriterion(searchRequest),
+                                                      SearchType.DATAOBJECTS, AttributeHelper.MODEL_ATTRIBUTE, 100,
+                                                      null);
+            return ResponseEntity.ok(attributeHelper.getAllCommonAttributes(modelNames));
+        });
+    }
+
+    /**
+     * Complex searches are expensive, limit concurrent ones per tenant
+     */
+    private <T> ResponseEntity<T> callExpensive(SearchTask<ResponseEntity<T>> task) throws ModuleException {
+        return asyncSearch.call(() -> {
+            try (AdmissionPermit permit = admissionControl.acquire(SearchEndpointClass.EXPENSIVE)) {
+                return task.call();
+            }
+        });
     }
 
     @Override
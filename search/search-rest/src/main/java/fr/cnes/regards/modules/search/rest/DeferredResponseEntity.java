@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Placeholder response returned by {@link AsyncSearchHandler} in asynchronous mode. It has no body : the actual
+ * response is the result of the carried {@link DeferredResult}, written by {@link DeferredResponseEntityHandler}.
+ * @param <T> type of the deferred response body
+ * @author REGARDS Team
+ */
+public final class DeferredResponseEntity<T> extends ResponseEntity<T> {
+
+    private final DeferredResult<ResponseEntity<?>> deferredResult;
+
+    DeferredResponseEntity(DeferredResult<ResponseEntity<?>> deferredResult) {
+        super(HttpStatus.OK);
+        this.deferredResult = deferredResult;
+    }
+
+    public DeferredResult<ResponseEntity<?>> getDeferredResult() {
+        return deferredResult;
+    }
+}
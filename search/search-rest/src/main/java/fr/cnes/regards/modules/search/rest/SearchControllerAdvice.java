@@ -18,7 +18,10 @@
  */
 package fr.cnes.regards.modules.search.rest;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -28,6 +31,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import fr.cnes.regards.framework.module.rest.representation.ServerErrorResponse;
 import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchParseException;
 import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.admission.AdmissionRejectedException;
 
 /**
  *
@@ -39,6 +43,12 @@ import fr.cnes.regards.modules.search.service.SearchException;
 @Order(0)
 public class SearchControllerAdvice {
 
+    /**
+     * Delay in seconds sent to clients rejected because of saturation
+     */
+    @Value("${regards.catalog.search.admission.retry.after:5}")
+    private long retryAfter;
+
     /**
      * Exception handler returning the code 400 when an error occurs while processing an OpenSearch request.<br>
      *
@@ -62,4 +72,32 @@ public class SearchControllerAdvice {
         }
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ServerErrorResponse(message, exception));
     }
+
+    /**
+     * Exception handler returning the code 503 with a Retry-After header when the search executor is saturated (see
+     * {@link AsyncSearchHandler})
+     *
+     * @param exception {@link TaskRejectedException}
+     * @return {@link ResponseEntity}
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ServerErrorResponse> taskRejectedException(final TaskRejectedException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(new ServerErrorResponse("Too many search requests, retry later", exception));
+    }
+
+    /**
+     * Exception handler returning the code 429 or 503 with a Retry-After header when a request is shed by admission
+     * control
+     *
+     * @param exception {@link AdmissionRejectedException}
+     * @return {@link ResponseEntity}
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ServerErrorResponse> admissionRejectedException(final AdmissionRejectedException exception) {
+        return ResponseEntity.status(exception.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfter()))
+                .body(new ServerErrorResponse(exception.getMessage(), exception));
+    }
 }
@@ -37,15 +37,18 @@ import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.LinkRelation;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.google.common.collect.Lists;
 
@@ -57,15 +60,23 @@ import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.urn.EntityType;
 import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
 import fr.cnes.regards.modules.dam.domain.entities.feature.EntityFeature;
 import fr.cnes.regards.modules.model.domain.attributes.AttributeModel;
 import fr.cnes.regards.modules.model.gson.IAttributeHelper;
 import fr.cnes.regards.modules.model.gson.helper.AttributeHelper;
+import fr.cnes.regards.modules.search.domain.EntityBatchItem;
 import fr.cnes.regards.modules.search.domain.plugin.IEntityLinkBuilder;
 import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
 import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.IBusinessSearchService;
+import fr.cnes.regards.modules.search.service.ISearchExportService;
 import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+import fr.cnes.regards.modules.search.service.admission.AdmissionPermit;
+import fr.cnes.regards.modules.search.service.admission.IAdmissionControl;
+import fr.cnes.regards.modules.search.service.admission.SearchEndpointClass;
 import fr.cnes.regards.modules.search.service.engine.ISearchEngineDispatcher;
 
 /**
@@ -123,12 +134,30 @@ public class SearchEngineController implements IEntityLinkBuilder {
     @Autowired
     private ISearchEngineDispatcher dispatcher;
 
+    /**
+     * Run endpoint work in the request thread or asynchronously according to configuration
+     */
+    @Autowired
+    private AsyncSearchHandler asyncSearch;
+
     @Autowired
     private IAttributeHelper attributeHelper;
 
     @Autowired
     private IResourceService resourceService;
 
+    @Autowired
+    private ISearchExportService exportService;
+
+    @Autowired
+    private IBusinessSearchService searchService;
+
+    @Autowired
+    private IAdmissionControl admissionControl;
+
+    @Autowired
+    private StreamingSupport streamingSupport;
+
     // Search on all entities
 
     /**
@@ -140,8 +169,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestHeader HttpHeaders headers, @RequestParam MultiValueMap<String, String> queryParams,
             Pageable pageable) throws ModuleException {
         LOGGER.debug("Search on all entities delegated to engine \"{}\"", engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.ALL, engineType, headers, queryParams, pageable), this);
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.ALL, engineType, headers, queryParams, pageable), this);
     }
 
     /**
@@ -153,7 +182,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @PathVariable(SearchEngineMappings.EXTRA) String extra, @RequestHeader HttpHeaders headers,
             @RequestParam MultiValueMap<String, String> queryParams, Pageable pageable) throws ModuleException {
         LOGGER.debug("Extra mapping \"{}\" handling delegated to engine \"{}\"", extra, engineType);
-        return dispatcher.dispatchRequest(SearchContext
+        return asyncSearch.dispatch(SearchContext
                 .build(SearchType.ALL, engineType, headers, queryParams, pageable).withExtra(extra), this);
     }
 
@@ -166,9 +195,36 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @Valid @PathVariable(SearchEngineMappings.URN) UniformResourceName urn, @RequestHeader HttpHeaders headers)
             throws ModuleException {
         LOGGER.debug("Get entity \"{}\" delegated to engine \"{}\"", urn.toString(), engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.ALL, engineType, headers, null, null).withUrn(urn),
-                                 this);
+        return asyncSearch.dispatch(SearchContext.build(SearchType.ALL, engineType, headers, null, null).withUrn(urn),
+                                    this);
+    }
+
+    /**
+     * Get a batch of entities from their URNs regardless their type with a single index request.<br/>
+     * Results are returned in request order with a status per item. Batches are subject to expensive request admission
+     * control.
+     */
+    @RequestMapping(method = RequestMethod.POST, value = SearchEngineMappings.GET_ENTITIES_BATCH_MAPPING)
+    @ResourceAccess(description = "Generic endpoint for retrieving a batch of entities", role = DefaultRole.PUBLIC)
+    public ResponseEntity<List<EntityBatchItem<EntityModel<EntityFeature>>>> getEntities(
+            @PathVariable(SearchEngineMappings.ENGINE_TYPE) String engineType, @RequestHeader HttpHeaders headers,
+            @RequestBody List<String> urns) throws ModuleException {
+        LOGGER.debug("Get {} entities at once", urns.size());
+        SearchContext context = SearchContext.build(SearchType.ALL, engineType, headers, null, null);
+        return asyncSearch.call(() -> {
+            List<EntityBatchItem<EntityModel<EntityFeature>>> items = new ArrayList<>(urns.size());
+            try (AdmissionPermit permit = admissionControl.acquire(SearchEndpointClass.EXPENSIVE)) {
+                for (EntityBatchItem<EntityFeature> item : searchService.getBatch(urns)) {
+                    EntityModel<EntityFeature> resource = null;
+                    if (item.getEntity() != null) {
+                        resource = resourceService.toResource(item.getEntity());
+                        resource.add(buildEntityLinks(resourceService, context, item.getEntity()));
+                    }
+                    items.add(new EntityBatchItem<>(item.getUrn(), item.getStatus(), resource));
+                }
+            }
+            return ResponseEntity.ok(items);
+        });
     }
 
     // Collection mappings
@@ -182,7 +238,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestHeader HttpHeaders headers, @RequestParam MultiValueMap<String, String> queryParams,
             Pageable pageable) throws ModuleException {
         LOGGER.debug("Search on all collections delegated to engine \"{}\"", engineType);
-        return dispatcher.dispatchRequest(SearchContext.build(SearchType.COLLECTIONS, engineType, headers, queryParams,
+        return asyncSearch.dispatch(SearchContext.build(SearchType.COLLECTIONS, engineType, headers, queryParams,
                                                               pageable),
                                           this);
     }
@@ -198,7 +254,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestParam MultiValueMap<String, String> queryParams, Pageable pageable) throws ModuleException {
         LOGGER.debug("Search all collections extra mapping \"{}\" handling delegated to engine \"{}\"", extra,
                      engineType);
-        return dispatcher.dispatchRequest(SearchContext
+        return asyncSearch.dispatch(SearchContext
                 .build(SearchType.COLLECTIONS, engineType, headers, queryParams, pageable).withExtra(extra), this);
     }
 
@@ -214,8 +270,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestParam(SearchEngineMappings.MAX_COUNT) int maxCount) throws ModuleException {
         LOGGER.debug("Search collection property values for \"{}\" delegated to engine \"{}\"", propertyName,
                      engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.COLLECTIONS, engineType, headers, queryParams, null)
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.COLLECTIONS, engineType, headers, queryParams, null)
                         .withPropertyName(propertyName).withMaxCount(maxCount), this);
     }
 
@@ -228,7 +284,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @Valid @PathVariable(SearchEngineMappings.URN) UniformResourceName urn, @RequestHeader HttpHeaders headers)
             throws ModuleException {
         LOGGER.debug("Get collection \"{}\" delegated to engine \"{}\"", urn.toString(), engineType);
-        return dispatcher.dispatchRequest(SearchContext.build(SearchType.COLLECTIONS, engineType, headers, null, null)
+        return asyncSearch.dispatch(SearchContext.build(SearchType.COLLECTIONS, engineType, headers, null, null)
                 .withUrn(urn), this);
     }
 
@@ -243,8 +299,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestHeader HttpHeaders headers, @RequestParam MultiValueMap<String, String> queryParams,
             Pageable pageable) throws ModuleException {
         LOGGER.debug("Search on all datasets delegated to engine \"{}\"", engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATASETS, engineType, headers, queryParams, pageable),
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATASETS, engineType, headers, queryParams, pageable),
                                  this);
     }
 
@@ -257,7 +313,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @PathVariable(SearchEngineMappings.EXTRA) String extra, @RequestHeader HttpHeaders headers,
             @RequestParam MultiValueMap<String, String> queryParams, Pageable pageable) throws ModuleException {
         LOGGER.debug("Search all datasets extra mapping \"{}\" handling delegated to engine \"{}\"", extra, engineType);
-        return dispatcher.dispatchRequest(SearchContext
+        return asyncSearch.dispatch(SearchContext
                 .build(SearchType.DATASETS, engineType, headers, queryParams, pageable).withExtra(extra), this);
     }
 
@@ -272,8 +328,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestParam MultiValueMap<String, String> queryParams,
             @RequestParam(SearchEngineMappings.MAX_COUNT) int maxCount) throws ModuleException {
         LOGGER.debug("Search dataset property values for \"{}\" delegated to engine \"{}\"", propertyName, engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATASETS, engineType, headers, queryParams, null)
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATASETS, engineType, headers, queryParams, null)
                         .withPropertyName(propertyName).withMaxCount(maxCount), this);
     }
 
@@ -286,8 +342,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @Valid @PathVariable(SearchEngineMappings.URN) UniformResourceName urn, @RequestHeader HttpHeaders headers)
             throws ModuleException {
         LOGGER.debug("Get dataset \"{}\" delegated to engine \"{}\"", urn.toString(), engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATASETS, engineType, headers, null, null).withUrn(urn),
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATASETS, engineType, headers, null, null).withUrn(urn),
                                  this);
     }
 
@@ -302,11 +358,41 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestHeader HttpHeaders headers, @RequestParam MultiValueMap<String, String> queryParams,
             Pageable pageable) throws ModuleException {
         LOGGER.debug("Search on all dataobjects delegated to engine \"{}\"", engineType);
-        return dispatcher.dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams,
+        return asyncSearch.dispatch(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams,
                                                               pageable),
                                           this);
     }
 
+    /**
+     * Export all dataobjects matching the search request as a stream of entity features.<br/>
+     * Request is parsed and access rights are resolved once, then the whole result is walked through the index.
+     * Exports are subject to expensive request admission control : the permit is acquired before the response starts
+     * so rejected requests get a proper status, and released once the whole result is written or once the request
+     * completes if the response is never written, e.g. when the streaming executor rejects it.
+     */
+    @RequestMapping(method = RequestMethod.GET, value = SearchEngineMappings.EXPORT_DATAOBJECTS_MAPPING,
+            produces = { SearchEngineMappings.APPLICATION_NDJSON_VALUE,
+                    SearchEngineMappings.APPLICATION_GEO_SEQ_VALUE })
+    @ResourceAccess(description = "Export all dataobjects matching the search request", role = DefaultRole.PUBLIC)
+    public ResponseEntity<StreamingResponseBody> exportDataobjects(
+            @PathVariable(SearchEngineMappings.ENGINE_TYPE) String engineType, @RequestHeader HttpHeaders headers,
+            @RequestParam MultiValueMap<String, String> queryParams) throws ModuleException {
+        LOGGER.debug("Export of dataobjects parsed by engine \"{}\"", engineType);
+        SearchContext context = SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null);
+        SearchWalker<AbstractEntity<?>> walker = exportService.prepare(context);
+        MediaType mediaType = exportService.getMediaType(headers.getAccept());
+        AdmissionPermit permit = streamingSupport
+                .closeOnCompletion(admissionControl.acquire(SearchEndpointClass.EXPENSIVE));
+        streamingSupport.extendTimeout();
+        return ResponseEntity.ok().contentType(mediaType).body(outputStream -> {
+            try {
+                exportService.write(walker, mediaType, outputStream);
+            } finally {
+                permit.close();
+            }
+        });
+    }
+
     /**
      * Extra mapping related to search on all dataobjects request
      */
@@ -318,7 +404,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestParam MultiValueMap<String, String> queryParams, Pageable pageable) throws ModuleException {
         LOGGER.debug("Search all dataobjects extra mapping \"{}\" handling delegated to engine \"{}\"", extra,
                      engineType);
-        return dispatcher.dispatchRequest(SearchContext
+        return asyncSearch.dispatch(SearchContext
                 .build(SearchType.DATAOBJECTS, engineType, headers, queryParams, pageable).withExtra(extra), this);
     }
 
@@ -334,8 +420,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestParam(SearchEngineMappings.MAX_COUNT) int maxCount) throws ModuleException {
         LOGGER.debug("Search dataobject property values for \"{}\" delegated to engine \"{}\"", propertyName,
                      engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
                         .withPropertyName(propertyName).withMaxCount(maxCount), this);
     }
 
@@ -346,8 +432,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @RequestParam(name = SearchEngineMappings.PROPERTY_NAMES) List<String> propertyNames,
             @RequestParam MultiValueMap<String, String> queryParams) throws SearchException, ModuleException {
         LOGGER.debug("Search dataobject properties bounds valuesdelegated to engine \"{}\"", engineType);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
                         .withPropertyNames(propertyNames).withBoundCalculation(), this);
     }
 
@@ -358,11 +444,14 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @PathVariable(SearchEngineMappings.ENGINE_TYPE) String engineType, @RequestHeader HttpHeaders headers,
             @RequestParam MultiValueMap<String, String> queryParams) throws SearchException, ModuleException {
         LOGGER.debug("Get dataobject model common attributes delegated to engine \"{}\"", engineType);
-        ResponseEntity<List<String>> result = dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
-                        .withPropertyName(AttributeHelper.MODEL_ATTRIBUTE).withMaxCount(100), this);
-        Set<AttributeModel> attrs = attributeHelper.getAllCommonAttributes(result.getBody());
-        return ResponseEntity.ok(attrs.stream().map(a -> resourceService.toResource(a)).collect(Collectors.toSet()));
+        return asyncSearch.call(() -> {
+            ResponseEntity<List<String>> result = dispatcher
+                    .dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
+                            .withPropertyName(AttributeHelper.MODEL_ATTRIBUTE).withMaxCount(100), this);
+            Set<AttributeModel> attrs = attributeHelper.getAllCommonAttributes(result.getBody());
+            return ResponseEntity
+                    .ok(attrs.stream().map(a -> resourceService.toResource(a)).collect(Collectors.toSet()));
+        });
     }
 
     /**
@@ -374,7 +463,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @Valid @PathVariable(SearchEngineMappings.URN) UniformResourceName urn, @RequestHeader HttpHeaders headers)
             throws ModuleException {
         LOGGER.debug("Get dataobject \"{}\" delegated to engine \"{}\"", urn.toString(), engineType);
-        return dispatcher.dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, null, null)
+        return asyncSearch.dispatch(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, null, null)
                 .withUrn(urn), this);
     }
 
@@ -394,7 +483,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
         LOGGER.debug("Search dataobjects on dataset \"{}\" delegated to engine \"{}\"", datasetUrn.toString(),
                      engineType);
         UniformResourceName urn = UniformResourceName.fromString(datasetUrn);
-        return dispatcher.dispatchRequest(SearchContext
+        return asyncSearch.dispatch(SearchContext
                 .build(SearchType.DATAOBJECTS, engineType, headers, queryParams, pageable).withDatasetUrn(urn), this);
     }
 
@@ -413,8 +502,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
         LOGGER.debug("Search dataobjects on dataset \"{}\" extra mapping \"{}\" handling delegated to engine \"{}\"",
                      datasetUrn, extra, engineType);
         UniformResourceName urn = UniformResourceName.fromString(datasetUrn);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, pageable)
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, pageable)
                         .withDatasetUrn(urn).withExtra(extra), this);
     }
 
@@ -432,8 +521,8 @@ public class SearchEngineController implements IEntityLinkBuilder {
         LOGGER.debug("Search dataobject property values for \"{}\" on dataset \"{}\" delegated to engine \"{}\"",
                      propertyName, datasetUrn, engineType);
         UniformResourceName urn = UniformResourceName.fromString(datasetUrn);
-        return dispatcher
-                .dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
+        return asyncSearch
+                .dispatch(SearchContext.build(SearchType.DATAOBJECTS, engineType, headers, queryParams, null)
                         .withDatasetUrn(urn).withPropertyName(propertyName).withMaxCount(maxCount), this);
     }
 
@@ -449,7 +538,7 @@ public class SearchEngineController implements IEntityLinkBuilder {
             @PathVariable(SearchEngineMappings.ENGINE_TYPE) String engineType, @RequestHeader HttpHeaders headers,
             @RequestParam MultiValueMap<String, String> queryParams, Pageable pageable) throws ModuleException {
         LOGGER.debug("Search datasets with dataobject criterions delegated to engine \"{}\"", engineType);
-        return dispatcher.dispatchRequest(SearchContext.build(SearchType.DATAOBJECTS_RETURN_DATASETS, engineType,
+        return asyncSearch.dispatch(SearchContext.build(SearchType.DATAOBJECTS_RETURN_DATASETS, engineType,
                                                               headers, queryParams, pageable),
                                           this);
     }
@@ -500,6 +589,24 @@ public class SearchEngineController implements IEntityLinkBuilder {
         return buildPaginationLink(resourceService, newContext, rel);
     }
 
+    /**
+     * Return a contextual cursor link
+     * @return {@link Link}, may be null.
+     */
+    @Override
+    public Link buildCursorLink(IResourceService resourceService, SearchContext context, int pageSize, String cursor,
+            LinkRelation rel) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.putAll(context.getQueryParams());
+        SearchContext newContext = SearchContext.build(context.getSearchType(), context.getEngineType(),
+                                                       context.getHeaders(), params, context.getPageable())
+                .withDatasetUrn(context.getDatasetUrn().orElse(null));
+        newContext.getQueryParams().remove(PAGE_NUMBER);
+        newContext.getQueryParams().put(PAGE_SIZE, Arrays.asList(String.valueOf(pageSize)));
+        newContext.getQueryParams().put(SearchEngineMappings.SEARCH_CURSOR, Arrays.asList(cursor));
+        return buildPaginationLink(resourceService, newContext, rel);
+    }
+
     /**
      * Return a contextual link
      * @return {@link Link}, may be null.
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+/**
+ * Forward client range headers to the next Feign request of the current thread.<br/>
+ * Storage client contract has no range parameter so headers are added by this interceptor, the same way
+ * {@link fr.cnes.regards.framework.feign.security.FeignSecurityManager} handles authentication. Always call
+ * {@link #reset()} once the request is sent.
+ * @author REGARDS Team
+ */
+@Component
+public class StorageRangeForwarder implements RequestInterceptor {
+
+    private static final ThreadLocal<String[]> RANGE_HEADERS = new ThreadLocal<>();
+
+    /**
+     * Forward range headers to next Feign request
+     * @param range Range header value, may be null
+     * @param ifRange If-Range header value, may be null
+     */
+    public static void forward(String range, String ifRange) {
+        if (range != null) {
+            RANGE_HEADERS.set(new String[] { range, ifRange });
+        }
+    }
+
+    public static void reset() {
+        RANGE_HEADERS.remove();
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        String[] headers = RANGE_HEADERS.get();
+        if (headers != null) {
+            template.header(HttpHeaders.RANGE, headers[0]);
+            if (headers[1] != null) {
+                template.header(HttpHeaders.IF_RANGE, headers[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Support for long lived {@link StreamingResponseBody} endpoints : downloads and exports.<br/>
+ * Such endpoints lift the default asynchronous request timeout to <code>regards.catalog.streaming.timeout</code>
+ * milliseconds (one hour by default, zero or less means no timeout) with {@link #extendTimeout()}.<br/>
+ * Resources acquired by the handler and used by the body (admission permits, storage responses) must not only be
+ * closed by the body : it never runs when the streaming executor rejects it or when the request fails before. They are
+ * registered with {@link #closeOnCompletion(AutoCloseable)} so that they are also closed once the asynchronous request
+ * completes, whatever its outcome. Resources must therefore support being closed twice.
+ * @author REGARDS Team
+ */
+@Component
+public class StreamingSupport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingSupport.class);
+
+    private static final String INTERCEPTOR_KEY_PREFIX = StreamingSupport.class.getName() + ".";
+
+    private static final AtomicLong INTERCEPTOR_COUNT = new AtomicLong();
+
+    private final long timeout;
+
+    public StreamingSupport(@Value("${regards.catalog.streaming.timeout:3600000}") long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Apply the streaming timeout to the current request instead of the default asynchronous request timeout
+     */
+    public void extendTimeout() {
+        register(new CallableProcessingInterceptor() {
+
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest) {
+                    // Zero or less means no timeout for servlet containers
+                    ((AsyncWebRequest) request).setTimeout(timeout > 0 ? timeout : -1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Close given resource once the current asynchronous request completes, times out or fails, even if the response
+     * body never runs. Without current request, the resource is only closed by the caller.
+     * @return given resource
+     */
+    public <T extends AutoCloseable> T closeOnCompletion(T resource) {
+        register(new CallableProcessingInterceptor() {
+
+            @Override
+            public <V> void afterCompletion(NativeWebRequest request, Callable<V> task) {
+                try {
+                    resource.close();
+                } catch (Exception e) { // NOSONAR nothing else to do with a resource that cannot be closed
+                    LOGGER.warn("Unable to close streaming resource", e);
+                }
+            }
+        });
+        return resource;
+    }
+
+    private static void register(CallableProcessingInterceptor interceptor) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            WebAsyncUtils.getAsyncManager(request)
+                    .registerCallableInterceptor(INTERCEPTOR_KEY_PREFIX + INTERCEPTOR_COUNT.incrementAndGet(),
+                                                 interceptor);
+        }
+    }
+}
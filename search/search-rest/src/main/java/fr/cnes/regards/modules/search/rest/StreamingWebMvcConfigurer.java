@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Asynchronous request processing used by {@link StreamingResponseBody} and {@link java.util.concurrent.Callable}
+ * handlers of the whole application : file and archive downloads, exports and service results.<br/>
+ * Responses are written by a dedicated bounded thread pool instead of the default unbounded executor. When all
+ * threads are busy and the queue is full, new responses are rejected with a 503 (see {@link SearchControllerAdvice}).
+ * <br/>
+ * The default asynchronous request timeout is left as is, so that a slow reader cannot hold a streaming thread
+ * forever. Downloads and exports lift it for their own request only (see {@link StreamingSupport#extendTimeout()}).
+ * Clients aborting a download release their thread at the next write. Asynchronous searches are not affected, they
+ * have their own timeout (see {@link AsyncSearchHandler}).
+ * @author REGARDS Team
+ */
+@Configuration
+public class StreamingWebMvcConfigurer implements WebMvcConfigurer {
+
+    /**
+     * Not a bean so that it does not replace the application default task executor
+     */
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public StreamingWebMvcConfigurer(@Value("${regards.catalog.streaming.pool.size:50}") int poolSize,
+            @Value("${regards.catalog.streaming.queue.capacity:100}") int queueCapacity) {
+        executor.setThreadNamePrefix("streaming-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+    }
+}
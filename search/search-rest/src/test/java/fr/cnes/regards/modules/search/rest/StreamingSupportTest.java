@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * Unit test for {@link StreamingSupport}
+ * @author REGARDS Team
+ */
+public class StreamingSupportTest {
+
+    private static final long TIMEOUT = 1_000;
+
+    private final StreamingSupport streamingSupport = new StreamingSupport(TIMEOUT);
+
+    private MockHttpServletRequest request;
+
+    private WebAsyncManager asyncManager;
+
+    @Before
+    public void setUp() {
+        request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Response body never runs when the streaming executor is saturated, resource is closed once the request completes
+     */
+    @Test
+    public void closeWhenStreamingIsRejected() throws Exception {
+        AsyncTaskExecutor executor = Mockito.mock(AsyncTaskExecutor.class);
+        Mockito.when(executor.submit(Mockito.any(Runnable.class))).thenThrow(new TaskRejectedException("full"));
+        Mockito.when(executor.submit(Mockito.any(Callable.class))).thenThrow(new TaskRejectedException("full"));
+        asyncManager.setTaskExecutor(executor);
+        AtomicInteger closed = new AtomicInteger();
+        AutoCloseable resource = closed::incrementAndGet;
+        Assert.assertSame(resource, streamingSupport.closeOnCompletion(resource));
+
+        try {
+            asyncManager.startCallableProcessing(() -> null);
+            Assert.fail("Streaming should be rejected");
+        } catch (TaskRejectedException e) {
+            // Expected
+        }
+        Assert.assertEquals(0, closed.get());
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        Assert.assertEquals(1, closed.get());
+    }
+
+    /**
+     * Resource is also closed once the request completes normally
+     */
+    @Test
+    public void closeWhenStreamingCompletes() throws Exception {
+        asyncManager.setTaskExecutor(new ConcurrentTaskExecutor(Runnable::run));
+        AtomicInteger closed = new AtomicInteger();
+        AutoCloseable resource = closed::incrementAndGet;
+        Assert.assertSame(resource, streamingSupport.closeOnCompletion(resource));
+        asyncManager.startCallableProcessing(() -> null);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        Assert.assertEquals(1, closed.get());
+    }
+
+    /**
+     * Streaming timeout only applies to requests extending it
+     */
+    @Test
+    public void extendTimeout() throws Exception {
+        asyncManager.setTaskExecutor(new ConcurrentTaskExecutor(Runnable::run));
+        streamingSupport.extendTimeout();
+        asyncManager.startCallableProcessing(() -> null);
+        Assert.assertEquals(TIMEOUT, request.getAsyncContext().getTimeout());
+    }
+}
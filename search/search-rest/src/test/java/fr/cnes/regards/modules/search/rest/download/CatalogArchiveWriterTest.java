@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest.download;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import feign.Request;
+import feign.Request.Body;
+import feign.Response;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.urn.DataType;
+import fr.cnes.regards.framework.urn.EntityType;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.indexer.domain.DataFile;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.model.domain.Model;
+import fr.cnes.regards.modules.search.rest.CatalogArchiveFormat;
+import fr.cnes.regards.modules.search.rest.CatalogArchiveWriter;
+import fr.cnes.regards.modules.search.service.SearchWalker;
+import fr.cnes.regards.modules.storage.client.IStorageRestClient;
+
+/**
+ * Unit test for {@link CatalogArchiveWriter}
+ * @author REGARDS Team
+ */
+public class CatalogArchiveWriterTest {
+
+    private static final String TENANT = "archive";
+
+    @Test
+    public void writeZipWithManifest() throws IOException {
+        IStorageRestClient storageClient = Mockito.mock(IStorageRestClient.class);
+        Mockito.when(storageClient.downloadFile("checksumOk")).thenReturn(response(HttpStatus.OK, "content"));
+        Mockito.when(storageClient.downloadFile("checksumKo")).thenReturn(response(HttpStatus.NOT_FOUND, null));
+
+        Model model = Model.build("model", "model", EntityType.DATA);
+        DataObject first = new DataObject(model, TENANT, "DO1", "DO1");
+        first.getFiles().put(DataType.RAWDATA, rawdata("file.nc", "checksumOk", 7L));
+        DataObject second = new DataObject(model, TENANT, "DO2", "DO2");
+        second.getFiles().put(DataType.RAWDATA, rawdata("file.nc", "checksumKo", 10L));
+        SearchWalker<DataObject> walker = new SearchWalker<>(Mockito.mock(IRuntimeTenantResolver.class),
+                ICriterion.all(), Sort.unsorted(), 10,
+                (criterion, pageable) -> new PageImpl<>(Arrays.asList(first, second), pageable, 2));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int archived = new CatalogArchiveWriter(storageClient, CatalogArchiveFormat.ZIP, "user", 4, 10)
+                .write(walker, output);
+
+        Assert.assertEquals(1, archived);
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), StreamUtils.copyToString(zip, StandardCharsets.UTF_8));
+            }
+        }
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals("content", entries.get("DO1/file.nc"));
+        String manifest = entries.get(CatalogArchiveWriter.MANIFEST);
+        Assert.assertTrue(manifest, manifest.contains("Failures : 1"));
+        Assert.assertTrue(manifest, manifest.contains("DO2/file.nc : storage responded with status 404"));
+    }
+
+    private static DataFile rawdata(String filename, String checksum, Long size) {
+        DataFile file = DataFile.build(DataType.RAWDATA, filename, "http://regards/" + filename,
+                                       MediaType.APPLICATION_OCTET_STREAM, Boolean.TRUE, Boolean.FALSE);
+        file.setChecksum(checksum);
+        file.setFilesize(size);
+        return file;
+    }
+
+    private static Response response(HttpStatus status, String body) {
+        Request request = Request.create(Request.HttpMethod.GET, "test", new HashMap<>(), Body.empty());
+        Response.Builder builder = Response.builder().status(status.value()).request(request)
+                .headers(new HashMap<>());
+        if (body != null) {
+            builder.body(body, StandardCharsets.UTF_8);
+        }
+        return builder.build();
+    }
+}
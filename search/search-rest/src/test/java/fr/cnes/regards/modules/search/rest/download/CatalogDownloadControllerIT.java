@@ -18,15 +18,23 @@
  */
 package fr.cnes.regards.modules.search.rest.download;
 
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.test.integration.AbstractRegardsTransactionalIT;
+import fr.cnes.regards.framework.test.integration.RequestBuilderCustomizer;
 import fr.cnes.regards.modules.indexer.dao.IEsRepository;
 
 /**
@@ -47,6 +55,9 @@ public class CatalogDownloadControllerIT extends AbstractRegardsTransactionalIT
     @Autowired
     protected IEsRepository esRepository;
 
+    @Autowired
+    private IStorageRestClientMock storageRestClient;
+
     @Before
     public void prepareData() throws ModuleException, InterruptedException {
         initIndex(getDefaultTenant());
@@ -69,6 +80,27 @@ public class CatalogDownloadControllerIT extends AbstractRegardsTransactionalIT
         performDefaultGet(DOWNLOAD_AIP_FILE, customizer().expectStatusOk(), "Error message", AIP_ID_OK, "checksumOk");
     }
 
+    @Test()
+    public void restDownloadFilePartial() {
+        RequestBuilderCustomizer customizer = customizer();
+        customizer.addHeader(HttpHeaders.RANGE, "bytes=0-5");
+        customizer.expect(MockMvcResultMatchers.status().is(HttpStatus.PARTIAL_CONTENT.value()));
+        customizer.expect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-5/19"));
+        performDefaultGet(DOWNLOAD_AIP_FILE, customizer, "Error message", AIP_ID_OK, "checksumPartial");
+        // Client range must reach storage
+        Assert.assertEquals(Collections.singletonList("bytes=0-5"),
+                            new ArrayList<>(storageRestClient.getLastDownloadHeaders().get(HttpHeaders.RANGE)));
+        Assert.assertFalse(storageRestClient.getLastDownloadHeaders().containsKey(HttpHeaders.IF_RANGE));
+    }
+
+    @Test()
+    public void restDownloadFileWithoutRange() {
+        performDefaultGet(DOWNLOAD_AIP_FILE, customizer().expectStatusOk(), "Error message", AIP_ID_OK,
+                          "checksumPartial");
+        // Range of a previous request must not leak
+        Assert.assertFalse(storageRestClient.getLastDownloadHeaders().containsKey(HttpHeaders.RANGE));
+    }
+
     @Test()
     public void restDownloadFileNotFound() {
         performDefaultGet(DOWNLOAD_AIP_FILE, customizer().expectStatusNotFound(), "Error message", AIP_ID_OK,
@@ -2,7 +2,9 @@ package fr.cnes.regards.modules.search.rest.download;
 
 import feign.Request;
 import feign.Request.Body;
+import feign.RequestTemplate;
 import feign.Response;
+import fr.cnes.regards.modules.search.rest.StorageRangeForwarder;
 import fr.cnes.regards.modules.storage.client.FileReferenceEventDTO;
 import fr.cnes.regards.modules.storage.client.FileReferenceUpdateDTO;
 import fr.cnes.regards.modules.storage.client.IStorageFileListener;
@@ -13,6 +15,7 @@ import fr.cnes.regards.modules.storage.domain.dto.StorageLocationDTO;
 import fr.cnes.regards.modules.storage.domain.dto.quota.DownloadQuotaLimitsDto;
 import org.springframework.context.annotation.Primary;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,7 @@ import org.springframework.stereotype.Service;
 import javax.validation.Valid;
 import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +32,15 @@ import java.util.Map;
 @Service
 public class IStorageRestClientMock implements IStorageRestClient, IStorageFileListener {
 
+    /**
+     * Headers the Feign interceptors would have added to the last download request
+     */
+    private Map<String, Collection<String>> lastDownloadHeaders = Collections.emptyMap();
+
+    public Map<String, Collection<String>> getLastDownloadHeaders() {
+        return lastDownloadHeaders;
+    }
+
     @Override
     public void onFileStored(List<FileReferenceEventDTO> stored) {
 
@@ -60,9 +73,19 @@ public class IStorageRestClientMock implements IStorageRestClient, IStorageFileL
 
     @Override
     public Response downloadFile(String checksum) {
+        // Mock is not a Feign client, run the range interceptor as Feign would
+        RequestTemplate template = new RequestTemplate();
+        new StorageRangeForwarder().apply(template);
+        lastDownloadHeaders = template.headers();
         Map<String, Collection<String>> map = new HashMap<>();
         Request request = Request.create(Request.HttpMethod.GET, "test", map, Body.empty());
-        if (!"checksumOk".equals(checksum)) {
+        if ("checksumPartial".equals(checksum) && lastDownloadHeaders.containsKey(HttpHeaders.RANGE)) {
+            Map<String, Collection<String>> partialHeaders = new HashMap<>();
+            partialHeaders.put(HttpHeaders.CONTENT_RANGE, Collections.singletonList("bytes 0-5/19"));
+            return Response.builder().status(HttpStatus.PARTIAL_CONTENT.value())
+                    .body("result", Charset.defaultCharset()).request(request).headers(partialHeaders).build();
+        }
+        if (!"checksumOk".equals(checksum) && !"checksumPartial".equals(checksum)) {
             return Response.builder().status(HttpStatus.NOT_FOUND.value()).reason("not found").request(request)
                     .headers(map).build();
         }
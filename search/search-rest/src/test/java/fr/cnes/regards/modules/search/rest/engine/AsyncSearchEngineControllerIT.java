@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest.engine;
+
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.framework.test.integration.RequestBuilderCustomizer;
+import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
+
+/**
+ * Search engine tests with asynchronous search enabled : response is written in an asynchronous dispatch once the
+ * search executor has run the engine and built HATEOAS links.
+ * @author REGARDS Team
+ */
+@TestPropertySource(locations = { "classpath:test.properties" },
+        properties = { "regards.tenant=async", "spring.jpa.properties.hibernate.default_schema=async",
+                "regards.catalog.search.async.enabled=true" })
+@MultitenantTransactional
+@AutoConfigureMockMvc(printOnlyOnFailure = true)
+public class AsyncSearchEngineControllerIT extends AbstractEngineIT {
+
+    private static final String ENGINE_TYPE = "legacy";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    public void searchDataobjectsAsync() throws Exception {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.expect(MockMvcResultMatchers.request().asyncStarted());
+        MvcResult started = performDefaultGet(SearchEngineMappings.TYPE_MAPPING
+                + SearchEngineMappings.SEARCH_DATAOBJECTS_MAPPING, customizer, "Async search error", ENGINE_TYPE)
+                        .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content", Matchers.not(Matchers.empty())))
+                // Links are built on the search executor from the request snapshot
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links", Matchers.not(Matchers.empty())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links[0].href",
+                                                          Matchers.containsString("/dataobjects/search")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].links", Matchers.not(Matchers.empty())));
+    }
+
+    @Test
+    public void searchDatasetsAsync() throws Exception {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.expect(MockMvcResultMatchers.request().asyncStarted());
+        MvcResult started = performDefaultGet(SearchEngineMappings.TYPE_MAPPING
+                + SearchEngineMappings.SEARCH_DATASETS_MAPPING, customizer, "Async dataset search error", ENGINE_TYPE)
+                        .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(started))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content", Matchers.not(Matchers.empty())));
+    }
+}
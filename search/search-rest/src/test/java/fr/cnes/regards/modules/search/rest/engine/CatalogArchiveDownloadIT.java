@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.StreamUtils;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.framework.urn.DataType;
+import fr.cnes.regards.modules.dam.client.dataaccess.IUserClient;
+import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.AccessGroup;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.indexer.domain.DataFile;
+import fr.cnes.regards.modules.model.domain.Model;
+import fr.cnes.regards.modules.search.domain.ArchiveDownloadRequest;
+import fr.cnes.regards.modules.search.rest.CatalogArchiveWriter;
+import fr.cnes.regards.modules.search.rest.CatalogDownloadController;
+
+/**
+ * Archive download tests : only raw data files the user has data access to are archived
+ * @author REGARDS Team
+ */
+@TestPropertySource(locations = { "classpath:test.properties" },
+        properties = { "regards.tenant=archive", "spring.jpa.properties.hibernate.default_schema=archive" })
+@MultitenantTransactional
+public class CatalogArchiveDownloadIT extends AbstractEngineIT {
+
+    private static final String ACCESS_GROUP = "GRANTED";
+
+    private static final String OTHER_GROUP = "OTHER";
+
+    private static final String GRANTED = "archive_granted";
+
+    private static final String NO_DATA_ACCESS = "archive_no_data_access";
+
+    private static final String HIDDEN = "archive_hidden";
+
+    @Autowired
+    protected IUserClient userClient;
+
+    @Override
+    protected void manageAccessRights() {
+        Mockito.reset(projectUserClientMock);
+        // Do not bypass access rights
+        Mockito.when(projectUserClientMock.isAdmin(Mockito.anyString())).thenReturn(ResponseEntity.ok(Boolean.FALSE));
+
+        // Mock user groups
+        Collection<EntityModel<AccessGroup>> ags = new ArrayList<>();
+        ags.add(new EntityModel<AccessGroup>(new AccessGroup(ACCESS_GROUP)));
+        PagedModel.PageMetadata md = new PagedModel.PageMetadata(0, 0, 0);
+        PagedModel<EntityModel<AccessGroup>> pagedResources = new PagedModel<>(ags, md, new ArrayList<>());
+        Mockito.when(userClient.retrieveAccessGroupsOfUser(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(ResponseEntity.ok(pagedResources));
+    }
+
+    @Override
+    protected Set<String> getAccessGroups() {
+        return new HashSet<>(Arrays.asList(ACCESS_GROUP));
+    }
+
+    @Override
+    protected List<DataObject> createTestData(Model model) {
+        List<DataObject> datas = super.createTestData(model);
+        datas.add(createArchivedData(model, GRANTED, ACCESS_GROUP, true));
+        datas.add(createArchivedData(model, NO_DATA_ACCESS, ACCESS_GROUP, false));
+        datas.add(createArchivedData(model, HIDDEN, OTHER_GROUP, true));
+        return datas;
+    }
+
+    private DataObject createArchivedData(Model model, String label, String group, boolean dataAccess) {
+        DataObject data = createEntity(model, label);
+        data.setGroups(new HashSet<>(Arrays.asList(group)));
+        data.getMetadata().addGroup(group, "datasetid", dataAccess);
+        data.setCreationDate(OffsetDateTime.now());
+        DataFile rawdata = DataFile.build(DataType.RAWDATA, label + ".nc", "http://regards/" + label + ".nc",
+                                          MediaType.APPLICATION_OCTET_STREAM, Boolean.TRUE, Boolean.FALSE);
+        // Known by storage mock
+        rawdata.setChecksum("checksumOk");
+        rawdata.setFilesize(19L);
+        data.getFiles().put(rawdata.getDataType(), rawdata);
+        return data;
+    }
+
+    @Test
+    public void downloadArchive() throws IOException {
+        ArchiveDownloadRequest request = new ArchiveDownloadRequest();
+        List<String> urns = new ArrayList<>();
+        for (String label : Arrays.asList(GRANTED, NO_DATA_ACCESS, HIDDEN)) {
+            urns.add(this.<DataObject> getAstroObject(label).getIpId().toString());
+        }
+        request.setUrns(urns);
+
+        MvcResult result = performDefaultPost(CatalogDownloadController.PATH_DOWNLOAD
+                + CatalogDownloadController.DOWNLOAD_ARCHIVE, request, customizer().expectStatusOk(),
+                                              "Archive download error").andReturn();
+        // Wait for the whole archive to be streamed
+        result.getAsyncResult();
+
+        List<String> entries = new ArrayList<>();
+        String manifest = null;
+        try (ZipInputStream zip = new ZipInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                if (CatalogArchiveWriter.MANIFEST.equals(entry.getName())) {
+                    manifest = StreamUtils.copyToString(zip, StandardCharsets.UTF_8);
+                }
+            }
+        }
+        // Neither data without data access nor data hidden to the user are archived
+        Assert.assertEquals(Arrays.asList(GRANTED + "/" + GRANTED + ".nc", CatalogArchiveWriter.MANIFEST), entries);
+        Assert.assertNotNull(manifest);
+        Assert.assertTrue(manifest, manifest.contains("Archived files : 1"));
+        Assert.assertTrue(manifest, manifest.contains("Failures : 0"));
+    }
+}
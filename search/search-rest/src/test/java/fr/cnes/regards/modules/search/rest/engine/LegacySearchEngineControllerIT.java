@@ -18,6 +18,7 @@
  */
 package fr.cnes.regards.modules.search.rest.engine;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.hamcrest.Matchers;
@@ -38,7 +39,9 @@ import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransa
 import fr.cnes.regards.framework.test.integration.RequestBuilderCustomizer;
 import fr.cnes.regards.modules.dam.domain.entities.Dataset;
 import fr.cnes.regards.modules.dam.domain.entities.StaticProperties;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
 import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHitsPolicy;
 
 /**
  * Search engine tests
@@ -91,6 +94,53 @@ public class LegacySearchEngineControllerIT extends AbstractEngineIT {
                           "Search all error", ENGINE_TYPE);
     }
 
+    @Test
+    public void searchDataobjectsCompact() {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.headers().setAccept(Arrays.asList(SearchEngineMappings.APPLICATION_JSON_COMPACT));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.content", Matchers.not(Matchers.empty())));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.content[0].providerId").exists());
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.metadata.totalElements").exists());
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.links").doesNotExist());
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.content[0].links").doesNotExist());
+        performDefaultGet(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.SEARCH_DATAOBJECTS_MAPPING,
+                          customizer, "Compact search error", ENGINE_TYPE);
+    }
+
+    @Test
+    public void searchDataobjectsWithoutTotalHits() {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.headers().setAccept(Arrays.asList(SearchEngineMappings.APPLICATION_JSON_COMPACT));
+        customizer.addParameter(SearchEngineMappings.TOTAL_HITS, TotalHitsPolicy.NONE_VALUE);
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.content", Matchers.not(Matchers.empty())));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.totalHitsRelation", Matchers.equalTo("NONE")));
+        performDefaultGet(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.SEARCH_DATAOBJECTS_MAPPING,
+                          customizer, "Search without total hits error", ENGINE_TYPE);
+    }
+
+    @Test
+    public void searchDataobjectsWithInvalidTotalHits() {
+        RequestBuilderCustomizer customizer = customizer().expectStatusBadRequest();
+        customizer.addParameter(SearchEngineMappings.TOTAL_HITS, "-1");
+        performDefaultGet(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.SEARCH_DATAOBJECTS_MAPPING,
+                          customizer, "Search with invalid total hits error", ENGINE_TYPE);
+    }
+
+    @Test
+    public void getEntitiesBatch() {
+        String missing = "URN:AIP:DATA:legacy:b4cf92ae-d2dd-3ec4-9a5e-7bd7ff1f4234:V1";
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.length()", Matchers.equalTo(3)));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.equalTo("OK")));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$[0].entity.content.id",
+                                                         Matchers.equalTo(solarSystem.getIpId().toString())));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$[1].status", Matchers.equalTo("INVALID")));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$[2].status", Matchers.equalTo("NOT_FOUND")));
+        performDefaultPost(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.GET_ENTITIES_BATCH_MAPPING,
+                           Arrays.asList(solarSystem.getIpId().toString(), "invalid", missing), customizer,
+                           "Batch retrieval error", ENGINE_TYPE);
+    }
+
     @Test
     public void searchCollections() {
         RequestBuilderCustomizer customizer = customizer().expectStatusOk();
@@ -164,6 +214,25 @@ public class LegacySearchEngineControllerIT extends AbstractEngineIT {
                           customizer, "Search all error", ENGINE_TYPE);
     }
 
+    @Test
+    public void searchDataobjectsWithCursor() {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.content.length()", Matchers.equalTo(2)));
+        customizer.expect(MockMvcResultMatchers.jsonPath("$.links[?(@.rel=='next')]", Matchers.hasSize(1)));
+        customizer.addParameter(SearchEngineMappings.SEARCH_CURSOR, SearchCursor.START);
+        customizer.addParameter("size", "2");
+        performDefaultGet(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.SEARCH_DATAOBJECTS_MAPPING,
+                          customizer, "Search with cursor error", ENGINE_TYPE);
+    }
+
+    @Test
+    public void searchDataobjectsWithInvalidCursor() {
+        RequestBuilderCustomizer customizer = customizer().expectStatusBadRequest();
+        customizer.addParameter(SearchEngineMappings.SEARCH_CURSOR, "invalid");
+        performDefaultGet(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.SEARCH_DATAOBJECTS_MAPPING,
+                          customizer, "Search with invalid cursor error", ENGINE_TYPE);
+    }
+
     @Test
     public void searchDataobjectsAttributes() {
         RequestBuilderCustomizer customizer = customizer().expectStatusOk();
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.rest.engine;
+
+import java.io.UnsupportedEncodingException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.framework.test.integration.RequestBuilderCustomizer;
+import fr.cnes.regards.modules.dam.client.dataaccess.IUserClient;
+import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.AccessGroup;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.model.domain.Model;
+import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
+
+/**
+ * Data object export tests : framing, content negotiation and access rights
+ * @author REGARDS Team
+ */
+@TestPropertySource(locations = { "classpath:test.properties" },
+        properties = { "regards.tenant=export", "spring.jpa.properties.hibernate.default_schema=export" })
+@MultitenantTransactional
+public class SearchExportIT extends AbstractEngineIT {
+
+    private static final String ENGINE_TYPE = "legacy";
+
+    private static final String ACCESS_GROUP = "GRANTED";
+
+    private static final String OTHER_GROUP = "OTHER";
+
+    private static final String HIDDEN = "export_hidden";
+
+    private static final char RECORD_SEPARATOR = '\u001E';
+
+    @Autowired
+    protected IUserClient userClient;
+
+    @Override
+    protected void manageAccessRights() {
+        Mockito.reset(projectUserClientMock);
+        // Do not bypass access rights
+        Mockito.when(projectUserClientMock.isAdmin(Mockito.anyString())).thenReturn(ResponseEntity.ok(Boolean.FALSE));
+
+        // Mock user groups
+        Collection<EntityModel<AccessGroup>> ags = new ArrayList<>();
+        ags.add(new EntityModel<AccessGroup>(new AccessGroup(ACCESS_GROUP)));
+        PagedModel.PageMetadata md = new PagedModel.PageMetadata(0, 0, 0);
+        PagedModel<EntityModel<AccessGroup>> pagedResources = new PagedModel<>(ags, md, new ArrayList<>());
+        Mockito.when(userClient.retrieveAccessGroupsOfUser(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(ResponseEntity.ok(pagedResources));
+    }
+
+    @Override
+    protected Set<String> getAccessGroups() {
+        return new HashSet<>(Arrays.asList(ACCESS_GROUP));
+    }
+
+    @Override
+    protected List<DataObject> createTestData(Model model) {
+        List<DataObject> datas = super.createTestData(model);
+        DataObject hidden = createEntity(model, HIDDEN);
+        hidden.setGroups(new HashSet<>(Arrays.asList(OTHER_GROUP)));
+        hidden.setCreationDate(OffsetDateTime.now());
+        datas.add(hidden);
+        return datas;
+    }
+
+    /**
+     * Export all data objects with the given Accept header
+     * @return exported records
+     */
+    private List<String> export(RequestBuilderCustomizer customizer, MediaType expectedMediaType)
+            throws UnsupportedEncodingException {
+        customizer.expect(MockMvcResultMatchers.content().contentTypeCompatibleWith(expectedMediaType));
+        MvcResult result = performDefaultGet(SearchEngineMappings.TYPE_MAPPING
+                + SearchEngineMappings.EXPORT_DATAOBJECTS_MAPPING, customizer, "Export error", ENGINE_TYPE)
+                        .andReturn();
+        // Wait for the whole export to be streamed
+        result.getAsyncResult();
+        String content = result.getResponse().getContentAsString();
+        Assert.assertTrue("Each record must end with a line feed", content.endsWith("\n"));
+        return Arrays.asList(content.split("\n"));
+    }
+
+    private void assertVisibleRecords(List<String> records) {
+        Assert.assertTrue(records.stream().anyMatch(r -> r.contains("\"data_one\"")));
+        Assert.assertTrue(records.stream().anyMatch(r -> r.contains(protect(MERCURY))));
+        // Data objects the user has no access to are not exported
+        Assert.assertFalse(records.stream().anyMatch(r -> r.contains(protect(HIDDEN))));
+    }
+
+    @Test
+    public void exportNdjson() throws UnsupportedEncodingException {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.headers().setAccept(Arrays.asList(SearchEngineMappings.APPLICATION_NDJSON));
+        List<String> records = export(customizer, SearchEngineMappings.APPLICATION_NDJSON);
+        for (String record : records) {
+            Assert.assertTrue(record, record.startsWith("{"));
+        }
+        assertVisibleRecords(records);
+    }
+
+    @Test
+    public void exportGeoJsonSequence() throws UnsupportedEncodingException {
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.headers().setAccept(Arrays.asList(SearchEngineMappings.APPLICATION_GEO_SEQ));
+        List<String> records = export(customizer, SearchEngineMappings.APPLICATION_GEO_SEQ);
+        // RFC 8142 : each record is prefixed with a record separator
+        for (String record : records) {
+            Assert.assertEquals(record, RECORD_SEPARATOR, record.charAt(0));
+            Assert.assertEquals(record, '{', record.charAt(1));
+        }
+        assertVisibleRecords(records);
+    }
+
+    @Test
+    public void exportNegotiation() throws UnsupportedEncodingException {
+        // Any media type falls back to NDJSON
+        RequestBuilderCustomizer customizer = customizer().expectStatusOk();
+        customizer.headers().setAccept(Arrays.asList(MediaType.ALL));
+        export(customizer, SearchEngineMappings.APPLICATION_NDJSON);
+
+        // First supported media type wins
+        customizer = customizer().expectStatusOk();
+        customizer.headers().setAccept(Arrays.asList(SearchEngineMappings.APPLICATION_GEO_SEQ,
+                                                     SearchEngineMappings.APPLICATION_NDJSON));
+        export(customizer, SearchEngineMappings.APPLICATION_GEO_SEQ);
+
+        // No other representation
+        customizer = customizer().expect(MockMvcResultMatchers.status().isNotAcceptable());
+        customizer.headers().setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+        performDefaultGet(SearchEngineMappings.TYPE_MAPPING + SearchEngineMappings.EXPORT_DATAOBJECTS_MAPPING,
+                          customizer, "Export should not be acceptable", ENGINE_TYPE);
+    }
+}
@@ -36,6 +36,8 @@ import fr.cnes.regards.modules.indexer.dao.FacetPage;
 import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
 import fr.cnes.regards.modules.indexer.domain.summary.DocFilesSummary;
 import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
+import fr.cnes.regards.modules.search.domain.EntityBatchItem;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 
 /**
@@ -52,20 +54,54 @@ public class BusinessSearchService implements IBusinessSearchService {
     @Autowired
     protected ICatalogSearchService searchService;
 
-    @SuppressWarnings("unchecked")
     @Override
     public <F extends EntityFeature> FacetPage<F> search(ICriterion criterion, SearchType searchType,
             List<String> facets, Pageable pageable) throws SearchException, OpenSearchUnknownParameter {
         FacetPage<AbstractEntity<?>> facetPage = searchService.search(criterion, searchType, facets, pageable);
+        return toFeaturePage(facetPage);
+    }
+
+    @Override
+    public <F extends EntityFeature> FacetPage<F> search(ICriterion criterion, SearchType searchType,
+            List<String> facets, Pageable pageable, boolean cacheable)
+            throws SearchException, OpenSearchUnknownParameter {
+        FacetPage<AbstractEntity<?>> facetPage = searchService.search(criterion, searchType, facets, pageable,
+                                                                      cacheable);
+        return toFeaturePage(facetPage);
+    }
+
+    @Override
+    public <F extends EntityFeature> CursorFacetPage<F> search(ICriterion criterion, SearchType searchType,
+            List<String> facets, String cursorToken, int pageSize) throws SearchException, OpenSearchUnknownParameter {
+        SearchCursor cursor;
+        try {
+            cursor = SearchCursor.parse(cursorToken, pageSize);
+        } catch (IllegalArgumentException e) {
+            SearchException invalidCursor = new SearchException(e.getMessage());
+            invalidCursor.initCause(e);
+            throw invalidCursor;
+        }
+        // Facets are only relevant on the whole result set, i.e. when the cursor is opened.
+        // Cursor criterion holds its snapshot date so caching it would only evict reusable entries.
+        FacetPage<AbstractEntity<?>> facetPage = searchService.searchUncached(cursor.restrict(criterion), searchType,
+                                                                              cursor.isFirst() ? facets : null,
+                                                                              cursor.toPageable());
+
+        // Compute next cursor from the last entity sort values
+        SearchCursor nextCursor = cursor.next(facetPage).orElse(null);
+        return new CursorFacetPage<>(toFeaturePage(facetPage), cursor, nextCursor);
+    }
 
-        // Extract feature(s) from entity(ies)
+    /**
+     * Extract feature(s) from entity(ies)
+     */
+    @SuppressWarnings("unchecked")
+    private <F extends EntityFeature> FacetPage<F> toFeaturePage(FacetPage<AbstractEntity<?>> facetPage) {
         List<F> features = new ArrayList<>();
         facetPage.getContent().forEach(entity -> features.add((F) entity.getFeature()));
 
         // Build facet page with features
-        FacetPage<F> featureFacetPage = new FacetPage<>(features, facetPage.getFacets(), facetPage.getPageable(),
-                facetPage.getTotalElements());
-        return featureFacetPage;
+        return new FacetPage<>(features, facetPage.getFacets(), facetPage.getPageable(), facetPage.getTotalElements());
     }
 
     @Override
@@ -75,6 +111,17 @@ public class BusinessSearchService implements IBusinessSearchService {
         return entity.getFeature();
     }
 
+    @Override
+    public <F extends EntityFeature> List<EntityBatchItem<F>> getBatch(List<String> urns) throws SearchException {
+        List<EntityBatchItem<AbstractEntity<F>>> entities = searchService.getBatch(urns);
+        List<EntityBatchItem<F>> features = new ArrayList<>(entities.size());
+        for (EntityBatchItem<AbstractEntity<F>> item : entities) {
+            features.add(new EntityBatchItem<>(item.getUrn(), item.getStatus(),
+                    item.getEntity() == null ? null : item.getEntity().getFeature()));
+        }
+        return features;
+    }
+
     @Override
     public DocFilesSummary computeDatasetsSummary(ICriterion criterion, SearchType searchType,
             UniformResourceName dataset, List<DataType> dataTypes) throws SearchException {
@@ -82,6 +129,12 @@ public class BusinessSearchService implements IBusinessSearchService {
         return searchService.computeDatasetsSummary(criterion, searchType, dataset, dataTypes);
     }
 
+    @Override
+    public DocFilesSummary computeDatasetsSummary(UniformResourceName selection, UniformResourceName dataset,
+            List<DataType> dataTypes) throws SearchException {
+        return searchService.computeDatasetsSummary(selection, dataset, dataTypes);
+    }
+
     @Override
     public List<String> retrieveEnumeratedPropertyValues(ICriterion criterion, SearchType searchType,
             String propertyPath, int maxCount, String partialText) throws SearchException, OpenSearchUnknownParameter {
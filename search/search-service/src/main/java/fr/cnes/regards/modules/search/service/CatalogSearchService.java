@@ -22,7 +22,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -37,12 +39,15 @@ import org.elasticsearch.search.aggregations.metrics.stats.StatsAggregationBuild
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -51,6 +56,7 @@ import com.google.common.reflect.TypeToken;
 import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.urn.DataType;
 import fr.cnes.regards.framework.urn.EntityType;
 import fr.cnes.regards.framework.urn.UniformResourceName;
@@ -76,10 +82,24 @@ import fr.cnes.regards.modules.model.domain.attributes.AttributeModel;
 import fr.cnes.regards.modules.opensearch.service.IOpenSearchService;
 import fr.cnes.regards.modules.opensearch.service.cache.attributemodel.IAttributeFinder;
 import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
+import fr.cnes.regards.modules.search.domain.EntityBatchItem;
 import fr.cnes.regards.modules.search.domain.PropertyBound;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 import fr.cnes.regards.modules.search.service.accessright.AccessRightFilterException;
 import fr.cnes.regards.modules.search.service.accessright.IAccessRightFilter;
+import fr.cnes.regards.modules.search.service.cache.facet.IFacetCache;
+import fr.cnes.regards.modules.search.service.cache.propertybounds.IPropertyBoundsCache;
+import fr.cnes.regards.modules.search.service.cache.propertybounds.PropertyBoundsCacheKey;
+import fr.cnes.regards.modules.search.service.cache.propertyvalues.IPropertyValuesCache;
+import fr.cnes.regards.modules.search.service.cache.propertyvalues.PropertyValuesCacheKey;
+import fr.cnes.regards.modules.search.service.cache.propertyvalues.PropertyValuesDictionary;
+import fr.cnes.regards.modules.search.service.cache.searchresult.FacetPages;
+import fr.cnes.regards.modules.search.service.cache.searchresult.ISearchResultCache;
+import fr.cnes.regards.modules.search.service.cache.searchresult.SearchCoalescer;
+import fr.cnes.regards.modules.search.service.cache.searchresult.SearchResultCacheKey;
+import fr.cnes.regards.modules.search.service.cache.summary.DatasetSummaryCacheKey;
+import fr.cnes.regards.modules.search.service.cache.summary.IDatasetSummaryCache;
 
 /**
  * Implementation of {@link ICatalogSearchService}
@@ -119,6 +139,33 @@ public class CatalogSearchService implements ICatalogSearchService {
     @Autowired
     private IAttributeFinder finder;
 
+    @Autowired
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
+    @Autowired
+    private ISearchResultCache searchResultCache;
+
+    @Autowired
+    private SearchCoalescer searchCoalescer;
+
+    @Autowired
+    private IFacetCache facetCache;
+
+    @Autowired
+    private IPropertyValuesCache propertyValuesCache;
+
+    @Autowired
+    private IPropertyBoundsCache propertyBoundsCache;
+
+    @Autowired
+    private IDatasetSummaryCache datasetSummaryCache;
+
+    /**
+     * Maximum number of entities retrieved with one multi-get request
+     */
+    @Value("${regards.catalog.search.batch.max.size:10000}")
+    private int maxBatchSize;
+
     /**
      * @param searchService Service perfoming the ElasticSearch search from criterions. Autowired by Spring. Must not be
      *            null.
@@ -212,9 +259,109 @@ public class CatalogSearchService implements ICatalogSearchService {
     @Override
     public <R extends IIndexable> FacetPage<R> search(ICriterion criterion, SearchType searchType, List<String> facets,
             Pageable pageable) throws SearchException, OpenSearchUnknownParameter {
+        if ((facets == null) || facets.isEmpty() || !facetCache.isEnabled()) {
+            return search(criterion, getSearchKey(searchType), facets, pageable);
+        }
+        Set<String> accessGroups;
+        try {
+            accessGroups = accessRightFilter.getUserAccessGroups();
+        } catch (AccessRightFilterException e) {
+            // Let standard search manage users without rights
+            return search(criterion, getSearchKey(searchType), facets, pageable);
+        }
+        // Facets do not depend on pagination
+        SearchResultCacheKey facetKey = new SearchResultCacheKey(runtimeTenantResolver.getTenant(), criterion,
+                searchType, facets, null, accessGroups);
+        Optional<Set<IFacet<?>>> cachedFacets = facetCache.get(facetKey);
+        if (cachedFacets.isPresent()) {
+            // Skip aggregations
+            FacetPage<R> facetPage = search(criterion, getSearchKey(searchType), null, pageable);
+            return new FacetPage<>(facetPage.getContent(), cachedFacets.get(), facetPage.getPageable(),
+                    facetPage.getTotalElements());
+        }
+        FacetPage<R> facetPage = search(criterion, getSearchKey(searchType), facets, pageable);
+        facetCache.put(facetKey, facetPage.getFacets());
+        return facetPage;
+    }
+
+    @Override
+    public <R extends IIndexable> FacetPage<R> search(ICriterion criterion, SearchType searchType, List<String> facets,
+            Pageable pageable, boolean cacheable) throws SearchException, OpenSearchUnknownParameter {
+        boolean cached = cacheable && searchResultCache.isEnabled();
+        if (!cached && !searchCoalescer.isEnabled()) {
+            return search(criterion, searchType, facets, pageable);
+        }
+        Set<String> accessGroups;
+        try {
+            accessGroups = accessRightFilter.getUserAccessGroups();
+        } catch (AccessRightFilterException e) {
+            // Let standard search manage users without rights
+            return search(criterion, searchType, facets, pageable);
+        }
+        // Users sharing the same groups share the same results (data files included)
+        SearchResultCacheKey key = new SearchResultCacheKey(runtimeTenantResolver.getTenant(), criterion, searchType,
+                facets, pageable, accessGroups);
+        if (cached) {
+            Optional<FacetPage<?>> cachedPage = searchResultCache.get(key);
+            if (cachedPage.isPresent()) {
+                // Same key, same result type
+                @SuppressWarnings("unchecked")
+                FacetPage<R> page = (FacetPage<R>) cachedPage.get();
+                return FacetPages.copyOf(page);
+            }
+        }
+        FacetPage<R> facetPage;
+        if (searchCoalescer.isEnabled()) {
+            // Concurrent identical searches share the same execution
+            facetPage = searchCoalescer.execute(key, () -> search(criterion, searchType, facets, pageable));
+        } else {
+            facetPage = search(criterion, searchType, facets, pageable);
+        }
+        if (cached) {
+            searchResultCache.put(key, facetPage);
+            return FacetPages.copyOf(facetPage);
+        }
+        return facetPage;
+    }
+
+    @Override
+    public <R extends IIndexable> FacetPage<R> searchUncached(ICriterion criterion, SearchType searchType,
+            List<String> facets, Pageable pageable) throws SearchException, OpenSearchUnknownParameter {
         return search(criterion, getSearchKey(searchType), facets, pageable);
     }
 
+    @Override
+    public <E extends AbstractEntity<?>> SearchWalker<E> prepareWalk(ICriterion criterion, SearchType searchType,
+            int pageSize) throws SearchException, OpenSearchUnknownParameter {
+        SimpleSearchKey<E> searchKey;
+        try {
+            searchKey = getSimpleSearchKey(searchType);
+        } catch (UnsupportedOperationException e) {
+            throw new SearchException(e.getMessage());
+        }
+        // Walk order is fixed by the cursor
+        Sort sort = pageableConverter.convert(SearchCursor.start(pageSize).toPageable()).getSort();
+        try {
+            // Retrieve current user access groups once. Null means superuser with all rights
+            final Set<String> accessGroups = accessRightFilter.getUserAccessGroups();
+            // Apply security filter once
+            ICriterion securedCriterion = accessRightFilter.addAccessRights(criterion);
+            return new SearchWalker<>(runtimeTenantResolver, securedCriterion, sort, pageSize, (crit, pageable) -> {
+                FacetPage<E> page = searchService.search(searchKey, pageable, crit, null);
+                for (E entity : page.getContent()) {
+                    if (entity instanceof DataObject) {
+                        filterDataFiles(accessGroups, (DataObject) entity);
+                    }
+                }
+                return page;
+            });
+        } catch (AccessRightFilterException e) {
+            LOGGER.debug("Falling back to empty walk", e);
+            return new SearchWalker<>(runtimeTenantResolver, criterion, sort, pageSize,
+                    (crit, pageable) -> new FacetPage<>(new ArrayList<>(), null, pageable, 0));
+        }
+    }
+
     /**
      * Filter data files according to data access rights
      */
@@ -265,6 +412,73 @@ public class CatalogSearchService implements ICatalogSearchService {
                 "You do not have access to this " + entity.getClass().getSimpleName());
     }
 
+    @Override
+    public <E extends AbstractEntity<?>> List<EntityBatchItem<E>> getBatch(List<String> urns) throws SearchException {
+        if (urns.size() > maxBatchSize) {
+            throw new SearchException(String.format("Too many entities requested at once : %d (max %d)", urns.size(),
+                                                    maxBatchSize));
+        }
+        // Resolve access rights once for the whole batch
+        Set<String> userGroups;
+        try {
+            userGroups = accessRightFilter.getUserAccessGroups();
+        } catch (AccessRightFilterException e) {
+            LOGGER.debug("No access to any entity", e);
+            return urns.stream().map(urn -> EntityBatchItem.<E> error(urn, EntityBatchItem.Status.FORBIDDEN))
+                    .collect(Collectors.toList());
+        }
+
+        // Retrieve all entities at once (per partition)
+        Set<String> validUrns = urns.stream().filter(UniformResourceName::isValidUrn)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, E> entitiesByUrn = new HashMap<>();
+        for (List<String> partition : Iterables.partition(validUrns, MAX_BATCH_PARTITION)) {
+            ICriterion criterion = ICriterion.or(partition.stream()
+                    .map(urn -> ICriterion.eq(StaticProperties.IP_ID, urn)).toArray(ICriterion[]::new));
+            Page<E> page = searchService.search(this.<E> getSimpleSearchKey(SearchType.ALL), partition.size(),
+                                                criterion);
+            page.getContent().forEach(entity -> entitiesByUrn.put(entity.getIpId().toString(), entity));
+        }
+
+        // Build items in request order
+        List<EntityBatchItem<E>> items = new ArrayList<>(urns.size());
+        for (String urn : urns) {
+            E entity = entitiesByUrn.get(urn);
+            if (!validUrns.contains(urn)) {
+                items.add(EntityBatchItem.error(urn, EntityBatchItem.Status.INVALID));
+            } else if (entity == null) {
+                items.add(EntityBatchItem.error(urn, EntityBatchItem.Status.NOT_FOUND));
+            } else if ((userGroups != null) && Sets.intersection(entity.getGroups(), userGroups).isEmpty()) {
+                // Null user groups means admin with all rights
+                items.add(EntityBatchItem.error(urn, EntityBatchItem.Status.FORBIDDEN));
+            } else {
+                if (entity instanceof DataObject) {
+                    filterDataFiles(userGroups, (DataObject) entity);
+                }
+                items.add(EntityBatchItem.ok(urn, entity));
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public Optional<Set<UniformResourceName>> getTaggedDatasets(Collection<UniformResourceName> urns) {
+        Set<UniformResourceName> datasets = new HashSet<>();
+        Set<String> ipIds = urns.stream().map(UniformResourceName::toString).collect(Collectors.toSet());
+        long found = 0;
+        for (List<String> partition : Iterables.partition(ipIds, MAX_BATCH_PARTITION)) {
+            ICriterion criterion = ICriterion.or(partition.stream()
+                    .map(ipId -> ICriterion.eq(StaticProperties.IP_ID, ipId)).toArray(ICriterion[]::new));
+            Page<DataObject> page = searchService.search(Searches.onSingleEntity(EntityType.DATA), partition.size(),
+                                                         criterion);
+            found += page.getNumberOfElements();
+            page.getContent().forEach(dataObject -> dataObject.getTags().stream()
+                    .filter(UniformResourceName::isValidUrn).map(UniformResourceName::fromString)
+                    .filter(urn -> urn.getEntityType() == EntityType.DATASET).forEach(datasets::add));
+        }
+        return found < ipIds.size() ? Optional.empty() : Optional.of(datasets);
+    }
+
     @Override
     public DocFilesSummary computeDatasetsSummary(ICriterion criterion, SimpleSearchKey<DataObject> searchKey,
             UniformResourceName dataset, List<DataType> dataTypes) throws SearchException {
@@ -290,6 +504,32 @@ public class CatalogSearchService implements ICatalogSearchService {
         return computeDatasetsSummary(criterion, getSimpleSearchKey(searchType), dataset, dataTypes);
     }
 
+    @Override
+    public DocFilesSummary computeDatasetsSummary(UniformResourceName selection, UniformResourceName dataset,
+            List<DataType> dataTypes) throws SearchException {
+        ICriterion criterion = selection == null ? ICriterion.all()
+                : ICriterion.eq(StaticProperties.FEATURE_TAGS_PATH, selection.toString());
+        if (!datasetSummaryCache.isEnabled()) {
+            return computeDatasetsSummary(criterion, SearchType.DATAOBJECTS, dataset, dataTypes);
+        }
+        Set<String> accessGroups;
+        try {
+            accessGroups = accessRightFilter.getUserAccessGroups();
+        } catch (AccessRightFilterException e) {
+            LOGGER.debug("Falling back to empty summary", e);
+            return new DocFilesSummary();
+        }
+        DatasetSummaryCacheKey key = new DatasetSummaryCacheKey(runtimeTenantResolver.getTenant(), selection, dataset,
+                dataTypes, accessGroups);
+        Optional<DocFilesSummary> materialized = datasetSummaryCache.get(key);
+        if (materialized.isPresent()) {
+            return materialized.get();
+        }
+        DocFilesSummary summary = computeDatasetsSummary(criterion, SearchType.DATAOBJECTS, dataset, dataTypes);
+        datasetSummaryCache.put(key, summary);
+        return summary;
+    }
+
     private void keepOnlyDatasetsWithGrantedAccess(SimpleSearchKey<DataObject> searchKey, UniformResourceName dataset,
             DocFilesSummary summary) throws AccessRightFilterException {
         // Be careful ! "tags" is used to discriminate docFiles summaries because dataset URN is set into it BUT
@@ -378,6 +618,36 @@ public class CatalogSearchService implements ICatalogSearchService {
     @Override
     public List<String> retrieveEnumeratedPropertyValues(ICriterion criterion, SearchType searchType,
             String propertyPath, int maxCount, String partialText) throws SearchException, OpenSearchUnknownParameter {
+        if (!propertyValuesCache.isEnabled()) {
+            return retrieveEnumeratedPropertyValues(criterion, getSimpleSearchKey(searchType), propertyPath, maxCount,
+                                                    partialText);
+        }
+        Set<String> accessGroups;
+        try {
+            accessGroups = accessRightFilter.getUserAccessGroups();
+        } catch (AccessRightFilterException e) {
+            LOGGER.debug("Falling back to empty list of values", e);
+            return Collections.emptyList();
+        }
+        PropertyValuesCacheKey key = new PropertyValuesCacheKey(runtimeTenantResolver.getTenant(), criterion,
+                searchType, propertyPath, accessGroups);
+        Optional<PropertyValuesDictionary> cached = propertyValuesCache.get(key);
+        PropertyValuesDictionary dictionary;
+        if (cached.isPresent()) {
+            dictionary = cached.get();
+        } else {
+            // Load all values at once (one more than allowed to detect high cardinality properties)
+            int maxValues = propertyValuesCache.getMaxValues();
+            dictionary = PropertyValuesDictionary
+                    .of(retrieveEnumeratedPropertyValues(criterion, getSimpleSearchKey(searchType), propertyPath,
+                                                         maxValues + 1, null),
+                        maxValues);
+            propertyValuesCache.put(key, dictionary);
+        }
+        if (dictionary.isComplete()) {
+            return dictionary.lookup(partialText, maxCount);
+        }
+        // Too many values to be kept in memory
         return retrieveEnumeratedPropertyValues(criterion, getSimpleSearchKey(searchType), propertyPath, maxCount,
                                                 partialText);
     }
@@ -433,6 +703,32 @@ public class CatalogSearchService implements ICatalogSearchService {
         }
     }
 
+    @Override
+    public List<PropertyBound<?>> retrievePropertiesBounds(Set<String> propertyNames, UniformResourceName dataset,
+            SearchType type) throws SearchException {
+        ICriterion criterion = dataset == null ? ICriterion.all()
+                : ICriterion.eq(StaticProperties.FEATURE_TAGS_PATH, dataset.toString());
+        if (!propertyBoundsCache.isEnabled()) {
+            return retrievePropertiesBounds(propertyNames, criterion, type);
+        }
+        Set<String> accessGroups;
+        try {
+            accessGroups = accessRightFilter.getUserAccessGroups();
+        } catch (AccessRightFilterException e) {
+            LOGGER.debug("Falling back to empty list of bounds", e);
+            return Collections.emptyList();
+        }
+        PropertyBoundsCacheKey key = new PropertyBoundsCacheKey(runtimeTenantResolver.getTenant(), type, dataset,
+                propertyNames, accessGroups);
+        Optional<List<PropertyBound<?>>> materialized = propertyBoundsCache.get(key);
+        if (materialized.isPresent()) {
+            return materialized.get();
+        }
+        List<PropertyBound<?>> bounds = retrievePropertiesBounds(propertyNames, criterion, type);
+        propertyBoundsCache.put(key, bounds);
+        return bounds;
+    }
+
     @Override
     public List<PropertyBound<?>> retrievePropertiesBounds(Set<String> propertyNames, ICriterion criterion,
             SearchType type) throws SearchException {
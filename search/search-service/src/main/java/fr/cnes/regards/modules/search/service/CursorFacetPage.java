@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service;
+
+import java.util.Optional;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
+
+/**
+ * {@link FacetPage} computed in cursor mode. It holds the cursor used to compute it and the next one if any.
+ * @param <T> type of page content
+ * @author REGARDS Team
+ */
+public class CursorFacetPage<T> extends FacetPage<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cursor used to compute this page
+     */
+    private final transient SearchCursor cursor;
+
+    /**
+     * Cursor of the next page, null if this page is the last one
+     */
+    private final transient SearchCursor nextCursor;
+
+    public CursorFacetPage(FacetPage<T> page, SearchCursor cursor, SearchCursor nextCursor) {
+        super(page.getContent(), page.getFacets(), page.getPageable(), page.getTotalElements());
+        this.cursor = cursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public SearchCursor getCursor() {
+        return cursor;
+    }
+
+    public Optional<SearchCursor> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
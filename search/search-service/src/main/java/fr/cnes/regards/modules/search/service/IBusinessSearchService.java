@@ -31,6 +31,8 @@ import fr.cnes.regards.modules.indexer.dao.FacetPage;
 import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
 import fr.cnes.regards.modules.indexer.domain.summary.DocFilesSummary;
 import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
+import fr.cnes.regards.modules.search.domain.EntityBatchItem;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 
 /**
@@ -53,6 +55,26 @@ public interface IBusinessSearchService {
     <F extends EntityFeature> FacetPage<F> search(ICriterion criterion, SearchType searchType, List<String> facets,
             Pageable pageable) throws SearchException, OpenSearchUnknownParameter;
 
+    /**
+     * Same as {@link #search(ICriterion, SearchType, List, Pageable)} with optional result caching
+     * @param cacheable true to serve the result from and to store it into the search result cache
+     */
+    <F extends EntityFeature> FacetPage<F> search(ICriterion criterion, SearchType searchType, List<String> facets,
+            Pageable pageable, boolean cacheable) throws SearchException, OpenSearchUnknownParameter;
+
+    /**
+     * Business search in cursor mode. Pages are sorted by creation date then by ipId whatever the requested sort.
+     * @param criterion business criterions according to indexed properties
+     * @param searchType search type
+     * @param facets list of facet, only computed when the cursor is opened
+     * @param cursor current cursor token, see {@link SearchCursor#parse(String, int)}
+     * @param pageSize page size used when a new cursor is opened
+     * @return a facet page of entity feature with the next cursor if any
+     * @throws SearchException if cursor token is invalid
+     */
+    <F extends EntityFeature> CursorFacetPage<F> search(ICriterion criterion, SearchType searchType,
+            List<String> facets, String cursor, int pageSize) throws SearchException, OpenSearchUnknownParameter;
+
     /**
      * Retrieve a feature by its identifier
      * @param urn feature identifier
@@ -60,6 +82,13 @@ public interface IBusinessSearchService {
     <F extends EntityFeature> F get(UniformResourceName urn)
             throws EntityOperationForbiddenException, EntityNotFoundException;
 
+    /**
+     * Retrieve a batch of features by their identifiers
+     * @param urns feature identifiers
+     * @return one item per requested URN, in request order
+     */
+    <F extends EntityFeature> List<EntityBatchItem<F>> getBatch(List<String> urns) throws SearchException;
+
     /**
      * Compute summary for given request (delegate method to catalog search service)
      * @param criterion business criterions
@@ -71,6 +100,17 @@ public interface IBusinessSearchService {
     DocFilesSummary computeDatasetsSummary(ICriterion criterion, SearchType searchType, UniformResourceName dataset,
             List<DataType> dataTypes) throws SearchException;
 
+    /**
+     * Compute summary of all data objects of a dataset or of the whole catalog (delegate method to catalog search
+     * service)
+     * @param selection dataset whose data objects are summarized, may be <code>null</code> for the whole catalog
+     * @param dataset restriction of sub summaries to a specified dataset, may be <code>null</code>
+     * @param dataTypes file types on which to compute summary
+     * @return summary
+     */
+    DocFilesSummary computeDatasetsSummary(UniformResourceName selection, UniformResourceName dataset,
+            List<DataType> dataTypes) throws SearchException;
+
     /**
      * Retrieve property values for specified property name (delegate method to catalog search service)
      * @param criterion business criterions
@@ -20,6 +20,7 @@ package fr.cnes.regards.modules.search.service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import org.elasticsearch.search.aggregations.Aggregation;
@@ -41,6 +42,7 @@ import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
 import fr.cnes.regards.modules.indexer.domain.summary.DocFilesSummary;
 import fr.cnes.regards.modules.model.domain.attributes.AttributeModel;
 import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
+import fr.cnes.regards.modules.search.domain.EntityBatchItem;
 import fr.cnes.regards.modules.search.domain.PropertyBound;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 
@@ -51,6 +53,11 @@ import fr.cnes.regards.modules.search.domain.plugin.SearchType;
  */
 public interface ICatalogSearchService {
 
+    /**
+     * ElasticSearch cannot manage more than 1024 criterions clauses at once. There is one clause per URN.
+     */
+    int MAX_BATCH_PARTITION = 1_000;
+
     /**
      * Perform a business request on specified entity type
      * @param criterion business criterions
@@ -68,6 +75,33 @@ public interface ICatalogSearchService {
     <R extends IIndexable> FacetPage<R> search(ICriterion criterion, SearchType searchType, List<String> facets,
             Pageable pageable) throws SearchException, OpenSearchUnknownParameter;
 
+    /**
+     * Same as {@link #search(ICriterion, SearchType, List, Pageable)} with optional result caching.<br/>
+     * Cached results are shared by all users with the same access groups. Concurrent identical searches share the same
+     * execution whether caching is enabled or not.
+     * @param cacheable true to serve the result from and to store it into the search result cache
+     */
+    <R extends IIndexable> FacetPage<R> search(ICriterion criterion, SearchType searchType, List<String> facets,
+            Pageable pageable, boolean cacheable) throws SearchException, OpenSearchUnknownParameter;
+
+    /**
+     * Same as {@link #search(ICriterion, SearchType, List, Pageable)} bypassing all search caches, for requests whose
+     * criterion is never repeated (i.e. cursor pages bound to a snapshot date) and would only evict useful entries.
+     */
+    <R extends IIndexable> FacetPage<R> searchUncached(ICriterion criterion, SearchType searchType,
+            List<String> facets, Pageable pageable) throws SearchException, OpenSearchUnknownParameter;
+
+    /**
+     * Prepare a walk through all entities matching given criterion (i.e. full result export).<br/>
+     * Access rights and sort are resolved once in the calling thread so that the walk may run in another one.
+     * Data files are filtered according to access rights for each walked data object.
+     * @param criterion business criterions
+     * @param searchType search type, only simple search types are supported
+     * @param pageSize number of entities fetched at once
+     */
+    <E extends AbstractEntity<?>> SearchWalker<E> prepareWalk(ICriterion criterion, SearchType searchType,
+            int pageSize) throws SearchException, OpenSearchUnknownParameter;
+
     /**
      * Compute summary for given request
      * @param criterion business criterions
@@ -85,6 +119,17 @@ public interface ICatalogSearchService {
     DocFilesSummary computeDatasetsSummary(ICriterion criterion, SearchType searchType, UniformResourceName dataset,
             List<DataType> dataTypes) throws SearchException;
 
+    /**
+     * Compute summary of all data objects of a dataset (or of the whole catalog).<br/>
+     * Such summaries are materialized until an entity of the tenant changes and must be considered as read only.
+     * @param selection dataset whose data objects are summarized, may be <code>null</code> for the whole catalog
+     * @param dataset restriction of sub summaries to a specified dataset, may be <code>null</code>
+     * @param dataTypes file types on which to compute summary
+     * @return summary
+     */
+    DocFilesSummary computeDatasetsSummary(UniformResourceName selection, UniformResourceName dataset,
+            List<DataType> dataTypes) throws SearchException;
+
     /**
      * Retrieve entity
      * @param urn identifier of the entity we are looking for
@@ -93,6 +138,23 @@ public interface ICatalogSearchService {
      */
     <E extends AbstractEntity<?>> E get(UniformResourceName urn)
             throws EntityOperationForbiddenException, EntityNotFoundException;
+
+    /**
+     * Retrieve a batch of entities with a single index request (per {@link #MAX_BATCH_PARTITION} URNs).<br/>
+     * Access rights are resolved once for the whole batch.
+     * @param urns identifiers of the entities we are looking for
+     * @param <E> concrete type of AbstractEntity
+     * @return one item per requested URN, in request order
+     */
+    <E extends AbstractEntity<?>> List<EntityBatchItem<E>> getBatch(List<String> urns) throws SearchException;
+
+    /**
+     * Resolve datasets given data objects belong to, according to their tags.<br/>
+     * No access right is applied as this is only meant to scope cache eviction.
+     * @param urns data object identifiers
+     * @return dataset identifiers or empty if one of the data objects is not indexed anymore (i.e. deleted)
+     */
+    Optional<Set<UniformResourceName>> getTaggedDatasets(Collection<UniformResourceName> urns);
     /**
      * Retrieve property values for specified property name
      * @param criterion business criterions
@@ -135,6 +197,15 @@ public interface ICatalogSearchService {
     List<PropertyBound<?>> retrievePropertiesBounds(Set<String> propertyNames, ICriterion parse, SearchType type)
             throws SearchException;
 
+    /**
+     * Retrieve {@link PropertyBound}s for each property given on the whole catalog or on a whole dataset.<br/>
+     * Such unfiltered bounds are materialized until an entity of the tenant changes.
+     * @param dataset dataset restriction, may be <code>null</code>
+     * @return {@link PropertyBound}s
+     */
+    List<PropertyBound<?>> retrievePropertiesBounds(Set<String> propertyNames, UniformResourceName dataset,
+            SearchType type) throws SearchException;
+
     /**
      * Know if we have acces to file for the given urn
      * @param urn {@link UniformResourceName} to access
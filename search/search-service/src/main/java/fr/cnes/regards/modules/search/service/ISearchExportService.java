@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.MediaType;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
+import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+
+/**
+ * Full search result export service.<br/>
+ * Export is done in two steps :
+ * <ul>
+ * <li>{@link #prepare(SearchContext)} parses request and resolves access rights in the request thread,</li>
+ * <li>{@link #write(SearchWalker, MediaType, OutputStream)} streams all matching entities, possibly in another
+ * thread.</li>
+ * </ul>
+ * @author REGARDS Team
+ */
+public interface ISearchExportService {
+
+    /**
+     * Prepare export for the given search context
+     */
+    SearchWalker<AbstractEntity<?>> prepare(SearchContext context) throws ModuleException;
+
+    /**
+     * Write all entities to the given output stream, one entity feature per record
+     * @param mediaType one of {@link fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings#APPLICATION_NDJSON}
+     *            or {@link fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings#APPLICATION_GEO_SEQ}
+     * @return number of exported entities
+     */
+    long write(SearchWalker<AbstractEntity<?>> walker, MediaType mediaType, OutputStream outputStream)
+            throws IOException;
+
+    /**
+     * Select export media type according to accepted media types, default to newline delimited JSON
+     */
+    MediaType getMediaType(Iterable<MediaType> acceptedMediaTypes);
+}
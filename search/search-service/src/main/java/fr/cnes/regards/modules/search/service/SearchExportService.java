@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import com.google.gson.Gson;
+
+import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
+import fr.cnes.regards.modules.search.service.engine.ISearchEngineDispatcher;
+
+/**
+ * Implementation of {@link ISearchExportService}.<br/>
+ * Memory is bounded to one page of entities. Writer is flushed after each page so a slow client slows down index
+ * walking (blocking output stream acts as backpressure).
+ * @author REGARDS Team
+ */
+@Service
+public class SearchExportService implements ISearchExportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchExportService.class);
+
+    /**
+     * RFC 8142 record separator
+     */
+    private static final char RECORD_SEPARATOR = '\u001E';
+
+    private static final char LINE_FEED = '\n';
+
+    private final ISearchEngineDispatcher dispatcher;
+
+    private final ICatalogSearchService catalogSearchService;
+
+    private final Gson gson;
+
+    /**
+     * Number of entities fetched at once from index
+     */
+    @Value("${regards.catalog.search.export.page.size:500}")
+    private int pageSize;
+
+    public SearchExportService(ISearchEngineDispatcher dispatcher, ICatalogSearchService catalogSearchService,
+            Gson gson) {
+        this.dispatcher = dispatcher;
+        this.catalogSearchService = catalogSearchService;
+        this.gson = gson;
+    }
+
+    @Override
+    public SearchWalker<AbstractEntity<?>> prepare(SearchContext context) throws ModuleException {
+        ICriterion criterion = dispatcher.computeCriterion(context);
+        return catalogSearchService.prepareWalk(criterion, context.getSearchType(), pageSize);
+    }
+
+    @Override
+    public long write(SearchWalker<AbstractEntity<?>> walker, MediaType mediaType, OutputStream outputStream)
+            throws IOException {
+        boolean geoSequence = SearchEngineMappings.APPLICATION_GEO_SEQ.equalsTypeAndSubtype(mediaType);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long[] written = { 0 };
+        try {
+            walker.walk(entity -> {
+                if (geoSequence) {
+                    writer.write(RECORD_SEPARATOR);
+                }
+                gson.toJson(entity.getFeature(), writer);
+                writer.write(LINE_FEED);
+                written[0]++;
+                if ((written[0] % pageSize) == 0) {
+                    writer.flush();
+                }
+            });
+        } catch (SearchException e) {
+            LOGGER.error("Export interrupted after {} entities", written[0], e);
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            writer.flush();
+        }
+        LOGGER.debug("{} entities exported", written[0]);
+        return written[0];
+    }
+
+    @Override
+    public MediaType getMediaType(Iterable<MediaType> acceptedMediaTypes) {
+        if (acceptedMediaTypes != null) {
+            for (MediaType accepted : acceptedMediaTypes) {
+                if (SearchEngineMappings.APPLICATION_GEO_SEQ.equalsTypeAndSubtype(accepted)) {
+                    return SearchEngineMappings.APPLICATION_GEO_SEQ;
+                }
+                if (SearchEngineMappings.APPLICATION_NDJSON.equalsTypeAndSubtype(accepted)) {
+                    return SearchEngineMappings.APPLICATION_NDJSON;
+                }
+            }
+        }
+        return SearchEngineMappings.APPLICATION_NDJSON;
+    }
+}
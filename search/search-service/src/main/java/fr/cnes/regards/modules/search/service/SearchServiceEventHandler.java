@@ -18,6 +18,10 @@
  */
 package fr.cnes.regards.modules.search.service;
 
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
@@ -26,10 +30,17 @@ import fr.cnes.regards.framework.amqp.ISubscriber;
 import fr.cnes.regards.framework.amqp.domain.IHandler;
 import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.urn.UniformResourceName;
 import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.event.AccessGroupAssociationEvent;
 import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.event.AccessGroupDissociationEvent;
 import fr.cnes.regards.modules.dam.domain.dataaccess.accessgroup.event.AccessGroupPublicEvent;
+import fr.cnes.regards.modules.dam.domain.entities.event.BroadcastEntityEvent;
 import fr.cnes.regards.modules.search.service.cache.accessgroup.IAccessGroupCache;
+import fr.cnes.regards.modules.search.service.cache.facet.IFacetCache;
+import fr.cnes.regards.modules.search.service.cache.propertybounds.IPropertyBoundsCache;
+import fr.cnes.regards.modules.search.service.cache.propertyvalues.IPropertyValuesCache;
+import fr.cnes.regards.modules.search.service.cache.searchresult.ISearchResultCache;
+import fr.cnes.regards.modules.search.service.cache.summary.IDatasetSummaryCache;
 
 /**
  * @author Marc Sordi
@@ -44,11 +55,32 @@ public class SearchServiceEventHandler implements ApplicationListener<Applicatio
 
     private final IRuntimeTenantResolver runtimeTenantResolver;
 
+    private final ISearchResultCache searchResultCache;
+
+    private final IFacetCache facetCache;
+
+    private final IPropertyValuesCache propertyValuesCache;
+
+    private final IPropertyBoundsCache propertyBoundsCache;
+
+    private final IDatasetSummaryCache datasetSummaryCache;
+
+    private final ICatalogSearchService catalogSearchService;
+
     public SearchServiceEventHandler(IAccessGroupCache accessGroupClientService, ISubscriber subscriber,
-            IRuntimeTenantResolver runtimeTenantResolver) {
+            IRuntimeTenantResolver runtimeTenantResolver, ISearchResultCache searchResultCache,
+            IFacetCache facetCache, IPropertyValuesCache propertyValuesCache,
+            IPropertyBoundsCache propertyBoundsCache, IDatasetSummaryCache datasetSummaryCache,
+            ICatalogSearchService catalogSearchService) {
         this.accessGroupCache = accessGroupClientService;
         this.subscriber = subscriber;
         this.runtimeTenantResolver = runtimeTenantResolver;
+        this.searchResultCache = searchResultCache;
+        this.facetCache = facetCache;
+        this.propertyValuesCache = propertyValuesCache;
+        this.propertyBoundsCache = propertyBoundsCache;
+        this.datasetSummaryCache = datasetSummaryCache;
+        this.catalogSearchService = catalogSearchService;
     }
 
     @Override
@@ -56,6 +88,7 @@ public class SearchServiceEventHandler implements ApplicationListener<Applicatio
         subscriber.subscribeTo(AccessGroupAssociationEvent.class, new AccessGroupAssociationEventHandler());
         subscriber.subscribeTo(AccessGroupDissociationEvent.class, new AccessGroupDissociationEventHandler());
         subscriber.subscribeTo(AccessGroupPublicEvent.class, new AccessGroupPublicEventHandler());
+        subscriber.subscribeTo(BroadcastEntityEvent.class, new BroadcastEntityEventHandler());
     }
 
     /**
@@ -115,4 +148,68 @@ public class SearchServiceEventHandler implements ApplicationListener<Applicatio
         }
     }
 
+    /**
+     * Handle {@link BroadcastEntityEvent} event to clean search caches of the tenant
+     *
+     * @author REGARDS Team
+     *
+     */
+    private class BroadcastEntityEventHandler implements IHandler<BroadcastEntityEvent> {
+
+        @Override
+        public void handle(TenantWrapper<BroadcastEntityEvent> wrapper) {
+            searchResultCache.invalidate(wrapper.getTenant());
+            facetCache.invalidate(wrapper.getTenant());
+            propertyValuesCache.invalidate(wrapper.getTenant());
+            propertyBoundsCache.invalidate(wrapper.getTenant());
+            if (wrapper.getContent() != null) {
+                invalidateDatasetSummaries(wrapper.getTenant(), wrapper.getContent().getAipIds());
+            }
+        }
+    }
+
+    /**
+     * Dataset summaries are only evicted for the datasets of changed entities as they are expensive to compute and
+     * would never be reused while a tenant is ingesting data.<br/>
+     * Datasets of data objects are resolved from their tags. If a data object cannot be found anymore (i.e. deleted),
+     * the whole tenant is evicted.
+     */
+    private void invalidateDatasetSummaries(String tenant, UniformResourceName[] urns) {
+        if (!datasetSummaryCache.isEnabled() || (urns == null)) {
+            return;
+        }
+        Set<UniformResourceName> datasets = new HashSet<>();
+        Set<UniformResourceName> dataObjects = new HashSet<>();
+        for (UniformResourceName urn : urns) {
+            switch (urn.getEntityType()) {
+                case DATASET:
+                    datasets.add(urn);
+                    break;
+                case DATA:
+                    dataObjects.add(urn);
+                    break;
+                default:
+                    // Collections do not hold any file
+                    break;
+            }
+        }
+        if (!dataObjects.isEmpty()) {
+            Optional<Set<UniformResourceName>> tagged;
+            try {
+                runtimeTenantResolver.forceTenant(tenant);
+                tagged = catalogSearchService.getTaggedDatasets(dataObjects);
+            } finally {
+                runtimeTenantResolver.clearTenant();
+            }
+            if (!tagged.isPresent()) {
+                datasetSummaryCache.invalidate(tenant);
+                return;
+            }
+            datasets.addAll(tagged.get());
+        }
+        if (!datasets.isEmpty() || !dataObjects.isEmpty()) {
+            datasetSummaryCache.invalidate(tenant, datasets);
+        }
+    }
+
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
+
+/**
+ * Walk through all entities matching a criterion.<br/>
+ * Criterion, access rights and sort are resolved once when the walker is prepared (see
+ * {@link ICatalogSearchService#prepareWalk(ICriterion, fr.cnes.regards.modules.search.domain.plugin.SearchType, int)})
+ * so the walk itself may be run later in another thread, for instance to stream a response.<br/>
+ * Entities are fetched page by page using a {@link SearchCursor} so only one page is kept in memory and each page
+ * costs the same whatever its depth.
+ * @param <E> entity type
+ * @author REGARDS Team
+ */
+public class SearchWalker<E extends AbstractEntity<?>> {
+
+    /**
+     * Page fetcher, criterion is already restricted to the current cursor
+     */
+    @FunctionalInterface
+    public interface PageFetcher<E> {
+
+        Page<E> fetch(ICriterion criterion, Pageable pageable);
+    }
+
+    /**
+     * Handle each walked entity
+     */
+    @FunctionalInterface
+    public interface HitHandler<E> {
+
+        void handle(E entity) throws IOException;
+    }
+
+    /**
+     * Handle each walked page
+     */
+    @FunctionalInterface
+    public interface PageHandler<E> {
+
+        void handle(List<E> entities) throws IOException;
+    }
+
+    private final IRuntimeTenantResolver tenantResolver;
+
+    private final String tenant;
+
+    private final ICriterion criterion;
+
+    private final Sort sort;
+
+    private final int pageSize;
+
+    private final PageFetcher<E> fetcher;
+
+    public SearchWalker(IRuntimeTenantResolver tenantResolver, ICriterion criterion, Sort sort, int pageSize,
+            PageFetcher<E> fetcher) {
+        this.tenantResolver = tenantResolver;
+        this.tenant = tenantResolver.getTenant();
+        this.criterion = criterion;
+        this.sort = sort;
+        this.pageSize = pageSize;
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Walk through all entities
+     * @param handler entity handler
+     * @return number of handled entities
+     * @throws IOException if handler fails, walk is stopped
+     * @throws SearchException if walk cannot go further
+     */
+    public long walk(HitHandler<E> handler) throws IOException, SearchException {
+        return walkPages(entities -> {
+            for (E entity : entities) {
+                handler.handle(entity);
+            }
+        });
+    }
+
+    /**
+     * Walk through all entities page by page
+     * @param handler page handler, page content may be kept by the handler
+     * @return number of walked entities
+     * @throws IOException if handler fails, walk is stopped
+     * @throws SearchException if walk cannot go further
+     */
+    public long walkPages(PageHandler<E> handler) throws IOException, SearchException {
+        // Walk may run in another thread than the one that prepared it
+        String previousTenant = tenantResolver.getTenant();
+        tenantResolver.forceTenant(tenant);
+        try {
+            long count = 0;
+            Optional<SearchCursor> cursor = Optional.of(SearchCursor.start(pageSize));
+            while (cursor.isPresent()) {
+                Page<E> page = fetcher.fetch(cursor.get().restrict(criterion), PageRequest.of(0, pageSize, sort));
+                handler.handle(page.getContent());
+                count += page.getNumberOfElements();
+                cursor = cursor.get().next(page);
+            }
+            return count;
+        } finally {
+            if (previousTenant == null) {
+                tenantResolver.clearTenant();
+            } else {
+                tenantResolver.forceTenant(previousTenant);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Semaphore based implementation of {@link IAdmissionControl}.<br/>
+ * {@link SearchEndpointClass#ENTITY} requests are never limited. A limit lower or equal to 0 disables the related
+ * bulkhead.<br/>
+ * Waiting requests hold their thread. By default, requests only wait for a permit when searches run on the search
+ * executor (<code>regards.catalog.search.async.enabled=true</code>) : in synchronous mode they are rejected at once
+ * rather than blocking servlet threads, unless <code>regards.catalog.search.admission.queue.timeout</code> is set.<br/>
+ * When a {@link MeterRegistry} is available, rejections are counted by <code>search.admission.rejected</code> (tags
+ * <code>class</code>, <code>scope</code> and <code>tenant</code>) and waiting time is timed by
+ * <code>search.admission.wait</code> (tag <code>class</code>).
+ * @author REGARDS Team
+ */
+@Service
+public class AdmissionControl implements IAdmissionControl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private static final AdmissionPermit NO_PERMIT = () -> {
+    };
+
+    /**
+     * Default queue timeout in milliseconds when searches run on the search executor
+     */
+    private static final long DEFAULT_ASYNC_QUEUE_TIMEOUT = 2000;
+
+    private static final String TENANT_SCOPE = "tenant";
+
+    private static final String GLOBAL_SCOPE = "global";
+
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    private final boolean enabled;
+
+    private final long queueTimeout;
+
+    private final int queueMaxSize;
+
+    private final long retryAfter;
+
+    private final Map<SearchEndpointClass, Integer> tenantLimits = new EnumMap<>(SearchEndpointClass.class);
+
+    private final Map<SearchEndpointClass, Bulkhead> globalBulkheads = new EnumMap<>(SearchEndpointClass.class);
+
+    private final ConcurrentMap<String, Bulkhead> tenantBulkheads = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param asyncSearch true if searches run on the search executor
+     * @param queueTimeout maximum time in milliseconds a request waits for a permit, negative for default : 2000 in
+     *            asynchronous mode, 0 otherwise
+     * @param queueMaxSize maximum number of requests waiting for a permit in each bulkhead
+     * @param retryAfter delay in seconds sent to rejected clients
+     */
+    public AdmissionControl(IRuntimeTenantResolver runtimeTenantResolver,
+            @Value("${regards.catalog.search.admission.enabled:true}") boolean enabled,
+            @Value("${regards.catalog.search.async.enabled:false}") boolean asyncSearch,
+            @Value("${regards.catalog.search.admission.queue.timeout:-1}") long queueTimeout,
+            @Value("${regards.catalog.search.admission.queue.max.size:50}") int queueMaxSize,
+            @Value("${regards.catalog.search.admission.retry.after:5}") long retryAfter,
+            @Value("${regards.catalog.search.admission.search.tenant.max.concurrent:50}") int searchTenantLimit,
+            @Value("${regards.catalog.search.admission.search.global.max.concurrent:200}") int searchGlobalLimit,
+            @Value("${regards.catalog.search.admission.expensive.tenant.max.concurrent:10}") int expensiveTenantLimit,
+            @Value("${regards.catalog.search.admission.expensive.global.max.concurrent:40}") int expensiveGlobalLimit,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        this.enabled = enabled;
+        if (queueTimeout >= 0) {
+            this.queueTimeout = queueTimeout;
+        } else {
+            this.queueTimeout = asyncSearch ? DEFAULT_ASYNC_QUEUE_TIMEOUT : 0;
+        }
+        this.queueMaxSize = queueMaxSize;
+        this.retryAfter = retryAfter;
+        tenantLimits.put(SearchEndpointClass.SEARCH, searchTenantLimit);
+        tenantLimits.put(SearchEndpointClass.EXPENSIVE, expensiveTenantLimit);
+        if (searchGlobalLimit > 0) {
+            globalBulkheads.put(SearchEndpointClass.SEARCH, new Bulkhead(searchGlobalLimit));
+        }
+        if (expensiveGlobalLimit > 0) {
+            globalBulkheads.put(SearchEndpointClass.EXPENSIVE, new Bulkhead(expensiveGlobalLimit));
+        }
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    @Override
+    public AdmissionPermit acquire(SearchEndpointClass endpointClass) throws AdmissionRejectedException {
+        int tenantLimit = tenantLimits.getOrDefault(endpointClass, 0);
+        Bulkhead globalBulkhead = globalBulkheads.get(endpointClass);
+        if (!enabled || ((tenantLimit <= 0) && (globalBulkhead == null))) {
+            return NO_PERMIT;
+        }
+        String tenant = runtimeTenantResolver.getTenant();
+        Bulkhead tenantBulkhead = tenantLimit <= 0 ? null
+                : tenantBulkheads.computeIfAbsent(tenant + ":" + endpointClass, key -> new Bulkhead(tenantLimit));
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+        boolean tenantAdmitted = false;
+        boolean admitted = false;
+        try {
+            tenantAdmitted = acquire(tenantBulkhead, deadline);
+            if (!tenantAdmitted) {
+                throw reject(endpointClass, tenant, TENANT_SCOPE, HttpStatus.TOO_MANY_REQUESTS);
+            }
+            admitted = acquire(globalBulkhead, deadline);
+            if (!admitted) {
+                throw reject(endpointClass, tenant, GLOBAL_SCOPE, HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(endpointClass, tenant, GLOBAL_SCOPE, HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            if (tenantAdmitted && !admitted) {
+                release(tenantBulkhead);
+            }
+        }
+        if (meterRegistry != null) {
+            meterRegistry.timer("search.admission.wait", "class", endpointClass.name())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                release(globalBulkhead);
+                release(tenantBulkhead);
+            }
+        };
+    }
+
+    private boolean acquire(Bulkhead bulkhead, long deadline) throws InterruptedException {
+        return (bulkhead == null) || bulkhead.acquire(deadline, queueMaxSize);
+    }
+
+    private static void release(Bulkhead bulkhead) {
+        if (bulkhead != null) {
+            bulkhead.permits.release();
+        }
+    }
+
+    private AdmissionRejectedException reject(SearchEndpointClass endpointClass, String tenant, String scope,
+            HttpStatus status) {
+        LOGGER.warn("Rejecting {} request for tenant {}, {} limit reached", endpointClass, tenant, scope);
+        if (meterRegistry != null) {
+            meterRegistry.counter("search.admission.rejected", "class", endpointClass.name(), "scope", scope,
+                                  TENANT_SCOPE, String.valueOf(tenant))
+                    .increment();
+        }
+        return new AdmissionRejectedException(String.format("Too many %s requests, retry later",
+                                                            endpointClass.name().toLowerCase()),
+                status, retryAfter);
+    }
+
+    /**
+     * Concurrency limit with a bounded waiting queue
+     */
+    private static final class Bulkhead {
+
+        private final Semaphore permits;
+
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private Bulkhead(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        /**
+         * @return true if a permit is acquired before deadline
+         */
+        private boolean acquire(long deadline, int queueMaxSize) throws InterruptedException {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            // Shed load at once when queue is full
+            if (waiting.incrementAndGet() > queueMaxSize) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.admission;
+
+/**
+ * Admission control of search requests.<br/>
+ * Each endpoint class has a concurrency limit per tenant and a global one so a single tenant cannot starve the others.
+ * Requests exceeding a limit wait for a permit until a deadline, then are rejected. When too many requests are already
+ * waiting, new ones are rejected at once.
+ * @author REGARDS Team
+ */
+public interface IAdmissionControl {
+
+    /**
+     * Acquire a permit for current tenant
+     * @param endpointClass class of the requested endpoint
+     * @return permit to close once the request is handled
+     * @throws AdmissionRejectedException if no permit can be granted in time
+     */
+    AdmissionPermit acquire(SearchEndpointClass endpointClass) throws AdmissionRejectedException;
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.admission;
+
+import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+
+/**
+ * Search endpoints grouped by cost, each class has its own concurrency limits (see {@link IAdmissionControl})
+ * @author REGARDS Team
+ */
+public enum SearchEndpointClass {
+
+    /**
+     * Single entity retrieval
+     */
+    ENTITY,
+
+    /**
+     * Paginated search
+     */
+    SEARCH,
+
+    /**
+     * Descriptions and other extra mappings, property values, bounds, summaries, complex searches, entity batches and
+     * exports
+     */
+    EXPENSIVE;
+
+    /**
+     * @return class of the endpoint handling the given search context
+     */
+    public static SearchEndpointClass of(SearchContext context) {
+        if (context.getExtra().isPresent()) {
+            return EXPENSIVE;
+        }
+        if (context.getUrn().isPresent()) {
+            return ENTITY;
+        }
+        if (!context.getPropertyNames().isEmpty() || context.getDateTypes().isPresent()) {
+            return EXPENSIVE;
+        }
+        return SEARCH;
+    }
+}
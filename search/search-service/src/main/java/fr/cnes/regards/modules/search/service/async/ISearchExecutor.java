@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.async;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded executor dedicated to search requests.<br/>
+ * Tasks run with the tenant, the security context and a snapshot of the request attributes of the submitting thread
+ * so engines, Feign clients, ElasticSearch requests and link builders behave as if they were run by the request thread.
+ * @author REGARDS Team
+ */
+public interface ISearchExecutor {
+
+    /**
+     * @return true if search requests have to be handled asynchronously
+     */
+    boolean isEnabled();
+
+    /**
+     * @return maximum time in milliseconds to wait for an asynchronous search result
+     */
+    long getTimeout();
+
+    /**
+     * Submit a search task
+     * @param task task to run
+     * @return future result, completed exceptionally with the task exception if any. Cancelling it with
+     *         {@code mayInterruptIfRunning} interrupts the task if it is running.
+     * @throws org.springframework.core.task.TaskRejectedException if the executor queue is full
+     */
+    <T> CompletableFuture<T> submit(SearchTask<T> task);
+}
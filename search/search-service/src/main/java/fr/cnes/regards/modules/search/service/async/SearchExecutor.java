@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.async;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import fr.cnes.regards.framework.feign.security.FeignSecurityManager;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+
+/**
+ * Default implementation of {@link ISearchExecutor}.<br/>
+ * Two execution modes are available :
+ * <ul>
+ * <li>thread pool (default) : pool size and queue capacity are bounded so a slow index cannot pile up an unlimited
+ * number of waiting requests, once the queue is full new tasks are rejected,</li>
+ * <li>virtual threads (opt-in, requires a Java 21 runtime) : each task runs on its own virtual thread so blocking
+ * Feign and ElasticSearch calls do not pin a platform thread. Only the number of running tasks is bounded.</li>
+ * </ul>
+ * Virtual threads only run tasks submitted to this executor : they require asynchronous search to be enabled and do not
+ * apply to servlet request handling nor to work fanned out by the tasks themselves.<br/>
+ * Tenant and security contexts are thread locals set for the task duration, so they behave the same in both modes.
+ * Request attributes are not shared with the task : the calling request is completed as soon as its handler returns,
+ * so the task reads a {@link RequestSnapshot} taken at submission.<br/>
+ * Cancelling the returned future with {@code mayInterruptIfRunning} interrupts the running task.
+ * @author REGARDS Team
+ */
+@Service
+public class SearchExecutor implements ISearchExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchExecutor.class);
+
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    private final boolean enabled;
+
+    private final long timeout;
+
+    /**
+     * Thread pool, null in virtual thread mode
+     */
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * Virtual thread factory, null in thread pool mode
+     */
+    private final ThreadFactory virtualThreadFactory;
+
+    /**
+     * Running task permits in virtual thread mode
+     */
+    private final Semaphore virtualThreadPermits;
+
+    @Autowired
+    public SearchExecutor(IRuntimeTenantResolver runtimeTenantResolver,
+            @Value("${regards.catalog.search.async.enabled:false}") boolean enabled,
+            @Value("${regards.catalog.search.async.timeout:30000}") long timeout,
+            @Value("${regards.catalog.search.async.pool.size:50}") int poolSize,
+            @Value("${regards.catalog.search.async.queue.capacity:500}") int queueCapacity,
+            @Value("${regards.catalog.search.async.virtual.threads:false}") boolean virtualThreads,
+            @Value("${regards.catalog.search.async.virtual.max.concurrency:10000}") int virtualMaxConcurrency) {
+        this(runtimeTenantResolver, enabled, timeout, poolSize, queueCapacity,
+             virtualThreads ? virtualThreadFactory(enabled) : Optional.empty(), virtualMaxConcurrency);
+    }
+
+    /**
+     * @param taskThreadFactory if present, each task runs on its own thread created by this factory, at most
+     *            maxConcurrency at once. Otherwise tasks run on a bounded thread pool.
+     */
+    SearchExecutor(IRuntimeTenantResolver runtimeTenantResolver, boolean enabled, long timeout, int poolSize,
+            int queueCapacity, Optional<ThreadFactory> taskThreadFactory, int maxConcurrency) {
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        if (taskThreadFactory.isPresent()) {
+            this.executor = null;
+            this.virtualThreadFactory = taskThreadFactory.get();
+            this.virtualThreadPermits = new Semaphore(maxConcurrency);
+        } else {
+            this.virtualThreadFactory = null;
+            this.virtualThreadPermits = null;
+            this.executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("search-");
+            executor.setCorePoolSize(poolSize);
+            executor.setMaxPoolSize(poolSize);
+            executor.setQueueCapacity(queueCapacity);
+            executor.setAllowCoreThreadTimeOut(true);
+            executor.initialize();
+        }
+    }
+
+    private static Optional<ThreadFactory> virtualThreadFactory(boolean enabled) {
+        if (!enabled) {
+            LOGGER.warn("Virtual threads are only used by asynchronous search, they are ignored as long as "
+                    + "regards.catalog.search.async.enabled is false");
+        }
+        Optional<ThreadFactory> factory = VirtualThreads.factory("search-virtual-");
+        if (!factory.isPresent()) {
+            LOGGER.warn("Virtual threads are not supported by the running JVM, search executor uses a thread pool");
+        }
+        return factory;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return true if each task runs on its own (virtual) thread
+     */
+    public boolean isVirtual() {
+        return virtualThreadFactory != null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public long getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(SearchTask<T> task) {
+        InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        // Capture request thread context
+        String tenant = runtimeTenantResolver.getTenant();
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        // Required to build HATEOAS links from current request
+        RequestAttributes requestAttributes = snapshot(RequestContextHolder.getRequestAttributes());
+        execute(() -> {
+            if (!future.start()) {
+                // Cancelled or timed out while queued
+                return;
+            }
+            runtimeTenantResolver.forceTenant(tenant);
+            SecurityContextHolder.setContext(securityContext);
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                future.complete(task.call());
+            } catch (Exception | Error e) { // NOSONAR task failure is forwarded to the caller
+                LOGGER.debug("Asynchronous search failed", e);
+                future.completeExceptionally(e);
+            } finally {
+                future.end();
+                if (requestAttributes instanceof ServletRequestAttributes) {
+                    ((ServletRequestAttributes) requestAttributes).requestCompleted();
+                }
+                // Do not leak request context to next pooled task
+                FeignSecurityManager.reset();
+                RequestContextHolder.resetRequestAttributes();
+                SecurityContextHolder.clearContext();
+                runtimeTenantResolver.clearTenant();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Detach servlet request attributes from the calling request, other attributes are kept as is.
+     */
+    private static RequestAttributes snapshot(RequestAttributes attributes) {
+        if (attributes instanceof ServletRequestAttributes) {
+            return new ServletRequestAttributes(
+                    new RequestSnapshot(((ServletRequestAttributes) attributes).getRequest()));
+        }
+        return attributes;
+    }
+
+    private void execute(Runnable runnable) {
+        if (executor != null) {
+            executor.execute(runnable);
+            return;
+        }
+        if (!virtualThreadPermits.tryAcquire()) {
+            throw new TaskRejectedException("Too many running search tasks");
+        }
+        try {
+            virtualThreadFactory.newThread(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    virtualThreadPermits.release();
+                }
+            }).start();
+        } catch (RuntimeException | Error e) { // NOSONAR permit must be released if thread cannot be started
+            virtualThreadPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Future interrupting its running task when cancelled with {@code mayInterruptIfRunning}.
+     * {@link CompletableFuture#cancel(boolean)} only completes the future and lets the task run to its end.
+     */
+    private static class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+        private final AtomicReference<Thread> worker = new AtomicReference<>();
+
+        /**
+         * Bind running task to current thread
+         * @return false if task must not run anymore
+         */
+        synchronized boolean start() {
+            if (isDone()) {
+                return false;
+            }
+            worker.set(Thread.currentThread());
+            return true;
+        }
+
+        /**
+         * Unbind running task, pending interruption is cleared so it does not leak to next pooled task
+         */
+        synchronized void end() {
+            worker.set(null);
+            Thread.interrupted();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    Thread thread = worker.get();
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+}
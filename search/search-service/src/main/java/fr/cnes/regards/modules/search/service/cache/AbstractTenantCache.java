@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * Base of in memory search caches whose entries belong to a tenant.<br/>
+ * Entries expire after a maximum staleness. Hit rate is exposed as <code>cache.*</code> metrics tagged with the cache
+ * name when a {@link MeterRegistry} is available.
+ * @param <K> key type
+ * @param <V> value type
+ * @author REGARDS Team
+ */
+public abstract class AbstractTenantCache<K extends AbstractTenantCacheKey, V> implements ITenantCache<K, V> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTenantCache.class);
+
+    protected final Cache<K, V> cache;
+
+    private final String name;
+
+    private final boolean enabled;
+
+    /**
+     * Build a cache bounded by its number of entries
+     * @param name cache name used in logs and metrics
+     * @param maxSize maximum number of entries, 0 disables the cache
+     * @param maxStaleness maximum age of an entry in seconds, 0 disables the cache
+     * @param meterRegistry optional metric registry
+     */
+    protected AbstractTenantCache(String name, long maxSize, long maxStaleness,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this(name, (maxSize > 0) && (maxStaleness > 0),
+             CacheBuilder.newBuilder().maximumSize(Math.max(maxSize, 0))
+                     .expireAfterWrite(Math.max(maxStaleness, 0), TimeUnit.SECONDS).recordStats().build(),
+             meterRegistry);
+    }
+
+    /**
+     * Build a cache from a custom Guava cache (i.e. bounded by weight)
+     * @param name cache name used in logs and metrics
+     * @param enabled false if cache is disabled by configuration
+     * @param cache Guava cache recording its stats
+     * @param meterRegistry optional metric registry
+     */
+    protected AbstractTenantCache(String name, boolean enabled, Cache<K, V> cache,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.name = name;
+        this.enabled = enabled;
+        this.cache = cache;
+        meterRegistry.ifAvailable(registry -> GuavaCacheMetrics.monitor(registry, cache, name));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Optional<V> get(K key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (enabled && (value != null)) {
+            cache.put(key, share(value));
+        }
+    }
+
+    @Override
+    public void invalidate(String tenant) {
+        LOGGER.debug("Rejecting {} cache for tenant {}", name, tenant);
+        invalidate(tenant, key -> true);
+    }
+
+    /**
+     * Evict entries of given tenant matching the given predicate
+     */
+    protected void invalidate(String tenant, Predicate<K> predicate) {
+        cache.asMap().keySet().removeIf(key -> tenant.equals(key.getTenant()) && predicate.test(key));
+    }
+
+    /**
+     * Hook to protect a value before it is shared between requests. Default keeps the value as is.
+     */
+    protected V share(V value) {
+        return value;
+    }
+}
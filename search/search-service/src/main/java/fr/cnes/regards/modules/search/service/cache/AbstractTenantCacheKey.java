@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Base of immutable search cache keys.<br/>
+ * Keys hold the user access group set rather than the user so that all users sharing the same rights share the same
+ * entries. Equality relies on the tenant and the {@link #components()} of the key, and the hash is computed once.
+ * @author REGARDS Team
+ */
+public abstract class AbstractTenantCacheKey {
+
+    private final String tenant;
+
+    /**
+     * Lazily computed hash, the key being immutable
+     */
+    private int hashCode;
+
+    protected AbstractTenantCacheKey(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * @return key components other than the tenant
+     */
+    protected abstract Object[] components();
+
+    /**
+     * @return immutable sorted copy of given values so that key does not depend on request parameter order, null if
+     *         values are null (i.e. all access groups)
+     */
+    protected static SortedSet<String> sorted(Collection<String> values) {
+        return values == null ? null : Collections.unmodifiableSortedSet(new TreeSet<>(values));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if ((o == null) || (getClass() != o.getClass())) {
+            return false;
+        }
+        AbstractTenantCacheKey other = (AbstractTenantCacheKey) o;
+        return (hashCode() == other.hashCode()) && Objects.equals(tenant, other.tenant)
+                && Arrays.equals(components(), other.components());
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = hashCode;
+        if (hash == 0) {
+            hash = (31 * Objects.hashCode(tenant)) + Arrays.hashCode(components());
+            hashCode = hash;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.facet;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.modules.indexer.domain.facet.IFacet;
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCache;
+import fr.cnes.regards.modules.search.service.cache.searchresult.SearchResultCacheKey;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In memory implementation of {@link IFacetCache}.<br/>
+ * Hit rate is exposed as <code>cache.*</code> metrics with tag <code>cache=searchfacets</code> when a
+ * {@link MeterRegistry} is available.
+ * @author REGARDS Team
+ */
+@Service
+public class FacetCache extends AbstractTenantCache<SearchResultCacheKey, Set<IFacet<?>>> implements IFacetCache {
+
+    public static final String CACHE_NAME = "searchfacets";
+
+    /**
+     * @param maxSize maximum number of cached facet sets, 0 disables the cache
+     * @param maxStaleness maximum age of cached facets in seconds
+     * @param meterRegistry optional metric registry
+     */
+    public FacetCache(@Value("${regards.catalog.search.facet.cache.max.size:1000}") long maxSize,
+            @Value("${regards.catalog.search.facet.cache.max.staleness:300}") long maxStaleness,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        super(CACHE_NAME, maxSize, maxStaleness, meterRegistry);
+    }
+
+    @Override
+    public Optional<Set<IFacet<?>>> get(SearchResultCacheKey key) {
+        // Each request gets its own set
+        return super.get(key).map(HashSet::new);
+    }
+
+    @Override
+    protected Set<IFacet<?>> share(Set<IFacet<?>> facets) {
+        return Collections.unmodifiableSet(new HashSet<>(facets));
+    }
+}
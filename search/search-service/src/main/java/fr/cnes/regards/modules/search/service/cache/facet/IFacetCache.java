@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.facet;
+
+import java.util.Set;
+
+import fr.cnes.regards.modules.indexer.domain.facet.IFacet;
+import fr.cnes.regards.modules.search.service.cache.ITenantCache;
+import fr.cnes.regards.modules.search.service.cache.searchresult.SearchResultCacheKey;
+
+/**
+ * Cache of search facets, independent of pagination.<br/>
+ * Facets only depend on criterion, requested facets and user access groups so they are computed once while paging
+ * through the same result set. Entries expire after a maximum staleness and are evicted for a whole tenant as soon as
+ * one of its entities changes. Keys are search keys without pagination.
+ * @author REGARDS Team
+ */
+public interface IFacetCache extends ITenantCache<SearchResultCacheKey, Set<IFacet<?>>> {
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * In memory search caches.<br/>
+ * All caches are enabled by default and each one can be disabled by setting its
+ * <code>regards.catalog.search.*.cache.max.size</code> (<code>max.values</code> for property values) property to 0.
+ * The shared search result cache may return results a few seconds stale, so search engines have to opt in with their
+ * <code>searchCache</code> parameter.
+ * Entries expire after a maximum staleness and are evicted as soon as an entity of their tenant changes.
+ * @author REGARDS Team
+ */
+package fr.cnes.regards.modules.search.service.cache;
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertybounds;
+
+import java.util.List;
+
+import fr.cnes.regards.modules.search.domain.PropertyBound;
+import fr.cnes.regards.modules.search.service.cache.ITenantCache;
+
+/**
+ * Materialized bounds of properties for unfiltered requests (whole catalog or whole dataset).<br/>
+ * Bounds are computed once and kept until an entity of the tenant is created, updated or deleted.
+ * @author REGARDS Team
+ */
+public interface IPropertyBoundsCache extends ITenantCache<PropertyBoundsCacheKey, List<PropertyBound<?>>> {
+}
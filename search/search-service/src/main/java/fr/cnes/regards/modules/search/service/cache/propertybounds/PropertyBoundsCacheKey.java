@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertybounds;
+
+import java.util.Collection;
+import java.util.SortedSet;
+
+import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCacheKey;
+
+/**
+ * Unfiltered property bounds key
+ * @author REGARDS Team
+ */
+public final class PropertyBoundsCacheKey extends AbstractTenantCacheKey {
+
+    private final SearchType searchType;
+
+    /**
+     * Dataset restriction, null for whole catalog
+     */
+    private final UniformResourceName dataset;
+
+    private final SortedSet<String> propertyNames;
+
+    /**
+     * User access groups. Null means all rights (i.e. admin)
+     */
+    private final SortedSet<String> groups;
+
+    public PropertyBoundsCacheKey(String tenant, SearchType searchType, UniformResourceName dataset,
+            Collection<String> propertyNames, Collection<String> groups) {
+        super(tenant);
+        this.searchType = searchType;
+        this.dataset = dataset;
+        this.propertyNames = sorted(propertyNames);
+        this.groups = sorted(groups);
+    }
+
+    @Override
+    protected Object[] components() {
+        return new Object[] { searchType, dataset, propertyNames, groups };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PropertyBoundsCacheKey { tenant: %s, searchType: %s, dataset: %s, properties: %s, groups: %s }",
+                             getTenant(), searchType, dataset, propertyNames, groups);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertyvalues;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.CacheBuilder;
+
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCache;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In memory implementation of {@link IPropertyValuesCache}.<br/>
+ * Memory is bounded by the total number of cached characters. Hit rate is exposed as <code>cache.*</code> metrics with
+ * tag <code>cache=propertyvalues</code> when a {@link MeterRegistry} is available.
+ * @author REGARDS Team
+ */
+@Service
+public class PropertyValuesCache extends AbstractTenantCache<PropertyValuesCacheKey, PropertyValuesDictionary>
+        implements IPropertyValuesCache {
+
+    public static final String CACHE_NAME = "propertyvalues";
+
+    private final int maxValues;
+
+    /**
+     * @param maxValues maximum number of distinct values of a property to load it in memory, 0 disables the cache
+     * @param maxWeight maximum number of cached characters
+     * @param maxStaleness maximum age of a dictionary in seconds
+     * @param meterRegistry optional metric registry
+     */
+    public PropertyValuesCache(@Value("${regards.catalog.search.property.values.cache.max.values:10000}") int maxValues,
+            @Value("${regards.catalog.search.property.values.cache.max.weight:10000000}") long maxWeight,
+            @Value("${regards.catalog.search.property.values.cache.max.staleness:600}") long maxStaleness,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        super(CACHE_NAME, (maxValues > 0) && (maxWeight > 0) && (maxStaleness > 0),
+              CacheBuilder.newBuilder().maximumWeight(Math.max(maxWeight, 0))
+                      .weigher((PropertyValuesCacheKey key, PropertyValuesDictionary dictionary) -> dictionary
+                              .getWeight())
+                      .expireAfterWrite(Math.max(maxStaleness, 0), TimeUnit.SECONDS).recordStats().build(),
+              meterRegistry);
+        this.maxValues = maxValues;
+    }
+
+    @Override
+    public int getMaxValues() {
+        return maxValues;
+    }
+}
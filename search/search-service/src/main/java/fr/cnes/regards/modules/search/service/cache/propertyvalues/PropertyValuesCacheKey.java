@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertyvalues;
+
+import java.util.Collection;
+import java.util.SortedSet;
+
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCacheKey;
+
+/**
+ * Property values dictionary key
+ * @author REGARDS Team
+ */
+public final class PropertyValuesCacheKey extends AbstractTenantCacheKey {
+
+    /**
+     * Business criterion without access rights (i.e. dataset restriction)
+     */
+    private final ICriterion criterion;
+
+    private final SearchType searchType;
+
+    private final String propertyPath;
+
+    /**
+     * User access groups. Null means all rights (i.e. admin)
+     */
+    private final SortedSet<String> groups;
+
+    public PropertyValuesCacheKey(String tenant, ICriterion criterion, SearchType searchType, String propertyPath,
+            Collection<String> groups) {
+        super(tenant);
+        this.criterion = criterion;
+        this.searchType = searchType;
+        this.propertyPath = propertyPath;
+        this.groups = sorted(groups);
+    }
+
+    public String getPropertyPath() {
+        return propertyPath;
+    }
+
+    @Override
+    protected Object[] components() {
+        return new Object[] { criterion, searchType, propertyPath, groups };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PropertyValuesCacheKey { tenant: %s, searchType: %s, property: %s, groups: %s }",
+                             getTenant(), searchType, propertyPath, groups);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertyvalues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.base.Strings;
+
+/**
+ * Sorted dictionary of all values of a property, answering prefix and contains lookups locally.<br/>
+ * A dictionary is incomplete when the property has too many distinct values to be loaded : lookups must then be done
+ * by the index.
+ * @author REGARDS Team
+ */
+public final class PropertyValuesDictionary {
+
+    private static final PropertyValuesDictionary INCOMPLETE = new PropertyValuesDictionary(new String[0], false);
+
+    private final String[] values;
+
+    private final boolean complete;
+
+    /**
+     * Approximative memory footprint in characters
+     */
+    private final int weight;
+
+    private PropertyValuesDictionary(String[] values, boolean complete) {
+        this.values = values;
+        this.complete = complete;
+        this.weight = Arrays.stream(values).mapToInt(String::length).sum() + values.length;
+    }
+
+    /**
+     * Build dictionary from loaded values
+     * @param loadedValues values loaded with a limit of maxValues + 1
+     * @param maxValues maximum number of values to keep in memory
+     */
+    public static PropertyValuesDictionary of(Collection<String> loadedValues, int maxValues) {
+        if (loadedValues.size() > maxValues) {
+            return INCOMPLETE;
+        }
+        String[] values = loadedValues.stream().filter(v -> v != null).distinct().sorted().toArray(String[]::new);
+        return new PropertyValuesDictionary(values, true);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Lookup values matching partial text : values starting with partial text first then values containing it
+     * @param partialText partial text, null or empty to get first values
+     * @param maxCount maximum number of values
+     */
+    public List<String> lookup(String partialText, int maxCount) {
+        List<String> result = new ArrayList<>();
+        if (Strings.isNullOrEmpty(partialText)) {
+            for (int i = 0; (i < values.length) && (result.size() < maxCount); i++) {
+                result.add(values[i]);
+            }
+            return result;
+        }
+        // Values starting with partial text are contiguous in sorted array
+        int start = Arrays.binarySearch(values, partialText);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        int end = start;
+        while ((end < values.length) && values[end].startsWith(partialText)) {
+            if (result.size() < maxCount) {
+                result.add(values[end]);
+            }
+            end++;
+        }
+        // Then other values containing partial text
+        for (int i = 0; (i < values.length) && (result.size() < maxCount); i++) {
+            if (((i < start) || (i >= end)) && values[i].contains(partialText)) {
+                result.add(values[i]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+
+/**
+ * {@link FacetPage} utilities for pages shared between requests
+ * @author REGARDS Team
+ */
+public final class FacetPages {
+
+    private FacetPages() {
+    }
+
+    /**
+     * Copy page envelope, content list and facet set so that a shared page can be handed to one request.<br/>
+     * Entities are not copied : they are only shared between requests with the same access groups, so their data
+     * files are already filtered the same way for all of them.
+     */
+    public static <R> FacetPage<R> copyOf(FacetPage<R> page) {
+        return new FacetPage<>(new ArrayList<>(page.getContent()),
+                page.getFacets() == null ? null : new HashSet<>(page.getFacets()), page.getPageable(),
+                page.getTotalElements());
+    }
+}
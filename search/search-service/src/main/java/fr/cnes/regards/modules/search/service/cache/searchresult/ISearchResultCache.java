@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+import fr.cnes.regards.modules.search.service.cache.ITenantCache;
+
+/**
+ * Bounded cache of search results shared by all users having the same access groups.<br/>
+ * Entries expire after a maximum staleness and are evicted for a whole tenant as soon as one of its entities changes.
+ * Cached pages are shared between requests and must be considered as read only.
+ * @author REGARDS Team
+ */
+public interface ISearchResultCache extends ITenantCache<SearchResultCacheKey, FacetPage<?>> {
+
+    /**
+     * Search engine plugin parameter to opt in the search result cache
+     */
+    String ENGINE_PARAMETER = "searchCache";
+
+    String ENGINE_PARAMETER_LABEL = "Enable search result cache";
+
+    String ENGINE_PARAMETER_DESCRIPTION = "Share results of identical searches between users with the same access "
+            + "groups. Results may be stale for a few seconds, see regards.catalog.search.cache.max.staleness.";
+
+    /**
+     * Unlike other search caches, search result cache serves stale results so it is disabled by default
+     */
+    String ENGINE_PARAMETER_DEFAULT = "false";
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
+import fr.cnes.regards.modules.search.service.SearchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single flight execution of concurrent identical searches.<br/>
+ * The first request for a key (the leader) runs the search, concurrent requests for the same key wait for its result
+ * and get their own copy of the page (see {@link FacetPages#copyOf(FacetPage)}). Nothing is kept once the search is
+ * done : this is not a cache, results are never stale.
+ * @author REGARDS Team
+ */
+@Service
+public class SearchCoalescer {
+
+    /**
+     * Search to coalesce
+     */
+    @FunctionalInterface
+    public interface SearchLoader<R> {
+
+        FacetPage<R> load() throws SearchException, OpenSearchUnknownParameter;
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchCoalescer.class);
+
+    private final ConcurrentMap<SearchResultCacheKey, CompletableFuture<FacetPage<?>>> inFlights = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final Counter coalescedCounter;
+
+    public SearchCoalescer(@Value("${regards.catalog.search.coalescing.enabled:true}") boolean enabled,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.coalescedCounter = registry == null ? null : registry.counter("search.coalesced");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run search or join the identical one already running
+     * @param key search identifier
+     * @param loader search to run if no identical one is running
+     * @return search result, copied if computed by another request
+     */
+    @SuppressWarnings("unchecked")
+    public <R> FacetPage<R> execute(SearchResultCacheKey key, SearchLoader<R> loader)
+            throws SearchException, OpenSearchUnknownParameter {
+        CompletableFuture<FacetPage<?>> own = new CompletableFuture<>();
+        CompletableFuture<FacetPage<?>> inFlight = inFlights.putIfAbsent(key, own);
+        if (inFlight == null) {
+            // Leader
+            try {
+                FacetPage<R> page = loader.load();
+                own.complete(page);
+                return page;
+            } catch (SearchException | OpenSearchUnknownParameter | RuntimeException | Error e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlights.remove(key, own);
+            }
+        }
+        // Follower
+        LOGGER.trace("Joining running search {}", key);
+        if (coalescedCounter != null) {
+            coalescedCounter.increment();
+        }
+        try {
+            return FacetPages.copyOf((FacetPage<R>) inFlight.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchException("Interrupted while waiting for search result");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SearchException) {
+                throw (SearchException) cause;
+            }
+            if (cause instanceof OpenSearchUnknownParameter) {
+                throw (OpenSearchUnknownParameter) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCache;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In memory implementation of {@link ISearchResultCache}.<br/>
+ * Hit rate is exposed as <code>cache.*</code> metrics with tag <code>cache=searchresults</code> when a
+ * {@link MeterRegistry} is available.
+ * @author REGARDS Team
+ */
+@Service
+public class SearchResultCache extends AbstractTenantCache<SearchResultCacheKey, FacetPage<?>>
+        implements ISearchResultCache {
+
+    public static final String CACHE_NAME = "searchresults";
+
+    /**
+     * @param maxSize maximum number of cached pages, 0 disables the cache
+     * @param maxStaleness maximum age of a cached page in seconds
+     * @param meterRegistry optional metric registry
+     */
+    public SearchResultCache(@Value("${regards.catalog.search.cache.max.size:1000}") long maxSize,
+            @Value("${regards.catalog.search.cache.max.staleness:60}") long maxStaleness,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        super(CACHE_NAME, maxSize, maxStaleness, meterRegistry);
+    }
+}
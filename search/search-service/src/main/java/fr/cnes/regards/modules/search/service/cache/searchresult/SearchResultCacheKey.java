@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+
+import org.springframework.data.domain.Pageable;
+
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCacheKey;
+
+/**
+ * Search result cache key.<br/>
+ * Facets and groups are kept sorted so that key does not depend on request parameter order.
+ * @author REGARDS Team
+ */
+public final class SearchResultCacheKey extends AbstractTenantCacheKey {
+
+    /**
+     * Business criterion without access rights (access rights are computed from groups)
+     */
+    private final ICriterion criterion;
+
+    private final SearchType searchType;
+
+    private final SortedSet<String> facets;
+
+    /**
+     * Null for results that do not depend on pagination (i.e. facets)
+     */
+    private final Pageable pageable;
+
+    /**
+     * User access groups. Null means all rights (i.e. admin)
+     */
+    private final SortedSet<String> groups;
+
+    public SearchResultCacheKey(String tenant, ICriterion criterion, SearchType searchType, Collection<String> facets,
+            Pageable pageable, Collection<String> groups) {
+        super(tenant);
+        this.criterion = criterion;
+        this.searchType = searchType;
+        this.facets = facets == null ? Collections.emptySortedSet() : sorted(facets);
+        this.pageable = pageable;
+        this.groups = sorted(groups);
+    }
+
+    public ICriterion getCriterion() {
+        return criterion;
+    }
+
+    public SearchType getSearchType() {
+        return searchType;
+    }
+
+    public SortedSet<String> getFacets() {
+        return facets;
+    }
+
+    public Pageable getPageable() {
+        return pageable;
+    }
+
+    public SortedSet<String> getGroups() {
+        return groups;
+    }
+
+    @Override
+    protected Object[] components() {
+        return new Object[] { criterion, searchType, facets, pageable, groups };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchResultCacheKey { tenant: %s, searchType: %s, facets: %s, pageable: %s, groups: %s }",
+                             getTenant(), searchType, facets, pageable, groups);
+    }
+}
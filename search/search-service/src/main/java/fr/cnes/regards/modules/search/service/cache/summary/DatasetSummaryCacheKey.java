@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.summary;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.SortedSet;
+
+import fr.cnes.regards.framework.urn.DataType;
+import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.search.service.cache.AbstractTenantCacheKey;
+
+/**
+ * Dataset summary key
+ * @author REGARDS Team
+ */
+public final class DatasetSummaryCacheKey extends AbstractTenantCacheKey {
+
+    /**
+     * Dataset whose data objects are summarized, null for the whole catalog
+     */
+    private final UniformResourceName selection;
+
+    /**
+     * Sub summaries restriction, null for all datasets
+     */
+    private final UniformResourceName dataset;
+
+    private final Set<DataType> dataTypes;
+
+    /**
+     * User access groups. Null means all rights (i.e. admin)
+     */
+    private final SortedSet<String> groups;
+
+    public DatasetSummaryCacheKey(String tenant, UniformResourceName selection, UniformResourceName dataset,
+            Collection<DataType> dataTypes, Collection<String> groups) {
+        super(tenant);
+        this.selection = selection;
+        this.dataset = dataset;
+        this.dataTypes = dataTypes.isEmpty() ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(dataTypes));
+        this.groups = sorted(groups);
+    }
+
+    /**
+     * @return true if summarized data objects may belong to one of given datasets. Whole catalog summaries always
+     *         are as their totals involve all data objects.
+     */
+    public boolean involves(Collection<UniformResourceName> datasets) {
+        return (selection == null) || datasets.contains(selection);
+    }
+
+    @Override
+    protected Object[] components() {
+        return new Object[] { selection, dataset, dataTypes, groups };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DatasetSummaryCacheKey { tenant: %s, selection: %s, dataset: %s, dataTypes: %s, groups: %s }",
+                             getTenant(), selection, dataset, dataTypes, groups);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.summary;
+
+import java.util.Collection;
+
+import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.indexer.domain.summary.DocFilesSummary;
+import fr.cnes.regards.modules.search.service.cache.ITenantCache;
+
+/**
+ * Materialized file summaries of whole datasets.<br/>
+ * A whole dataset summary only changes when data of this dataset is ingested so it is computed once and kept until
+ * the dataset or one of its data objects changes or until it is periodically recomputed. Materialized summaries are
+ * shared and must be considered as read only.
+ * @author REGARDS Team
+ */
+public interface IDatasetSummaryCache extends ITenantCache<DatasetSummaryCacheKey, DocFilesSummary> {
+
+    /**
+     * Evict summaries of given tenant involving one of given datasets, including whole catalog summaries
+     */
+    void invalidate(String tenant, Collection<UniformResourceName> datasets);
+}
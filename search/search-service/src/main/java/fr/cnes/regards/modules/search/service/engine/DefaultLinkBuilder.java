@@ -68,6 +68,12 @@ public class DefaultLinkBuilder implements IEntityLinkBuilder {
         return null;
     }
 
+    @Override
+    public Link buildCursorLink(IResourceService resourceService, SearchContext context, int pageSize, String cursor,
+            LinkRelation rel) {
+        return null;
+    }
+
     @Override
     public List<Link> buildPaginationLinks(IResourceService resourceService, PageImpl<?> page, SearchContext context) {
         return null;
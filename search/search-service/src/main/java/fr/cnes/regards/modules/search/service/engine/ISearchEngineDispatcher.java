@@ -19,6 +19,7 @@
 package fr.cnes.regards.modules.search.service.engine;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.ResponseEntity;
 
@@ -44,6 +45,15 @@ public interface ISearchEngineDispatcher {
      */
     <T> ResponseEntity<T> dispatchRequest(SearchContext context, IEntityLinkBuilder linkBuilder) throws ModuleException;
 
+    /**
+     * Same as {@link #dispatchRequest(SearchContext, IEntityLinkBuilder)} but handled on the search executor (see
+     * {@link fr.cnes.regards.modules.search.service.async.ISearchExecutor}) so the calling thread is released
+     * immediately.
+     * @throws org.springframework.core.task.TaskRejectedException if the search executor is saturated
+     */
+    <T> CompletableFuture<ResponseEntity<T>> dispatchRequestAsync(SearchContext context,
+            IEntityLinkBuilder linkBuilder);
+
     /**
      * Retrieve a search engine plugin instance for the given dataset and engine type.
      * @throws ModuleException
@@ -53,4 +63,10 @@ public interface ISearchEngineDispatcher {
 
     ICriterion computeComplexCriterion(SearchRequest searchRequest) throws ModuleException;
 
+    /**
+     * Compute business criterion from search context using the request parser engine if any, the search engine
+     * otherwise.
+     */
+    ICriterion computeCriterion(SearchContext context) throws ModuleException;
+
 }
@@ -21,6 +21,7 @@ package fr.cnes.regards.modules.search.service.engine;
 import java.util.HashMap;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +49,10 @@ import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
 import fr.cnes.regards.modules.search.service.IBusinessSearchService;
 import fr.cnes.regards.modules.search.service.ISearchEngineConfigurationService;
+import fr.cnes.regards.modules.search.service.admission.AdmissionPermit;
+import fr.cnes.regards.modules.search.service.admission.IAdmissionControl;
+import fr.cnes.regards.modules.search.service.admission.SearchEndpointClass;
+import fr.cnes.regards.modules.search.service.async.ISearchExecutor;
 
 /**
  * Search engine service dispatcher.<br/>
@@ -82,6 +87,18 @@ public class SearchEngineDispatcher implements ISearchEngineDispatcher {
     @Autowired
     protected IBusinessSearchService searchService;
 
+    @Autowired
+    private ISearchExecutor searchExecutor;
+
+    @Autowired
+    private IAdmissionControl admissionControl;
+
+    @Override
+    public <T> CompletableFuture<ResponseEntity<T>> dispatchRequestAsync(SearchContext context,
+            IEntityLinkBuilder linkBuilder) {
+        return searchExecutor.submit(() -> dispatchRequest(context, linkBuilder));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T> ResponseEntity<T> dispatchRequest(SearchContext context, IEntityLinkBuilder linkBuilder)
@@ -132,21 +149,24 @@ public class SearchEngineDispatcher implements ISearchEngineDispatcher {
             LOGGER.debug(context.getPageable() == null ? "No pagination" : context.getPageable().toString());
         }
 
-        // Retrieve search engine plugin from search context
-        ISearchEngine<?, ?, ?, ?> searchEngine = getSearchEngine(context.getDatasetUrn(), context.getEngineType());
-        ISearchEngine<?, ?, ?, ?> searchEngineParser = getSearchEngineParser(context, searchEngine);
-        if (context.getExtra().isPresent()) {
-            return (ResponseEntity<T>) searchEngine.extra(context, linkBuilder);
-        } else if (context.getUrn().isPresent()) {
-            return (ResponseEntity<T>) searchEngine.getEntity(context, linkBuilder);
-        } else if (!context.getPropertyNames().isEmpty() && !context.getBoundCalculation()) {
-            return (ResponseEntity<T>) searchEngine.getPropertyValues(context);
-        } else if (!context.getPropertyNames().isEmpty() && context.getBoundCalculation()) {
-            return (ResponseEntity<T>) searchEngine.getPropertiesBounds(context);
-        } else if (context.getDateTypes().isPresent()) {
-            return (ResponseEntity<T>) searchEngine.getSummary(context);
-        } else {
-            return (ResponseEntity<T>) searchEngine.search(context, searchEngineParser, linkBuilder);
+        // Limit concurrent requests per tenant and endpoint class
+        try (AdmissionPermit permit = admissionControl.acquire(SearchEndpointClass.of(context))) {
+            // Retrieve search engine plugin from search context
+            ISearchEngine<?, ?, ?, ?> searchEngine = getSearchEngine(context.getDatasetUrn(), context.getEngineType());
+            ISearchEngine<?, ?, ?, ?> searchEngineParser = getSearchEngineParser(context, searchEngine);
+            if (context.getExtra().isPresent()) {
+                return (ResponseEntity<T>) searchEngine.extra(context, linkBuilder);
+            } else if (context.getUrn().isPresent()) {
+                return (ResponseEntity<T>) searchEngine.getEntity(context, linkBuilder);
+            } else if (!context.getPropertyNames().isEmpty() && !context.getBoundCalculation()) {
+                return (ResponseEntity<T>) searchEngine.getPropertyValues(context);
+            } else if (!context.getPropertyNames().isEmpty() && context.getBoundCalculation()) {
+                return (ResponseEntity<T>) searchEngine.getPropertiesBounds(context);
+            } else if (context.getDateTypes().isPresent()) {
+                return (ResponseEntity<T>) searchEngine.getSummary(context);
+            } else {
+                return (ResponseEntity<T>) searchEngine.search(context, searchEngineParser, linkBuilder);
+            }
         }
     }
 
@@ -176,6 +196,12 @@ public class SearchEngineDispatcher implements ISearchEngineDispatcher {
         }
     }
 
+    @Override
+    public ICriterion computeCriterion(SearchContext context) throws ModuleException {
+        ISearchEngine<?, ?, ?, ?> searchEngine = getSearchEngine(context.getDatasetUrn(), context.getEngineType());
+        return getSearchEngineParser(context, searchEngine).parse(context);
+    }
+
     /**
      * Compute a {@link SearchRequest} to a {@link ICriterion}
      * @throws ModuleException
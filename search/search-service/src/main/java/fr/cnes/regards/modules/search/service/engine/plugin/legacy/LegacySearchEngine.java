@@ -36,6 +36,7 @@ import fr.cnes.regards.framework.hateoas.IResourceService;
 import fr.cnes.regards.framework.hateoas.LinkRels;
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.modules.plugins.annotations.Plugin;
+import fr.cnes.regards.framework.modules.plugins.annotations.PluginParameter;
 import fr.cnes.regards.modules.dam.domain.entities.StaticProperties;
 import fr.cnes.regards.modules.dam.domain.entities.feature.EntityFeature;
 import fr.cnes.regards.modules.indexer.dao.FacetPage;
@@ -48,9 +49,15 @@ import fr.cnes.regards.modules.search.domain.plugin.ISearchEngine;
 import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
 import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHits;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHitsPolicy;
+import fr.cnes.regards.modules.search.domain.plugin.legacy.FacettedPage;
 import fr.cnes.regards.modules.search.domain.plugin.legacy.FacettedPagedModel;
+import fr.cnes.regards.modules.search.service.CursorFacetPage;
 import fr.cnes.regards.modules.search.service.IBusinessSearchService;
 import fr.cnes.regards.modules.search.service.ICatalogSearchService;
+import fr.cnes.regards.modules.search.service.SearchException;
+import fr.cnes.regards.modules.search.service.cache.searchresult.ISearchResultCache;
 
 /**
  * Legacy search engine for compatibility with legacy system
@@ -61,8 +68,7 @@ import fr.cnes.regards.modules.search.service.ICatalogSearchService;
 @Plugin(id = LegacySearchEngine.PLUGIN_ID, author = "REGARDS Team", contact = "regards@c-s.fr",
         description = "Legacy search engine", license = "GPLv3", owner = "CSSI", url = "https://github.com/RegardsOss",
         version = "1.0.0")
-public class LegacySearchEngine implements
-        ISearchEngine<FacettedPagedModel<EntityModel<EntityFeature>>, Void, EntityModel<EntityFeature>, List<String>> {
+public class LegacySearchEngine implements ISearchEngine<Object, Void, EntityModel<EntityFeature>, List<String>> {
 
     public static final String PLUGIN_ID = SearchEngineMappings.LEGACY_PLUGIN_ID;
 
@@ -86,6 +92,11 @@ public class LegacySearchEngine implements
      */
     public static final String PARTIAL_TEXT = "partialText";
 
+    /**
+     * Plugin parameter for default total hits policy
+     */
+    public static final String TOTAL_HITS_PARAMETER = "totalHits";
+
     /**
      * Query parser
      */
@@ -107,6 +118,16 @@ public class LegacySearchEngine implements
     @Autowired
     private IResourceService resourceService;
 
+    @PluginParameter(name = TOTAL_HITS_PARAMETER, label = "Default total hits policy",
+            description = "Default policy to report total hits : exact, none or a positive integer to cap exact count. Can be overridden by request parameter totalHits.",
+            optional = true, defaultValue = TotalHitsPolicy.EXACT_VALUE)
+    private String totalHits;
+
+    @PluginParameter(name = ISearchResultCache.ENGINE_PARAMETER, label = ISearchResultCache.ENGINE_PARAMETER_LABEL,
+            description = ISearchResultCache.ENGINE_PARAMETER_DESCRIPTION, optional = true,
+            defaultValue = ISearchResultCache.ENGINE_PARAMETER_DEFAULT)
+    private boolean searchCache;
+
     @Override
     public boolean supports(SearchType searchType) {
         // Supports all search types
@@ -134,15 +155,15 @@ public class LegacySearchEngine implements
     }
 
     @Override
-    public ResponseEntity<FacettedPagedModel<EntityModel<EntityFeature>>> search(SearchContext context,
-            ISearchEngine<?, ?, ?, ?> parser, IEntityLinkBuilder linkBuilder) throws ModuleException {
+    public ResponseEntity<Object> search(SearchContext context, ISearchEngine<?, ?, ?, ?> parser,
+            IEntityLinkBuilder linkBuilder) throws ModuleException {
         // Convert parameters to business criterion considering dataset
         return doSearch(parser.parse(context), context, linkBuilder);
 
     }
 
-    public ResponseEntity<FacettedPagedModel<EntityModel<EntityFeature>>> doSearch(ICriterion criterion,
-            SearchContext context, IEntityLinkBuilder linkBuilder) throws ModuleException {
+    public ResponseEntity<Object> doSearch(ICriterion criterion, SearchContext context, IEntityLinkBuilder linkBuilder)
+            throws ModuleException {
         // Extract facets: beware, theorically there should be only one facets parameter with values separated by ","
         // but take all cases into account
         List<String> facets = context.getQueryParams().get(FACETS);
@@ -150,22 +171,66 @@ public class LegacySearchEngine implements
             facets = facets.stream().flatMap(f -> Arrays.stream(f.split(","))).collect(Collectors.toList());
         }
         // Do business search
-        FacetPage<EntityFeature> facetPage = searchService.search(criterion, context.getSearchType(), facets,
-                                                                  context.getPageable());
+        FacetPage<EntityFeature> facetPage;
+        if (context.getCursor().isPresent()) {
+            facetPage = searchService.search(criterion, context.getSearchType(), facets, context.getCursor().get(),
+                                             context.getPageable().getPageSize());
+        } else {
+            facetPage = searchService.search(criterion, context.getSearchType(), facets, context.getPageable(),
+                                             searchCache);
+        }
+        TotalHits facetPageTotalHits = getTotalHitsPolicy(context).compute(facetPage);
+        // Machine clients may skip HATEOAS link building
+        if (SearchEngineMappings.isCompactRequested(context.getHeaders())) {
+            return ResponseEntity.ok().contentType(SearchEngineMappings.APPLICATION_JSON_COMPACT)
+                    .body(toCompactPage(facetPage, facetPageTotalHits));
+        }
         // Build and return HATEOAS response
-        return ResponseEntity.ok(toResources(context, facetPage, linkBuilder));
+        return ResponseEntity.ok(toResources(context, facetPage, facetPageTotalHits, linkBuilder));
+    }
+
+    /**
+     * Resolve total hits policy from request parameter or plugin configuration
+     */
+    private TotalHitsPolicy getTotalHitsPolicy(SearchContext context) throws SearchException {
+        try {
+            return TotalHitsPolicy.resolve(context.getTotalHits().orElse(null), totalHits);
+        } catch (IllegalArgumentException e) {
+            throw new SearchException(context.getTotalHits().orElse(totalHits), e);
+        }
+    }
+
+    /**
+     * Build page metadata according to reported total hits
+     */
+    private static PagedModel.PageMetadata toPageMetadata(FacetPage<EntityFeature> facetPage, TotalHits totalHits) {
+        return new PagedModel.PageMetadata(facetPage.getSize(), facetPage.getNumber(), totalHits.getValue(),
+                totalHits.getTotalPages(facetPage.getSize()));
+    }
+
+    /**
+     * Format response without HATEOAS
+     */
+    private FacettedPage<EntityFeature> toCompactPage(FacetPage<EntityFeature> facetPage, TotalHits totalHits) {
+        FacettedPage<EntityFeature> page = new FacettedPage<>(facetPage.getFacets(), facetPage.getContent(),
+                toPageMetadata(facetPage, totalHits));
+        page.setTotalHitsRelation(totalHits.getRelation());
+        if (facetPage instanceof CursorFacetPage) {
+            ((CursorFacetPage<EntityFeature>) facetPage).getNextCursor()
+                    .ifPresent(next -> page.setNextCursor(next.encode()));
+        }
+        return page;
     }
 
     /**
      * Format response with HATEOAS
      */
     private FacettedPagedModel<EntityModel<EntityFeature>> toResources(SearchContext context,
-            FacetPage<EntityFeature> facetPage, IEntityLinkBuilder linkBuilder) {
+            FacetPage<EntityFeature> facetPage, TotalHits totalHits, IEntityLinkBuilder linkBuilder) {
 
         FacettedPagedModel<EntityModel<EntityFeature>> pagedResource = FacettedPagedModel
-                .wrap(facetPage.getContent(), new PagedModel.PageMetadata(facetPage.getSize(), facetPage.getNumber(),
-                        facetPage.getTotalElements(), facetPage.getTotalPages()),
-                      facetPage.getFacets());
+                .wrap(facetPage.getContent(), toPageMetadata(facetPage, totalHits), facetPage.getFacets());
+        pagedResource.setTotalHitsRelation(totalHits.getRelation());
 
         // Add entity links
         for (EntityModel<EntityFeature> resource : pagedResource.getContent()) {
@@ -174,17 +239,41 @@ public class LegacySearchEngine implements
         }
 
         // Add pagination links
-        if (facetPage.hasPrevious()) {
-            addPaginationLink(pagedResource, context, LinkRels.PREVIOUS, linkBuilder);
-        }
-        addPaginationLink(pagedResource, context, LinkRels.SELF, linkBuilder);
-        if (facetPage.hasNext()) {
-            addPaginationLink(pagedResource, context, LinkRels.NEXT, linkBuilder);
+        if (facetPage instanceof CursorFacetPage) {
+            addCursorLinks(pagedResource, context, (CursorFacetPage<EntityFeature>) facetPage, linkBuilder);
+        } else {
+            if (facetPage.hasPrevious()) {
+                addPaginationLink(pagedResource, context, LinkRels.PREVIOUS, linkBuilder);
+            }
+            addPaginationLink(pagedResource, context, LinkRels.SELF, linkBuilder);
+            if (facetPage.hasNext()) {
+                addPaginationLink(pagedResource, context, LinkRels.NEXT, linkBuilder);
+            }
         }
 
         return pagedResource;
     }
 
+    /**
+     * In cursor mode, only self and next links are available
+     */
+    private void addCursorLinks(RepresentationModel<?> resource, SearchContext context,
+            CursorFacetPage<EntityFeature> cursorPage, IEntityLinkBuilder linkBuilder) {
+        int pageSize = cursorPage.getCursor().getSize();
+        Link self = linkBuilder.buildCursorLink(resourceService, context, pageSize, context.getCursor().get(),
+                                                LinkRels.SELF);
+        if (self != null) {
+            resource.add(self);
+        }
+        if (cursorPage.getNextCursor().isPresent()) {
+            Link next = linkBuilder.buildCursorLink(resourceService, context, pageSize,
+                                                    cursorPage.getNextCursor().get().encode(), LinkRels.NEXT);
+            if (next != null) {
+                resource.add(next);
+            }
+        }
+    }
+
     private void addPaginationLink(RepresentationModel<?> resource, SearchContext context, LinkRelation rel,
             IEntityLinkBuilder linkBuilder) {
 
@@ -238,12 +327,20 @@ public class LegacySearchEngine implements
 
     @Override
     public ResponseEntity<DocFilesSummary> getSummary(SearchContext context) throws ModuleException {
-        // Convert parameters to business criterion considering dataset
-        ICriterion criterion = parse(context);
-        // Compute summary
-        DocFilesSummary summary = searchService.computeDatasetsSummary(criterion, context.getSearchType(),
-                                                                       context.getDatasetUrn().orElse(null),
-                                                                       context.getDateTypes().get());
+        DocFilesSummary summary;
+        if (context.isFiltered() || !SearchType.DATAOBJECTS.equals(context.getSearchType())) {
+            // Convert parameters to business criterion considering dataset
+            ICriterion criterion = parse(context);
+            // Compute summary
+            summary = searchService.computeDatasetsSummary(criterion, context.getSearchType(),
+                                                           context.getDatasetUrn().orElse(null),
+                                                           context.getDateTypes().get());
+        } else {
+            // Whole dataset summaries are materialized
+            summary = searchService.computeDatasetsSummary(context.getDatasetUrn().orElse(null),
+                                                           context.getDatasetUrn().orElse(null),
+                                                           context.getDateTypes().get());
+        }
         // Build response
         return ResponseEntity.ok(summary);
     }
@@ -251,8 +348,16 @@ public class LegacySearchEngine implements
     @Override
     public ResponseEntity<List<EntityModel<PropertyBound<?>>>> getPropertiesBounds(SearchContext context)
             throws ModuleException {
-        List<PropertyBound<?>> bounds = catalogSearchService
-                .retrievePropertiesBounds(context.getPropertyNames(), parse(context), context.getSearchType());
+        List<PropertyBound<?>> bounds;
+        if (context.isFiltered(SearchEngineMappings.PROPERTY_NAMES)) {
+            bounds = catalogSearchService.retrievePropertiesBounds(context.getPropertyNames(), parse(context),
+                                                                   context.getSearchType());
+        } else {
+            // Unfiltered bounds are materialized
+            bounds = catalogSearchService.retrievePropertiesBounds(context.getPropertyNames(),
+                                                                   context.getDatasetUrn().orElse(null),
+                                                                   context.getSearchType());
+        }
         return ResponseEntity.ok(bounds.stream().map(bound -> new EntityModel<PropertyBound<?>>(bound))
                 .collect(Collectors.toList()));
     }
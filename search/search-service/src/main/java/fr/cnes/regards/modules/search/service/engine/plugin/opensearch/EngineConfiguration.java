@@ -1,6 +1,8 @@
 package fr.cnes.regards.modules.search.service.engine.plugin.opensearch;
 
 import fr.cnes.regards.framework.modules.plugins.annotations.PluginParameter;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHitsPolicy;
+import fr.cnes.regards.modules.search.service.cache.searchresult.ISearchResultCache;
 
 public class EngineConfiguration {
 
@@ -42,6 +44,16 @@ public class EngineConfiguration {
             label = "Path of the attribute in data model for the last update date", optional = true)
     private String entityLastUpdateDatePropertyPath;
 
+    @PluginParameter(name = "totalHits", label = "Default total hits policy",
+            description = "Default policy to report total hits : exact, none or a positive integer to cap exact count. Can be overridden by request parameter totalHits.",
+            optional = true, defaultValue = TotalHitsPolicy.EXACT_VALUE)
+    private String totalHits;
+
+    @PluginParameter(name = ISearchResultCache.ENGINE_PARAMETER, label = ISearchResultCache.ENGINE_PARAMETER_LABEL,
+            description = ISearchResultCache.ENGINE_PARAMETER_DESCRIPTION, optional = true,
+            defaultValue = ISearchResultCache.ENGINE_PARAMETER_DEFAULT)
+    private boolean searchCache;
+
     public String getSearchTitle() {
         return searchTitle;
     }
@@ -114,4 +126,20 @@ public class EngineConfiguration {
         this.entityLastUpdateDatePropertyPath = entityLastUpdateDatePropertyPath;
     }
 
+    public String getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(String totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    public boolean isSearchCache() {
+        return searchCache;
+    }
+
+    public void setSearchCache(boolean searchCache) {
+        this.searchCache = searchCache;
+    }
+
 }
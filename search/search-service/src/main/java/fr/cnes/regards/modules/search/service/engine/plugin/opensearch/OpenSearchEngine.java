@@ -38,6 +38,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Order;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -69,10 +70,14 @@ import fr.cnes.regards.modules.search.domain.PropertyBound;
 import fr.cnes.regards.modules.search.domain.plugin.IEntityLinkBuilder;
 import fr.cnes.regards.modules.search.domain.plugin.ISearchEngine;
 import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+import fr.cnes.regards.modules.search.domain.plugin.SearchEngineMappings;
 import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHitsPolicy;
 import fr.cnes.regards.modules.search.schema.OpenSearchDescription;
+import fr.cnes.regards.modules.search.service.CursorFacetPage;
 import fr.cnes.regards.modules.search.service.IBusinessSearchService;
 import fr.cnes.regards.modules.search.service.ICatalogSearchService;
+import fr.cnes.regards.modules.search.service.SearchException;
 import fr.cnes.regards.modules.search.service.engine.plugin.legacy.LegacySearchEngine;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.description.DescriptionBuilder;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.exception.ExtensionException;
@@ -177,8 +182,14 @@ public class OpenSearchEngine implements ISearchEngine<Object, OpenSearchDescrip
     @Override
     public ResponseEntity<Object> search(SearchContext context, ISearchEngine<?, ?, ?, ?> parser,
             IEntityLinkBuilder linkBuilder) throws ModuleException {
-        FacetPage<EntityFeature> facetPage = searchService.search(parser.parse(context), context.getSearchType(), null,
-                                                                  getPagination(context));
+        FacetPage<EntityFeature> facetPage;
+        if (context.getCursor().isPresent()) {
+            facetPage = searchService.search(parser.parse(context), context.getSearchType(), null,
+                                             context.getCursor().get(), getPagination(context).getPageSize());
+        } else {
+            facetPage = searchService.search(parser.parse(context), context.getSearchType(), null,
+                                             getPagination(context), engineConfiguration.isSearchCache());
+        }
         return ResponseEntity.ok(formatResponse(facetPage, context, linkBuilder));
     }
 
@@ -249,17 +260,55 @@ public class OpenSearchEngine implements ISearchEngine<Object, OpenSearchDescrip
      * @throws UnsupportedMediaTypesException
      */
     private Object formatResponse(FacetPage<EntityFeature> page, SearchContext context, IEntityLinkBuilder linkBuilder)
-            throws UnsupportedMediaTypesException {
+            throws UnsupportedMediaTypesException, SearchException {
         IResponseBuilder<?> builder = getBuilder(context);
         builder.addMetadata(UUID.randomUUID().toString(), engineConfiguration, linkBuilder
                 .buildExtraLink(resourceService, context, IanaLinkRelations.SELF, EXTRA_DESCRIPTION).getHref(), context,
-                            configuration, page, linkBuilder.buildPaginationLinks(resourceService, page, context));
+                            configuration, page, getTotalHitsPolicy(context).compute(page),
+                            buildPaginationLinks(page, context, linkBuilder));
         page.getContent().stream()
                 .forEach(e -> builder.addEntity(e, getEntityLastUpdateDate(e), paramConfigurations,
                                                 linkBuilder.buildEntityLinks(resourceService, context, e)));
         return builder.build();
     }
 
+    /**
+     * Resolve total hits policy from request parameter or engine configuration
+     */
+    private TotalHitsPolicy getTotalHitsPolicy(SearchContext context) throws SearchException {
+        try {
+            return TotalHitsPolicy.resolve(context.getTotalHits().orElse(null), engineConfiguration.getTotalHits());
+        } catch (IllegalArgumentException e) {
+            throw new SearchException(context.getTotalHits().orElse(engineConfiguration.getTotalHits()), e);
+        }
+    }
+
+    /**
+     * Build pagination links. In cursor mode, only self and next links are available.
+     */
+    private List<Link> buildPaginationLinks(FacetPage<EntityFeature> page, SearchContext context,
+            IEntityLinkBuilder linkBuilder) {
+        if (!(page instanceof CursorFacetPage)) {
+            return linkBuilder.buildPaginationLinks(resourceService, page, context);
+        }
+        CursorFacetPage<EntityFeature> cursorPage = (CursorFacetPage<EntityFeature>) page;
+        int pageSize = cursorPage.getCursor().getSize();
+        List<Link> links = Lists.newArrayList();
+        Link self = linkBuilder.buildCursorLink(resourceService, context, pageSize, context.getCursor().get(),
+                                                IanaLinkRelations.SELF);
+        if (self != null) {
+            links.add(self);
+        }
+        if (cursorPage.getNextCursor().isPresent()) {
+            Link next = linkBuilder.buildCursorLink(resourceService, context, pageSize,
+                                                    cursorPage.getNextCursor().get().encode(), IanaLinkRelations.NEXT);
+            if (next != null) {
+                links.add(next);
+            }
+        }
+        return links;
+    }
+
     /**
      * Retrieve the last update date of the given entity.
      * @param entity {@link EntityFeature}
@@ -321,8 +370,9 @@ public class OpenSearchEngine implements ISearchEngine<Object, OpenSearchDescrip
         List<SearchParameter> searchParameters = Lists.newArrayList();
         for (Entry<String, List<String>> queryParam : queryParams.entrySet()) {
             try {
-                // Ignore special query parameter (q) or empty values
+                // Ignore special query parameters (q, totalHits) or empty values
                 if (!queryParam.getKey().equals(configuration.getQueryParameterName())
+                        && !queryParam.getKey().equals(SearchEngineMappings.TOTAL_HITS)
                         && ((queryParam.getValue().size() != 1)
                                 || !Strings.isNullOrEmpty(queryParam.getValue().get(0)))) {
                     Pair<AttributeModel, ParameterConfiguration> attributeConf = getParameterAttribute(queryParam
@@ -379,12 +429,20 @@ public class OpenSearchEngine implements ISearchEngine<Object, OpenSearchDescrip
 
     @Override
     public ResponseEntity<DocFilesSummary> getSummary(SearchContext context) throws ModuleException {
-        // Convert parameters to business criterion considering dataset
-        ICriterion criterion = parse(context);
-        // Compute summary
-        DocFilesSummary summary = searchService.computeDatasetsSummary(criterion, context.getSearchType(),
-                                                                       context.getDatasetUrn().orElse(null),
-                                                                       context.getDateTypes().get());
+        DocFilesSummary summary;
+        if (context.isFiltered() || !SearchType.DATAOBJECTS.equals(context.getSearchType())) {
+            // Convert parameters to business criterion considering dataset
+            ICriterion criterion = parse(context);
+            // Compute summary
+            summary = searchService.computeDatasetsSummary(criterion, context.getSearchType(),
+                                                           context.getDatasetUrn().orElse(null),
+                                                           context.getDateTypes().get());
+        } else {
+            // Whole dataset summaries are materialized
+            summary = searchService.computeDatasetsSummary(context.getDatasetUrn().orElse(null),
+                                                           context.getDatasetUrn().orElse(null),
+                                                           context.getDateTypes().get());
+        }
         // Build response
         return ResponseEntity.ok(summary);
     }
@@ -447,8 +505,16 @@ public class OpenSearchEngine implements ISearchEngine<Object, OpenSearchDescrip
     @Override
     public ResponseEntity<List<EntityModel<PropertyBound<?>>>> getPropertiesBounds(SearchContext context)
             throws ModuleException {
-        List<PropertyBound<?>> bounds = catalogSearchService
-                .retrievePropertiesBounds(context.getPropertyNames(), parse(context), context.getSearchType());
+        List<PropertyBound<?>> bounds;
+        if (context.isFiltered(SearchEngineMappings.PROPERTY_NAMES)) {
+            bounds = catalogSearchService.retrievePropertiesBounds(context.getPropertyNames(), parse(context),
+                                                                   context.getSearchType());
+        } else {
+            // Unfiltered bounds are materialized
+            bounds = catalogSearchService.retrievePropertiesBounds(context.getPropertyNames(),
+                                                                   context.getDatasetUrn().orElse(null),
+                                                                   context.getSearchType());
+        }
         return ResponseEntity.ok(bounds.stream().map(bound -> new EntityModel<PropertyBound<?>>(bound))
                 .collect(Collectors.toList()));
     }
@@ -28,6 +28,7 @@ import fr.cnes.regards.modules.dam.domain.entities.AbstractEntity;
 import fr.cnes.regards.modules.dam.domain.entities.feature.EntityFeature;
 import fr.cnes.regards.modules.indexer.dao.FacetPage;
 import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHits;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.Configuration;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.EngineConfiguration;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.ParameterConfiguration;
@@ -48,10 +49,12 @@ public interface IResponseBuilder<R> {
      * @param openSearchDescriptionUrl {@link String}
      * @param context {@link SearchContext}
      * @param page {@link FacetPage} results of the search
+     * @param totalHits {@link TotalHits} to report according to total hits policy
      * @param links {@link Link}s of the entities collection
      */
     void addMetadata(String searchId, EngineConfiguration engineConf, String openSearchDescriptionUrl,
-            SearchContext context, Configuration configuration, FacetPage<EntityFeature> page, List<Link> links);
+            SearchContext context, Configuration configuration, FacetPage<EntityFeature> page, TotalHits totalHits,
+            List<Link> links);
 
     /**
      * Add a new response entity to the builder. An entity is a {@link AbstractEntity} from an catalog search response.
@@ -44,6 +44,7 @@ import fr.cnes.regards.modules.dam.domain.entities.feature.EntityFeature;
 import fr.cnes.regards.modules.indexer.dao.FacetPage;
 import fr.cnes.regards.modules.search.OpenSearchMediaType;
 import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHits;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.Configuration;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.EngineConfiguration;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.ParameterConfiguration;
@@ -86,7 +87,7 @@ public class AtomResponseBuilder implements IResponseBuilder<Feed> {
 
     @Override
     public void addMetadata(String searchId, EngineConfiguration engineConf, String openSearchDescriptionUrl,
-            SearchContext context, Configuration configuration, FacetPage<EntityFeature> page,
+            SearchContext context, Configuration configuration, FacetPage<EntityFeature> page, TotalHits totalHits,
             List<org.springframework.hateoas.Link> links) {
         // Fee general informations
         feed.setId(searchId);
@@ -116,7 +117,10 @@ public class AtomResponseBuilder implements IResponseBuilder<Feed> {
         OpenSearchModule osm = new OpenSearchModuleImpl();
         osm.setItemsPerPage(page.getSize());
         osm.setStartIndex((page.getNumber() * page.getSize()) + 1);
-        osm.setTotalResults((int) page.getTotalElements());
+        // Total results is optional in OpenSearch specification
+        if (totalHits.getRelation() != TotalHits.Relation.NONE) {
+            osm.setTotalResults((int) Math.min(totalHits.getValue(), Integer.MAX_VALUE));
+        }
 
         // Add the query from opensearch module
         OSQuery query = new OSQuery();
@@ -34,6 +34,7 @@ import fr.cnes.regards.framework.geojson.Query;
 import fr.cnes.regards.modules.dam.domain.entities.feature.EntityFeature;
 import fr.cnes.regards.modules.indexer.dao.FacetPage;
 import fr.cnes.regards.modules.search.domain.plugin.SearchContext;
+import fr.cnes.regards.modules.search.domain.plugin.TotalHits;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.Configuration;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.EngineConfiguration;
 import fr.cnes.regards.modules.search.service.engine.plugin.opensearch.ParameterConfiguration;
@@ -68,11 +69,12 @@ public class GeojsonResponseBuilder implements IResponseBuilder<FeatureWithPrope
 
     @Override
     public void addMetadata(String searchId, EngineConfiguration engineConf, String openSearchDescriptionUrl,
-            SearchContext context, Configuration configuration, FacetPage<EntityFeature> page, List<Link> links) {
+            SearchContext context, Configuration configuration, FacetPage<EntityFeature> page, TotalHits totalHits,
+            List<Link> links) {
         response.setId(searchId);
         response.setTitle(engineConf.getSearchTitle());
         response.setDescription(engineConf.getSearchDescription());
-        response.setPaginationInfos(page.getTotalElements(), page.getNumber() * page.getSize(), page.getSize());
+        response.setPaginationInfos(totalHits.getValue(), page.getNumber() * page.getSize(), page.getSize());
         Query query = new Query();
         context.getQueryParams().forEach((name, values) -> values.forEach(value -> query.addFilter(name, value)));
         query.addFilter("token", token);
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.search.domain.plugin.SearchCursor;
+import fr.cnes.regards.modules.search.service.utils.SampleDataUtils;
+
+/**
+ * Unit test for {@link SearchCursor}
+ * @author REGARDS Team
+ */
+public class SearchCursorTest {
+
+    private static final String TENANT = "cursor";
+
+    @Test
+    public void nextCursorKeepsLastSortValues() {
+        OffsetDateTime now = OffsetDateTime.now();
+        DataObject first = new DataObject(SampleDataUtils.DATAOBJET_MODEL, TENANT, "DO1", "DO1");
+        first.setCreationDate(now);
+        DataObject second = new DataObject(SampleDataUtils.DATAOBJET_MODEL, TENANT, "DO2", "DO2");
+        second.setCreationDate(now);
+
+        SearchCursor cursor = SearchCursor.parse(SearchCursor.START, 2);
+        Assert.assertTrue(cursor.isFirst());
+        SearchCursor next = cursor
+                .next(new PageImpl<>(Arrays.asList(first, second), PageRequest.of(0, 2), 5)).get();
+        Assert.assertFalse(next.isFirst());
+        Assert.assertEquals(second.getIpId().toString(), next.getLastIpId().get());
+
+        // Token round trip, page size of an opened cursor cannot be changed
+        SearchCursor parsed = SearchCursor.parse(next.encode(), 10);
+        Assert.assertEquals(2, parsed.getSize());
+        Assert.assertTrue(now.isEqual(parsed.getLastCreationDate().get()));
+        Assert.assertEquals(second.getIpId().toString(), parsed.getLastIpId().get());
+        Assert.assertTrue(cursor.getSnapshot().isEqual(parsed.getSnapshot()));
+
+        // Last page
+        Assert.assertFalse(next.next(new PageImpl<>(Arrays.asList(first), PageRequest.of(0, 2), 1)).isPresent());
+    }
+
+    @Test
+    public void invalidCursor() {
+        try {
+            SearchCursor.parse("not a cursor", 10);
+            Assert.fail("Cursor should be invalid");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid cursor not a cursor"));
+        }
+    }
+}
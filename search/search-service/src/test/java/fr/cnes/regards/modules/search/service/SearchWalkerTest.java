@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.dam.domain.entities.DataObject;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.service.utils.SampleDataUtils;
+
+/**
+ * Unit test for {@link SearchWalker}
+ * @author REGARDS Team
+ */
+public class SearchWalkerTest {
+
+    private static final String TENANT = "walker";
+
+    @Test
+    public void walkAllPages() throws IOException, SearchException {
+        IRuntimeTenantResolver tenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(tenantResolver.getTenant()).thenReturn(TENANT, (String) null);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        DataObject first = buildDataObject("DO1", now.minusMinutes(2));
+        DataObject second = buildDataObject("DO2", now.minusMinutes(1));
+        DataObject third = buildDataObject("DO3", now);
+
+        List<Page<DataObject>> pages = new ArrayList<>(
+                Arrays.asList(new PageImpl<>(Arrays.asList(first, second), PageRequest.of(0, 2), 3),
+                              new PageImpl<>(Arrays.asList(third), PageRequest.of(0, 2), 1)));
+        SearchWalker<DataObject> walker = new SearchWalker<>(tenantResolver, ICriterion.all(), Sort.unsorted(), 2,
+                (criterion, pageable) -> pages.remove(0));
+
+        List<DataObject> walked = new ArrayList<>();
+        long count = walker.walk(walked::add);
+
+        Assert.assertEquals(3, count);
+        Assert.assertEquals(Arrays.asList(first, second, third), walked);
+        Assert.assertTrue("All pages should have been fetched", pages.isEmpty());
+        // Tenant is forced during walk and cleared afterwards
+        Mockito.verify(tenantResolver).forceTenant(TENANT);
+        Mockito.verify(tenantResolver).clearTenant();
+    }
+
+    @Test
+    public void walkManyEntitiesWithSameCreationDate() throws IOException, SearchException {
+        IRuntimeTenantResolver tenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(tenantResolver.getTenant()).thenReturn(TENANT);
+
+        // Bulk ingestion gives the same creation date to many entities
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Page<DataObject>> pages = new ArrayList<>();
+        int pageSize = 500;
+        int total = 1_500;
+        for (int i = 0; i < total; i += pageSize) {
+            List<DataObject> content = new ArrayList<>();
+            for (int j = i; j < (i + pageSize); j++) {
+                content.add(buildDataObject("DO" + j, now));
+            }
+            pages.add(new PageImpl<>(content, PageRequest.of(0, pageSize), total - i));
+        }
+        SearchWalker<DataObject> walker = new SearchWalker<>(tenantResolver, ICriterion.all(), Sort.unsorted(),
+                pageSize, (criterion, pageable) -> pages.remove(0));
+
+        // More than 1000 entities sharing the same creation date can be walked
+        Assert.assertEquals(total, walker.walk(entity -> {
+        }));
+        Assert.assertTrue("All pages should have been fetched", pages.isEmpty());
+    }
+
+    private static DataObject buildDataObject(String label, OffsetDateTime creationDate) {
+        DataObject dataObject = new DataObject(SampleDataUtils.DATAOBJET_MODEL, TENANT, label, label);
+        dataObject.setCreationDate(creationDate);
+        return dataObject;
+    }
+}
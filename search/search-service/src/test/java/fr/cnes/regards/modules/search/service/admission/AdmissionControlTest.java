@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.admission;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Unit test for {@link AdmissionControl}
+ * @author REGARDS Team
+ */
+public class AdmissionControlTest {
+
+    private final IRuntimeTenantResolver tenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+
+    @SuppressWarnings("unchecked")
+    private final AdmissionControl admissionControl = new AdmissionControl(tenantResolver, true, true, 50, 10, 5, 10,
+            10, 1, 2, Mockito.mock(ObjectProvider.class));
+
+    @Test
+    public void shedTenantThenGlobal() throws AdmissionRejectedException {
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant1");
+        AdmissionPermit permit = admissionControl.acquire(SearchEndpointClass.EXPENSIVE);
+        assertRejected(HttpStatus.TOO_MANY_REQUESTS);
+
+        // Another tenant is not starved by the first one
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant2");
+        AdmissionPermit otherPermit = admissionControl.acquire(SearchEndpointClass.EXPENSIVE);
+
+        // But global limit is reached
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant3");
+        assertRejected(HttpStatus.SERVICE_UNAVAILABLE);
+
+        // Permits are given back
+        permit.close();
+        permit.close();
+        admissionControl.acquire(SearchEndpointClass.EXPENSIVE).close();
+        otherPermit.close();
+    }
+
+    @Test
+    public void entityNotLimited() throws AdmissionRejectedException {
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant1");
+        for (int i = 0; i < 100; i++) {
+            admissionControl.acquire(SearchEndpointClass.ENTITY);
+        }
+    }
+
+    /**
+     * In synchronous mode, waiting would block servlet threads : requests are rejected at once by default
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void noWaitingInSynchronousMode() throws AdmissionRejectedException {
+        AdmissionControl synchronous = new AdmissionControl(tenantResolver, true, false, -1, 10, 5, 10, 10, 1, 2,
+                Mockito.mock(ObjectProvider.class));
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant1");
+        try (AdmissionPermit permit = synchronous.acquire(SearchEndpointClass.EXPENSIVE)) {
+            long start = System.currentTimeMillis();
+            try {
+                synchronous.acquire(SearchEndpointClass.EXPENSIVE);
+                Assert.fail("Request should be rejected");
+            } catch (AdmissionRejectedException e) {
+                Assert.assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatus());
+            }
+            Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    private void assertRejected(HttpStatus status) {
+        try {
+            admissionControl.acquire(SearchEndpointClass.EXPENSIVE);
+            Assert.fail("Request should be rejected");
+        } catch (AdmissionRejectedException e) {
+            Assert.assertEquals(status, e.getStatus());
+            Assert.assertEquals(5, e.getRetryAfter());
+        }
+    }
+}
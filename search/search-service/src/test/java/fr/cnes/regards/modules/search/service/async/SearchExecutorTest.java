@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.search.service.SearchException;
+
+/**
+ * Unit test for {@link SearchExecutor}
+ * @author REGARDS Team
+ */
+public class SearchExecutorTest {
+
+    private final IRuntimeTenantResolver tenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+
+    private final SearchExecutor executor = new SearchExecutor(tenantResolver, true, 1000, 1, 1, false, 0);
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void propagateContext() throws Exception {
+        Authentication authentication = new TestingAuthenticationToken("user", "password");
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant");
+
+        Authentication taskAuthentication = executor
+                .submit(() -> SecurityContextHolder.getContext().getAuthentication()).get(1, TimeUnit.SECONDS);
+
+        Assert.assertSame(authentication, taskAuthentication);
+        Mockito.verify(tenantResolver).forceTenant("tenant");
+        Mockito.verify(tenantResolver).clearTenant();
+    }
+
+    @Test
+    public void forwardFailure() throws Exception {
+        try {
+            executor.submit(() -> {
+                throw new SearchException("failure");
+            }).get(1, TimeUnit.SECONDS);
+            Assert.fail("Task failure expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SearchException);
+        }
+    }
+
+    /**
+     * Request is completed as soon as the handler returns, task must still be able to build links from it.
+     */
+    @Test
+    public void requestSnapshot() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/engines/legacy/dataobjects/search");
+        request.setQueryString("q=test");
+        ServletRequestAttributes attributes = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(attributes);
+        CountDownLatch completed = new CountDownLatch(1);
+
+        CompletableFuture<String> future = executor.submit(() -> {
+            completed.await();
+            // Link builders cache values in request scope
+            RequestContextHolder.currentRequestAttributes().setAttribute("cache", "value",
+                                                                         RequestAttributes.SCOPE_REQUEST);
+            return ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString();
+        });
+        attributes.requestCompleted();
+        completed.countDown();
+
+        Assert.assertEquals("http://localhost/engines/legacy/dataobjects/search?q=test",
+                            future.get(1, TimeUnit.SECONDS));
+        Assert.assertNull(request.getAttribute("cache"));
+    }
+
+    @Test
+    public void cancelInterruptsRunningTask() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Boolean> future = executor.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        Assert.assertTrue(future.cancel(true));
+
+        Assert.assertTrue("Running task should be interrupted", interrupted.await(1, TimeUnit.SECONDS));
+        // Interruption must not leak to next pooled task
+        Assert.assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Thread per task mode (used by virtual threads) runs tasks beyond pool size but bounds running tasks. Platform
+     * threads stand for virtual threads so the test runs on any JDK.
+     */
+    @Test
+    public void threadPerTaskConcurrency() throws Exception {
+        int poolSize = 2;
+        int maxConcurrency = 10;
+        SearchExecutor perTask = new SearchExecutor(tenantResolver, true, 1000, poolSize, 0,
+                Optional.<ThreadFactory> of(Thread::new), maxConcurrency);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(maxConcurrency);
+        try {
+            Assert.assertTrue(perTask.isVirtual());
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < maxConcurrency; i++) {
+                futures.add(perTask.submit(() -> {
+                    started.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                }));
+            }
+            Assert.assertTrue("All tasks should run at once", started.await(5, TimeUnit.SECONDS));
+            try {
+                perTask.submit(() -> true);
+                Assert.fail("Task beyond max concurrency must be rejected");
+            } catch (TaskRejectedException e) {
+                // Expected
+            }
+            release.countDown();
+            for (CompletableFuture<Boolean> future : futures) {
+                Assert.assertTrue(future.get(5, TimeUnit.SECONDS));
+            }
+            // Permits are given back once tasks are done
+            Assert.assertTrue(perTask.submit(() -> true).get(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            perTask.shutdown();
+        }
+    }
+
+    /**
+     * Virtual threads fall back to the thread pool on JVMs without virtual threads.
+     */
+    @Test
+    public void virtualThreadsFallback() throws Exception {
+        SearchExecutor virtual = new SearchExecutor(tenantResolver, true, 1000, 1, 1, true, 1);
+        try {
+            Assert.assertEquals(VirtualThreads.factory("test-").isPresent(), virtual.isVirtual());
+            Assert.assertTrue(virtual.submit(() -> true).get(1, TimeUnit.SECONDS));
+        } finally {
+            virtual.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.facet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.indexer.domain.facet.IFacet;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.cache.searchresult.SearchResultCacheKey;
+
+/**
+ * Unit test for {@link FacetCache}
+ * @author REGARDS Team
+ */
+public class FacetCacheTest {
+
+    private static final String TENANT = "facets";
+
+    @SuppressWarnings("unchecked")
+    private final FacetCache cache = new FacetCache(10, 60, Mockito.mock(ObjectProvider.class));
+
+    @Test
+    public void eachRequestGetsItsOwnSet() {
+        Set<IFacet<?>> facets = new HashSet<>();
+        facets.add(Mockito.mock(IFacet.class));
+        cache.put(key(TENANT, Arrays.asList("group1", "group2")), facets);
+        // Cached set does not follow changes of the original one
+        facets.add(Mockito.mock(IFacet.class));
+
+        Set<IFacet<?>> cached = cache.get(key(TENANT, Arrays.asList("group2", "group1"))).get();
+        Assert.assertEquals(1, cached.size());
+        cached.clear();
+        Assert.assertEquals(1, cache.get(key(TENANT, Arrays.asList("group1", "group2"))).get().size());
+    }
+
+    @Test
+    public void differentGroupsMissAndInvalidateTenantOnly() {
+        SearchResultCacheKey key = key(TENANT, Collections.singletonList("group1"));
+        SearchResultCacheKey otherTenantKey = key("other", Collections.singletonList("group1"));
+        cache.put(key, Collections.emptySet());
+        cache.put(otherTenantKey, Collections.emptySet());
+        Assert.assertFalse(cache.get(key(TENANT, Collections.singletonList("group2"))).isPresent());
+
+        cache.invalidate(TENANT);
+
+        Assert.assertFalse(cache.get(key).isPresent());
+        Assert.assertTrue(cache.get(otherTenantKey).isPresent());
+    }
+
+    private static SearchResultCacheKey key(String tenant, Collection<String> groups) {
+        // Facets do not depend on pagination
+        return new SearchResultCacheKey(tenant, ICriterion.all(), SearchType.DATAOBJECTS,
+                Arrays.asList("facet1", "facet2"), null, groups);
+    }
+}
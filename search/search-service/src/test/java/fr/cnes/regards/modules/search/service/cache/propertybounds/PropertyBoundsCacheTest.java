@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertybounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.search.domain.PropertyBound;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+
+/**
+ * Unit test for {@link PropertyBoundsCache}
+ * @author REGARDS Team
+ */
+public class PropertyBoundsCacheTest {
+
+    private static final String TENANT = "bounds";
+
+    private static final UniformResourceName DATASET = UniformResourceName
+            .fromString("URN:AIP:DATASET:bounds:27de606c-a6cd-411f-a5ba-bd1b2f29c965:V1");
+
+    @SuppressWarnings("unchecked")
+    private final PropertyBoundsCache cache = new PropertyBoundsCache(10, 60, Mockito.mock(ObjectProvider.class));
+
+    @Test
+    public void sameRequestHitsReadOnlyBounds() {
+        List<PropertyBound<?>> bounds = new ArrayList<>();
+        bounds.add(new PropertyBound<>("altitude", 1, 10));
+        cache.put(new PropertyBoundsCacheKey(TENANT, SearchType.DATAOBJECTS, DATASET,
+                Arrays.asList("altitude", "title"), Arrays.asList("group1", "group2")), bounds);
+
+        // Keys do not depend on property and group order
+        List<PropertyBound<?>> cached = cache.get(new PropertyBoundsCacheKey(TENANT, SearchType.DATAOBJECTS, DATASET,
+                Arrays.asList("title", "altitude"), Arrays.asList("group2", "group1"))).get();
+        Assert.assertEquals(1, cached.size());
+        try {
+            cached.clear();
+            Assert.fail("Shared bounds must be read only");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void differentRequestsMissAndInvalidateTenantOnly() {
+        PropertyBoundsCacheKey key = key(TENANT, DATASET, Collections.singletonList("group1"));
+        PropertyBoundsCacheKey otherTenantKey = key("other", DATASET, Collections.singletonList("group1"));
+        cache.put(key, Collections.emptyList());
+        cache.put(otherTenantKey, Collections.emptyList());
+        Assert.assertFalse(cache.get(key(TENANT, DATASET, Collections.singletonList("group2"))).isPresent());
+        Assert.assertFalse(cache.get(key(TENANT, DATASET, null)).isPresent());
+        Assert.assertFalse(cache.get(key(TENANT, null, Collections.singletonList("group1"))).isPresent());
+
+        cache.invalidate(TENANT);
+
+        Assert.assertFalse(cache.get(key).isPresent());
+        Assert.assertTrue(cache.get(otherTenantKey).isPresent());
+    }
+
+    private static PropertyBoundsCacheKey key(String tenant, UniformResourceName dataset, List<String> groups) {
+        return new PropertyBoundsCacheKey(tenant, SearchType.DATAOBJECTS, dataset,
+                Collections.singletonList("altitude"), groups);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.propertyvalues;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link PropertyValuesDictionary}
+ * @author REGARDS Team
+ */
+public class PropertyValuesDictionaryTest {
+
+    @Test
+    public void lookupContains() {
+        PropertyValuesDictionary dictionary = PropertyValuesDictionary
+                .of(Arrays.asList("Venus", "Mars", "Jupiter", "Saturn", "Uranus", "Neptune", "Mars"), 10);
+        Assert.assertTrue(dictionary.isComplete());
+        Assert.assertEquals(Arrays.asList("Jupiter", "Mars", "Neptune"), dictionary.lookup(null, 3));
+        Assert.assertEquals(Arrays.asList("Jupiter", "Neptune"), dictionary.lookup("u", 2));
+        Assert.assertEquals(Arrays.asList("Uranus"), dictionary.lookup("Ura", 10));
+        Assert.assertTrue(dictionary.lookup("Pluto", 10).isEmpty());
+    }
+
+    @Test
+    public void lookupPrefixFirst() {
+        PropertyValuesDictionary dictionary = PropertyValuesDictionary.of(Arrays.asList("cab", "ab", "abc", "b"), 10);
+        Assert.assertEquals(Arrays.asList("ab", "abc", "cab"), dictionary.lookup("ab", 10));
+        Assert.assertEquals(Arrays.asList("b", "ab", "abc", "cab"), dictionary.lookup("b", 10));
+    }
+
+    @Test
+    public void highCardinality() {
+        PropertyValuesDictionary dictionary = PropertyValuesDictionary.of(Arrays.asList("a", "b", "c"), 2);
+        Assert.assertFalse(dictionary.isComplete());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.SearchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit test for {@link SearchCoalescer}
+ * @author REGARDS Team
+ */
+public class SearchCoalescerTest {
+
+    private static final SearchResultCacheKey KEY = new SearchResultCacheKey("coalescer", ICriterion.all(),
+            SearchType.DATAOBJECTS, null, PageRequest.of(0, 10), Collections.singletonList("group1"));
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final SearchCoalescer coalescer = new SearchCoalescer(true, provider(registry));
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void cleanUp() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10_000)
+    public void followerGetsCopy() throws Exception {
+        FacetPage<String> result = new FacetPage<>(new ArrayList<>(Collections.singletonList("entity")), null,
+                PageRequest.of(0, 10), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<FacetPage<String>> leader = executor.submit(() -> coalescer.execute(KEY, () -> {
+            started.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            return result;
+        }));
+        started.await();
+        Future<FacetPage<String>> follower = executor.submit(() -> coalescer.<String> execute(KEY, () -> {
+            throw new SearchException("Follower must not run the search");
+        }));
+        awaitFollower();
+        release.countDown();
+
+        Assert.assertSame(result, leader.get());
+        FacetPage<String> copy = follower.get();
+        Assert.assertNotSame(result, copy);
+        Assert.assertNotSame(result.getContent(), copy.getContent());
+        Assert.assertEquals(result.getContent(), copy.getContent());
+        Assert.assertEquals(result.getTotalElements(), copy.getTotalElements());
+    }
+
+    @Test(timeout = 10_000)
+    public void followerSeesLeaderException() throws Exception {
+        SearchException failure = new SearchException("Index unavailable");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<FacetPage<String>> leader = executor.submit(() -> coalescer.<String> execute(KEY, () -> {
+            started.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            throw failure;
+        }));
+        started.await();
+        Future<FacetPage<String>> follower = executor.submit(() -> coalescer.<String> execute(KEY, () -> {
+            throw new SearchException("Follower must not run the search");
+        }));
+        awaitFollower();
+        release.countDown();
+
+        for (Future<FacetPage<String>> future : Arrays.asList(leader, follower)) {
+            try {
+                future.get();
+                Assert.fail("Leader exception expected");
+            } catch (ExecutionException e) {
+                Assert.assertSame(failure, e.getCause());
+            }
+        }
+        // Nothing is kept once the search is done
+        FacetPage<String> next = coalescer.execute(KEY, () -> new FacetPage<>(new ArrayList<>(), null,
+                PageRequest.of(0, 10), 0));
+        Assert.assertEquals(0, next.getTotalElements());
+    }
+
+    /**
+     * Wait for the follower to join the running search
+     */
+    private void awaitFollower() throws InterruptedException {
+        while (registry.counter("search.coalesced").count() < 1) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<MeterRegistry> provider(MeterRegistry registry) {
+        ObjectProvider<MeterRegistry> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(registry);
+        return provider;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.searchresult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import fr.cnes.regards.modules.indexer.dao.FacetPage;
+import fr.cnes.regards.modules.indexer.domain.criterion.ICriterion;
+import fr.cnes.regards.modules.opensearch.service.cache.attributemodel.IAttributeFinder;
+import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchParseException;
+import fr.cnes.regards.modules.opensearch.service.exception.OpenSearchUnknownParameter;
+import fr.cnes.regards.modules.opensearch.service.parser.QueryParser;
+import fr.cnes.regards.modules.search.domain.plugin.SearchType;
+import fr.cnes.regards.modules.search.service.utils.SampleDataUtils;
+
+/**
+ * Unit test for {@link SearchResultCache} and {@link SearchResultCacheKey}
+ * @author REGARDS Team
+ */
+public class SearchResultCacheTest {
+
+    private static final String TENANT = "results";
+
+    private static final String QUERY = SampleDataUtils.STRING_FIELD + ":value AND " + SampleDataUtils.INTEGER_FIELD
+            + ":2";
+
+    @SuppressWarnings("unchecked")
+    private final SearchResultCache cache = new SearchResultCache(10, 60, Mockito.mock(ObjectProvider.class));
+
+    private final IAttributeFinder finder = Mockito.mock(IAttributeFinder.class);
+
+    @Before
+    public void init() throws OpenSearchUnknownParameter {
+        Mockito.when(finder.findByName(SampleDataUtils.STRING_FIELD))
+                .thenReturn(SampleDataUtils.STRING_ATTRIBUTE_MODEL);
+        Mockito.when(finder.findByName(SampleDataUtils.INTEGER_FIELD))
+                .thenReturn(SampleDataUtils.INTEGER_ATTRIBUTE_MODEL);
+    }
+
+    @Test
+    public void identicalRequestsShareKey() throws OpenSearchParseException {
+        // Same request parsed twice with different facet and group orders
+        SearchResultCacheKey key = new SearchResultCacheKey(TENANT, parse(QUERY), SearchType.DATAOBJECTS,
+                Arrays.asList("facet1", "facet2"), PageRequest.of(0, 10), Arrays.asList("group1", "group2"));
+        SearchResultCacheKey sameKey = new SearchResultCacheKey(TENANT, parse(QUERY), SearchType.DATAOBJECTS,
+                Arrays.asList("facet2", "facet1"), PageRequest.of(0, 10), Arrays.asList("group2", "group1"));
+        Assert.assertEquals(key, sameKey);
+        Assert.assertEquals(key.hashCode(), sameKey.hashCode());
+
+        FacetPage<?> page = page();
+        cache.put(key, page);
+        Assert.assertSame(page, cache.get(sameKey).get());
+    }
+
+    @Test
+    public void differentRequestsMiss() throws OpenSearchParseException {
+        ICriterion criterion = parse(QUERY);
+        cache.put(key(TENANT, criterion, Arrays.asList("group1", "group2")), page());
+
+        // Other access groups
+        Assert.assertFalse(cache.get(key(TENANT, criterion, Collections.singletonList("group1"))).isPresent());
+        Assert.assertFalse(cache.get(key(TENANT, criterion, Arrays.asList("group1", "group2", "group3")))
+                .isPresent());
+        // All rights
+        Assert.assertFalse(cache.get(key(TENANT, criterion, null)).isPresent());
+        // Other criterion
+        Assert.assertFalse(cache.get(key(TENANT, parse(SampleDataUtils.STRING_FIELD + ":other"),
+                                         Arrays.asList("group1", "group2")))
+                .isPresent());
+        // Other page
+        Assert.assertFalse(cache.get(new SearchResultCacheKey(TENANT, criterion, SearchType.DATAOBJECTS, null,
+                PageRequest.of(1, 10), Arrays.asList("group1", "group2"))).isPresent());
+    }
+
+    @Test
+    public void invalidateTenantOnly() throws OpenSearchParseException {
+        ICriterion criterion = parse(QUERY);
+        SearchResultCacheKey key = key(TENANT, criterion, Collections.singletonList("group1"));
+        SearchResultCacheKey otherTenantKey = key("other", criterion, Collections.singletonList("group1"));
+        cache.put(key, page());
+        cache.put(otherTenantKey, page());
+
+        cache.invalidate(TENANT);
+
+        Assert.assertFalse(cache.get(key).isPresent());
+        Assert.assertTrue(cache.get(otherTenantKey).isPresent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void disabledCacheKeepsNothing() throws OpenSearchParseException {
+        SearchResultCache disabled = new SearchResultCache(0, 60, Mockito.mock(ObjectProvider.class));
+        SearchResultCacheKey key = key(TENANT, parse(QUERY), null);
+        disabled.put(key, page());
+        Assert.assertFalse(disabled.isEnabled());
+        Assert.assertFalse(disabled.get(key).isPresent());
+    }
+
+    private ICriterion parse(String query) throws OpenSearchParseException {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("q", query);
+        return new QueryParser(finder).parse(params);
+    }
+
+    private static SearchResultCacheKey key(String tenant, ICriterion criterion, List<String> groups) {
+        return new SearchResultCacheKey(tenant, criterion, SearchType.DATAOBJECTS, null, PageRequest.of(0, 10),
+                groups);
+    }
+
+    private static FacetPage<?> page() {
+        return new FacetPage<>(new ArrayList<>(), null, PageRequest.of(0, 10), 0);
+    }
+}
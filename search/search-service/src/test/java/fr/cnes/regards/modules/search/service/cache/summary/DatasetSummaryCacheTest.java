@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.search.service.cache.summary;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import fr.cnes.regards.framework.urn.DataType;
+import fr.cnes.regards.framework.urn.UniformResourceName;
+import fr.cnes.regards.modules.indexer.domain.summary.DocFilesSummary;
+
+/**
+ * Unit test for {@link DatasetSummaryCache}
+ * @author REGARDS Team
+ */
+public class DatasetSummaryCacheTest {
+
+    private static final String TENANT = "summary";
+
+    private static final UniformResourceName DATASET1 = UniformResourceName
+            .fromString("URN:AIP:DATASET:summary:27de606c-a6cd-411f-a5ba-bd1b2f29c965:V1");
+
+    private static final UniformResourceName DATASET2 = UniformResourceName
+            .fromString("URN:AIP:DATASET:summary:4a1ce7c0-8b7c-4b5e-9a0f-3cbbd0c7e2a1:V1");
+
+    @SuppressWarnings("unchecked")
+    private final DatasetSummaryCache cache = new DatasetSummaryCache(10, 60, Mockito.mock(ObjectProvider.class));
+
+    @Test
+    public void invalidateAffectedDatasetsOnly() {
+        DatasetSummaryCacheKey catalogKey = key(TENANT, null);
+        DatasetSummaryCacheKey dataset1Key = key(TENANT, DATASET1);
+        DatasetSummaryCacheKey dataset2Key = key(TENANT, DATASET2);
+        DatasetSummaryCacheKey otherTenantKey = key("other", DATASET1);
+        for (DatasetSummaryCacheKey key : Arrays.asList(catalogKey, dataset1Key, dataset2Key, otherTenantKey)) {
+            cache.put(key, new DocFilesSummary());
+        }
+        // Keys do not depend on group order
+        Assert.assertTrue(cache.get(new DatasetSummaryCacheKey(TENANT, DATASET2, null,
+                Collections.singletonList(DataType.RAWDATA), Arrays.asList("group2", "group1"))).isPresent());
+
+        cache.invalidate(TENANT, Collections.singleton(DATASET1));
+
+        // Whole catalog summary always involves changed data
+        Assert.assertFalse(cache.get(catalogKey).isPresent());
+        Assert.assertFalse(cache.get(dataset1Key).isPresent());
+        Assert.assertTrue(cache.get(dataset2Key).isPresent());
+        Assert.assertTrue(cache.get(otherTenantKey).isPresent());
+    }
+
+    private static DatasetSummaryCacheKey key(String tenant, UniformResourceName selection) {
+        return new DatasetSummaryCacheKey(tenant, selection, null, Collections.singletonList(DataType.RAWDATA),
+                Arrays.asList("group1", "group2"));
+    }
+}